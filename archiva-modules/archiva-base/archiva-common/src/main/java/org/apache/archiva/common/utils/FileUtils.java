@@ -23,9 +23,11 @@
 
 import java.io.*;
 import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.Comparator;
 import java.util.Optional;
@@ -178,6 +180,49 @@ public Path resolveNonAbsolute(Path parent, String child) {
         }
     }
 
+    /**
+     * Places the content of the source file at the target path. If source and target are on the same filesystem,
+     * a hard link to the source file is created, otherwise the file is copied. The new file is created with a
+     * temporary name in the target directory and renamed to the target afterwards, so an existing target file
+     * is replaced atomically and is never modified in place.
+     *
+     * Hard linked files share their content. They must not be modified in place afterwards, otherwise the
+     * change is visible at both paths.
+     *
+     * @param source the file to link or copy
+     * @param target the target path. The parent directory must exist.
+     * @return <code>true</code>, if a link was created, <code>false</code>, if the file was copied
+     * @throws IOException if the file could neither be linked nor copied
+     */
+    public static boolean linkOrCopyFile(Path source, Path target) throws IOException {
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            return true;
+        }
+        Path tempFile = Files.createTempFile(target.toAbsolutePath().getParent(), "." + target.getFileName(), ".tmp");
+        boolean linked;
+        try {
+            Files.delete(tempFile);
+            try {
+                Files.createLink(tempFile, source);
+                linked = true;
+            } catch (UnsupportedOperationException | IOException e) {
+                // Different filesystem or no hard link support
+                log.debug("Could not link {} to {}, copying: {}", target, source, e.getMessage());
+                Files.copy(source, tempFile, StandardCopyOption.REPLACE_EXISTING);
+                linked = false;
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        return linked;
+    }
+
     public static void unzipFileEntry(ZipFile file, ZipEntry entry, Path destinationPath) throws IOException {
         InputStream is = file.getInputStream(entry);
         BufferedInputStream bis = new BufferedInputStream(is);
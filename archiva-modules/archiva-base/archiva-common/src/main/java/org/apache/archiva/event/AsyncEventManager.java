@@ -0,0 +1,383 @@
+package org.apache.archiva.event;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event manager that delivers the events asynchronously.
+ *
+ * Each registered handler has its own bounded queue. The events of a queue are delivered by a single
+ * task at a time, so that each handler receives the events in the order they were fired. Handlers that
+ * implement {@link BatchEventHandler} receive up to <code>batchSize</code> events with a single call.
+ *
+ * If the queue of a handler is full, {@link #fireEvent(Event)} blocks until the handler has processed
+ * events. How often this happened is available by {@link #getStatistics()} and is logged as warning.
+ * Handlers must not fire events to the same manager from their handle method, because this could block forever.
+ * The statistics of all queues are logged, when the manager is closed.
+ *
+ * @since 3.0
+ */
+public class AsyncEventManager implements EventSource, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncEventManager.class);
+
+    public static final int DEFAULT_QUEUE_SIZE = 1024;
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final ConcurrentHashMap<EventType<? extends Event>, Set<HandlerQueue>> handlerMap = new ConcurrentHashMap<>();
+
+    private final Object source;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final int queueSize;
+    private final int batchSize;
+
+    public AsyncEventManager(Object source) {
+        this(source, Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "archiva-event-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }), true, DEFAULT_QUEUE_SIZE, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new instance that uses the given executor for delivering events. The executor is not
+     * shut down by {@link #close()}.
+     *
+     * @param source the source of the events
+     * @param executor the executor that runs the delivery tasks
+     * @param queueSize the maximum number of queued events per handler
+     * @param batchSize the maximum number of events delivered to a {@link BatchEventHandler} at once
+     */
+    public AsyncEventManager(Object source, ExecutorService executor, int queueSize, int batchSize) {
+        this(source, executor, false, queueSize, batchSize);
+    }
+
+    private AsyncEventManager(Object source, ExecutorService executor, boolean ownExecutor, int queueSize, int batchSize) {
+        if (source==null) {
+            throw new IllegalArgumentException("The source may not be null");
+        }
+        if (queueSize<1 || batchSize<1) {
+            throw new IllegalArgumentException("Queue size and batch size must be greater than 0");
+        }
+        this.source = source;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.queueSize = queueSize;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public <T extends Event> void registerEventHandler(EventType<T> type, EventHandler<? super T> eventHandler) {
+        Set<HandlerQueue> handlers = handlerMap.computeIfAbsent(type, t -> new CopyOnWriteArraySet<>());
+        if (handlers.stream().noneMatch(q -> q.handler == eventHandler)) {
+            handlers.add(new HandlerQueue(eventHandler));
+        }
+    }
+
+    @Override
+    public <T extends Event> void unregisterEventHandler(EventType<T> type, EventHandler<? super T> eventHandler) {
+        if (handlerMap.containsKey(type)) {
+            handlerMap.get(type).removeIf(q -> q.handler == eventHandler);
+        }
+    }
+
+    /**
+     * Adds the event to the queues of all handlers registered for the event type or one of its super types.
+     * @param fireEvent the event
+     */
+    public void fireEvent(Event fireEvent) {
+        final EventType<? extends Event> type = fireEvent.getType();
+        Event event;
+        if (fireEvent.getSource()!=source) {
+            event = fireEvent.copyFor(source);
+        } else {
+            event = fireEvent;
+        }
+        for (EventType<? extends Event> handlerType : handlerMap.keySet()) {
+            if (EventType.isInstanceOf(type, handlerType)) {
+                for (HandlerQueue queue : handlerMap.get(handlerType)) {
+                    queue.offer(event);
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until all queued events are delivered.
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return <code>true</code>, if all queues are empty, <code>false</code> if the timeout elapsed before
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public boolean awaitEmpty(long timeout, TimeUnit unit) throws InterruptedException {
+        long end = System.nanoTime() + unit.toNanos(timeout);
+        while (handlerMap.values().stream().flatMap(Set::stream).anyMatch(HandlerQueue::isBusy)) {
+            if (System.nanoTime() > end) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current statistics of all handler queues.
+     * @return a list with an entry for each handler
+     */
+    public List<QueueStatistics> getStatistics() {
+        List<QueueStatistics> result = new ArrayList<>();
+        for (Set<HandlerQueue> queues : handlerMap.values()) {
+            for (HandlerQueue queue : queues) {
+                result.add(queue.getStatistics());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Delivers the remaining events and stops the executor, if it was created by this instance.
+     */
+    @Override
+    public void close() {
+        try {
+            if (!awaitEmpty(30, TimeUnit.SECONDS)) {
+                LOG.warn("Not all events were delivered before closing the event manager");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (QueueStatistics statistics : getStatistics()) {
+            LOG.info("Event queue statistics: {}", statistics);
+        }
+        if (ownExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The statistics of a single handler queue.
+     */
+    public static class QueueStatistics {
+        private final EventHandler<?> handler;
+        private final int size;
+        private final int capacity;
+        private final int highWaterMark;
+        private final long delivered;
+        private final long batches;
+        private final long blocked;
+        private final long dropped;
+        private final long failures;
+
+        QueueStatistics(EventHandler<?> handler, int size, int capacity, int highWaterMark, long delivered,
+                        long batches, long blocked, long dropped, long failures) {
+            this.handler = handler;
+            this.size = size;
+            this.capacity = capacity;
+            this.highWaterMark = highWaterMark;
+            this.delivered = delivered;
+            this.batches = batches;
+            this.blocked = blocked;
+            this.dropped = dropped;
+            this.failures = failures;
+        }
+
+        public EventHandler<?> getHandler() {
+            return handler;
+        }
+
+        /**
+         * @return the number of events that are currently queued
+         */
+        public int getSize() {
+            return size;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * @return the maximum number of events that were queued at the same time
+         */
+        public int getHighWaterMark() {
+            return highWaterMark;
+        }
+
+        public long getDelivered() {
+            return delivered;
+        }
+
+        /**
+         * @return the number of handler invocations
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        /**
+         * @return the number of times a caller had to wait, because the queue was full
+         */
+        public long getBlocked() {
+            return blocked;
+        }
+
+        /**
+         * @return the number of events that were not delivered, because the caller was interrupted while
+         * waiting for the queue or the delivery could not be scheduled
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * @return the number of handler invocations that threw an exception
+         */
+        public long getFailures() {
+            return failures;
+        }
+
+        @Override
+        public String toString() {
+            return "handler=" + handler + ", size=" + size + ", capacity=" + capacity + ", highWaterMark=" + highWaterMark
+                    + ", delivered=" + delivered + ", batches=" + batches + ", blocked=" + blocked
+                    + ", dropped=" + dropped + ", failures=" + failures;
+        }
+    }
+
+    private class HandlerQueue implements Runnable {
+        private final EventHandler handler;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final AtomicInteger highWaterMark = new AtomicInteger();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private final AtomicLong blocked = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+
+        HandlerQueue(EventHandler handler) {
+            this.handler = handler;
+        }
+
+        void offer(Event event) {
+            if (!queue.offer(event)) {
+                long count = blocked.incrementAndGet();
+                // logs the first and then every 100th time
+                if (count % 100 == 1) {
+                    LOG.warn("Event queue is full, the caller waits for the handler. {}", getStatistics());
+                }
+                schedule();
+                try {
+                    queue.put(event);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                    LOG.warn("Interrupted while waiting for the event queue. Event {} is not delivered.", event.getType());
+                    return;
+                }
+            }
+            highWaterMark.accumulateAndGet(queue.size(), Math::max);
+            schedule();
+        }
+
+        boolean isBusy() {
+            return scheduled.get() || !queue.isEmpty();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                    dropped.addAndGet(queue.size());
+                    queue.clear();
+                    LOG.error("Could not schedule event delivery, the queued events are dropped: {}", e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                List<Event> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+                queue.drainTo(batch, batchSize);
+                if (!batch.isEmpty()) {
+                    deliver(batch);
+                }
+            } finally {
+                scheduled.set(false);
+                if (!queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void deliver(List<Event> batch) {
+            if (handler instanceof BatchEventHandler) {
+                batches.incrementAndGet();
+                try {
+                    ((BatchEventHandler) handler).handleBatch(batch);
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                    LOG.error("An error occured during event handling: {}", e.getMessage(), e);
+                }
+            } else {
+                for (Event event : batch) {
+                    batches.incrementAndGet();
+                    try {
+                        handler.handle(event);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        LOG.error("An error occured during event handling: {}", e.getMessage(), e);
+                    }
+                }
+            }
+            delivered.addAndGet(batch.size());
+        }
+
+        QueueStatistics getStatistics() {
+            return new QueueStatistics(handler, queue.size(), queueSize, highWaterMark.get(), delivered.get(),
+                    batches.get(), blocked.get(), dropped.get(), failures.get());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.apache.archiva.event;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A handler that accepts a list of events at once. The {@link AsyncEventManager} delivers the queued
+ * events to handlers of this type in batches, which allows to process multiple events in a single
+ * transaction.
+ */
+public interface BatchEventHandler<T extends Event> extends EventHandler<T> {
+
+    /**
+     * Handles the given events. The events are in the order they were fired.
+     * @param events the list of events, never empty
+     */
+    void handleBatch(List<T> events);
+
+    @Override
+    default void handle(T event) {
+        handleBatch(Collections.singletonList(event));
+    }
+}
@@ -25,6 +25,7 @@
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,6 +34,7 @@
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -218,4 +220,32 @@ public void unzip() throws URISyntaxException, IOException {
         }
     }
 
+    @Test
+    public void testLinkOrCopyFile() throws IOException
+    {
+        Path td = Files.createTempDirectory( "FileUtilsTest" );
+        try
+        {
+            Path source = td.resolve( "source.jar" );
+            Files.write( source, "source content".getBytes( StandardCharsets.UTF_8 ) );
+            Path target = td.resolve( "target.jar" );
+            Files.write( target, "old content".getBytes( StandardCharsets.UTF_8 ) );
+
+            boolean linked = FileUtils.linkOrCopyFile( source, target );
+            assertEquals( "source content", new String( Files.readAllBytes( target ), StandardCharsets.UTF_8 ) );
+            assertEquals( "source content", new String( Files.readAllBytes( source ), StandardCharsets.UTF_8 ) );
+            assertEquals( linked, Files.isSameFile( source, target ) );
+            try ( Stream<Path> files = Files.list( td ) )
+            {
+                // no temporary files are left
+                assertEquals( 2, files.count( ) );
+            }
+            assertEquals( linked, FileUtils.linkOrCopyFile( source, target ) );
+        }
+        finally
+        {
+            FileUtils.deleteQuietly( td );
+        }
+    }
+
 }
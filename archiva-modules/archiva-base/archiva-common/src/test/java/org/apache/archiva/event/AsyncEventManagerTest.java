@@ -0,0 +1,179 @@
+package org.apache.archiva.event;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncEventManagerTest
+{
+    private EventType<Event> testType = new EventType<>( "TEST" );
+    private EventType<Event> otherType = new EventType<>( "OTHER" );
+
+    private static class TestBatchHandler implements BatchEventHandler<Event>
+    {
+        private final List<Event> eventList = Collections.synchronizedList( new ArrayList<>( ) );
+        private final List<Integer> batchSizes = Collections.synchronizedList( new ArrayList<>( ) );
+
+        @Override
+        public void handleBatch( List<Event> events )
+        {
+            batchSizes.add( events.size( ) );
+            eventList.addAll( events );
+        }
+    }
+
+    @Test
+    public void deliverInOrder( ) throws InterruptedException
+    {
+        try ( AsyncEventManager eventManager = new AsyncEventManager( this ) )
+        {
+            List<Event> received = Collections.synchronizedList( new ArrayList<>( ) );
+            TestBatchHandler batchHandler = new TestBatchHandler( );
+            eventManager.registerEventHandler( testType, received::add );
+            eventManager.registerEventHandler( Event.ANY, batchHandler );
+
+            List<Event> fired = new ArrayList<>( );
+            for ( int i = 0; i < 500; i++ )
+            {
+                Event event = new Event( i % 10 == 0 ? otherType : testType, this );
+                fired.add( event );
+                eventManager.fireEvent( event );
+            }
+            assertTrue( eventManager.awaitEmpty( 10, TimeUnit.SECONDS ) );
+
+            assertEquals( 450, received.size( ) );
+            assertEquals( fired, batchHandler.eventList );
+            assertTrue( batchHandler.batchSizes.stream( ).allMatch( s -> s <= AsyncEventManager.DEFAULT_BATCH_SIZE ) );
+            long delivered = eventManager.getStatistics( ).stream( ).mapToLong( AsyncEventManager.QueueStatistics::getDelivered ).sum( );
+            assertEquals( 950, delivered );
+        }
+    }
+
+    @Test
+    public void callerIsNotBlocked( ) throws InterruptedException
+    {
+        try ( AsyncEventManager eventManager = new AsyncEventManager( this ) )
+        {
+            CountDownLatch release = new CountDownLatch( 1 );
+            List<Event> received = Collections.synchronizedList( new ArrayList<>( ) );
+            eventManager.registerEventHandler( testType, event -> {
+                try
+                {
+                    release.await( 10, TimeUnit.SECONDS );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread( ).interrupt( );
+                }
+                received.add( event );
+            } );
+
+            // the handler waits, but the caller returns immediately
+            List<Event> fired = new ArrayList<>( );
+            long start = System.nanoTime( );
+            for ( int i = 0; i < 50; i++ )
+            {
+                Event event = new Event( testType, this );
+                fired.add( event );
+                eventManager.fireEvent( event );
+            }
+            long duration = TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) - start );
+            assertTrue( duration < 5000, "fireEvent waited for the handler: " + duration + "ms" );
+            assertTrue( received.isEmpty( ) );
+
+            release.countDown( );
+            assertTrue( eventManager.awaitEmpty( 10, TimeUnit.SECONDS ) );
+            assertEquals( fired, received );
+            AsyncEventManager.QueueStatistics statistics = eventManager.getStatistics( ).get( 0 );
+            assertEquals( 0, statistics.getBlocked( ) );
+            assertEquals( 0, statistics.getDropped( ) );
+            assertEquals( 50, statistics.getDelivered( ) );
+        }
+    }
+
+    @Test
+    public void unregisterEventHandler( ) throws InterruptedException
+    {
+        try ( AsyncEventManager eventManager = new AsyncEventManager( this ) )
+        {
+            TestBatchHandler handler = new TestBatchHandler( );
+            eventManager.registerEventHandler( testType, handler );
+            eventManager.unregisterEventHandler( testType, handler );
+            eventManager.fireEvent( new Event( testType, this ) );
+            assertTrue( eventManager.awaitEmpty( 10, TimeUnit.SECONDS ) );
+            assertEquals( 0, handler.eventList.size( ) );
+        }
+    }
+
+    @Test
+    public void backPressure( ) throws InterruptedException
+    {
+        ExecutorService executor = Executors.newSingleThreadExecutor( );
+        try ( AsyncEventManager eventManager = new AsyncEventManager( this, executor, 2, 10 ) )
+        {
+            CountDownLatch release = new CountDownLatch( 1 );
+            List<Event> received = Collections.synchronizedList( new ArrayList<>( ) );
+            eventManager.registerEventHandler( testType, event -> {
+                try
+                {
+                    release.await( 10, TimeUnit.SECONDS );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread( ).interrupt( );
+                }
+                received.add( event );
+            } );
+
+            Thread producer = new Thread( ( ) -> {
+                for ( int i = 0; i < 5; i++ )
+                {
+                    eventManager.fireEvent( new Event( testType, this ) );
+                }
+            } );
+            producer.start( );
+            producer.join( 200 );
+            assertTrue( producer.isAlive( ) );
+            release.countDown( );
+            producer.join( 10000 );
+            assertTrue( eventManager.awaitEmpty( 10, TimeUnit.SECONDS ) );
+
+            assertEquals( 5, received.size( ) );
+            AsyncEventManager.QueueStatistics statistics = eventManager.getStatistics( ).get( 0 );
+            assertTrue( statistics.getBlocked( ) > 0 );
+            assertEquals( 2, statistics.getHighWaterMark( ) );
+            assertEquals( 5, statistics.getDelivered( ) );
+        }
+        finally
+        {
+            executor.shutdown( );
+        }
+    }
+}
@@ -26,6 +26,7 @@
 import org.apache.archiva.consumers.AbstractMonitoredConsumer;
 import org.apache.archiva.consumers.ConsumerException;
 import org.apache.archiva.consumers.KnownRepositoryContentConsumer;
+import org.apache.archiva.metadata.audit.RepositoryListener;
 import org.apache.archiva.metadata.model.ArtifactMetadata;
 import org.apache.archiva.metadata.model.ProjectMetadata;
 import org.apache.archiva.metadata.model.ProjectVersionMetadata;
@@ -40,6 +41,7 @@
 import org.apache.archiva.repository.ManagedRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
@@ -50,7 +52,11 @@
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Take an artifact off of disk and put it into the metadata repository.
@@ -89,10 +95,36 @@
     @Named (value = "repositoryStorage#maven2")
     private RepositoryStorage repositoryStorage;
 
+    @Inject
+    @Autowired(required = false)
+    private List<RepositoryListener> listeners = new ArrayList<>();
+
     private static final Logger log = LoggerFactory.getLogger( ArchivaMetadataCreationConsumer.class );
 
     private String repoId;
 
+    /**
+     * Number of artifacts that are collected before they are written to the metadata repository.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    private final List<ArtifactMetadata> artifacts = new ArrayList<>( );
+
+    /**
+     * The projects of the collected artifacts, keyed by namespace and project id.
+     */
+    private final Map<String, ProjectMetadata> projects = new LinkedHashMap<>( );
+
+    /**
+     * The version metadata read for the collected artifacts, keyed like the projects.
+     */
+    private final Map<String, List<ProjectVersionMetadata>> versions = new LinkedHashMap<>( );
+
+    /**
+     * The project versions, whose POM has been read for the current batch.
+     */
+    private final Set<String> readVersions = new HashSet<>( );
+
     @Override
     public String getId()
     {
@@ -123,6 +155,7 @@ public void beginScan( ManagedRepository repo, Date whenGathered )
     {
         repoId = repo.getId();
         this.whenGathered = ZonedDateTime.ofInstant(whenGathered.toInstant(), ZoneId.of("GMT"));
+        clearBatch( );
     }
 
     @Override
@@ -136,16 +169,6 @@ public void beginScan( ManagedRepository repository, Date whenGathered, boolean
     public void processFile( String path )
         throws ConsumerException
     {
-
-        RepositorySession repositorySession = null;
-        try
-        {
-            repositorySession = repositorySessionFactory.createSession();
-        }
-        catch ( MetadataRepositoryException e )
-        {
-            e.printStackTrace( );
-        }
         try
         {
             // note that we do minimal processing including checksums and POM information for performance of
@@ -154,70 +177,117 @@ public void processFile( String path )
 
             ArtifactMetadata artifact = repositoryStorage.readArtifactMetadataFromPath( repoId, path );
 
-            ProjectMetadata project = new ProjectMetadata();
-            project.setNamespace( artifact.getNamespace() );
-            project.setId( artifact.getProject() );
-
-            String projectVersion = VersionUtil.getBaseVersion( artifact.getVersion() );
-
-            MetadataRepository metadataRepository = repositorySession.getRepository();
-
-            boolean createVersionMetadata = false;
-
-            // FIXME: maybe not too efficient since it may have already been read and stored for this artifact
-            ProjectVersionMetadata versionMetadata = null;
-            try
+            String projectKey = artifact.getNamespace() + ":" + artifact.getProject();
+            if ( !projects.containsKey( projectKey ) )
             {
-                ReadMetadataRequest readMetadataRequest =
-                    new ReadMetadataRequest().repositoryId( repoId ).namespace( artifact.getNamespace() ).projectId(
-                        artifact.getProject() ).projectVersion( projectVersion );
-                versionMetadata = repositoryStorage.readProjectVersionMetadata( readMetadataRequest );
-                createVersionMetadata = true;
+                ProjectMetadata project = new ProjectMetadata();
+                project.setNamespace( artifact.getNamespace() );
+                project.setId( artifact.getProject() );
+                projects.put( projectKey, project );
             }
-            catch ( RepositoryStorageMetadataNotFoundException e )
-            {
-                log.warn( "Missing or invalid POM for artifact:{} (repository:{}); creating empty metadata", path,
-                          repoId );
 
-                versionMetadata = new ProjectVersionMetadata();
-                versionMetadata.setId( projectVersion );
-                versionMetadata.setIncomplete( true );
-                createVersionMetadata = true;
-            }
-            catch ( RepositoryStorageMetadataInvalidException e )
+            String projectVersion = VersionUtil.getBaseVersion( artifact.getVersion() );
+
+            // the POM is read only once for all artifacts of a project version in the batch
+            if ( readVersions.add( projectKey + ":" + projectVersion ) )
             {
-                log.warn( "Error occurred resolving POM for artifact:{} (repository:{}); message: {}",
-                          new Object[]{ path, repoId, e.getMessage() } );
+                ProjectVersionMetadata versionMetadata = null;
+                try
+                {
+                    ReadMetadataRequest readMetadataRequest =
+                        new ReadMetadataRequest().repositoryId( repoId ).namespace( artifact.getNamespace() ).projectId(
+                            artifact.getProject() ).projectVersion( projectVersion );
+                    versionMetadata = repositoryStorage.readProjectVersionMetadata( readMetadataRequest );
+                }
+                catch ( RepositoryStorageMetadataNotFoundException e )
+                {
+                    log.warn( "Missing or invalid POM for artifact:{} (repository:{}); creating empty metadata", path,
+                              repoId );
+
+                    versionMetadata = new ProjectVersionMetadata();
+                    versionMetadata.setId( projectVersion );
+                    versionMetadata.setIncomplete( true );
+                }
+                catch ( RepositoryStorageMetadataInvalidException e )
+                {
+                    log.warn( "Error occurred resolving POM for artifact:{} (repository:{}); message: {}",
+                              new Object[]{ path, repoId, e.getMessage() } );
+                }
+                if ( versionMetadata != null )
+                {
+                    versions.computeIfAbsent( projectKey, k -> new ArrayList<>( ) ).add( versionMetadata );
+                }
             }
 
             // read the metadata and update it if it is newer or doesn't exist
             artifact.setWhenGathered( whenGathered );
-            metadataRepository.updateArtifact(repositorySession , repoId, project.getNamespace(), project.getId(),
-                projectVersion, artifact );
-            if ( createVersionMetadata )
-            {
-                metadataRepository.updateProjectVersion(repositorySession , repoId, project.getNamespace(),
-                    project.getId(), versionMetadata );
-            }
-            metadataRepository.updateProject(repositorySession , repoId, project );
-            repositorySession.save();
+            artifacts.add( artifact );
         }
-        catch ( MetadataRepositoryException e )
+        catch ( RepositoryStorageRuntimeException e )
         {
             log.warn(
-                "Error occurred persisting metadata for artifact:{} (repository:{}); message: {}" ,
+                "Error occurred persisting metadata for artifact:{} (repository:{}); message: {}",
                 path, repoId, e.getMessage(), e );
-            try {
-                repositorySession.revert();
-            } catch (MetadataSessionException ex) {
-                log.error("Reverting failed {}", ex.getMessage());
+        }
+
+        if ( artifacts.size() >= BATCH_SIZE )
+        {
+            storeBatch( );
+        }
+    }
+
+    /**
+     * Writes the collected artifacts, project versions and projects to the metadata repository with the batch
+     * methods and a single save, and notifies the listeners about the stored artifacts.
+     */
+    private void storeBatch( )
+        throws ConsumerException
+    {
+        if ( artifacts.isEmpty() )
+        {
+            clearBatch( );
+            return;
+        }
+        RepositorySession repositorySession = null;
+        try
+        {
+            repositorySession = repositorySessionFactory.createSession();
+        }
+        catch ( MetadataRepositoryException e )
+        {
+            clearBatch( );
+            throw new ConsumerException( e.getMessage(), e );
+        }
+        try
+        {
+            MetadataRepository metadataRepository = repositorySession.getRepository();
+
+            metadataRepository.updateArtifacts( repositorySession, repoId, artifacts );
+            for ( Map.Entry<String, ProjectMetadata> entry : projects.entrySet() )
+            {
+                ProjectMetadata project = entry.getValue();
+                List<ProjectVersionMetadata> projectVersions = versions.get( entry.getKey() );
+                if ( projectVersions != null )
+                {
+                    metadataRepository.updateProjectVersions( repositorySession, repoId, project.getNamespace(),
+                        project.getId(), projectVersions );
+                }
+                metadataRepository.updateProject( repositorySession, repoId, project );
+            }
+            repositorySession.save();
+            for ( ArtifactMetadata artifact : artifacts )
+            {
+                for ( RepositoryListener listener : listeners )
+                {
+                    listener.artifactStored( repositorySession, repoId, artifact );
+                }
             }
         }
-        catch ( RepositoryStorageRuntimeException e )
+        catch ( MetadataRepositoryException e )
         {
             log.warn(
-                "Error occurred persisting metadata for artifact:{} (repository:{}); message: {}",
-                path, repoId, e.getMessage(), e );
+                "Error occurred persisting metadata for {} artifacts (repository:{}); message: {}" ,
+                artifacts.size(), repoId, e.getMessage(), e );
             try {
                 repositorySession.revert();
             } catch (MetadataSessionException ex) {
@@ -227,10 +297,19 @@ public void processFile( String path )
             throw new ConsumerException(e.getMessage(), e);
         } finally
         {
+            clearBatch( );
             repositorySession.close();
         }
     }
 
+    private void clearBatch( )
+    {
+        artifacts.clear();
+        projects.clear();
+        versions.clear();
+        readVersions.clear();
+    }
+
     @Override
     public void processFile( String path, boolean executeOnEntireRepo )
         throws ConsumerException
@@ -241,7 +320,15 @@ public void processFile( String path, boolean executeOnEntireRepo )
     @Override
     public void completeScan()
     {
-        /* do nothing */
+        try
+        {
+            storeBatch( );
+        }
+        catch ( ConsumerException e )
+        {
+            log.error( "Could not store the metadata of the scanned artifacts (repository:{}): {}", repoId,
+                       e.getMessage(), e );
+        }
     }
 
     @Override
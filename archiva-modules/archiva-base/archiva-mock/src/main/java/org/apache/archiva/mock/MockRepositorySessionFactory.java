@@ -66,7 +66,8 @@ public void close()
             @Override
             public void save() throws MetadataSessionException
             {
-                // no op
+                // nothing to persist, only runs the after save actions
+                super.save();
             }
 
             @Override
@@ -111,6 +111,21 @@ StorageAsset fetchFromProxies( ManagedRepository repository, ItemSelector artifa
      */
     StorageAsset fetchFromProxies( ManagedRepository managedRepository, String path );
 
+    /**
+     * Tests, if the resource with the given path is available in the source repository or from one of its target
+     * repositories. Handlers should check the target repositories without downloading the resource. The default
+     * implementation fetches the resource.
+     *
+     * @param managedRepository the source repository to use. (must be a managed repository)
+     * @param path              the path of the resource
+     * @return true, if the resource is available
+     * @since 3.0
+     */
+    default boolean existsInProxies( ManagedRepository managedRepository, String path )
+    {
+        return managedRepository.getAsset( path ).exists() || fetchFromProxies( managedRepository, path ) != null;
+    }
+
     /**
      * Get the List of {@link ProxyConnector} objects of the source repository.
      *
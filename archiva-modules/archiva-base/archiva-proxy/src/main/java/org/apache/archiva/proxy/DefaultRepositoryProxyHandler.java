@@ -336,6 +336,64 @@ public StorageAsset fetchFromProxies( ManagedRepository repository, String path
         return null;
     }
 
+    /**
+     * Asks the target repositories for the resource, without downloading it. The white- and blacklists and the
+     * pre-download policies of the connectors are applied as for a transfer, so a remote repository is only
+     * asked, if the resource could be fetched from it.
+     */
+    @Override
+    public boolean existsInProxies( ManagedRepository repository, String path )
+    {
+        StorageAsset localFile = repository.getAsset( path );
+        if ( localFile.exists() )
+        {
+            return true;
+        }
+
+        Properties requestProperties = new Properties();
+        requestProperties.setProperty( "filetype", "resource" );
+        requestProperties.setProperty( "managedRepositoryId", repository.getId() );
+
+        for ( ProxyConnector connector : getProxyConnectors( repository ) )
+        {
+            if ( !connector.isEnabled() )
+            {
+                continue;
+            }
+
+            RemoteRepository targetRepository = connector.getTargetRepository();
+            requestProperties.setProperty( "remoteRepositoryId", targetRepository.getId() );
+            try
+            {
+                String url = getRemoteUrl( targetRepository, path );
+                requestProperties.setProperty( "url", url );
+                if ( ( CollectionUtils.isNotEmpty( connector.getWhitelist() )
+                    && !matchesPattern( path, connector.getWhitelist() ) )
+                    || matchesPattern( path, connector.getBlacklist() ) )
+                {
+                    continue;
+                }
+                validatePolicies( this.preDownloadPolicies, connector.getPolicies(), requestProperties, localFile );
+                if ( resourceExists( connector, targetRepository, path ) )
+                {
+                    log.debug( "Resource {} exists on repository \"{}\".", path, targetRepository.getId() );
+                    return true;
+                }
+            }
+            catch ( PolicyViolationException e )
+            {
+                log.debug( "Existence check of {} on repository \"{}\" not attempted: {}", path,
+                           targetRepository.getId(), e.getMessage() );
+            }
+            catch ( ProxyException e )
+            {
+                log.warn( "Existence check of {} on repository {} failed, continuing to next repository: {}", path,
+                          targetRepository.getId(), e.getMessage() );
+            }
+        }
+        return false;
+    }
+
     @Override
     public ProxyFetchResult fetchMetadataFromProxies( ManagedRepository repository, String rawLogicalPath )
     {
@@ -507,24 +565,7 @@ protected StorageAsset transferFile( ProxyConnector connector, RemoteRepository
                                          boolean executeConsumers )
         throws ProxyException, NotModifiedException
     {
-        String url = null;
-        try
-        {
-            url = remoteRepository.getLocation().toURL().toString();
-        }
-        catch ( MalformedURLException e )
-        {
-            throw new ProxyException( e.getMessage(), e );
-        }
-        if ( !url.endsWith( "/" ) )
-        {
-            url = url + "/";
-        }
-        if (remotePath.startsWith( "/" )) {
-            url = url + remotePath.substring( 1 );
-        } else {
-            url = url + remotePath;
-        }
+        String url = getRemoteUrl( remoteRepository, remotePath );
         requestProperties.setProperty( "url", url );
 
         // Is a whitelist defined?
@@ -634,6 +675,42 @@ protected abstract void transferResources( ProxyConnector connector, RemoteRepos
                                                StorageAsset tmpResource, StorageAsset[] checksumFiles, String url, String remotePath, StorageAsset resource, Path workingDirectory,
                                                ManagedRepository repository ) throws ProxyException;
 
+    /**
+     * Tests, if the resource exists on the remote repository, without transferring it.
+     *
+     * @param connector        the connector configuration to use.
+     * @param remoteRepository the remote repository to check.
+     * @param remotePath       the path in the remote repository to the resource.
+     * @return true, if the resource exists on the remote repository.
+     * @throws ProxyException if the remote repository could not be accessed.
+     */
+    protected abstract boolean resourceExists( ProxyConnector connector, RemoteRepository remoteRepository,
+                                               String remotePath ) throws ProxyException;
+
+    protected String getRemoteUrl( RemoteRepository remoteRepository, String remotePath )
+        throws ProxyException
+    {
+        String url = null;
+        try
+        {
+            url = remoteRepository.getLocation().toURL().toString();
+        }
+        catch ( MalformedURLException e )
+        {
+            throw new ProxyException( e.getMessage(), e );
+        }
+        if ( !url.endsWith( "/" ) )
+        {
+            url = url + "/";
+        }
+        if (remotePath.startsWith( "/" )) {
+            url = url + remotePath.substring( 1 );
+        } else {
+            url = url + remotePath;
+        }
+        return url;
+    }
+
     private void queueRepositoryTask(String repositoryId, StorageAsset localFile )
     {
         RepositoryTask task = new RepositoryTask();
@@ -34,6 +34,9 @@
 import org.w3c.dom.Element;
 
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
@@ -44,11 +47,20 @@
 
 /**
  * RepositoryMetadataWriter
+ *
+ * The metadata is written by a StAX stream writer. The DOM based writer can be used by setting the system
+ * property <code>archiva.metadata.dom</code> to <code>true</code>.
  */
 public class RepositoryMetadataWriter
 {
     private static final Logger log = LoggerFactory.getLogger(RepositoryMetadataWriter.class);
 
+    private static final String INDENT = "  ";
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance( );
+
+    private static final boolean STREAMING_ENABLED = !Boolean.getBoolean( "archiva.metadata.dom" );
+
     public static void write( ArchivaRepositoryMetadata metadata, StorageAsset outputFile )
         throws RepositoryMetadataException
     {
@@ -79,6 +91,115 @@ public static void write( ArchivaRepositoryMetadata metadata, StorageAsset outpu
 
     public static void write( ArchivaRepositoryMetadata metadata, Writer writer )
         throws RepositoryMetadataException
+    {
+        if ( STREAMING_ENABLED )
+        {
+            writeStream( metadata, writer );
+        }
+        else
+        {
+            writeDocument( metadata, writer );
+        }
+    }
+
+    /**
+     * Writes the metadata by using a StAX stream writer. The output is identical to
+     * the output of {@link #writeDocument(ArchivaRepositoryMetadata, Writer)}.
+     *
+     * @param metadata the metadata to write
+     * @param writer the writer, which is not closed by this method
+     * @throws RepositoryMetadataException if the data could not be written
+     */
+    public static void writeStream( ArchivaRepositoryMetadata metadata, Writer writer )
+        throws RepositoryMetadataException
+    {
+        try
+        {
+            // Writing the declaration directly, because the stream writer does not add a newline
+            writer.write( "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" );
+            XMLStreamWriter xml = OUTPUT_FACTORY.createXMLStreamWriter( writer );
+            if ( StringUtils.isBlank( metadata.getGroupId() ) && StringUtils.isBlank( metadata.getArtifactId() )
+                && StringUtils.isBlank( metadata.getVersion() ) && CollectionUtils.isEmpty( metadata.getPlugins() )
+                && !hasVersioning( metadata ) )
+            {
+                xml.writeEmptyElement( "metadata" );
+                xml.writeCharacters( "\n" );
+                xml.flush();
+                return;
+            }
+            xml.writeStartElement( "metadata" );
+
+            writeOptionalElementText( xml, 1, "groupId", metadata.getGroupId() );
+            writeOptionalElementText( xml, 1, "artifactId", metadata.getArtifactId() );
+            writeOptionalElementText( xml, 1, "version", metadata.getVersion() );
+
+            if ( CollectionUtils.isNotEmpty( metadata.getPlugins() ) )
+            {
+                writeStartElement( xml, 1, "plugins" );
+
+                List<Plugin> pluginList = metadata.getPlugins();
+                Collections.sort( pluginList, PluginComparator.INSTANCE );
+
+                for ( Plugin plugin : metadata.getPlugins() )
+                {
+                    writeStartElement( xml, 2, "plugin" );
+                    writeElementText( xml, 3, "prefix", plugin.getPrefix() );
+                    writeElementText( xml, 3, "artifactId", plugin.getArtifactId() );
+                    writeOptionalElementText( xml, 3, "name", plugin.getName() );
+                    writeEndElement( xml, 2 );
+                }
+                writeEndElement( xml, 1 );
+            }
+
+            if ( hasVersioning( metadata ) )
+            {
+                writeStartElement( xml, 1, "versioning" );
+
+                writeOptionalElementText( xml, 2, "latest", metadata.getLatestVersion() );
+                writeOptionalElementText( xml, 2, "release", metadata.getReleasedVersion() );
+
+                if ( metadata.getSnapshotVersion() != null )
+                {
+                    writeStartElement( xml, 2, "snapshot" );
+                    String bnum = String.valueOf( metadata.getSnapshotVersion().getBuildNumber() );
+                    writeOptionalElementText( xml, 3, "buildNumber", bnum );
+                    writeOptionalElementText( xml, 3, "timestamp", metadata.getSnapshotVersion().getTimestamp() );
+                    writeEndElement( xml, 2 );
+                }
+
+                if ( CollectionUtils.isNotEmpty( metadata.getAvailableVersions() ) )
+                {
+                    writeStartElement( xml, 2, "versions" );
+                    for ( String version : metadata.getAvailableVersions() )
+                    {
+                        writeElementText( xml, 3, "version", version );
+                    }
+                    writeEndElement( xml, 2 );
+                }
+
+                writeOptionalElementText( xml, 2, "lastUpdated", metadata.getLastUpdated() );
+                writeEndElement( xml, 1 );
+            }
+
+            writeEndElement( xml, 0 );
+            xml.writeCharacters( "\n" );
+            xml.flush();
+        }
+        catch ( XMLStreamException | IOException e )
+        {
+            throw new RepositoryMetadataException( "Unable to write xml contents to writer: " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * Writes the metadata by creating a DOM document.
+     *
+     * @param metadata the metadata to write
+     * @param writer the writer, which is not closed by this method
+     * @throws RepositoryMetadataException if the data could not be written
+     */
+    public static void writeDocument( ArchivaRepositoryMetadata metadata, Writer writer )
+        throws RepositoryMetadataException
     {
         Document doc = null;
         try {
@@ -110,11 +231,7 @@ public static void write( ArchivaRepositoryMetadata metadata, Writer writer )
             }
         }
 
-        if ( CollectionUtils.isNotEmpty( metadata.getAvailableVersions() ) //
-            || StringUtils.isNotBlank( metadata.getReleasedVersion() ) //
-            || StringUtils.isNotBlank( metadata.getLatestVersion() ) //
-            || StringUtils.isNotBlank( metadata.getLastUpdated() ) //
-            || ( metadata.getSnapshotVersion() != null ) )
+        if ( hasVersioning( metadata ) )
         {
             Element versioning = XmlUtil.addChild(root, "versioning" );
 
@@ -153,6 +270,61 @@ public static void write( ArchivaRepositoryMetadata metadata, Writer writer )
         }
     }
 
+    private static boolean hasVersioning( ArchivaRepositoryMetadata metadata )
+    {
+        return CollectionUtils.isNotEmpty( metadata.getAvailableVersions() ) //
+            || StringUtils.isNotBlank( metadata.getReleasedVersion() ) //
+            || StringUtils.isNotBlank( metadata.getLatestVersion() ) //
+            || StringUtils.isNotBlank( metadata.getLastUpdated() ) //
+            || ( metadata.getSnapshotVersion() != null );
+    }
+
+    private static void writeIndent( XMLStreamWriter xml, int level )
+        throws XMLStreamException
+    {
+        xml.writeCharacters( "\n" );
+        for ( int i = 0; i < level; i++ )
+        {
+            xml.writeCharacters( INDENT );
+        }
+    }
+
+    private static void writeStartElement( XMLStreamWriter xml, int level, String elemName )
+        throws XMLStreamException
+    {
+        writeIndent( xml, level );
+        xml.writeStartElement( elemName );
+    }
+
+    private static void writeEndElement( XMLStreamWriter xml, int level )
+        throws XMLStreamException
+    {
+        writeIndent( xml, level );
+        xml.writeEndElement();
+    }
+
+    private static void writeElementText( XMLStreamWriter xml, int level, String elemName, String text )
+        throws XMLStreamException
+    {
+        writeIndent( xml, level );
+        xml.writeStartElement( elemName );
+        if ( text != null )
+        {
+            xml.writeCharacters( text );
+        }
+        xml.writeEndElement();
+    }
+
+    private static void writeOptionalElementText( XMLStreamWriter xml, int level, String elemName, String text )
+        throws XMLStreamException
+    {
+        if ( StringUtils.isBlank( text ) )
+        {
+            return;
+        }
+        writeElementText( xml, level, elemName, text );
+    }
+
     private static void addOptionalElementText( Element elem, String elemName, String text )
     {
         if ( StringUtils.isBlank( text ) )
@@ -190,4 +190,12 @@
      * @return
      */
     StorageAsset resolve(String toPath);
+
+    /**
+     * Discards the attributes (type, size, modification time) that the implementation may have stored with
+     * the asset, e.g. when the asset was returned by {@link #list()}. The next access reads them again from
+     * the underlying storage. The default implementation does nothing.
+     */
+    default void refresh() {
+    }
 }
@@ -37,7 +37,6 @@
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Implementation of an asset that is stored on the filesystem.
@@ -93,6 +92,12 @@ public class FilesystemAsset implements StorageAsset, Comparable {
 
     boolean directoryHint = false;
 
+    /**
+     * The attributes read when the asset was listed. If set, they are used instead of reading the
+     * attributes for each call.
+     */
+    private volatile BasicFileAttributes attributes;
+
     private static final OpenOption[] REPLACE_OPTIONS = new OpenOption[]{StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.CREATE};
     private static final OpenOption[] APPEND_OPTIONS = new OpenOption[]{StandardOpenOption.APPEND};
 
@@ -236,12 +241,37 @@ public String getName() {
 
     @Override
     public Instant getModificationTime() {
-        try {
-            return Files.getLastModifiedTime(assetPath).toInstant();
-        } catch (IOException e) {
+        BasicFileAttributes attrs = readAttributes();
+        if (attrs == null) {
             log.error("Could not read modification time of {}", assetPath);
             return Instant.now();
         }
+        return attrs.lastModifiedTime().toInstant();
+    }
+
+    /**
+     * Returns the attributes stored by {@link #list()}, or reads them from the filesystem.
+     *
+     * @return The attributes, or <code>null</code>, if the file does not exist or cannot be read.
+     */
+    private BasicFileAttributes readAttributes() {
+        BasicFileAttributes attrs = this.attributes;
+        if (attrs != null) {
+            return attrs;
+        }
+        try {
+            return Files.readAttributes(assetPath, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Discards the attributes that were read when the asset was listed.
+     */
+    @Override
+    public void refresh() {
+        this.attributes = null;
     }
 
     /**
@@ -251,8 +281,9 @@ public Instant getModificationTime() {
      */
     @Override
     public boolean isContainer() {
-        if (Files.exists(assetPath)) {
-            return Files.isDirectory(assetPath);
+        BasicFileAttributes attrs = readAttributes();
+        if (attrs != null) {
+            return attrs.isDirectory();
         } else {
             return directoryHint;
         }
@@ -261,8 +292,9 @@ public boolean isContainer() {
     @Override
     public boolean isLeaf( )
     {
-        if (Files.exists( assetPath )) {
-            return Files.isRegularFile( assetPath );
+        BasicFileAttributes attrs = readAttributes();
+        if (attrs != null) {
+            return attrs.isRegularFile();
         } else {
             return !directoryHint;
         }
@@ -271,15 +303,29 @@ public boolean isLeaf( )
     /**
      * Returns the list of directory entries, if this asset represents a directory.
      * Otherwise a empty list will be returned.
+     * <p>
+     * The attributes of each entry are read once while listing and are kept with the returned assets, so
+     * {@link #isContainer()}, {@link #isLeaf()}, {@link #getSize()} and {@link #getModificationTime()} do not
+     * access the filesystem again. Modifications by the asset or the storage discard them, for other changes
+     * {@link #refresh()} must be called.
      *
      * @return The list of entries in the directory, if it exists.
      */
     @Override
     public List<StorageAsset> list() {
-        try {
-            return Files.list(assetPath).map(p -> new FilesystemAsset(storage, relativePath + "/" + p.getFileName().toString(), assetPath.resolve(p), this.basePath))
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
+        List<StorageAsset> children = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(assetPath)) {
+            for (Path p : stream) {
+                FilesystemAsset child = new FilesystemAsset(storage, relativePath + "/" + p.getFileName().toString(), assetPath.resolve(p), this.basePath);
+                try {
+                    child.attributes = Files.readAttributes(p, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    // Removed while listing, the attributes are read on access
+                }
+                children.add(child);
+            }
+            return children;
+        } catch (IOException | DirectoryIteratorException e) {
             return Collections.EMPTY_LIST;
         }
     }
@@ -291,11 +337,8 @@ public List<StorageAsset> list() {
      */
     @Override
     public long getSize() {
-        try {
-            return Files.size(assetPath);
-        } catch (IOException e) {
-            return -1;
-        }
+        BasicFileAttributes attrs = readAttributes();
+        return attrs == null ? -1 : attrs.size();
     }
 
     /**
@@ -326,6 +369,7 @@ private OpenOption[] getOpenOptions(boolean replace) {
     @Override
     public OutputStream getWriteStream( boolean replace) throws IOException {
         OpenOption[] options = getOpenOptions( replace );
+        refresh();
         if (!Files.exists( assetPath )) {
             create();
         }
@@ -336,11 +380,13 @@ public OutputStream getWriteStream( boolean replace) throws IOException {
     public WritableByteChannel getWriteChannel( boolean replace ) throws IOException
     {
         OpenOption[] options = getOpenOptions( replace );
+        refresh();
         return FileChannel.open( assetPath, options );
     }
 
     @Override
     public boolean replaceDataFromFile( Path newData) throws IOException {
+        refresh();
         final boolean createNew = !Files.exists(assetPath);
         Path backup = null;
         if (!createNew) {
@@ -490,6 +536,7 @@ public Set<PosixFilePermission> getDefaultPosixDirectoryPermissions() {
 
     @Override
     public void create() throws IOException {
+        refresh();
         if (!Files.exists(assetPath)) {
             if (directoryHint) {
                 Files.createDirectories(assetPath);
@@ -135,6 +135,7 @@ public void consumeDataFromChannel( StorageAsset asset, Consumer<ReadableByteCha
     public void writeData( StorageAsset asset, Consumer<OutputStream> consumerFunction, boolean writeLock ) throws IOException
     {
         final Path path = asset.getFilePath();
+        asset.refresh();
         try {
             if (writeLock) {
                 writeDataLocked( path, consumerFunction );
@@ -162,6 +163,7 @@ public void writeData( StorageAsset asset, Consumer<OutputStream> consumerFuncti
     public void writeDataToChannel( StorageAsset asset, Consumer<WritableByteChannel> consumerFunction, boolean writeLock ) throws IOException
     {
         final Path path = asset.getFilePath();
+        asset.refresh();
         try {
             if (writeLock) {
                 writeDataToChannelLocked( path, consumerFunction );
@@ -346,6 +348,7 @@ public StorageAsset addAsset( String path, boolean container )
     @Override
     public void removeAsset( StorageAsset asset ) throws IOException
     {
+        asset.refresh();
         Files.delete(asset.getFilePath());
     }
 
@@ -367,6 +370,8 @@ public void moveAsset( StorageAsset origin, StorageAsset destination, CopyOption
         if (destination.getStorage()!=this) {
             throw new IOException("The destination asset does not belong to this storage instance. Cannot copy between different storage instances.");
         }
+        origin.refresh();
+        destination.refresh();
         Files.move(origin.getFilePath(), destination.getFilePath(), copyOptions);
     }
 
@@ -389,6 +394,7 @@ public void copyAsset( StorageAsset origin, StorageAsset destination, CopyOption
             throw new IOException("The destination asset does not belong to this storage instance. Cannot copy between different storage instances.");
         }
         Path destinationPath = destination.getFilePath();
+        destination.refresh();
         boolean overwrite = false;
         for (int i=0; i<copyOptions.length; i++) {
             if (copyOptions[i].equals( StandardCopyOption.REPLACE_EXISTING )) {
@@ -19,6 +19,7 @@
  */
 
 import org.apache.archiva.common.filelock.DefaultFileLockManager;
+import org.apache.archiva.repository.storage.StorageAsset;
 import org.apache.archiva.repository.storage.fs.FilesystemAsset;
 import org.apache.archiva.repository.storage.fs.FilesystemStorage;
 import org.apache.commons.io.FileUtils;
@@ -110,6 +111,20 @@ public void list() throws IOException {
 
     }
 
+    @Test
+    public void listKeepsAttributes() throws IOException {
+        FilesystemAsset dir = new FilesystemAsset(filesystemStorage, "/", assetPathDir);
+        StorageAsset child = dir.list().stream().filter(p -> p.getName().equals(assetPathFile.getFileName().toString()))
+            .findFirst().get();
+        Assert.assertTrue(child.isLeaf());
+        Assert.assertEquals(0, child.getSize());
+
+        Files.write(assetPathFile, "abcdef".getBytes("ASCII"));
+        Assert.assertEquals(0, child.getSize());
+        child.refresh();
+        Assert.assertEquals(6, child.getSize());
+    }
+
     @Test
     public void getSize() throws IOException {
         FilesystemAsset asset = new FilesystemAsset(filesystemStorage, "/test1234", assetPathFile);
@@ -28,6 +28,7 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -134,16 +135,31 @@ protected void revertFilesCreated()
         }
     }
 
+    /**
+     * Moves the file to a backup file in the same directory. The backup is restored by renaming it, so no
+     * copy of the file content is needed. If the file cannot be renamed, it is copied to a temporary file.
+     *
+     * @param file the file to backup
+     * @throws IOException if the backup could not be created
+     */
     protected void createBackup( Path file )
         throws IOException
     {
-        if ( Files.exists(file) && Files.isRegularFile(file) )
+        if ( Files.exists(file) && Files.isRegularFile(file) && !backups.containsKey( file ) )
         {
-            Path backup = Files.createTempFile( "temp-", ".backup" );
+            Path backup = file.resolveSibling( "." + file.getFileName() + ".backup-" + System.nanoTime() );
+            try
+            {
+                Files.move( file, backup, StandardCopyOption.ATOMIC_MOVE );
+            }
+            catch ( IOException e )
+            {
+                backup = Files.createTempFile( "temp-", ".backup" );
 
-            FileUtils.copyFile( file.toFile(), backup.toFile() );
+                FileUtils.copyFile( file.toFile(), backup.toFile() );
 
-            backup.toFile().deleteOnExit();
+                backup.toFile().deleteOnExit();
+            }
 
             backups.put( file, backup );
         }
@@ -152,19 +168,68 @@ protected void createBackup( Path file )
     protected void restoreBackups()
         throws IOException
     {
-        for ( Map.Entry<Path, Path> entry : backups.entrySet() )
+        Iterator<Map.Entry<Path, Path>> it = backups.entrySet().iterator();
+        while ( it.hasNext() )
         {
-            FileUtils.copyFile( entry.getValue().toFile(), entry.getKey().toFile() );
+            Map.Entry<Path, Path> entry = it.next();
+            restoreBackup( entry.getKey(), entry.getValue() );
+            it.remove();
         }
     }
 
     protected void restoreBackup( Path file )
         throws IOException
     {
-        Path backup = backups.get( file );
+        Path backup = backups.remove( file );
         if ( backup != null )
         {
-            FileUtils.copyFile( backup.toFile(), file.toFile() );
+            restoreBackup( file, backup );
+        }
+    }
+
+    private void restoreBackup( Path file, Path backup )
+        throws IOException
+    {
+        Files.move( backup, file, StandardCopyOption.REPLACE_EXISTING );
+    }
+
+    /**
+     * Reverts the changes of a commit that failed after the backup of the destination was created. The transaction
+     * only rolls back the events that were committed successfully, so without this the original destination
+     * would remain in its backup file.
+     *
+     * @param cause the error of the commit, errors of the rollback are added as suppressed exceptions
+     */
+    protected void rollbackFailedCommit( IOException cause )
+    {
+        try
+        {
+            rollback();
+        }
+        catch ( IOException e )
+        {
+            cause.addSuppressed( e );
+        }
+    }
+
+    /**
+     * Removes the backup files after the transaction has been committed.
+     */
+    protected void deleteBackups()
+    {
+        Iterator<Path> it = backups.values().iterator();
+        while ( it.hasNext() )
+        {
+            Path backup = it.next();
+            try
+            {
+                Files.deleteIfExists( backup );
+            }
+            catch ( IOException e )
+            {
+                // ignored, the backup is a hidden file
+            }
+            it.remove();
         }
     }
 
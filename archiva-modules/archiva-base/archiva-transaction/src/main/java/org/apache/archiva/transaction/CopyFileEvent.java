@@ -40,6 +40,8 @@
 
     private final Path destination;
 
+    private final boolean link;
+
     /**
      * 
      * @param source
@@ -47,10 +49,23 @@
      * @param checksumAlgorithms The checksum algorithms
      */
     public CopyFileEvent( Path source, Path destination, List<ChecksumAlgorithm> checksumAlgorithms )
+    {
+        this( source, destination, checksumAlgorithms, false );
+    }
+
+    /**
+     *
+     * @param source
+     * @param destination
+     * @param checksumAlgorithms The checksum algorithms
+     * @param link <code>true</code>, if the destination should be a hard link to the source, if possible
+     */
+    public CopyFileEvent( Path source, Path destination, List<ChecksumAlgorithm> checksumAlgorithms, boolean link )
     {
         super( checksumAlgorithms );
         this.source = source;
         this.destination = destination;
+        this.link = link;
     }
 
     @Override
@@ -59,14 +74,29 @@ public void commit()
     {
         createBackup( destination );
 
-        mkDirs( destination.getParent() );
+        try
+        {
+            mkDirs( destination.getParent() );
 
-        FileUtils.copyFile( source.toFile(), destination.toFile() );
+            if ( link )
+            {
+                org.apache.archiva.common.utils.FileUtils.linkOrCopyFile( source, destination );
+            }
+            else
+            {
+                FileUtils.copyFile( source.toFile(), destination.toFile() );
+            }
 
-        createChecksums( destination, true );
-        copyChecksums();
+            createChecksums( destination, true );
+            copyChecksums();
 
-        copyChecksum( "asc" );
+            copyChecksum( "asc" );
+        }
+        catch ( IOException e )
+        {
+            rollbackFailedCommit( e );
+            throw e;
+        }
     }
 
     /**
@@ -57,16 +57,24 @@ public void commit()
     {
         createBackup( destination );
 
-        mkDirs( destination.getParent() );
-
-        if ( !Files.exists(destination))
+        try
         {
-            Files.createFile(destination);
-        }
+            mkDirs( destination.getParent() );
+
+            if ( !Files.exists(destination))
+            {
+                Files.createFile(destination);
+            }
 
-        writeStringToFile( destination, content );
+            writeStringToFile( destination, content );
 
-        createChecksums( destination, true );
+            createChecksums( destination, true );
+        }
+        catch ( IOException e )
+        {
+            rollbackFailedCommit( e );
+            throw e;
+        }
     }
 
     @Override
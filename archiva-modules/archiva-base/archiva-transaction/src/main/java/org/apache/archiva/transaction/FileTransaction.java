@@ -63,6 +63,11 @@ public void commit()
                 }
             }
         }
+
+        for ( AbstractTransactionEvent event : events )
+        {
+            event.deleteBackups();
+        }
     }
 
     private void rollback( List<TransactionEvent> toRollback )
@@ -84,6 +89,20 @@ public void copyFile(Path source, Path destination, List<ChecksumAlgorithm> chec
         events.add( new CopyFileEvent( source, destination, checksumAlgorithms ) );
     }
 
+    /**
+     * Adds a copy of the source file, that is created as hard link, if source and destination are on the
+     * same filesystem. This avoids copying the content of large files. The destination must not be modified
+     * in place afterwards.
+     *
+     * @param source
+     * @param destination
+     * @param checksumAlgorithms   The checksum algorithms
+     */
+    public void linkFile( Path source, Path destination, List<ChecksumAlgorithm> checksumAlgorithms )
+    {
+        events.add( new CopyFileEvent( source, destination, checksumAlgorithms, true ) );
+    }
+
     /**
      * @param content
      * @param destination
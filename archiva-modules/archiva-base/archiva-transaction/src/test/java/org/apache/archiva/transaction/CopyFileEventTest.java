@@ -27,6 +27,7 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.stream.Stream;
 
 /**
  */
@@ -133,6 +134,62 @@ public void testCopyCommitRollbackWithBackup()
         assertChecksumRollback( testDest );
     }
 
+    @Test
+    public void testLinkCommitRollbackWithBackup()
+        throws Exception
+    {
+        Files.createDirectories(testDest.getParent());
+
+        Files.createFile(testDest);
+
+        writeFile( testDest, "overwritten contents" );
+
+        CopyFileEvent event = new CopyFileEvent( testSource, testDest, checksumAlgorithms, true );
+
+        event.commit();
+
+        String target = readFile( testDest );
+
+        assertTrue( "Test that the destination contents are linked correctly", source.equals( target ) );
+
+        assertChecksumCommit( testDest );
+
+        event.rollback();
+
+        target = readFile( testDest );
+
+        assertTrue( "Test the destination file contents have been restored", target.equals( "overwritten contents" ) );
+
+        assertEquals( "Test that the source contents are unchanged", source, readFile( testSource ) );
+
+        assertChecksumRollback( testDest );
+    }
+
+    @Test
+    public void testTransactionCommitRemovesBackups()
+        throws Exception
+    {
+        Files.createDirectories(testDest.getParent());
+
+        Files.createFile(testDest);
+
+        writeFile( testDest, "overwritten contents" );
+
+        FileTransaction transaction = new FileTransaction();
+
+        transaction.linkFile( testSource, testDest, checksumAlgorithms );
+
+        transaction.commit();
+
+        assertEquals( "Test that the destination contents are linked correctly", source, readFile( testDest ) );
+
+        try ( Stream<Path> files = Files.list( testDir ) )
+        {
+            assertFalse( "Test that no backup files are left",
+                         files.anyMatch( file -> file.getFileName().toString().startsWith( "." ) ) );
+        }
+    }
+
     @Test
     public void testCreateRollbackCommit()
         throws Exception
@@ -156,6 +213,42 @@ public void testCreateRollbackCommit()
         assertTrue( "Test that the destination contents are copied correctly", source.equals( target ) );
     }
 
+    @Test
+    public void testMissingSourceKeepsDestination()
+        throws Exception
+    {
+        Files.createDirectories(testDest.getParent());
+
+        Files.createFile(testDest);
+
+        writeFile( testDest, "overwritten contents" );
+
+        FileTransaction transaction = new FileTransaction();
+
+        transaction.copyFile( testSource.resolveSibling( "missing-file.txt" ), testDest, checksumAlgorithms );
+
+        try
+        {
+            transaction.commit();
+            fail( "The commit of a missing source must fail" );
+        }
+        catch ( TransactionException e )
+        {
+            // expected
+        }
+
+        assertEquals( "Test that the destination contents are unchanged", "overwritten contents",
+                      readFile( testDest ) );
+
+        assertEquals( "Test that the destination checksum is unchanged", oldChecksum, readFile( testDestChecksum ) );
+
+        try ( Stream<Path> files = Files.list( testDir ) )
+        {
+            assertFalse( "Test that no backup files are left",
+                         files.anyMatch( file -> file.getFileName().toString().startsWith( "." ) ) );
+        }
+    }
+
     @After    
     @Override
     public void tearDown()
@@ -24,6 +24,7 @@
 import org.apache.archiva.repository.metadata.MetadataReader;
 import org.apache.archiva.repository.metadata.RepositoryMetadataException;
 import org.apache.archiva.repository.storage.StorageAsset;
+import org.apache.archiva.xml.LatinEntityResolutionReader;
 import org.apache.archiva.xml.XMLException;
 import org.apache.archiva.xml.XMLReader;
 import org.apache.archiva.xml.XmlUtil;
@@ -35,13 +36,30 @@
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
+ * Reads maven-metadata.xml files.
+ *
+ * The files are parsed by a streaming StAX parser. If the streaming parser fails, the file is read again
+ * by the DOM based {@link XMLReader}, which is more tolerant. The DOM parser can be used exclusively
+ * by setting the system property <code>archiva.metadata.dom</code> to <code>true</code>.
+ *
  * @author Olivier Lamy
  * @since 1.4-M3
  */
@@ -76,6 +94,35 @@ public class MavenMetadataReader implements MetadataReader
 
     private static final Logger log = LoggerFactory.getLogger( MavenMetadataReader.class );
 
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory( );
+
+    private boolean streamingEnabled = !Boolean.getBoolean( "archiva.metadata.dom" );
+
+    private static XMLInputFactory createInputFactory( )
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance( );
+        factory.setProperty( XMLInputFactory.SUPPORT_DTD, false );
+        factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false );
+        factory.setProperty( XMLInputFactory.IS_NAMESPACE_AWARE, true );
+        factory.setProperty( XMLInputFactory.IS_COALESCING, true );
+        return factory;
+    }
+
+    public boolean isStreamingEnabled( )
+    {
+        return streamingEnabled;
+    }
+
+    /**
+     * Enables or disables the streaming parser. If disabled, all files are read by the DOM parser.
+     *
+     * @param streamingEnabled <code>true</code>, if the StAX parser should be used, otherwise <code>false</code>
+     */
+    public void setStreamingEnabled( boolean streamingEnabled )
+    {
+        this.streamingEnabled = streamingEnabled;
+    }
+
 
     /**
      * Read and return the {@link org.apache.archiva.model.ArchivaRepositoryMetadata} object from the provided xml file.
@@ -87,6 +134,17 @@ public class MavenMetadataReader implements MetadataReader
     public ArchivaRepositoryMetadata read( StorageAsset metadataFile )
             throws RepositoryMetadataException {
 
+        if ( streamingEnabled )
+        {
+            try ( InputStream in = metadataFile.getReadStream( ) )
+            {
+                return readStream( in, metadataFile.getModificationTime( ), metadataFile.getSize( ) );
+            }
+            catch ( XMLStreamException | IOException e )
+            {
+                log.debug( "Streaming parser failed for {}, using DOM parser: {}", metadataFile, e.getMessage( ) );
+            }
+        }
         XMLReader xml;
         try
         {
@@ -103,6 +161,17 @@ public ArchivaRepositoryMetadata read( StorageAsset metadataFile )
     public ArchivaRepositoryMetadata read( Path metadataFile )
         throws RepositoryMetadataException {
 
+        if ( streamingEnabled && Files.isRegularFile( metadataFile ) )
+        {
+            try ( InputStream in = Files.newInputStream( metadataFile ) )
+            {
+                return readStream( in, Files.getLastModifiedTime( metadataFile ).toInstant( ), Files.size( metadataFile ) );
+            }
+            catch ( XMLStreamException | IOException e )
+            {
+                log.debug( "Streaming parser failed for {}, using DOM parser: {}", metadataFile, e.getMessage( ) );
+            }
+        }
         XMLReader xml;
         try
         {
@@ -178,6 +247,233 @@ private ArchivaRepositoryMetadata read( XMLReader xml, Instant modTime, long fil
         return metadata;
     }
 
+    /**
+     * Reads the metadata from the given stream with the StAX parser. Elements are matched by their local name,
+     * namespaces are ignored, like in the DOM based variant (MRM-1136).
+     *
+     * @param in the stream of the metadata file
+     * @param modTime the modification time of the file
+     * @param fileSize the size of the file
+     * @return the metadata
+     * @throws XMLStreamException if the file could not be parsed
+     * @throws RepositoryMetadataException if the root element is not <code>metadata</code>
+     */
+    ArchivaRepositoryMetadata readStream( InputStream in, Instant modTime, long fileSize )
+        throws XMLStreamException, RepositoryMetadataException
+    {
+        ArchivaRepositoryMetadata metadata = new ArchivaRepositoryMetadata( );
+        metadata.setFileLastModified( Date.from( modTime ) );
+        metadata.setFileSize( fileSize );
+        List<String> versions = new ArrayList<>( );
+
+        Reader reader = new LatinEntityResolutionReader( new BufferedReader( new InputStreamReader( in, StandardCharsets.UTF_8 ) ) );
+        XMLStreamReader xml = INPUT_FACTORY.createXMLStreamReader( reader );
+        try
+        {
+            xml.nextTag( );
+            if ( !"metadata".equals( xml.getLocalName( ) ) )
+            {
+                throw new RepositoryMetadataException(
+                    "Invalid metadata xml: Unexpected root element <" + xml.getLocalName( ) + ">, expected <metadata>" );
+            }
+            while ( nextChildElement( xml ) )
+            {
+                switch ( xml.getLocalName( ) )
+                {
+                    case "groupId":
+                        metadata.setGroupId( readText( xml ) );
+                        break;
+                    case "artifactId":
+                        metadata.setArtifactId( readText( xml ) );
+                        break;
+                    case "version":
+                        metadata.setVersion( readText( xml ) );
+                        break;
+                    case "versioning":
+                        readVersioning( xml, metadata, versions );
+                        break;
+                    case "plugins":
+                        readPlugins( xml, metadata );
+                        break;
+                    default:
+                        skipElement( xml );
+                }
+            }
+        }
+        finally
+        {
+            xml.close( );
+        }
+        metadata.setAvailableVersions( versions );
+        return metadata;
+    }
+
+    private void readVersioning( XMLStreamReader xml, ArchivaRepositoryMetadata metadata, List<String> versions )
+        throws XMLStreamException
+    {
+        while ( nextChildElement( xml ) )
+        {
+            switch ( xml.getLocalName( ) )
+            {
+                case "lastUpdated":
+                    metadata.setLastUpdated( readText( xml ) );
+                    break;
+                case "latest":
+                    metadata.setLatestVersion( readText( xml ) );
+                    break;
+                case "release":
+                    metadata.setReleasedVersion( readText( xml ) );
+                    break;
+                case "versions":
+                    while ( nextChildElement( xml ) )
+                    {
+                        if ( "version".equals( xml.getLocalName( ) ) )
+                        {
+                            versions.add( readText( xml ) );
+                        }
+                        else
+                        {
+                            skipElement( xml );
+                        }
+                    }
+                    break;
+                case "snapshot":
+                    SnapshotVersion snapshot = new SnapshotVersion( );
+                    // Missing child elements are read as empty text by the DOM parser
+                    snapshot.setTimestamp( "" );
+                    while ( nextChildElement( xml ) )
+                    {
+                        if ( "timestamp".equals( xml.getLocalName( ) ) )
+                        {
+                            snapshot.setTimestamp( readText( xml ) );
+                        }
+                        else if ( "buildNumber".equals( xml.getLocalName( ) ) )
+                        {
+                            String buildNumber = readText( xml );
+                            if ( NumberUtils.isCreatable( buildNumber ) )
+                            {
+                                snapshot.setBuildNumber( NumberUtils.toInt( buildNumber ) );
+                            }
+                        }
+                        else
+                        {
+                            skipElement( xml );
+                        }
+                    }
+                    metadata.setSnapshotVersion( snapshot );
+                    break;
+                default:
+                    skipElement( xml );
+            }
+        }
+    }
+
+    private void readPlugins( XMLStreamReader xml, ArchivaRepositoryMetadata metadata )
+        throws XMLStreamException
+    {
+        while ( nextChildElement( xml ) )
+        {
+            if ( !"plugin".equals( xml.getLocalName( ) ) )
+            {
+                skipElement( xml );
+                continue;
+            }
+            Plugin p = new Plugin( );
+            while ( nextChildElement( xml ) )
+            {
+                switch ( xml.getLocalName( ) )
+                {
+                    case "prefix":
+                        p.setPrefix( readText( xml ) );
+                        break;
+                    case "artifactId":
+                        p.setArtifactId( readText( xml ) );
+                        break;
+                    case "name":
+                        p.setName( readText( xml ) );
+                        break;
+                    default:
+                        skipElement( xml );
+                }
+            }
+            metadata.addPlugin( p );
+        }
+    }
+
+    /**
+     * Moves to the next child element of the current element.
+     *
+     * @return <code>true</code>, if the reader is positioned on the start of a child element, <code>false</code>
+     * if the end of the current element is reached.
+     */
+    private static boolean nextChildElement( XMLStreamReader xml )
+        throws XMLStreamException
+    {
+        while ( xml.hasNext( ) )
+        {
+            int event = xml.next( );
+            if ( event == XMLStreamConstants.START_ELEMENT )
+            {
+                return true;
+            }
+            if ( event == XMLStreamConstants.END_ELEMENT )
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the trimmed text content of the current element and all its descendants and moves
+     * the reader to the end of the element.
+     */
+    private static String readText( XMLStreamReader xml )
+        throws XMLStreamException
+    {
+        StringBuilder text = new StringBuilder( );
+        int depth = 1;
+        while ( depth > 0 )
+        {
+            int event = xml.next( );
+            switch ( event )
+            {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append( xml.getTextCharacters( ), xml.getTextStart( ), xml.getTextLength( ) );
+                    break;
+                default:
+                    break;
+            }
+        }
+        return text.toString( ).trim( );
+    }
+
+    private static void skipElement( XMLStreamReader xml )
+        throws XMLStreamException
+    {
+        int depth = 1;
+        while ( depth > 0 )
+        {
+            int event = xml.next( );
+            if ( event == XMLStreamConstants.START_ELEMENT )
+            {
+                depth++;
+            }
+            else if ( event == XMLStreamConstants.END_ELEMENT )
+            {
+                depth--;
+            }
+        }
+    }
+
     @Override
     public boolean isValidMetadataPath( String path )
     {
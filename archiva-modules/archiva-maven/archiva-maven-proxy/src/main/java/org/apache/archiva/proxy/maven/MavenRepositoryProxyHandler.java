@@ -126,27 +126,7 @@ protected void transferResources( ProxyConnector connector, RemoteRepository rem
             throws ProxyException, NotModifiedException {
         Wagon wagon = null;
         try {
-            URI repoUrl = remoteRepository.getLocation( );
-            String protocol = repoUrl.getScheme( );
-            NetworkProxy networkProxy = null;
-            String proxyId = connector.getProxyId();
-            if (StringUtils.isNotBlank(proxyId)) {
-
-                networkProxy = getNetworkProxy(proxyId);
-            }
-            WagonFactoryRequest wagonFactoryRequest = new WagonFactoryRequest("wagon#" + protocol,
-                    remoteRepository.getExtraHeaders());
-            if (networkProxy == null) {
-
-                log.warn("No network proxy with id {} found for connector {}->{}", proxyId,
-                        connector.getSourceRepository().getId(), connector.getTargetRepository().getId());
-            } else {
-                wagonFactoryRequest = wagonFactoryRequest.networkProxy(networkProxy);
-            }
-            wagon = wagonFactory.getWagon(wagonFactoryRequest);
-            if (wagon == null) {
-                throw new ProxyException("Unsupported target repository protocol: " + protocol);
-            }
+            wagon = getWagon(connector, remoteRepository);
 
             boolean connected = connectToRepository(connector, wagon, remoteRepository);
             if (connected) {
@@ -185,6 +165,61 @@ protected void transferResources( ProxyConnector connector, RemoteRepository rem
         }
     }
 
+    /**
+     * Checks the existence of the resource by a HEAD request, if the wagon supports it.
+     */
+    @Override
+    protected boolean resourceExists( ProxyConnector connector, RemoteRepository remoteRepository,
+                                      String remotePath )
+            throws ProxyException {
+        String url = getRemoteUrl( remoteRepository, remotePath );
+        Wagon wagon = null;
+        try {
+            wagon = getWagon(connector, remoteRepository);
+            if (!connectToRepository(connector, wagon, remoteRepository)) {
+                throw new ProxyException("Could not connect to " + remoteRepository.getId());
+            }
+            return wagon.resourceExists(addParameters(remotePath, remoteRepository));
+        } catch (WagonFactoryException | WagonException e) {
+            urlFailureCache.cacheFailure(url);
+            throw new ProxyException("Existence check failed on resource [" + url + "]: " + e.getMessage(), e);
+        } finally {
+            if (wagon != null) {
+                try {
+                    wagon.disconnect();
+                } catch (ConnectionException e) {
+                    log.warn("Unable to disconnect wagon.", e);
+                }
+            }
+        }
+    }
+
+    private Wagon getWagon( ProxyConnector connector, RemoteRepository remoteRepository )
+            throws WagonFactoryException, ProxyException {
+        URI repoUrl = remoteRepository.getLocation( );
+        String protocol = repoUrl.getScheme( );
+        NetworkProxy networkProxy = null;
+        String proxyId = connector.getProxyId();
+        if (StringUtils.isNotBlank(proxyId)) {
+
+            networkProxy = getNetworkProxy(proxyId);
+        }
+        WagonFactoryRequest wagonFactoryRequest = new WagonFactoryRequest("wagon#" + protocol,
+                remoteRepository.getExtraHeaders());
+        if (networkProxy == null) {
+
+            log.warn("No network proxy with id {} found for connector {}->{}", proxyId,
+                    connector.getSourceRepository().getId(), connector.getTargetRepository().getId());
+        } else {
+            wagonFactoryRequest = wagonFactoryRequest.networkProxy(networkProxy);
+        }
+        Wagon wagon = wagonFactory.getWagon(wagonFactoryRequest);
+        if (wagon == null) {
+            throw new ProxyException("Unsupported target repository protocol: " + protocol);
+        }
+        return wagon;
+    }
+
     protected void transferArtifact( Wagon wagon, RemoteRepository remoteRepository, String remotePath,
                                      Path resource,
                                      StorageAsset destFile )
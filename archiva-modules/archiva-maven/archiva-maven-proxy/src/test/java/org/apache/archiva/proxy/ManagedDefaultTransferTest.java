@@ -453,6 +453,35 @@ public void testGetInSecondProxiedRepoFirstFails()
         assertNoTempFiles( expectedFile );
     }
 
+    @Test
+    public void testExistsInProxiesDoesNotDownload()
+        throws Exception
+    {
+        String path = "org/apache/maven/test/get-in-second-proxy/1.0/get-in-second-proxy-1.0.jar";
+        setupTestableManagedRepository( path );
+
+        Path expectedFile = managedDefaultDir.resolve( path );
+
+        assertNotExistsInManagedDefaultRepo( expectedFile );
+
+        // Configure Repository (usually done within archiva.xml configuration)
+        saveRemoteRepositoryConfig( "badproxied", "Bad Proxied", "http://bad.machine.com/repo/", "default" );
+
+        EasyMock.expect( wagonMock.resourceExists( path ) ).andReturn( false );
+        wagonMockControl.replay();
+
+        // Configure Connector (usually done within archiva.xml configuration)
+        saveConnector( ID_DEFAULT_MANAGED, "badproxied", false );
+        saveConnector( ID_DEFAULT_MANAGED, ID_PROXIED2, false );
+
+        assertTrue( proxyHandler.existsInProxies( managedDefaultRepository.getRepository(), path ) );
+        assertFalse( proxyHandler.existsInProxies( managedDefaultRepository.getRepository(),
+            "org/apache/maven/test/does-not-exist/1.0/does-not-exist-1.0.jar" ) );
+
+        assertNotExistsInManagedDefaultRepo( expectedFile );
+        assertNoTempFiles( expectedFile );
+    }
+
     @Test
     public void testGetAllRepositoriesFail()
         throws Exception
@@ -58,6 +58,7 @@
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -110,6 +111,11 @@ public void setFileTypes( FileTypes fileTypes )
 
     public static final Pattern GENERIC_SNAPSHOT_PATTERN = Pattern.compile( "^(.*)-" + SNAPSHOT );
 
+    /**
+     * Minimum number of entries of a directory level, that is processed in parallel by wildcard item streams
+     */
+    private static final int PARALLEL_LEVEL_SIZE = 16;
+
     private static final List<Class<? extends ManagedRepositoryContentLayout>> LAYOUTS = Arrays.asList( BaseRepositoryContentLayout.class );
 
     /**
@@ -1245,7 +1251,8 @@ else if ( item instanceof Artifact )
 
     private void appendPatternRegex( StringBuilder builder, String name )
     {
-        String[] patternArray = name.split( "[*]" );
+        // keep trailing empty strings, otherwise a trailing wildcard would be dropped
+        String[] patternArray = name.split( "[*]", -1 );
         for ( int i = 0; i < patternArray.length - 1; i++ )
         {
             builder.append( Pattern.quote( patternArray[i] ) )
@@ -1337,18 +1344,86 @@ private Stream<StorageAsset> getChildrenDF( StorageAsset a, int level )
         }
     }
 
+    /**
+     * Returns the path segments of namespace, project and version of the selector.
+     */
+    private List<String> getSelectorSegments( ItemSelector selector )
+    {
+        List<String> segments = new ArrayList<>( );
+        if ( selector.hasNamespace( ) )
+        {
+            segments.addAll( Arrays.asList( selector.getNamespace( ).split( "\\." ) ) );
+        }
+        if ( selector.hasProjectId( ) )
+        {
+            segments.add( selector.getProjectId( ) );
+            if ( selector.hasVersion( ) )
+            {
+                segments.add( selector.getVersion( ) );
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Returns the assets below the given directory, whose path matches the given segment patterns.
+     * Each directory level is matched against the corresponding pattern and subtrees that do not match
+     * are not visited. All assets below a directory that matches the last pattern are returned, children before
+     * their parents. The last pattern is matched as prefix of the name, like the path regex created by
+     * {@link #getItemFileFilterFromSelector(ItemSelector)}, so the result of that filter is not changed.
+     *
+     * @param dir the directory to start
+     * @param patterns the patterns of the path segments below the start directory
+     * @param index the index of the pattern for the children of the given directory
+     * @param parallel <code>true</code>, if wide directory levels should be processed in parallel
+     * @return the stream of the assets
+     */
+    Stream<StorageAsset> newSelectedAssetStream( StorageAsset dir, List<Pattern> patterns, int index, boolean parallel )
+    {
+        List<StorageAsset> children = new ArrayList<>( dir.list( ) );
+        Stream<StorageAsset> stream = parallel && children.size( ) >= PARALLEL_LEVEL_SIZE
+            ? children.parallelStream( )
+            : children.stream( );
+        final Pattern pattern = patterns.get( index );
+        if ( index == patterns.size( ) - 1 )
+        {
+            return stream.filter( a -> pattern.matcher( a.getName( ) ).lookingAt( ) )
+                .flatMap( a -> a.isContainer( ) ? StorageUtil.newAssetStream( a, false ) : Stream.of( a ) );
+        }
+        else
+        {
+            return stream.filter( a -> a.isContainer( ) && pattern.matcher( a.getName( ) ).matches( ) )
+                .flatMap( a -> newSelectedAssetStream( a, patterns, index + 1, parallel ) );
+        }
+    }
+
     @Override
     public Stream<? extends ContentItem> newItemStream( ItemSelector selector, boolean parallel ) throws ContentAccessException, IllegalArgumentException
     {
         final Predicate<StorageAsset> filter = getItemFileFilterFromSelector( selector );
         StorageAsset startDir;
-        if (selector.getNamespace().contains("*")) {
-            startDir = getAsset("");
-        } else if ( selector.hasProjectId( ) && selector.getProjectId().contains("*") )
-        {
-            startDir = getAsset( selector.getNamespace( ) );
-        } else if ( selector.hasProjectId() && selector.hasVersion() && selector.getVersion().contains("*")) {
-            startDir = getAsset( selector.getNamespace( ), selector.getProjectId( ) );
+        if ( selector.getNamespace( ).contains( "*" )
+            || ( selector.hasProjectId( ) && selector.getProjectId( ).contains( "*" ) )
+            || ( selector.hasProjectId( ) && selector.hasVersion( ) && selector.getVersion( ).contains( "*" ) ) )
+        {
+            // Start below the segments without wildcard and prune the directories that do not match
+            List<String> segments = getSelectorSegments( selector );
+            int start = 0;
+            while ( start < segments.size( ) - 1 && !segments.get( start ).contains( "*" ) )
+            {
+                start++;
+            }
+            List<Pattern> patterns = new ArrayList<>( );
+            for ( String segment : segments.subList( start, segments.size( ) ) )
+            {
+                StringBuilder regex = new StringBuilder( );
+                appendPatternRegex( regex, segment );
+                patterns.add( Pattern.compile( regex.toString( ) ) );
+            }
+            startDir = getAssetByPath( String.join( "/", segments.subList( 0, start ) ) );
+            return newSelectedAssetStream( startDir, patterns, 0, parallel )
+                .filter( filter )
+                .map( this::getItemFromPath );
         }
         else if ( selector.hasProjectId( ) && selector.hasVersion( ) )
         {
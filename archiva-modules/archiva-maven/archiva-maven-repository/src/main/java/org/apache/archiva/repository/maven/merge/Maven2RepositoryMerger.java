@@ -51,6 +51,7 @@
 import javax.inject.Named;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -58,12 +59,20 @@
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  *
@@ -96,6 +105,17 @@
 
     private static final String METADATA_FILENAME = "maven-metadata.xml";
 
+    /**
+     * If <code>true</code>, artifacts and POM files are promoted as hard links, if the source and the target
+     * repository are on the same filesystem. Metadata files are always copied, because they are updated in place.
+     */
+    private boolean linkFiles = Boolean.getBoolean( "archiva.promotion.linkFiles" );
+
+    /**
+     * The number of threads that transfer the files of a merge
+     */
+    private int mergeThreads = Integer.getInteger( "archiva.merge.threads", 4 );
+
     @Inject
     private RepositorySessionFactory repositorySessionFactory;
 
@@ -113,6 +133,16 @@ public void setConfiguration( ArchivaConfiguration configuration )
         this.configuration = configuration;
     }
 
+    public void setLinkFiles( boolean linkFiles )
+    {
+        this.linkFiles = linkFiles;
+    }
+
+    public void setMergeThreads( int mergeThreads )
+    {
+        this.mergeThreads = mergeThreads;
+    }
+
     @Override
     public boolean supportsRepository( RepositoryType type )
     {
@@ -130,8 +160,8 @@ public void merge( MetadataRepository metadataRepository, String sourceRepoId, S
             for ( ArtifactMetadata artifactMetadata : artifactsInSourceRepo )
             {
                 artifactMetadata.setRepositoryId( targetRepoId );
-                createFolderStructure( sourceRepoId, targetRepoId, artifactMetadata );
             }
+            mergeArtifacts( sourceRepoId, targetRepoId, artifactsInSourceRepo );
         }
         catch ( MetadataRepositoryException e )
         {
@@ -156,13 +186,15 @@ public void merge( MetadataRepository metadataRepository, String sourceRepoId, S
         try(RepositorySession session = repositorySessionFactory.createSession())
         {
             List<ArtifactMetadata> sourceArtifacts = metadataRepository.getArtifacts(session , sourceRepoId );
+            List<ArtifactMetadata> acceptedArtifacts = new ArrayList<>( );
             for ( ArtifactMetadata metadata : sourceArtifacts )
             {
                 if ( filter.accept( metadata ) )
                 {
-                    createFolderStructure( sourceRepoId, targetRepoId, metadata );
+                    acceptedArtifacts.add( metadata );
                 }
             }
+            mergeArtifacts( sourceRepoId, targetRepoId, acceptedArtifacts );
         }
         catch ( MetadataRepositoryException e )
         {
@@ -178,7 +210,13 @@ public void merge( MetadataRepository metadataRepository, String sourceRepoId, S
         }
     }
 
-    private void createFolderStructure( String sourceRepoId, String targetRepoId, ArtifactMetadata artifactMetadata )
+    /**
+     * Merges the given artifacts into the target repository. The plan with all file transfers and metadata
+     * files is built first. The files are transferred in parallel and recorded in a checkpoint, so that a merge,
+     * that was interrupted, does not transfer these files again, unless the source file has been changed. The metadata files are updated once per
+     * version and project after all files have been transferred.
+     */
+    private void mergeArtifacts( String sourceRepoId, String targetRepoId, List<ArtifactMetadata> artifacts )
         throws IOException, RepositoryException
     {
         Configuration config = configuration.getConfiguration();
@@ -187,77 +225,148 @@ private void createFolderStructure( String sourceRepoId, String targetRepoId, Ar
 
         ManagedRepositoryConfiguration sourceRepoConfig = config.findManagedRepositoryById( sourceRepoId );
 
-        Date lastUpdatedTimestamp = Calendar.getInstance().getTime();
-
-        TimeZone timezone = TimeZone.getTimeZone( "UTC" );
-
-        DateFormat fmt = new SimpleDateFormat( "yyyyMMdd.HHmmss" );
-
-        fmt.setTimeZone( timezone );
-
-        String timestamp = fmt.format( lastUpdatedTimestamp );
-
         String targetRepoPath = targetRepoConfig.getLocation();
 
         String sourceRepoPath = sourceRepoConfig.getLocation();
 
-        String artifactPath = pathTranslator.toPath( artifactMetadata.getNamespace(), artifactMetadata.getProject(),
-                                                     artifactMetadata.getProjectVersion(), artifactMetadata.getId() );
+        MergePlan plan = createPlan( sourceRepoPath, targetRepoPath, artifacts );
+        log.info( "Merging {} artifacts from {} to {}: {} files, {} existing in target, {} projects", artifacts.size( ),
+            sourceRepoId, targetRepoId, plan.transfers.size( ), plan.conflicts, plan.projects.size( ) );
 
-        Path sourceArtifactFile = Paths.get( sourceRepoPath, artifactPath );
+        Path targetDirectory = Paths.get( targetRepoPath );
+        Files.createDirectories( targetDirectory );
+        try ( MergeCheckpoint checkpoint = new MergeCheckpoint( targetDirectory, sourceRepoId ) )
+        {
+            transferFiles( plan.transfers.values( ), checkpoint );
 
-        Path targetArtifactFile = Paths.get( targetRepoPath, artifactPath );
+            // explicitly update only if metadata-updater consumer is not enabled!
+            if ( !config.getRepositoryScanning().getKnownContentConsumers().contains( "metadata-updater" ) )
+            {
+                updateMetadata( plan, sourceRepoPath, targetRepoPath );
+            }
+            checkpoint.finish( );
+        }
+    }
 
-        log.debug( "artifactPath {}", artifactPath );
+    private MergePlan createPlan( String sourceRepoPath, String targetRepoPath, List<ArtifactMetadata> artifacts )
+    {
+        MergePlan plan = new MergePlan( );
+        for ( ArtifactMetadata artifactMetadata : artifacts )
+        {
+            String artifactPath = pathTranslator.toPath( artifactMetadata.getNamespace(), artifactMetadata.getProject(),
+                                                         artifactMetadata.getProjectVersion(), artifactMetadata.getId() );
 
-        int lastIndex = artifactPath.lastIndexOf( RepositoryPathTranslator.PATH_SEPARATOR );
+            log.debug( "artifactPath {}", artifactPath );
 
-        Path targetFile = Paths.get( targetRepoPath, artifactPath.substring( 0, lastIndex ) );
+            plan.addTransfer( sourceRepoPath, targetRepoPath, artifactPath, false );
 
-        if ( !Files.exists(targetFile) )
+            //pom file copying  (file path is taken with out using path translator)
+            int lastIndex = artifactPath.lastIndexOf( RepositoryPathTranslator.PATH_SEPARATOR );
+            String index = artifactPath.substring( lastIndex + 1 );
+            int last = index.lastIndexOf( '.' );
+            String pomPath = artifactPath.substring( 0, lastIndex ) + "/" + index.substring( 0, last ) + ".pom";
+            plan.addTransfer( sourceRepoPath, targetRepoPath, pomPath, true );
+
+            String projectKey = artifactMetadata.getNamespace() + ":" + artifactMetadata.getProject();
+            plan.versions.computeIfAbsent( projectKey + ":" + artifactMetadata.getVersion(), k -> new ArrayList<>( ) )
+                .add( artifactMetadata );
+            plan.projects.computeIfAbsent( projectKey, k -> new ArrayList<>( ) ).add( artifactMetadata );
+        }
+        return plan;
+    }
+
+    private void transferFiles( Collection<FileTransfer> transfers, MergeCheckpoint checkpoint )
+        throws IOException
+    {
+        List<FileTransfer> pending = new ArrayList<>( );
+        for ( FileTransfer transfer : transfers )
         {
-            // create the folder structure when it does not exist
-            Files.createDirectories(targetFile);
-        }
-        // artifact copying
-        copyFile( sourceArtifactFile, targetArtifactFile );
-
-        // pom file copying
-        // TODO need to use path translator to get the pom file path
-//        String fileName = artifactMetadata.getProject() + "-" + artifactMetadata.getVersion() + ".pom";
-//
-//        File sourcePomFile =
-//            pathTranslator.toFile( new File( sourceRepoPath ), artifactMetadata.getId(), artifactMetadata.getProject(),
-//                                   artifactMetadata.getVersion(), fileName );
-//
-//        String relativePathToPomFile = sourcePomFile.getAbsolutePath().split( sourceRepoPath )[1];
-//        File targetPomFile = new File( targetRepoPath, relativePathToPomFile );
-
-        //pom file copying  (file path is taken with out using path translator)
-
-        String index = artifactPath.substring( lastIndex + 1 );
-        int last = index.lastIndexOf( '.' );
-        Path sourcePomFile = Paths.get( sourceRepoPath,
-                                       artifactPath.substring( 0, lastIndex ) + "/" + artifactPath.substring(
-                                           lastIndex + 1 ).substring( 0, last ) + ".pom" );
-        Path targetPomFile = Paths.get( targetRepoPath,
-                                       artifactPath.substring( 0, lastIndex ) + "/" + artifactPath.substring(
-                                           lastIndex + 1 ).substring( 0, last ) + ".pom" );
-
-        if ( !Files.exists(targetPomFile) && Files.exists(sourcePomFile) )
+            if ( !( checkpoint.isCompleted( transfer.path, transfer.source ) && Files.exists( transfer.target ) ) )
+            {
+                pending.add( transfer );
+            }
+        }
+        if ( pending.size( ) < transfers.size( ) )
+        {
+            log.info( "Resuming merge, {} files have already been transferred", transfers.size( ) - pending.size( ) );
+        }
+        if ( pending.isEmpty( ) )
         {
-            copyFile( sourcePomFile, targetPomFile );
+            return;
         }
 
-        // explicitly update only if metadata-updater consumer is not enabled!
-        if ( !config.getRepositoryScanning().getKnownContentConsumers().contains( "metadata-updater" ) )
+        ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( mergeThreads, pending.size( ) ) ) );
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>( pending.size( ) );
+            for ( FileTransfer transfer : pending )
+            {
+                futures.add( executor.submit( ( ) -> {
+                    // the state is taken before the copy, so that a change during the copy is detected on resume
+                    String stamp = MergeCheckpoint.getStamp( transfer.source );
+                    Files.createDirectories( transfer.target.getParent( ) );
+                    promoteFile( transfer.source, transfer.target );
+                    checkpoint.setCompleted( transfer.path, stamp );
+                    return null;
+                } ) );
+            }
+            for ( Future<?> future : futures )
+            {
+                try
+                {
+                    future.get( );
+                }
+                catch ( ExecutionException e )
+                {
+                    if ( e.getCause( ) instanceof IOException )
+                    {
+                        throw (IOException) e.getCause( );
+                    }
+                    throw new IOException( e.getCause( ).getMessage( ), e.getCause( ) );
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread( ).interrupt( );
+                    throw new InterruptedIOException( "Merge has been interrupted" );
+                }
+            }
+        }
+        finally
         {
+            executor.shutdownNow( );
+            try
+            {
+                executor.awaitTermination( 1, TimeUnit.MINUTES );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+        }
+    }
 
-            // updating version metadata files
-            FilesystemStorage fsStorage = new FilesystemStorage(Paths.get(sourceRepoPath), new DefaultFileLockManager());
+    private void updateMetadata( MergePlan plan, String sourceRepoPath, String targetRepoPath )
+        throws IOException, RepositoryException
+    {
+        Date lastUpdatedTimestamp = Calendar.getInstance().getTime();
+
+        TimeZone timezone = TimeZone.getTimeZone( "UTC" );
+
+        DateFormat fmt = new SimpleDateFormat( "yyyyMMdd.HHmmss" );
+
+        fmt.setTimeZone( timezone );
 
+        String timestamp = fmt.format( lastUpdatedTimestamp );
+
+        FilesystemStorage fsStorage = new FilesystemStorage(Paths.get(sourceRepoPath), new DefaultFileLockManager());
+        FilesystemAsset sourceRoot = new FilesystemAsset(fsStorage, "", Paths.get(sourceRepoPath));
+
+        // updating version metadata files
+        for ( List<ArtifactMetadata> versionArtifacts : plan.versions.values( ) )
+        {
+            ArtifactMetadata artifactMetadata = versionArtifacts.get( 0 );
             StorageAsset versionMetaDataFileInSourceRepo =
-                pathTranslator.toFile( new FilesystemAsset(fsStorage, "", Paths.get(sourceRepoPath)), artifactMetadata.getNamespace(),
+                pathTranslator.toFile( sourceRoot, artifactMetadata.getNamespace(),
                                        artifactMetadata.getProject(), artifactMetadata.getVersion(),
                                        METADATA_FILENAME );
 
@@ -277,9 +386,16 @@ private void createFolderStructure( String sourceRepoId, String targetRepoId, Ar
 
                 }
             }
+        }
 
-            // updating project meta data file
-            StorageAsset projectDirectoryInSourceRepo = versionMetaDataFileInSourceRepo.getParent().getParent();
+        // updating project meta data files
+        for ( List<ArtifactMetadata> projectArtifacts : plan.projects.values( ) )
+        {
+            ArtifactMetadata artifactMetadata = projectArtifacts.get( 0 );
+            StorageAsset projectDirectoryInSourceRepo =
+                pathTranslator.toFile( sourceRoot, artifactMetadata.getNamespace(),
+                                       artifactMetadata.getProject(), artifactMetadata.getVersion(),
+                                       METADATA_FILENAME ).getParent().getParent();
             StorageAsset projectMetadataFileInSourceRepo = projectDirectoryInSourceRepo.resolve(METADATA_FILENAME );
 
             if ( projectMetadataFileInSourceRepo.exists() )
@@ -295,12 +411,11 @@ private void createFolderStructure( String sourceRepoId, String targetRepoId, Ar
                 }
                 else
                 {
-                    updateProjectMetadata( projectMetadataFileInTargetRepo, artifactMetadata, lastUpdatedTimestamp,
+                    updateProjectMetadata( projectMetadataFileInTargetRepo, projectArtifacts, lastUpdatedTimestamp,
                                            timestamp );
                 }
             }
         }
-
     }
 
     private String getRelativeAssetPath(final StorageAsset asset) {
@@ -319,10 +434,27 @@ private void copyFile( Path sourceFile, Path targetFile )
 
     }
 
-    private void updateProjectMetadata( Path projectMetaDataFileIntargetRepo, ArtifactMetadata artifactMetadata,
+    /**
+     * Copies or links a file, that is not modified in the target repository afterwards.
+     */
+    private void promoteFile( Path sourceFile, Path targetFile )
+        throws IOException
+    {
+        if ( linkFiles )
+        {
+            org.apache.archiva.common.utils.FileUtils.linkOrCopyFile( sourceFile, targetFile );
+        }
+        else
+        {
+            copyFile( sourceFile, targetFile );
+        }
+    }
+
+    private void updateProjectMetadata( Path projectMetaDataFileIntargetRepo, List<ArtifactMetadata> artifacts,
                                         Date lastUpdatedTimestamp, String timestamp )
         throws RepositoryMetadataException
     {
+        ArtifactMetadata artifactMetadata = artifacts.get( 0 );
         ArrayList<String> availableVersions = new ArrayList<>();
         String latestVersion = artifactMetadata.getProjectVersion();
 
@@ -332,18 +464,29 @@ private void updateProjectMetadata( Path projectMetaDataFileIntargetRepo, Artifa
         {
             availableVersions = (ArrayList<String>) projectMetadata.getAvailableVersions();
 
-            Collections.sort( availableVersions, VersionComparator.getInstance() );
-
-            if ( !availableVersions.contains( artifactMetadata.getVersion() ) )
+            for ( ArtifactMetadata artifact : artifacts )
             {
-                availableVersions.add( artifactMetadata.getVersion() );
+                if ( !availableVersions.contains( artifact.getVersion() ) )
+                {
+                    availableVersions.add( artifact.getVersion() );
+                }
             }
 
+            Collections.sort( availableVersions, VersionComparator.getInstance() );
+
             latestVersion = availableVersions.get( availableVersions.size() - 1 );
         }
         else
         {
-            availableVersions.add( artifactMetadata.getProjectVersion() );
+            for ( ArtifactMetadata artifact : artifacts )
+            {
+                if ( !availableVersions.contains( artifact.getProjectVersion() ) )
+                {
+                    availableVersions.add( artifact.getProjectVersion() );
+                }
+            }
+            Collections.sort( availableVersions, VersionComparator.getInstance() );
+            latestVersion = availableVersions.get( availableVersions.size() - 1 );
             projectMetadata.setGroupId( artifactMetadata.getNamespace() );
             projectMetadata.setArtifactId( artifactMetadata.getProject() );
         }
@@ -363,7 +506,7 @@ private void updateProjectMetadata( Path projectMetaDataFileIntargetRepo, Artifa
         projectMetadata.setLastUpdated( timestamp );
         projectMetadata.setLastUpdatedTimestamp( lastUpdatedTimestamp );
 
-        if ( !VersionUtil.isSnapshot( artifactMetadata.getVersion() ) )
+        if ( artifacts.stream( ).anyMatch( artifact -> !VersionUtil.isSnapshot( artifact.getVersion() ) ) )
         {
             projectMetadata.setReleasedVersion( latestVersion );
         }
@@ -428,6 +571,58 @@ public List<ArtifactMetadata> getConflictingArtifacts( MetadataRepository metada
         }
     }
 
+    /**
+     * A file of the source repository, that is transferred to the target repository.
+     */
+    private static class FileTransfer
+    {
+        final Path source;
+        final Path target;
+        final String path;
+
+        FileTransfer( Path source, Path target, String path )
+        {
+            this.source = source;
+            this.target = target;
+            this.path = path;
+        }
+    }
+
+    /**
+     * The files to transfer and the metadata files to update by a merge.
+     */
+    private static class MergePlan
+    {
+        final Map<String, FileTransfer> transfers = new LinkedHashMap<>( );
+        final Map<String, List<ArtifactMetadata>> versions = new LinkedHashMap<>( );
+        final Map<String, List<ArtifactMetadata>> projects = new LinkedHashMap<>( );
+        int conflicts = 0;
+
+        /**
+         * @param onlyIfMissing <code>true</code>, if the file is only transferred, if it exists in the source
+         *                      and not in the target repository
+         */
+        void addTransfer( String sourceRepoPath, String targetRepoPath, String path, boolean onlyIfMissing )
+        {
+            if ( transfers.containsKey( path ) )
+            {
+                return;
+            }
+            Path source = Paths.get( sourceRepoPath, path );
+            Path target = Paths.get( targetRepoPath, path );
+            boolean exists = Files.exists( target );
+            if ( onlyIfMissing && ( exists || !Files.exists( source ) ) )
+            {
+                return;
+            }
+            if ( exists )
+            {
+                conflicts++;
+            }
+            transfers.put( path, new FileTransfer( source, target, path ) );
+        }
+    }
+
     public RepositorySessionFactory getRepositorySessionFactory( )
     {
         return repositorySessionFactory;
@@ -0,0 +1,161 @@
+package org.apache.archiva.repository.maven.merge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the files that have been transferred by a repository merge, so that an interrupted merge
+ * can be resumed without transferring these files again.
+ *
+ * The checkpoint is a hidden file in the target repository, that contains one line per transferred file with the
+ * relative path, the size and the modification time of the source file. A file is only skipped on resume, if the
+ * source file has not been changed since its transfer. The checkpoint is removed after the merge has finished
+ * successfully.
+ *
+ * @since 3.0
+ */
+class MergeCheckpoint
+    implements Closeable
+{
+    static final String FILE_PREFIX = ".archiva-merge-";
+
+    static final String FILE_SUFFIX = ".checkpoint";
+
+    private static final char SEPARATOR = '\t';
+
+    private final Path file;
+
+    private final Map<String, String> completed = new ConcurrentHashMap<>( );
+
+    private final BufferedWriter writer;
+
+    /**
+     * Opens the checkpoint of the merge of the given source repository and reads the entries of a previous,
+     * interrupted merge.
+     *
+     * @param targetDirectory the directory of the target repository
+     * @param sourceRepoId the id of the source repository
+     * @throws IOException if the checkpoint file could not be read or opened
+     */
+    MergeCheckpoint( Path targetDirectory, String sourceRepoId )
+        throws IOException
+    {
+        this.file = targetDirectory.resolve( FILE_PREFIX + sourceRepoId + FILE_SUFFIX );
+        if ( Files.exists( file ) )
+        {
+            for ( String line : Files.readAllLines( file, StandardCharsets.UTF_8 ) )
+            {
+                // a later entry of the same path replaces the earlier one
+                int index = line.indexOf( SEPARATOR );
+                if ( index > 0 )
+                {
+                    completed.put( line.substring( 0, index ), line.substring( index + 1 ) );
+                }
+            }
+        }
+        this.writer = Files.newBufferedWriter( file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND );
+    }
+
+    /**
+     * Returns the state of the given source file, that is recorded with its transfer.
+     *
+     * @param source the source file
+     * @return the size and the modification time of the file
+     * @throws IOException if the attributes of the file could not be read
+     */
+    static String getStamp( Path source )
+        throws IOException
+    {
+        BasicFileAttributes attributes = Files.readAttributes( source, BasicFileAttributes.class );
+        return attributes.size( ) + String.valueOf( SEPARATOR ) + attributes.lastModifiedTime( ).toMillis( );
+    }
+
+    /**
+     * @param path the relative path of the file in the target repository
+     * @param source the source file of the transfer
+     * @return <code>true</code>, if the file has been transferred by a previous run of the merge and the source
+     * file has not been changed since
+     * @throws IOException if the attributes of the source file could not be read
+     */
+    boolean isCompleted( String path, Path source )
+        throws IOException
+    {
+        String stamp = completed.get( path );
+        return stamp != null && Files.exists( source ) && stamp.equals( getStamp( source ) );
+    }
+
+    /**
+     * Records the transfer of the given file.
+     *
+     * @param path the relative path of the file in the target repository
+     * @param stamp the state of the source file before the transfer, see {@link #getStamp(Path)}
+     * @throws IOException if the checkpoint could not be written
+     */
+    synchronized void setCompleted( String path, String stamp )
+        throws IOException
+    {
+        writer.write( path );
+        writer.write( SEPARATOR );
+        writer.write( stamp );
+        writer.newLine( );
+        writer.flush( );
+        completed.put( path, stamp );
+    }
+
+    int getCompletedCount( )
+    {
+        return completed.size( );
+    }
+
+    Path getFile( )
+    {
+        return file;
+    }
+
+    /**
+     * Closes and removes the checkpoint after a successful merge.
+     *
+     * @throws IOException if the checkpoint could not be removed
+     */
+    void finish( )
+        throws IOException
+    {
+        close( );
+        Files.deleteIfExists( file );
+    }
+
+    @Override
+    public synchronized void close( )
+        throws IOException
+    {
+        writer.close( );
+    }
+}
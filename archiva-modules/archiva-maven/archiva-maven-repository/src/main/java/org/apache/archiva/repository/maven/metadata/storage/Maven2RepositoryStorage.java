@@ -55,6 +55,7 @@
 import org.apache.archiva.repository.content.ItemSelector;
 import org.apache.archiva.repository.content.LayoutException;
 import org.apache.archiva.repository.content.base.ArchivaItemSelector;
+import org.apache.archiva.repository.event.LifecycleEvent;
 import org.apache.archiva.repository.maven.MavenSystemManager;
 import org.apache.archiva.repository.metadata.RepositoryMetadataException;
 import org.apache.archiva.repository.storage.StorageAsset;
@@ -158,11 +159,17 @@
 
     private static final MavenXpp3Reader MAVEN_XPP_3_READER = new MavenXpp3Reader();
 
+    private final MavenModelCache modelCache = new MavenModelCache();
+
 
     @PostConstruct
     public void initialize() {
         builder = new DefaultModelBuilderFactory().newInstance();
-
+        if (repositoryRegistry != null) {
+            // Changed or removed repositories may resolve the parents differently
+            repositoryRegistry.registerEventHandler(LifecycleEvent.ANY,
+                    event -> modelCache.invalidate(event.getRepository().getId()));
+        }
     }
 
     @Override
@@ -229,6 +236,12 @@ public ProjectVersionMetadata readProjectVersionMetadata(ReadMetadataRequest rea
                     "The artifact's POM file '" + file.getPath() + "' was missing");
         }
 
+        Model cachedModel = modelCache.getEffectiveModel(managedRepository.getId(), file.getFilePath());
+        if (cachedModel != null) {
+            log.debug("Using cached effective model of {}", file);
+            return createProjectVersionMetadata(readMetadataRequest, file, cachedModel);
+        }
+
         // TODO: this is a workaround until we can properly resolve using proxies as well - this doesn't cache
         //       anything locally!
         List<RemoteRepository> remoteRepositories = new ArrayList<>();
@@ -269,9 +282,12 @@ public ProjectVersionMetadata readProjectVersionMetadata(ReadMetadataRequest rea
         req.setSystemProperties(System.getProperties());
 
         // MRM-1411
-        req.setModelResolver(
+        RepositoryModelResolver modelResolver =
                 new RepositoryModelResolver(managedRepository, pathTranslator, wagonFactory, remoteRepositories,
-                        networkProxies, managedRepository, mavenSystemManager, metadataReader));
+                        networkProxies, managedRepository, mavenSystemManager, metadataReader);
+        req.setModelResolver(modelResolver);
+        // parent and imported POMs are shared between the requests
+        req.setModelCache(modelCache.forRequest(managedRepository.getId(), modelResolver));
 
         Model model;
         try {
@@ -323,7 +339,17 @@ public ProjectVersionMetadata readProjectVersionMetadata(ReadMetadataRequest rea
 
             throw new RepositoryStorageMetadataInvalidException("invalid-pom", msg, e);
         }
+        if (modelResolver.isCacheable()) {
+            modelCache.putEffectiveModel(managedRepository.getId(), file.getFilePath(), model,
+                    modelResolver.getResolvedModelFiles());
+        }
+
+        return createProjectVersionMetadata(readMetadataRequest, file, model);
+    }
 
+    private ProjectVersionMetadata createProjectVersionMetadata(ReadMetadataRequest readMetadataRequest, StorageAsset file,
+                                                                Model model)
+            throws RepositoryStorageMetadataInvalidException {
         // Check if the POM is in the correct location
         boolean correctGroupId = readMetadataRequest.getNamespace().equals(model.getGroupId());
         boolean correctArtifactId = readMetadataRequest.getProjectId().equals(model.getArtifactId());
@@ -371,8 +397,6 @@ public ProjectVersionMetadata readProjectVersionMetadata(ReadMetadataRequest rea
         metadata.addFacet(facet);
 
         return metadata;
-
-
     }
 
     public void setWagonFactory(WagonFactory wagonFactory) {
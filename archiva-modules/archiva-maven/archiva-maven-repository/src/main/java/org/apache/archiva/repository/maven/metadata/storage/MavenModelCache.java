@@ -0,0 +1,262 @@
+package org.apache.archiva.repository.maven.metadata.storage;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.common.utils.VersionUtil;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.building.ModelCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache for the POM models that are built by {@link Maven2RepositoryStorage}. The cache is shared by all requests.
+ *
+ * Two kinds of entries are stored:
+ * <ul>
+ *     <li>The effective models of the project versions, keyed by the repository and the POM file.</li>
+ *     <li>The data of the model builder, mainly the raw models of parent POMs and imported dependency management,
+ *     keyed by the repository and the coordinates. These are used through {@link #forRequest(String, RepositoryModelResolver)}
+ *     as {@link ModelCache} of the model builder.</li>
+ * </ul>
+ * Each entry stores the modification time and size of the POM files it was built from. An entry is only returned,
+ * if none of these files has changed. Both maps are bounded and evict the least recently used entries.
+ *
+ * SNAPSHOT versions and version ranges may resolve to another POM file after a deployment, while the formerly
+ * resolved file is unchanged. Models that depend on these coordinates are not cached.
+ *
+ * @since 3.0
+ */
+public class MavenModelCache
+{
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Map<String, CacheEntry> effectiveModels;
+
+    private final Map<String, CacheEntry> builderData;
+
+    public MavenModelCache( )
+    {
+        this( DEFAULT_MAX_ENTRIES );
+    }
+
+    public MavenModelCache( int maxEntries )
+    {
+        this.effectiveModels = createLruMap( maxEntries );
+        this.builderData = createLruMap( maxEntries );
+    }
+
+    private static Map<String, CacheEntry> createLruMap( final int maxEntries )
+    {
+        return new LinkedHashMap<String, CacheEntry>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, CacheEntry> eldest )
+            {
+                return size( ) > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns a copy of the cached effective model for the given POM file, if the POM and all files
+     * it depends on are unchanged.
+     *
+     * @param repositoryId the id of the managed repository
+     * @param pomFile the POM file of the project version
+     * @return the effective model, or <code>null</code>, if there is no valid entry
+     */
+    public Model getEffectiveModel( String repositoryId, Path pomFile )
+    {
+        Object data = get( effectiveModels, repositoryId + ":" + pomFile );
+        return data == null ? null : ( (Model) data ).clone( );
+    }
+
+    /**
+     * Stores the effective model of the given POM file.
+     *
+     * @param repositoryId the id of the managed repository
+     * @param pomFile the POM file of the project version
+     * @param model the effective model
+     * @param sourceFiles the parent and imported POM files the effective model was built from
+     */
+    public void putEffectiveModel( String repositoryId, Path pomFile, Model model, Collection<Path> sourceFiles )
+    {
+        List<Path> files = new ArrayList<>( sourceFiles.size( ) + 1 );
+        files.add( pomFile );
+        files.addAll( sourceFiles );
+        put( effectiveModels, repositoryId + ":" + pomFile, model.clone( ), files );
+    }
+
+    /**
+     * Returns a model builder cache for a single model building request. Entries are only stored, if
+     * the coordinates were resolved to a file by the given resolver.
+     *
+     * @param repositoryId the id of the managed repository
+     * @param resolver the resolver used for the request
+     * @return the model cache for the request
+     */
+    public ModelCache forRequest( final String repositoryId, final RepositoryModelResolver resolver )
+    {
+        return new ModelCache( )
+        {
+            @Override
+            public void put( String groupId, String artifactId, String version, String tag, Object data )
+            {
+                Path file = resolver.getResolvedModelFile( groupId, artifactId, version );
+                if ( file != null && isCacheableVersion( version ) )
+                {
+                    MavenModelCache.this.put( builderData, getKey( repositoryId, groupId, artifactId, version, tag ), data,
+                        Collections.singletonList( file ) );
+                }
+            }
+
+            @Override
+            public Object get( String groupId, String artifactId, String version, String tag )
+            {
+                return MavenModelCache.this.get( builderData, getKey( repositoryId, groupId, artifactId, version, tag ) );
+            }
+        };
+    }
+
+    /**
+     * Removes all entries of the given repository.
+     *
+     * @param repositoryId the id of the managed repository
+     */
+    public void invalidate( String repositoryId )
+    {
+        String prefix = repositoryId + ":";
+        synchronized ( this )
+        {
+            effectiveModels.keySet( ).removeIf( key -> key.startsWith( prefix ) );
+            builderData.keySet( ).removeIf( key -> key.startsWith( prefix ) );
+        }
+    }
+
+    public synchronized void clear( )
+    {
+        effectiveModels.clear( );
+        builderData.clear( );
+    }
+
+    /**
+     * Returns <code>true</code>, if models can be cached by coordinates with the given version. This is not the case
+     * for SNAPSHOT versions and version ranges, because they resolve to another POM file after a deployment.
+     *
+     * @param version the version of the coordinates
+     * @return <code>true</code>, if the version always resolves to the same POM file
+     */
+    public static boolean isCacheableVersion( String version )
+    {
+        if ( version == null || version.isEmpty( ) || VersionUtil.isSnapshot( version ) )
+        {
+            return false;
+        }
+        return !( version.startsWith( "[" ) || version.startsWith( "(" ) || version.indexOf( ',' ) >= 0 );
+    }
+
+    private static String getKey( String repositoryId, String groupId, String artifactId, String version, String tag )
+    {
+        return repositoryId + ":" + groupId + ":" + artifactId + ":" + version + ":" + tag;
+    }
+
+    private Object get( Map<String, CacheEntry> map, String key )
+    {
+        CacheEntry entry;
+        synchronized ( this )
+        {
+            entry = map.get( key );
+        }
+        if ( entry == null )
+        {
+            return null;
+        }
+        if ( !entry.isValid( ) )
+        {
+            synchronized ( this )
+            {
+                map.remove( key, entry );
+            }
+            return null;
+        }
+        return entry.data;
+    }
+
+    private void put( Map<String, CacheEntry> map, String key, Object data, List<Path> files )
+    {
+        CacheEntry entry = new CacheEntry( data, files );
+        synchronized ( this )
+        {
+            map.put( key, entry );
+        }
+    }
+
+    private static String getFileState( Path file )
+    {
+        try
+        {
+            BasicFileAttributes attributes = Files.readAttributes( file, BasicFileAttributes.class );
+            return attributes.lastModifiedTime( ) + ";" + attributes.size( );
+        }
+        catch ( IOException e )
+        {
+            return null;
+        }
+    }
+
+    private static class CacheEntry
+    {
+        final Object data;
+        final List<Path> files;
+        final List<String> states;
+
+        CacheEntry( Object data, List<Path> files )
+        {
+            this.data = data;
+            this.files = files;
+            this.states = new ArrayList<>( files.size( ) );
+            for ( Path file : files )
+            {
+                states.add( getFileState( file ) );
+            }
+        }
+
+        boolean isValid( )
+        {
+            for ( int i = 0; i < files.size( ); i++ )
+            {
+                String state = states.get( i );
+                if ( state == null || !state.equals( getFileState( files.get( i ) ) ) )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
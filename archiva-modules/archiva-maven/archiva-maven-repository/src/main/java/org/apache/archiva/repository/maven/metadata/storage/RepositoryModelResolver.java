@@ -64,9 +64,12 @@
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class RepositoryModelResolver
     implements ModelResolver
@@ -95,6 +98,12 @@
 
     private MavenMetadataReader metadataReader;
 
+    // key: groupId:artifactId:version, value: the POM file returned for these coordinates
+    private Map<String, Path> resolvedModels = new HashMap<>();
+
+    // the requested versions, including the ranges before they are resolved
+    private Set<String> requestedVersions = new HashSet<>();
+
 
 
     private ManagedRepository managedRepository;
@@ -138,6 +147,7 @@ public RepositoryModelResolver(ManagedRepository managedRepository, RepositoryPa
     public ModelSource resolveModel( String groupId, String artifactId, String version )
         throws UnresolvableModelException
     {
+        requestedVersions.add( version );
         String filename = artifactId + "-" + version + ".pom";
         // TODO: we need to convert 1.0-20091120.112233-1 type paths to baseVersion for the below call - add a test
 
@@ -154,6 +164,7 @@ public ModelSource resolveModel( String groupId, String artifactId, String versi
                 Path localSnapshotModel = findTimeStampedSnapshotPom( groupId, artifactId, version, model.getParent().getFilePath() );
                 if ( localSnapshotModel != null )
                 {
+                    resolvedModels.put( getModelKey( groupId, artifactId, version ), localSnapshotModel );
                     return new FileModelSource( localSnapshotModel.toFile() );
                 }
 
@@ -188,10 +199,44 @@ public ModelSource resolveModel( String groupId, String artifactId, String versi
             }
         }
 
+        resolvedModels.put( getModelKey( groupId, artifactId, version ), model.getFilePath() );
         return new FileModelSource( model.getFilePath().toFile() );
     }
 
+    private static String getModelKey( String groupId, String artifactId, String version )
+    {
+        return groupId + ":" + artifactId + ":" + version;
+    }
+
+    /**
+     * Returns the POM file that was returned by this resolver, or one of its copies, for the given coordinates.
+     *
+     * @return the path of the POM file, or <code>null</code>, if the model was not resolved by this resolver
+     */
+    public Path getResolvedModelFile( String groupId, String artifactId, String version )
+    {
+        return resolvedModels.get( getModelKey( groupId, artifactId, version ) );
+    }
+
+    /**
+     * Returns all POM files that were returned by this resolver, or one of its copies.
+     */
+    public Collection<Path> getResolvedModelFiles( )
+    {
+        return resolvedModels.values( );
+    }
+
+    /**
+     * Returns <code>true</code>, if none of the requested models had a SNAPSHOT version or a version range.
+     * Only then a model built with this resolver stays valid as long as the resolved files are unchanged.
+     */
+    public boolean isCacheable( )
+    {
+        return requestedVersions.stream( ).allMatch( MavenModelCache::isCacheableVersion );
+    }
+
     public ModelSource resolveModel(Parent parent) throws UnresolvableModelException {
+        requestedVersions.add( parent.getVersion() );
         try {
             Artifact artifact = new DefaultArtifact(parent.getGroupId(), parent.getArtifactId(), "", "pom", parent.getVersion());
             VersionRangeRequest versionRangeRequest;
@@ -211,6 +256,7 @@ public ModelSource resolveModel(Parent parent) throws UnresolvableModelException
     }
 
     public ModelSource resolveModel(Dependency dependency) throws UnresolvableModelException {
+        requestedVersions.add( dependency.getVersion() );
         try {
             Artifact artifact = new DefaultArtifact(dependency.getGroupId(), dependency.getArtifactId(), "", "pom", dependency.getVersion());
             VersionRangeRequest versionRangeRequest = new VersionRangeRequest(artifact, null, null);
@@ -287,8 +333,12 @@ public void addRepository( Repository repository, boolean b ) throws InvalidRepo
     @Override
     public ModelResolver newCopy()
     {
-        return new RepositoryModelResolver( managedRepository,  pathTranslator, wagonFactory, remoteRepositories, 
+        RepositoryModelResolver copy = new RepositoryModelResolver( managedRepository,  pathTranslator, wagonFactory, remoteRepositories,
                                             networkProxyMap, targetRepository, mavenSystemManager, metadataReader);
+        // Copies are used for imported POMs, which are part of the effective model, too
+        copy.resolvedModels = this.resolvedModels;
+        copy.requestedVersions = this.requestedVersions;
+        return copy;
     }
 
     // FIXME: we need to do some refactoring, we cannot re-use the proxy components of archiva-proxy in maven2-repository
@@ -45,9 +45,12 @@
 import org.apache.archiva.repository.maven.MavenManagedRepository;
 import org.apache.archiva.repository.maven.metadata.storage.ArtifactMappingProvider;
 import org.apache.archiva.repository.storage.StorageAsset;
+import org.apache.archiva.repository.storage.util.StorageUtil;
 import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -72,6 +75,8 @@
 public class ManagedDefaultRepositoryContentTest
     extends AbstractBaseRepositoryContentLayoutTest
 {
+    private static final Logger log = LoggerFactory.getLogger( ManagedDefaultRepositoryContentTest.class );
+
     private ManagedDefaultRepositoryContent repoContent;
 
     @Inject
@@ -1504,4 +1509,84 @@ public void getNonExistingMetadataItem() {
         assertEquals( "/javax/sql/jdbc/2.0/maven-metadata.xml", metaData.getAsset( ).getPath( ) );
     }
 
+    @Test
+    public void newItemStreamWithWildcards() throws IOException
+    {
+        Path repoDir = Files.createTempDirectory( "archiva-wildcard" );
+        for ( int g = 0; g < 30; g++ )
+        {
+            for ( int p = 0; p < 15; p++ )
+            {
+                for ( int v = 0; v < 4; v++ )
+                {
+                    Path versionDir = repoDir.resolve( "org/example/g" + g + "/p" + p + "/1." + v );
+                    Files.createDirectories( versionDir );
+                    Files.createFile( versionDir.resolve( "p" + p + "-1." + v + ".jar" ) );
+                    Files.createFile( versionDir.resolve( "p" + p + "-1." + v + ".pom" ) );
+                }
+            }
+        }
+        MavenManagedRepository repository = createRepository( "wildcardRepo", "Wildcard Repo", repoDir );
+        ManagedDefaultRepositoryContent content = new ManagedDefaultRepositoryContent( repository, fileTypes, fileLockManager );
+        content.setMavenContentHelper( contentHelper );
+        content.setMetadataReader( metadataReader );
+        content.setPathTranslator( pathTranslator );
+        content.setArtifactMappingProviders( artifactMappingProviders );
+
+        ItemSelector[] selectors = new ItemSelector[]{
+            ArchivaItemSelector.builder( ).withNamespace( "org.example.g1*" ).build( ),
+            ArchivaItemSelector.builder( ).withNamespace( "org.example.*" ).withProjectId( "p1" ).build( ),
+            ArchivaItemSelector.builder( ).withNamespace( "org.example.g2" ).withProjectId( "p*" )
+                .withVersion( "1.2" ).build( ),
+            ArchivaItemSelector.builder( ).withNamespace( "org.example.g2" ).withProjectId( "p3" )
+                .withVersion( "*" ).build( )
+        };
+        // The number of iterations can be raised for measuring by the system property archiva.benchmark.iterations
+        int iterations = Integer.getInteger( "archiva.benchmark.iterations", 1 );
+        try
+        {
+            for ( ItemSelector selector : selectors )
+            {
+                List<String> expected = getFullWalkPaths( content, selector );
+                assertFalse( expected.isEmpty( ) );
+                assertEquals( expected, getItemStreamPaths( content, selector ) );
+
+                long fullWalk = 0;
+                long pruned = 0;
+                for ( int i = 0; i < iterations; i++ )
+                {
+                    long start = System.nanoTime( );
+                    getFullWalkPaths( content, selector );
+                    fullWalk += System.nanoTime( ) - start;
+                    start = System.nanoTime( );
+                    getItemStreamPaths( content, selector );
+                    pruned += System.nanoTime( ) - start;
+                }
+                log.info( "{}/{}/{}: {} items, {} iterations: full walk={}ms, pruned={}ms", selector.getNamespace( ),
+                    selector.getProjectId( ), selector.getVersion( ), expected.size( ), iterations, fullWalk / 1000000,
+                    pruned / 1000000 );
+            }
+        }
+        finally
+        {
+            FileUtils.deleteQuietly( repoDir.toFile( ) );
+        }
+    }
+
+    private List<String> getFullWalkPaths( ManagedDefaultRepositoryContent content, ItemSelector selector )
+    {
+        try ( Stream<StorageAsset> stream = StorageUtil.newAssetStream( content.getRepository( ).getRoot( ) ) )
+        {
+            return stream.filter( content.getItemFileFilterFromSelector( selector ) )
+                .map( StorageAsset::getPath ).sorted( ).collect( Collectors.toList( ) );
+        }
+    }
+
+    private List<String> getItemStreamPaths( ManagedDefaultRepositoryContent content, ItemSelector selector )
+    {
+        try ( Stream<? extends ContentItem> stream = content.newItemStream( selector, true ) )
+        {
+            return stream.map( item -> item.getAsset( ).getPath( ) ).sorted( ).collect( Collectors.toList( ) );
+        }
+    }
 }
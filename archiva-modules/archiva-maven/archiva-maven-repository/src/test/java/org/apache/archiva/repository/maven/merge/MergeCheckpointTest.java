@@ -0,0 +1,114 @@
+package org.apache.archiva.repository.maven.merge;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class MergeCheckpointTest
+    extends TestCase
+{
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder( );
+
+    private Path createSource( Path sourceDirectory, String path, String content )
+        throws Exception
+    {
+        Path source = sourceDirectory.resolve( path );
+        Files.createDirectories( source.getParent( ) );
+        Files.write( source, content.getBytes( StandardCharsets.UTF_8 ) );
+        Files.setLastModifiedTime( source, FileTime.fromMillis( 1000000L ) );
+        return source;
+    }
+
+    @Test
+    public void testResumeAfterInterruption( )
+        throws Exception
+    {
+        Path target = tempDir.newFolder( ).toPath( );
+        Path sourceDirectory = tempDir.newFolder( ).toPath( );
+        Path jar = createSource( sourceDirectory, "org/example/test/1.0/test-1.0.jar", "jar" );
+        Path pom = createSource( sourceDirectory, "org/example/test/1.0/test-1.0.pom", "pom" );
+        Path sources = createSource( sourceDirectory, "org/example/test/1.0/test-1.0-sources.jar", "sources" );
+
+        MergeCheckpoint checkpoint = new MergeCheckpoint( target, "staging" );
+        checkpoint.setCompleted( "org/example/test/1.0/test-1.0.jar", MergeCheckpoint.getStamp( jar ) );
+        checkpoint.setCompleted( "org/example/test/1.0/test-1.0.pom", MergeCheckpoint.getStamp( pom ) );
+        // interrupted merge, the checkpoint is not finished
+        checkpoint.close( );
+        assertTrue( Files.exists( checkpoint.getFile( ) ) );
+
+        checkpoint = new MergeCheckpoint( target, "staging" );
+        assertEquals( 2, checkpoint.getCompletedCount( ) );
+        assertTrue( checkpoint.isCompleted( "org/example/test/1.0/test-1.0.jar", jar ) );
+        assertFalse( checkpoint.isCompleted( "org/example/test/1.0/test-1.0-sources.jar", sources ) );
+        checkpoint.setCompleted( "org/example/test/1.0/test-1.0-sources.jar", MergeCheckpoint.getStamp( sources ) );
+        checkpoint.finish( );
+        assertFalse( Files.exists( checkpoint.getFile( ) ) );
+
+        checkpoint = new MergeCheckpoint( target, "staging" );
+        assertEquals( 0, checkpoint.getCompletedCount( ) );
+        checkpoint.finish( );
+    }
+
+    @Test
+    public void testChangedSourceIsTransferredAgain( )
+        throws Exception
+    {
+        Path target = tempDir.newFolder( ).toPath( );
+        Path sourceDirectory = tempDir.newFolder( ).toPath( );
+        Path jar = createSource( sourceDirectory, "org/example/test/1.0/test-1.0.jar", "jar" );
+        Path pom = createSource( sourceDirectory, "org/example/test/1.0/test-1.0.pom", "pom" );
+
+        MergeCheckpoint checkpoint = new MergeCheckpoint( target, "staging" );
+        checkpoint.setCompleted( "org/example/test/1.0/test-1.0.jar", MergeCheckpoint.getStamp( jar ) );
+        checkpoint.setCompleted( "org/example/test/1.0/test-1.0.pom", MergeCheckpoint.getStamp( pom ) );
+        checkpoint.close( );
+
+        // the source repository has been changed between the runs of the merge
+        Files.write( jar, "changed jar".getBytes( StandardCharsets.UTF_8 ) );
+        Files.setLastModifiedTime( pom, FileTime.fromMillis( 2000000L ) );
+
+        checkpoint = new MergeCheckpoint( target, "staging" );
+        assertFalse( checkpoint.isCompleted( "org/example/test/1.0/test-1.0.jar", jar ) );
+        assertFalse( checkpoint.isCompleted( "org/example/test/1.0/test-1.0.pom", pom ) );
+
+        // the new transfer replaces the earlier entry
+        checkpoint.setCompleted( "org/example/test/1.0/test-1.0.jar", MergeCheckpoint.getStamp( jar ) );
+        checkpoint.close( );
+        checkpoint = new MergeCheckpoint( target, "staging" );
+        assertTrue( checkpoint.isCompleted( "org/example/test/1.0/test-1.0.jar", jar ) );
+
+        // a removed source file is not completed
+        Files.delete( pom );
+        assertFalse( checkpoint.isCompleted( "org/example/test/1.0/test-1.0.pom", pom ) );
+        checkpoint.finish( );
+    }
+}
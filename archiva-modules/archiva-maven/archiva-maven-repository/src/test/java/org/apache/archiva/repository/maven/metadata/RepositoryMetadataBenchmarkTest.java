@@ -0,0 +1,186 @@
+package org.apache.archiva.repository.maven.metadata;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.metadata.maven.MavenMetadataReader;
+import org.apache.archiva.model.ArchivaRepositoryMetadata;
+import org.apache.archiva.model.SnapshotVersion;
+import org.apache.archiva.repository.metadata.RepositoryMetadataException;
+import org.apache.archiva.repository.metadata.base.RepositoryMetadataWriter;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares the streaming and the DOM based reader and writer for maven-metadata.xml files.
+ *
+ * By default a generated metadata file with a large number of snapshot versions is used and only a few
+ * iterations are run. For measuring, real world files can be used by setting the system property
+ * <code>archiva.benchmark.metadataDir</code> to a directory that contains maven-metadata.xml files,
+ * and the number of iterations by <code>archiva.benchmark.iterations</code>.
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class RepositoryMetadataBenchmarkTest
+    extends TestCase
+{
+    private static final Logger log = LoggerFactory.getLogger( RepositoryMetadataBenchmarkTest.class );
+
+    private static final int GENERATED_VERSIONS = 5000;
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder( );
+
+    @Test
+    public void testStreamingAndDomAreEquivalent()
+        throws Exception
+    {
+        List<Path> files = getMetadataFiles( );
+        int iterations = Integer.getInteger( "archiva.benchmark.iterations", 3 );
+
+        MavenMetadataReader streamingReader = new MavenMetadataReader( );
+        streamingReader.setStreamingEnabled( true );
+        MavenMetadataReader domReader = new MavenMetadataReader( );
+        domReader.setStreamingEnabled( false );
+
+        List<ArchivaRepositoryMetadata> metadataList = new ArrayList<>( );
+        List<Path> validFiles = new ArrayList<>( );
+        for ( Path file : files )
+        {
+            ArchivaRepositoryMetadata dom;
+            try
+            {
+                dom = domReader.read( file );
+            }
+            catch ( RepositoryMetadataException e )
+            {
+                log.info( "Skipping invalid metadata file {}", file );
+                continue;
+            }
+            ArchivaRepositoryMetadata streamed = streamingReader.read( file );
+            assertEquals( file.toString( ), dom.getGroupId( ), streamed.getGroupId( ) );
+            assertEquals( file.toString( ), dom.getArtifactId( ), streamed.getArtifactId( ) );
+            assertEquals( file.toString( ), dom.getVersion( ), streamed.getVersion( ) );
+            assertEquals( file.toString( ), dom.getLatestVersion( ), streamed.getLatestVersion( ) );
+            assertEquals( file.toString( ), dom.getReleasedVersion( ), streamed.getReleasedVersion( ) );
+            assertEquals( file.toString( ), dom.getLastUpdated( ), streamed.getLastUpdated( ) );
+            assertEquals( file.toString( ), dom.getAvailableVersions( ), streamed.getAvailableVersions( ) );
+            assertEquals( file.toString( ), dom.getPlugins( ).size( ), streamed.getPlugins( ).size( ) );
+            validFiles.add( file );
+            metadataList.add( dom );
+
+            StringWriter streamedOut = new StringWriter( );
+            RepositoryMetadataWriter.writeStream( dom, streamedOut );
+            StringWriter domOut = new StringWriter( );
+            RepositoryMetadataWriter.writeDocument( dom, domOut );
+            assertEquals( file.toString( ), domOut.toString( ), streamedOut.toString( ) );
+        }
+
+        long domRead = 0;
+        long streamingRead = 0;
+        long domWrite = 0;
+        long streamingWrite = 0;
+        for ( int i = 0; i < iterations; i++ )
+        {
+            long start = System.nanoTime( );
+            for ( Path file : validFiles )
+            {
+                domReader.read( file );
+            }
+            domRead += System.nanoTime( ) - start;
+
+            start = System.nanoTime( );
+            for ( Path file : validFiles )
+            {
+                streamingReader.read( file );
+            }
+            streamingRead += System.nanoTime( ) - start;
+
+            start = System.nanoTime( );
+            for ( ArchivaRepositoryMetadata metadata : metadataList )
+            {
+                RepositoryMetadataWriter.writeDocument( metadata, new StringWriter( ) );
+            }
+            domWrite += System.nanoTime( ) - start;
+
+            start = System.nanoTime( );
+            for ( ArchivaRepositoryMetadata metadata : metadataList )
+            {
+                RepositoryMetadataWriter.writeStream( metadata, new StringWriter( ) );
+            }
+            streamingWrite += System.nanoTime( ) - start;
+        }
+        log.info( "{} files, {} iterations: read DOM={}ms, StAX={}ms; write DOM={}ms, StAX={}ms", validFiles.size( ),
+            iterations, domRead / 1000000, streamingRead / 1000000, domWrite / 1000000, streamingWrite / 1000000 );
+    }
+
+    private List<Path> getMetadataFiles( )
+        throws Exception
+    {
+        String metadataDir = System.getProperty( "archiva.benchmark.metadataDir" );
+        if ( metadataDir != null )
+        {
+            try ( Stream<Path> stream = Files.walk( Paths.get( metadataDir ) ) )
+            {
+                return stream.filter( p -> p.getFileName( ).toString( ).equals( MavenMetadataReader.MAVEN_METADATA ) )
+                    .collect( Collectors.toList( ) );
+            }
+        }
+
+        ArchivaRepositoryMetadata metadata = new ArchivaRepositoryMetadata( );
+        metadata.setGroupId( "org.apache.archiva" );
+        metadata.setArtifactId( "archiva-nightly" );
+        for ( int i = 1; i <= GENERATED_VERSIONS; i++ )
+        {
+            metadata.addAvailableVersion( "3.0.0-20200101." + String.format( "%06d", i ) + "-" + i );
+        }
+        metadata.setLatestVersion( "3.0.0-SNAPSHOT" );
+        metadata.setReleasedVersion( "2.2.5" );
+        SnapshotVersion snapshot = new SnapshotVersion( );
+        snapshot.setTimestamp( "20200101.005000" );
+        snapshot.setBuildNumber( GENERATED_VERSIONS );
+        metadata.setSnapshotVersion( snapshot );
+        metadata.setLastUpdated( "20200101005000" );
+
+        Path file = tempDir.newFolder( ).toPath( ).resolve( MavenMetadataReader.MAVEN_METADATA );
+        try ( Writer writer = Files.newBufferedWriter( file, StandardCharsets.UTF_8 ) )
+        {
+            RepositoryMetadataWriter.writeDocument( metadata, writer );
+        }
+        List<Path> files = new ArrayList<>( );
+        files.add( file );
+        return files;
+    }
+}
@@ -0,0 +1,112 @@
+package org.apache.archiva.repository.maven.metadata.storage;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.apache.maven.model.Model;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+
+/**
+ * Test for {@link MavenModelCache}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class MavenModelCacheTest
+    extends TestCase
+{
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder( );
+
+    @Test
+    public void testEffectiveModelInvalidatedByParentChange( )
+        throws Exception
+    {
+        Path pom = tempDir.newFile( "test-1.0.pom" ).toPath( );
+        Path parentPom = tempDir.newFile( "parent-1.0.pom" ).toPath( );
+        Files.write( pom, "<project/>".getBytes( StandardCharsets.UTF_8 ) );
+        Files.write( parentPom, "<project/>".getBytes( StandardCharsets.UTF_8 ) );
+
+        MavenModelCache cache = new MavenModelCache( );
+        Model model = new Model( );
+        model.setArtifactId( "test" );
+        cache.putEffectiveModel( "internal", pom, model, Collections.singletonList( parentPom ) );
+
+        Model cached = cache.getEffectiveModel( "internal", pom );
+        assertNotNull( cached );
+        assertEquals( "test", cached.getArtifactId( ) );
+        assertNotSame( model, cached );
+        assertNull( cache.getEffectiveModel( "snapshots", pom ) );
+
+        Files.write( parentPom, "<project></project>".getBytes( StandardCharsets.UTF_8 ) );
+        Files.setLastModifiedTime( parentPom, FileTime.fromMillis( System.currentTimeMillis( ) + 10000 ) );
+        assertNull( cache.getEffectiveModel( "internal", pom ) );
+    }
+
+    @Test
+    public void testInvalidateRepository( )
+        throws Exception
+    {
+        Path pom = tempDir.newFile( "test-1.0.pom" ).toPath( );
+        MavenModelCache cache = new MavenModelCache( );
+        cache.putEffectiveModel( "internal", pom, new Model( ), Collections.emptyList( ) );
+        assertNotNull( cache.getEffectiveModel( "internal", pom ) );
+
+        cache.invalidate( "internal" );
+        assertNull( cache.getEffectiveModel( "internal", pom ) );
+    }
+
+    @Test
+    public void testCacheableVersions( )
+    {
+        assertTrue( MavenModelCache.isCacheableVersion( "1.0" ) );
+        assertTrue( MavenModelCache.isCacheableVersion( "2.1-beta-1" ) );
+        assertFalse( MavenModelCache.isCacheableVersion( "1.0-SNAPSHOT" ) );
+        assertFalse( MavenModelCache.isCacheableVersion( "1.0-20200311.123456-1" ) );
+        assertFalse( MavenModelCache.isCacheableVersion( "[1.0,2.0)" ) );
+        assertFalse( MavenModelCache.isCacheableVersion( "(,1.0]" ) );
+        assertFalse( MavenModelCache.isCacheableVersion( "[1.5]" ) );
+        assertFalse( MavenModelCache.isCacheableVersion( null ) );
+    }
+
+    @Test
+    public void testMaxEntries( )
+        throws Exception
+    {
+        MavenModelCache cache = new MavenModelCache( 2 );
+        Path pom1 = tempDir.newFile( "a.pom" ).toPath( );
+        Path pom2 = tempDir.newFile( "b.pom" ).toPath( );
+        Path pom3 = tempDir.newFile( "c.pom" ).toPath( );
+        cache.putEffectiveModel( "internal", pom1, new Model( ), Collections.emptyList( ) );
+        cache.putEffectiveModel( "internal", pom2, new Model( ), Collections.emptyList( ) );
+        cache.putEffectiveModel( "internal", pom3, new Model( ), Collections.emptyList( ) );
+        assertNull( cache.getEffectiveModel( "internal", pom1 ) );
+        assertNotNull( cache.getEffectiveModel( "internal", pom2 ) );
+        assertNotNull( cache.getEffectiveModel( "internal", pom3 ) );
+    }
+}
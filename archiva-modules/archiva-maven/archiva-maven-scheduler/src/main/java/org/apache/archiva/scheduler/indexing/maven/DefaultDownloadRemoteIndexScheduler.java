@@ -22,6 +22,7 @@
 import org.apache.archiva.proxy.model.NetworkProxy;
 import org.apache.archiva.scheduler.indexing.DownloadRemoteIndexException;
 import org.apache.archiva.scheduler.indexing.DownloadRemoteIndexScheduler;
+import org.apache.archiva.scheduler.indexing.RemoteIndexDownloadStatus;
 import org.apache.archiva.configuration.ArchivaConfiguration;
 import org.apache.archiva.configuration.ConfigurationEvent;
 import org.apache.archiva.configuration.ConfigurationListener;
@@ -42,8 +43,11 @@
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -82,6 +86,9 @@
     // store ids about currently running remote download : updated in DownloadRemoteIndexTask
     private List<String> runningRemoteDownloadIds = new CopyOnWriteArrayList<String>();
 
+    // progress of the currently running remote downloads : updated in DownloadRemoteIndexTask
+    private Map<String, RemoteIndexDownloadStatus> runningRemoteDownloads = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void startup()
             throws
@@ -160,7 +167,8 @@ public void scheduleDownloadRemote( String repositoryId, boolean now, boolean fu
             log.info( "schedule download remote index for repository {}", remoteRepo.getId() );
             // do it now
             taskScheduler.schedule(
-                new DownloadRemoteIndexTask( downloadRemoteIndexTaskRequest, this.runningRemoteDownloadIds ),
+                new DownloadRemoteIndexTask( downloadRemoteIndexTaskRequest, this.runningRemoteDownloadIds,
+                                              this.runningRemoteDownloads ),
                 new Date() );
         }
         else
@@ -171,7 +179,8 @@ public void scheduleDownloadRemote( String repositoryId, boolean now, boolean fu
             {
                 CronTrigger cronTrigger = new CronTrigger( remoteRepo.getSchedulingDefinition());
                 taskScheduler.schedule(
-                    new DownloadRemoteIndexTask( downloadRemoteIndexTaskRequest, this.runningRemoteDownloadIds ),
+                    new DownloadRemoteIndexTask( downloadRemoteIndexTaskRequest, this.runningRemoteDownloadIds,
+                                                  this.runningRemoteDownloads ),
                     cronTrigger );
             }
             catch ( IllegalArgumentException e )
@@ -185,7 +194,8 @@ public void scheduleDownloadRemote( String repositoryId, boolean now, boolean fu
                     "remote repository {} configured with downloadRemoteIndexOnStartup schedule now a download",
                     remoteRepo.getId() );
                 taskScheduler.schedule(
-                    new DownloadRemoteIndexTask( downloadRemoteIndexTaskRequest, this.runningRemoteDownloadIds ),
+                    new DownloadRemoteIndexTask( downloadRemoteIndexTaskRequest, this.runningRemoteDownloadIds,
+                                                  this.runningRemoteDownloads ),
                     new Date() );
             }
         }
@@ -207,4 +217,10 @@ public List<String> getRunningRemoteDownloadIds()
     {
         return runningRemoteDownloadIds;
     }
+
+    @Override
+    public List<RemoteIndexDownloadStatus> getRunningRemoteDownloads()
+    {
+        return new ArrayList<>( runningRemoteDownloads.values() );
+    }
 }
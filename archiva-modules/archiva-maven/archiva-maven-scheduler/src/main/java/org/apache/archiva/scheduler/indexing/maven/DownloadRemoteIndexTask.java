@@ -26,6 +26,7 @@
 import org.apache.archiva.repository.RepositoryException;
 import org.apache.archiva.repository.RepositoryType;
 import org.apache.archiva.repository.features.RemoteIndexFeature;
+import org.apache.archiva.scheduler.indexing.RemoteIndexDownloadStatus;
 import org.apache.commons.lang3.time.StopWatch;
 import org.apache.maven.index.context.IndexingContext;
 import org.apache.maven.index.updater.IndexUpdateRequest;
@@ -57,6 +58,7 @@
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Olivier Lamy
@@ -77,12 +79,29 @@
 
     private List<String> runningRemoteDownloadIds;
 
+    private Map<String, RemoteIndexDownloadStatus> runningRemoteDownloads;
+
     private IndexUpdater indexUpdater;
 
+    private int downloadThreads = Integer.getInteger( "archiva.indexDownload.threads", 4 );
+
 
     public DownloadRemoteIndexTask( DownloadRemoteIndexTaskRequest downloadRemoteIndexTaskRequest,
                                     List<String> runningRemoteDownloadIds )
     {
+        this( downloadRemoteIndexTaskRequest, runningRemoteDownloadIds, new ConcurrentHashMap<>() );
+    }
+
+    /**
+     * @param runningRemoteDownloads the progress of the running downloads by repository id, the task adds its
+     *                               progress while it is running
+     * @since 3.0
+     */
+    public DownloadRemoteIndexTask( DownloadRemoteIndexTaskRequest downloadRemoteIndexTaskRequest,
+                                    List<String> runningRemoteDownloadIds,
+                                    Map<String, RemoteIndexDownloadStatus> runningRemoteDownloads )
+    {
+        this.runningRemoteDownloads = runningRemoteDownloads;
         this.remoteRepository = downloadRemoteIndexTaskRequest.getRemoteRepository();
         this.wagonFactory = downloadRemoteIndexTaskRequest.getWagonFactory();
         this.networkProxy = downloadRemoteIndexTaskRequest.getNetworkProxy();
@@ -107,7 +126,9 @@ public void run()
             }
             this.runningRemoteDownloadIds.add( this.remoteRepository.getId() );
         }
-        Path tempIndexDirectory = null;
+        RemoteIndexDownloadStatus status = new RemoteIndexDownloadStatus( this.remoteRepository.getId() );
+        this.runningRemoteDownloads.put( this.remoteRepository.getId(), status );
+        ResourceFetcher resourceFetcher = null;
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
         try
@@ -124,61 +145,13 @@ public void run()
             }
             RemoteIndexFeature rif = this.remoteRepository.getFeature(RemoteIndexFeature.class).get();
             IndexingContext indexingContext = this.remoteRepository.getIndexingContext().getBaseContext(IndexingContext.class);
-            // create a temp directory to download files
-            tempIndexDirectory = Paths.get(indexingContext.getIndexDirectoryFile().getParent(), ".tmpIndex" );
+            // the files of an interrupted download are kept in the temp directory, so that it can be resumed
+            Path tempIndexDirectory = Paths.get(indexingContext.getIndexDirectoryFile().getParent(), ".tmpIndex" );
             Path indexCacheDirectory = Paths.get( indexingContext.getIndexDirectoryFile().getParent(), ".indexCache" );
             Files.createDirectories( indexCacheDirectory );
-            if ( Files.exists(tempIndexDirectory) )
-            {
-                org.apache.archiva.common.utils.FileUtils.deleteDirectory( tempIndexDirectory );
-            }
             Files.createDirectories( tempIndexDirectory );
-            tempIndexDirectory.toFile().deleteOnExit();
             String baseIndexUrl = indexingContext.getIndexUpdateUrl();
 
-            String wagonProtocol = this.remoteRepository.getLocation().getScheme();
-
-            final StreamWagon wagon = (StreamWagon) wagonFactory.getWagon(
-                new WagonFactoryRequest( wagonProtocol, this.remoteRepository.getExtraHeaders() ).networkProxy(
-                    this.networkProxy )
-            );
-            // FIXME olamy having 2 config values
-            wagon.setReadTimeout( (int)rif.getDownloadTimeout().toMillis());
-            wagon.setTimeout( (int)remoteRepository.getTimeout().toMillis());
-
-            if ( wagon instanceof AbstractHttpClientWagon )
-            {
-                HttpConfiguration httpConfiguration = new HttpConfiguration();
-                HttpMethodConfiguration httpMethodConfiguration = new HttpMethodConfiguration();
-                httpMethodConfiguration.setUsePreemptive( true );
-                httpMethodConfiguration.setReadTimeout( (int)rif.getDownloadTimeout().toMillis() );
-                httpConfiguration.setGet( httpMethodConfiguration );
-                AbstractHttpClientWagon.class.cast( wagon ).setHttpConfiguration( httpConfiguration );
-            }
-
-            wagon.addTransferListener( new DownloadListener() );
-            ProxyInfo proxyInfo = null;
-            if ( this.networkProxy != null )
-            {
-                proxyInfo = new ProxyInfo();
-                proxyInfo.setType( this.networkProxy.getProtocol() );
-                proxyInfo.setHost( this.networkProxy.getHost() );
-                proxyInfo.setPort( this.networkProxy.getPort() );
-                proxyInfo.setUserName( this.networkProxy.getUsername() );
-                proxyInfo.setPassword( new String(this.networkProxy.getPassword()) );
-            }
-            AuthenticationInfo authenticationInfo = null;
-            if ( this.remoteRepository.getLoginCredentials()!=null && this.remoteRepository.getLoginCredentials() instanceof PasswordCredentials )
-            {
-                PasswordCredentials creds = (PasswordCredentials) this.remoteRepository.getLoginCredentials();
-                authenticationInfo = new AuthenticationInfo();
-                authenticationInfo.setUserName( creds.getUsername());
-                authenticationInfo.setPassword( new String(creds.getPassword()) );
-            }
-            log.debug("Connection to {}, authInfo={}", this.remoteRepository.getId(), authenticationInfo);
-            wagon.connect( new Repository( this.remoteRepository.getId(), baseIndexUrl ), authenticationInfo,
-                           proxyInfo );
-
             Path indexDirectory = indexingContext.getIndexDirectoryFile().toPath();
             if ( !Files.exists(indexDirectory) )
             {
@@ -187,8 +160,15 @@ public void run()
             log.debug("Downloading index file to {}", indexDirectory);
             log.debug("Index cache dir {}", indexCacheDirectory);
 
-            ResourceFetcher resourceFetcher =
-                new WagonResourceFetcher( log, tempIndexDirectory, wagon, remoteRepository );
+            String protocol = this.remoteRepository.getLocation().getScheme();
+            if ( "http".equalsIgnoreCase( protocol ) || "https".equalsIgnoreCase( protocol ) )
+            {
+                resourceFetcher = createResumableFetcher( rif, tempIndexDirectory, baseIndexUrl, status );
+            }
+            else
+            {
+                resourceFetcher = createWagonFetcher( rif, protocol, tempIndexDirectory, baseIndexUrl, status );
+            }
             IndexUpdateRequest request = new IndexUpdateRequest( indexingContext, resourceFetcher );
             request.setForceFullUpdate( this.fullDownload );
             request.setLocalIndexCacheDir( indexCacheDirectory.toFile() );
@@ -196,15 +176,15 @@ public void run()
             IndexUpdateResult result = this.indexUpdater.fetchAndUpdateIndex(request);
             log.debug("Update result success: {}", result.isSuccessful());
             stopWatch.stop();
-            log.info( "time update index from remote for repository {}: {}ms", this.remoteRepository.getId(),
-                      ( stopWatch.getTime() ) );
+            log.info( "time update index from remote for repository {}: {}ms, {}", this.remoteRepository.getId(),
+                      ( stopWatch.getTime() ), status );
 
             // index packing optionnal ??
             //IndexPackingRequest indexPackingRequest =
             //    new IndexPackingRequest( indexingContext, indexingContext.getIndexDirectoryFile() );
             //indexPacker.packIndex( indexPackingRequest );
             indexingContext.updateTimestamp( true );
-
+            deleteDirectoryQuiet( tempIndexDirectory );
         }
         catch ( Exception e )
         {
@@ -213,12 +193,94 @@ public void run()
         }
         finally
         {
-            deleteDirectoryQuiet( tempIndexDirectory );
+            disconnectQuiet( resourceFetcher );
+            this.runningRemoteDownloads.remove( this.remoteRepository.getId() );
             this.runningRemoteDownloadIds.remove( this.remoteRepository.getId() );
         }
         log.info( "end download remote index for remote repository {}", this.remoteRepository.getId() );
     }
 
+    private ResourceFetcher createResumableFetcher( RemoteIndexFeature rif, Path tempIndexDirectory,
+                                                    String baseIndexUrl, RemoteIndexDownloadStatus status )
+    {
+        ResumableIndexFetcher fetcher =
+            new ResumableIndexFetcher( tempIndexDirectory, baseIndexUrl, status, downloadThreads );
+        fetcher.setHeaders( this.remoteRepository.getExtraHeaders() );
+        fetcher.setParameters( this.remoteRepository.getExtraParameters() );
+        fetcher.setTimeouts( (int) remoteRepository.getTimeout().toMillis(), (int) rif.getDownloadTimeout().toMillis() );
+        fetcher.setNetworkProxy( this.networkProxy );
+        if ( this.remoteRepository.getLoginCredentials() instanceof PasswordCredentials )
+        {
+            PasswordCredentials creds = (PasswordCredentials) this.remoteRepository.getLoginCredentials();
+            fetcher.setCredentials( creds.getUsername(), new String( creds.getPassword() ) );
+        }
+        log.debug( "Resumable download from {} for {}", baseIndexUrl, this.remoteRepository.getId() );
+        return fetcher;
+    }
+
+    private ResourceFetcher createWagonFetcher( RemoteIndexFeature rif, String wagonProtocol, Path tempIndexDirectory,
+                                                String baseIndexUrl, RemoteIndexDownloadStatus status )
+        throws Exception
+    {
+        final StreamWagon wagon = (StreamWagon) wagonFactory.getWagon(
+            new WagonFactoryRequest( wagonProtocol, this.remoteRepository.getExtraHeaders() ).networkProxy(
+                this.networkProxy )
+        );
+        // FIXME olamy having 2 config values
+        wagon.setReadTimeout( (int)rif.getDownloadTimeout().toMillis());
+        wagon.setTimeout( (int)remoteRepository.getTimeout().toMillis());
+
+        if ( wagon instanceof AbstractHttpClientWagon )
+        {
+            HttpConfiguration httpConfiguration = new HttpConfiguration();
+            HttpMethodConfiguration httpMethodConfiguration = new HttpMethodConfiguration();
+            httpMethodConfiguration.setUsePreemptive( true );
+            httpMethodConfiguration.setReadTimeout( (int)rif.getDownloadTimeout().toMillis() );
+            httpConfiguration.setGet( httpMethodConfiguration );
+            AbstractHttpClientWagon.class.cast( wagon ).setHttpConfiguration( httpConfiguration );
+        }
+
+        wagon.addTransferListener( new DownloadListener() );
+        ProxyInfo proxyInfo = null;
+        if ( this.networkProxy != null )
+        {
+            proxyInfo = new ProxyInfo();
+            proxyInfo.setType( this.networkProxy.getProtocol() );
+            proxyInfo.setHost( this.networkProxy.getHost() );
+            proxyInfo.setPort( this.networkProxy.getPort() );
+            proxyInfo.setUserName( this.networkProxy.getUsername() );
+            proxyInfo.setPassword( new String(this.networkProxy.getPassword()) );
+        }
+        AuthenticationInfo authenticationInfo = null;
+        if ( this.remoteRepository.getLoginCredentials()!=null && this.remoteRepository.getLoginCredentials() instanceof PasswordCredentials )
+        {
+            PasswordCredentials creds = (PasswordCredentials) this.remoteRepository.getLoginCredentials();
+            authenticationInfo = new AuthenticationInfo();
+            authenticationInfo.setUserName( creds.getUsername());
+            authenticationInfo.setPassword( new String(creds.getPassword()) );
+        }
+        log.debug("Connection to {}, authInfo={}", this.remoteRepository.getId(), authenticationInfo);
+        wagon.connect( new Repository( this.remoteRepository.getId(), baseIndexUrl ), authenticationInfo,
+                       proxyInfo );
+
+        return new WagonResourceFetcher( log, tempIndexDirectory, wagon, remoteRepository, status );
+    }
+
+    private void disconnectQuiet( ResourceFetcher resourceFetcher )
+    {
+        if ( resourceFetcher != null )
+        {
+            try
+            {
+                resourceFetcher.disconnect();
+            }
+            catch ( IOException e )
+            {
+                log.warn( "skip error disconnect {} : {}", this.remoteRepository.getId(), e.getMessage() );
+            }
+        }
+    }
+
     private void deleteDirectoryQuiet( Path f )
     {
         try
@@ -302,9 +364,12 @@ public void debug( String message )
 
         RemoteRepository remoteRepository;
 
+        RemoteIndexDownloadStatus status;
+
         private WagonResourceFetcher( Logger log, Path tempIndexDirectory, Wagon wagon,
-                                      RemoteRepository remoteRepository )
+                                      RemoteRepository remoteRepository, RemoteIndexDownloadStatus status )
         {
+            this.status = status;
             this.log = log;
             this.tempIndexDirectory = tempIndexDirectory;
             this.wagon = wagon;
@@ -336,6 +401,9 @@ public InputStream retrieve( String name )
                 Files.deleteIfExists( file );
                 file.toFile().deleteOnExit();
                 wagon.get( addParameters( name, this.remoteRepository ), file.toFile() );
+                status.fileDownloaded();
+                status.addDownloadedBytes( Files.size( file ) );
+                status.fileApplied( name );
                 return Files.newInputStream( file );
             }
             catch ( AuthorizationException | TransferFailedException e )
@@ -0,0 +1,568 @@
+package org.apache.archiva.scheduler.indexing.maven;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.proxy.model.NetworkProxy;
+import org.apache.archiva.scheduler.indexing.RemoteIndexDownloadStatus;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpStatus;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicAuthCache;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeader;
+import org.apache.maven.index.updater.ResourceFetcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fetches the files of a remote index by HTTP and keeps them in a download directory, so that an interrupted
+ * download can be resumed by the next run.
+ *
+ * <ul>
+ *     <li>Files are downloaded to a <code>.part</code> file. A partial file is continued by a range request,
+ *     if the remote file has not changed (<code>If-Range</code> with the stored ETag or modification date).</li>
+ *     <li>Complete files are verified by the SHA-1 checksum published next to them. A complete file of a
+ *     previous run is only used again, if it matches the current remote checksum.</li>
+ *     <li>If the index updater requests an incremental chunk, the following chunks listed in the remote index
+ *     properties are downloaded concurrently, while the updater applies the requested one.</li>
+ * </ul>
+ *
+ * The index updater reads the files from disk, so the memory used does not depend on the size of the index.
+ * The requests are sent by the Apache HttpClient, that is also used by the HTTP wagon. It authenticates at the
+ * network proxy, also for https tunnels, and follows redirects. The repository credentials are only sent to the
+ * host of the index URL.
+ *
+ * @since 3.0
+ */
+class ResumableIndexFetcher
+    implements ResourceFetcher
+{
+    private static final Logger log = LoggerFactory.getLogger( ResumableIndexFetcher.class );
+
+    static final String PART_SUFFIX = ".part";
+
+    static final String VALIDATOR_SUFFIX = ".validator";
+
+    private static final String PROPERTIES_SUFFIX = ".properties";
+
+    private static final String INCREMENTAL_KEY = "nexus.index.incremental-";
+
+    private static final Pattern CHUNK_PATTERN = Pattern.compile( "^(.*)\\.(\\d+)\\.gz$" );
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path downloadDirectory;
+
+    private final String baseUrl;
+
+    private final RemoteIndexDownloadStatus status;
+
+    private final Map<String, Future<Path>> downloads = new ConcurrentHashMap<>( );
+
+    private final ExecutorService executor;
+
+    private final int threads;
+
+    private Map<String, String> headers = Collections.emptyMap( );
+
+    private Map<String, String> parameters = Collections.emptyMap( );
+
+    private UsernamePasswordCredentials credentials;
+
+    private NetworkProxy networkProxy;
+
+    private CloseableHttpClient client;
+
+    private final AuthCache authCache = new BasicAuthCache( );
+
+    private int connectTimeout = 60000;
+
+    private int readTimeout = 60000;
+
+    private TreeSet<Integer> remoteChunks = new TreeSet<>( );
+
+    private volatile boolean prefetchStarted = false;
+
+    /**
+     * @param downloadDirectory the directory, where the files are stored until the update has finished
+     * @param baseUrl the URL of the remote index directory
+     * @param status the progress to update
+     * @param threads the maximum number of concurrent downloads
+     */
+    ResumableIndexFetcher( Path downloadDirectory, String baseUrl, RemoteIndexDownloadStatus status, int threads )
+    {
+        this.downloadDirectory = downloadDirectory;
+        this.baseUrl = baseUrl.endsWith( "/" ) ? baseUrl : baseUrl + "/";
+        this.status = status;
+        this.threads = Math.max( 1, threads );
+        this.executor = Executors.newFixedThreadPool( this.threads );
+    }
+
+    void setHeaders( Map<String, String> headers )
+    {
+        this.headers = headers;
+    }
+
+    void setParameters( Map<String, String> parameters )
+    {
+        this.parameters = parameters;
+    }
+
+    void setCredentials( String username, String password )
+    {
+        this.credentials = new UsernamePasswordCredentials( username, password );
+    }
+
+    void setNetworkProxy( NetworkProxy networkProxy )
+    {
+        this.networkProxy = networkProxy;
+    }
+
+    void setTimeouts( int connectTimeout, int readTimeout )
+    {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    @Override
+    public void connect( String id, String url )
+        throws IOException
+    {
+        // no op
+    }
+
+    @Override
+    public void disconnect( )
+        throws IOException
+    {
+        executor.shutdownNow( );
+        synchronized ( this )
+        {
+            if ( client != null )
+            {
+                client.close( );
+                client = null;
+            }
+        }
+    }
+
+    @Override
+    public InputStream retrieve( String name )
+        throws IOException
+    {
+        log.info( "index update retrieve file, name:{}", name );
+        if ( name.endsWith( PROPERTIES_SUFFIX ) )
+        {
+            // the properties are always downloaded again, they are the base of all other decisions
+            Path file = download( name, false );
+            readRemoteChunks( file );
+            status.fileApplied( name );
+            return Files.newInputStream( file );
+        }
+        Matcher matcher = CHUNK_PATTERN.matcher( name );
+        if ( matcher.matches( ) && !prefetchStarted )
+        {
+            prefetchStarted = true;
+            int chunk = Integer.parseInt( matcher.group( 2 ) );
+            for ( Integer next : remoteChunks.tailSet( chunk, false ) )
+            {
+                String nextName = matcher.group( 1 ) + "." + next + ".gz";
+                downloads.computeIfAbsent( nextName, n -> executor.submit( ( ) -> download( n, true ) ) );
+            }
+        }
+        Future<Path> future = downloads.computeIfAbsent( name, n -> executor.submit( ( ) -> download( n, true ) ) );
+        Path file = await( future );
+        downloads.remove( name );
+        status.fileApplied( name );
+        return Files.newInputStream( file );
+    }
+
+    private Path await( Future<Path> future )
+        throws IOException
+    {
+        try
+        {
+            return future.get( );
+        }
+        catch ( ExecutionException e )
+        {
+            if ( e.getCause( ) instanceof IOException )
+            {
+                throw (IOException) e.getCause( );
+            }
+            throw new IOException( e.getCause( ).getMessage( ), e.getCause( ) );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            throw new InterruptedIOException( "Index download has been interrupted" );
+        }
+    }
+
+    private void readRemoteChunks( Path propertiesFile )
+        throws IOException
+    {
+        Properties properties = new Properties( );
+        try ( InputStream is = Files.newInputStream( propertiesFile ) )
+        {
+            properties.load( is );
+        }
+        TreeSet<Integer> chunks = new TreeSet<>( );
+        for ( String key : properties.stringPropertyNames( ) )
+        {
+            if ( key.startsWith( INCREMENTAL_KEY ) )
+            {
+                try
+                {
+                    chunks.add( Integer.parseInt( properties.getProperty( key ).trim( ) ) );
+                }
+                catch ( NumberFormatException e )
+                {
+                    log.debug( "Ignoring bad incremental chunk entry {}", key );
+                }
+            }
+        }
+        this.remoteChunks = chunks;
+    }
+
+    /**
+     * Downloads the file, or continues the download of a previous run.
+     *
+     * @param name the file name relative to the index URL
+     * @param verify <code>true</code>, if the checksum of the file should be verified
+     * @return the complete file
+     */
+    Path download( String name, boolean verify )
+        throws IOException
+    {
+        Path file = downloadDirectory.resolve( name );
+        Path part = downloadDirectory.resolve( name + PART_SUFFIX );
+        Path validatorFile = downloadDirectory.resolve( name + PART_SUFFIX + VALIDATOR_SUFFIX );
+        String checksum = verify ? getRemoteChecksum( name ) : null;
+        if ( Files.exists( file ) )
+        {
+            if ( checksum != null && checksum.equals( sha1( file ) ) )
+            {
+                log.debug( "Using complete file {} of previous download", name );
+                status.fileResumed( );
+                long size = Files.size( file );
+                status.addTotalBytes( size );
+                status.addDownloadedBytes( size );
+                return file;
+            }
+            Files.delete( file );
+        }
+
+        long offset = Files.exists( part ) ? Files.size( part ) : 0;
+        String validator = Files.exists( validatorFile ) ? new String( Files.readAllBytes( validatorFile ), StandardCharsets.UTF_8 ) : null;
+        if ( offset > 0 && validator == null )
+        {
+            offset = 0;
+        }
+        HttpGet request = createRequest( name );
+        if ( offset > 0 )
+        {
+            request.setHeader( "Range", "bytes=" + offset + "-" );
+            request.setHeader( "If-Range", validator );
+        }
+        try ( CloseableHttpResponse response = getClient( ).execute( request, createContext( ) ) )
+        {
+            int code = response.getStatusLine( ).getStatusCode( );
+            if ( code == HttpStatus.SC_NOT_FOUND )
+            {
+                throw new FileNotFoundException( "Resource " + name + " does not exist on " + baseUrl );
+            }
+            if ( code == HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE && offset > 0 )
+            {
+                // the partial file does not fit to the remote file, start again
+                log.info( "Range of {} could not be resumed, restarting download", name );
+                request.abort( );
+                Files.deleteIfExists( part );
+                Files.deleteIfExists( validatorFile );
+                return download( name, verify );
+            }
+            boolean append = code == HttpStatus.SC_PARTIAL_CONTENT;
+            if ( !append && code != HttpStatus.SC_OK )
+            {
+                throw new IOException( "Download of " + name + " failed with status " + code );
+            }
+            if ( append )
+            {
+                log.info( "Resuming download of {} at {} bytes", name, offset );
+                status.fileResumed( );
+                // the total contains the resumed part, so it is counted as transferred
+                status.addDownloadedBytes( offset );
+            }
+            else
+            {
+                offset = 0;
+                Header newValidator = response.getFirstHeader( "ETag" );
+                if ( newValidator == null )
+                {
+                    newValidator = response.getFirstHeader( "Last-Modified" );
+                }
+                if ( newValidator != null )
+                {
+                    Files.write( validatorFile, newValidator.getValue( ).getBytes( StandardCharsets.UTF_8 ) );
+                }
+                else
+                {
+                    Files.deleteIfExists( validatorFile );
+                }
+            }
+            HttpEntity entity = response.getEntity( );
+            if ( entity == null )
+            {
+                throw new IOException( "Download of " + name + " returned no content" );
+            }
+            long length = entity.getContentLength( );
+            if ( length > 0 )
+            {
+                status.addTotalBytes( offset + length );
+            }
+            StandardOpenOption mode = append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            try ( InputStream is = entity.getContent( );
+                  OutputStream os = Files.newOutputStream( part, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode ) )
+            {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ( ( read = is.read( buffer ) ) >= 0 )
+                {
+                    if ( Thread.currentThread( ).isInterrupted( ) )
+                    {
+                        // abort the connection, closing the stream would read the rest of the content
+                        request.abort( );
+                        throw new InterruptedIOException( "Download of " + name + " has been interrupted" );
+                    }
+                    os.write( buffer, 0, read );
+                    status.addDownloadedBytes( read );
+                }
+            }
+        }
+
+        if ( checksum != null )
+        {
+            String actual = sha1( part );
+            if ( !checksum.equals( actual ) )
+            {
+                Files.deleteIfExists( part );
+                Files.deleteIfExists( validatorFile );
+                throw new IOException( "Checksum of " + name + " does not match, expected " + checksum + ", was " + actual );
+            }
+        }
+        Files.move( part, file, StandardCopyOption.REPLACE_EXISTING );
+        Files.deleteIfExists( validatorFile );
+        status.fileDownloaded( );
+        return file;
+    }
+
+    /**
+     * @return the lower case SHA-1 checksum published for the given file, or <code>null</code>, if there is none
+     */
+    private String getRemoteChecksum( String name )
+        throws IOException
+    {
+        HttpGet request = createRequest( name + ".sha1" );
+        try ( CloseableHttpResponse response = getClient( ).execute( request, createContext( ) ) )
+        {
+            HttpEntity entity = response.getEntity( );
+            if ( response.getStatusLine( ).getStatusCode( ) != HttpStatus.SC_OK || entity == null )
+            {
+                log.debug( "No checksum found for {}", name );
+                return null;
+            }
+            try ( InputStream is = entity.getContent( ) )
+            {
+                byte[] buffer = new byte[1024];
+                int length = 0;
+                int read;
+                while ( length < buffer.length && ( read = is.read( buffer, length, buffer.length - length ) ) >= 0 )
+                {
+                    length += read;
+                }
+                String content = new String( buffer, 0, length, StandardCharsets.US_ASCII ).trim( );
+                int end = 0;
+                while ( end < content.length( ) && !Character.isWhitespace( content.charAt( end ) ) )
+                {
+                    end++;
+                }
+                return end == 40 ? content.substring( 0, end ).toLowerCase( Locale.ROOT ) : null;
+            }
+        }
+    }
+
+    private HttpGet createRequest( String name )
+        throws IOException
+    {
+        return new HttpGet( baseUrl + addParameters( name ) );
+    }
+
+    private HttpClientContext createContext( )
+    {
+        HttpClientContext context = HttpClientContext.create( );
+        // preemptive authentication at the index host, like the wagon does
+        context.setAuthCache( authCache );
+        return context;
+    }
+
+    /**
+     * Creates the client on first use, the connections are shared by the concurrent downloads.
+     */
+    private synchronized CloseableHttpClient getClient( )
+    {
+        if ( client == null )
+        {
+            RequestConfig.Builder requestConfig = RequestConfig.custom( ) //
+                .setConnectTimeout( connectTimeout ) //
+                .setSocketTimeout( readTimeout ) //
+                .setRedirectsEnabled( true );
+            CredentialsProvider credentialsProvider = new BasicCredentialsProvider( );
+            if ( credentials != null )
+            {
+                URI uri = URI.create( baseUrl );
+                HttpHost target = new HttpHost( uri.getHost( ), uri.getPort( ), uri.getScheme( ) );
+                credentialsProvider.setCredentials( new AuthScope( target ), credentials );
+                authCache.put( target, new BasicScheme( ) );
+            }
+            if ( networkProxy != null )
+            {
+                String scheme = networkProxy.getProtocol( ) == null || networkProxy.getProtocol( ).isEmpty( )
+                    ? "http"
+                    : networkProxy.getProtocol( );
+                HttpHost proxyHost = new HttpHost( networkProxy.getHost( ), networkProxy.getPort( ), scheme );
+                requestConfig.setProxy( proxyHost );
+                if ( networkProxy.getUsername( ) != null )
+                {
+                    credentialsProvider.setCredentials( new AuthScope( proxyHost ),
+                        new UsernamePasswordCredentials( networkProxy.getUsername( ),
+                            networkProxy.getPassword( ) == null ? "" : new String( networkProxy.getPassword( ) ) ) );
+                }
+            }
+            List<Header> defaultHeaders = new ArrayList<>( headers.size( ) );
+            for ( Map.Entry<String, String> header : headers.entrySet( ) )
+            {
+                defaultHeaders.add( new BasicHeader( header.getKey( ), header.getValue( ) ) );
+            }
+            PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager( );
+            // one connection for the checksum requests in addition to the downloads
+            connectionManager.setMaxTotal( threads + 1 );
+            connectionManager.setDefaultMaxPerRoute( threads + 1 );
+            // the index files are compressed already, a transparently decompressed entity would not fit to the
+            // ranges and sizes of the partial files
+            client = HttpClients.custom( ) //
+                .disableContentCompression( ) //
+                .setConnectionManager( connectionManager ) //
+                .setDefaultRequestConfig( requestConfig.build( ) ) //
+                .setDefaultCredentialsProvider( credentialsProvider ) //
+                .setDefaultHeaders( defaultHeaders ) //
+                .build( );
+        }
+        return client;
+    }
+
+    private String addParameters( String path )
+        throws IOException
+    {
+        if ( parameters.isEmpty( ) )
+        {
+            return path;
+        }
+        StringBuilder res = new StringBuilder( path );
+        char separator = '?';
+        for ( Map.Entry<String, String> entry : parameters.entrySet( ) )
+        {
+            res.append( separator ).append( URLEncoder.encode( entry.getKey( ), "UTF-8" ) ).append( '=' )
+                .append( URLEncoder.encode( entry.getValue( ), "UTF-8" ) );
+            separator = '&';
+        }
+        return res.toString( );
+    }
+
+    private static String sha1( Path file )
+        throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IOException( e.getMessage( ), e );
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try ( InputStream is = Files.newInputStream( file ) )
+        {
+            int read;
+            while ( ( read = is.read( buffer ) ) >= 0 )
+            {
+                digest.update( buffer, 0, read );
+            }
+        }
+        StringBuilder hex = new StringBuilder( );
+        for ( byte b : digest.digest( ) )
+        {
+            hex.append( String.format( "%02x", b ) );
+        }
+        return hex.toString( );
+    }
+}
@@ -0,0 +1,393 @@
+package org.apache.archiva.scheduler.indexing.maven;
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.common.utils.FileUtils;
+import org.apache.archiva.proxy.model.NetworkProxy;
+import org.apache.archiva.scheduler.indexing.RemoteIndexDownloadStatus;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.servlet.ServletContextHandler;
+import org.eclipse.jetty.servlet.ServletHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the resumable download of remote index files against a small HTTP server with range support.
+ */
+public class ResumableIndexFetcherTest
+{
+    private static final String ETAG = "\"v1\"";
+
+    private static final String PROXY_AUTHORIZATION =
+        "Basic " + Base64.getEncoder( ).encodeToString( "proxy-user:proxy-password".getBytes( StandardCharsets.UTF_8 ) );
+
+    private Server server;
+
+    private int port;
+
+    private Path downloadDirectory;
+
+    private final Map<String, byte[]> remoteFiles = new ConcurrentHashMap<>( );
+
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>( );
+
+    private final Map<String, AtomicInteger> servedBytes = new ConcurrentHashMap<>( );
+
+    private final AtomicInteger compressedRequests = new AtomicInteger( );
+
+    private final AtomicInteger proxiedRequests = new AtomicInteger( );
+
+    private volatile boolean proxy = false;
+
+    private String baseUrl;
+
+    /**
+     * Serves the remote files with range support. The requests to <code>/moved/</code> are redirected to
+     * <code>/index/</code>. If the server is used as proxy, it requires proxy authentication.
+     */
+    private class IndexServlet
+        extends HttpServlet
+    {
+        @Override
+        protected void doGet( HttpServletRequest req, HttpServletResponse resp )
+            throws IOException
+        {
+            if ( proxy )
+            {
+                if ( !PROXY_AUTHORIZATION.equals( req.getHeader( "Proxy-Authorization" ) ) )
+                {
+                    resp.setHeader( "Proxy-Authenticate", "Basic realm=\"proxy\"" );
+                    resp.setStatus( HttpServletResponse.SC_PROXY_AUTHENTICATION_REQUIRED );
+                    return;
+                }
+                proxiedRequests.incrementAndGet( );
+            }
+            String path = req.getRequestURI( );
+            if ( path.startsWith( "/moved/" ) )
+            {
+                resp.sendRedirect( baseUrl + path.substring( "/moved/".length( ) ) );
+                return;
+            }
+            String name = path.substring( "/index/".length( ) );
+            requests.computeIfAbsent( name, n -> new AtomicInteger( ) ).incrementAndGet( );
+            String acceptEncoding = req.getHeader( "Accept-Encoding" );
+            if ( acceptEncoding != null && acceptEncoding.contains( "gzip" ) )
+            {
+                compressedRequests.incrementAndGet( );
+            }
+            byte[] content = remoteFiles.get( name );
+            if ( content == null )
+            {
+                resp.setStatus( HttpServletResponse.SC_NOT_FOUND );
+                return;
+            }
+            resp.setHeader( "ETag", ETAG );
+            String range = req.getHeader( "Range" );
+            String ifRange = req.getHeader( "If-Range" );
+            int offset = 0;
+            int code = HttpServletResponse.SC_OK;
+            if ( range != null && ETAG.equals( ifRange ) )
+            {
+                offset = Integer.parseInt( range.substring( "bytes=".length( ), range.length( ) - 1 ) );
+                code = HttpServletResponse.SC_PARTIAL_CONTENT;
+            }
+            resp.setStatus( code );
+            resp.setContentLength( content.length - offset );
+            try ( OutputStream os = resp.getOutputStream( ) )
+            {
+                os.write( content, offset, content.length - offset );
+            }
+            servedBytes.computeIfAbsent( name, n -> new AtomicInteger( ) ).addAndGet( content.length - offset );
+        }
+    }
+
+    @Before
+    public void startServer( )
+        throws Exception
+    {
+        downloadDirectory = Files.createTempDirectory( "archiva-index-download" );
+        server = new Server( );
+        ServerConnector serverConnector = new ServerConnector( server, new HttpConnectionFactory( ) );
+        server.addConnector( serverConnector );
+        ServletContextHandler context = new ServletContextHandler( );
+        context.setContextPath( "/" );
+        context.addServlet( new ServletHolder( new IndexServlet( ) ), "/" );
+        server.setHandler( context );
+        server.start( );
+        port = serverConnector.getLocalPort( );
+        baseUrl = "http://localhost:" + port + "/index/";
+    }
+
+    @After
+    public void stopServer( )
+        throws Exception
+    {
+        server.stop( );
+        FileUtils.deleteDirectory( downloadDirectory );
+    }
+
+    private byte[] addRemoteFile( String name, int size )
+    {
+        byte[] content = new byte[size];
+        new Random( size ).nextBytes( content );
+        remoteFiles.put( name, content );
+        remoteFiles.put( name + ".sha1", ( sha1( content ) + "  " + name ).getBytes( StandardCharsets.US_ASCII ) );
+        return content;
+    }
+
+    private int getServedBytes( String name )
+    {
+        AtomicInteger count = servedBytes.get( name );
+        return count == null ? 0 : count.get( );
+    }
+
+    private int getRequests( String name )
+    {
+        AtomicInteger count = requests.get( name );
+        return count == null ? 0 : count.get( );
+    }
+
+    private static byte[] read( InputStream is )
+        throws IOException
+    {
+        try ( InputStream in = is )
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream( );
+            byte[] buffer = new byte[8192];
+            int read;
+            while ( ( read = in.read( buffer ) ) >= 0 )
+            {
+                out.write( buffer, 0, read );
+            }
+            return out.toByteArray( );
+        }
+    }
+
+    private static String sha1( byte[] content )
+    {
+        try
+        {
+            StringBuilder hex = new StringBuilder( );
+            for ( byte b : MessageDigest.getInstance( "SHA-1" ).digest( content ) )
+            {
+                hex.append( String.format( "%02x", b ) );
+            }
+            return hex.toString( );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    private byte[] addPartialFile( String name, int size, int partSize )
+        throws IOException
+    {
+        byte[] content = addRemoteFile( name, size );
+        Files.write( downloadDirectory.resolve( name + ResumableIndexFetcher.PART_SUFFIX ),
+            Arrays.copyOf( content, partSize ) );
+        Files.write( downloadDirectory.resolve( name + ResumableIndexFetcher.PART_SUFFIX + ResumableIndexFetcher.VALIDATOR_SUFFIX ),
+            ETAG.getBytes( StandardCharsets.UTF_8 ) );
+        return content;
+    }
+
+    @Test
+    public void testResumePartialDownload( )
+        throws IOException
+    {
+        String name = "nexus-maven-repository-index.gz";
+        int partSize = 75000;
+        byte[] content = addPartialFile( name, 200000, partSize );
+
+        RemoteIndexDownloadStatus status = new RemoteIndexDownloadStatus( "central" );
+        ResumableIndexFetcher fetcher = new ResumableIndexFetcher( downloadDirectory, baseUrl, status, 2 );
+        try
+        {
+            assertArrayEquals( content, read( fetcher.retrieve( name ) ) );
+        }
+        finally
+        {
+            fetcher.disconnect( );
+        }
+        assertEquals( content.length - partSize, getServedBytes( name ) );
+        // the resumed part is counted as transferred, so that the progress does not stop below the total
+        assertEquals( content.length, status.getDownloadedBytes( ) );
+        assertEquals( content.length, status.getTotalBytes( ) );
+        assertEquals( 0, compressedRequests.get( ) );
+        assertEquals( 1, status.getResumedFiles( ) );
+        assertEquals( 1, status.getDownloadedFiles( ) );
+        assertFalse( Files.exists( downloadDirectory.resolve( name + ResumableIndexFetcher.PART_SUFFIX ) ) );
+    }
+
+    @Test
+    public void testReuseCompleteFile( )
+        throws IOException
+    {
+        String name = "nexus-maven-repository-index.gz";
+        byte[] content = addRemoteFile( name, 50000 );
+        Files.write( downloadDirectory.resolve( name ), content );
+
+        RemoteIndexDownloadStatus status = new RemoteIndexDownloadStatus( "central" );
+        ResumableIndexFetcher fetcher = new ResumableIndexFetcher( downloadDirectory, baseUrl, status, 2 );
+        try
+        {
+            assertArrayEquals( content, read( fetcher.retrieve( name ) ) );
+        }
+        finally
+        {
+            fetcher.disconnect( );
+        }
+        assertEquals( 0, getRequests( name ) );
+        assertEquals( content.length, status.getDownloadedBytes( ) );
+        assertEquals( content.length, status.getTotalBytes( ) );
+    }
+
+    @Test
+    public void testChecksumMismatch( )
+        throws IOException
+    {
+        String name = "nexus-maven-repository-index.gz";
+        addRemoteFile( name, 10000 );
+        remoteFiles.put( name + ".sha1", "0000000000000000000000000000000000000000".getBytes( StandardCharsets.US_ASCII ) );
+
+        ResumableIndexFetcher fetcher =
+            new ResumableIndexFetcher( downloadDirectory, baseUrl, new RemoteIndexDownloadStatus( "central" ), 2 );
+        try
+        {
+            fetcher.retrieve( name );
+            fail( "Checksum mismatch not detected" );
+        }
+        catch ( IOException e )
+        {
+            assertTrue( e.getMessage( ), e.getMessage( ).contains( "Checksum" ) );
+        }
+        finally
+        {
+            fetcher.disconnect( );
+        }
+        assertFalse( Files.exists( downloadDirectory.resolve( name ) ) );
+        assertFalse( Files.exists( downloadDirectory.resolve( name + ResumableIndexFetcher.PART_SUFFIX ) ) );
+    }
+
+    @Test
+    public void testPrefetchIncrementalChunks( )
+        throws IOException
+    {
+        String prefix = "nexus-maven-repository-index";
+        remoteFiles.put( prefix + ".properties", ( "nexus.index.incremental-0=4\n" + "nexus.index.incremental-1=3\n"
+            + "nexus.index.incremental-2=2\n" ).getBytes( StandardCharsets.ISO_8859_1 ) );
+        byte[] chunk3 = addRemoteFile( prefix + ".3.gz", 30000 );
+        byte[] chunk4 = addRemoteFile( prefix + ".4.gz", 40000 );
+
+        RemoteIndexDownloadStatus status = new RemoteIndexDownloadStatus( "central" );
+        ResumableIndexFetcher fetcher = new ResumableIndexFetcher( downloadDirectory, baseUrl, status, 2 );
+        try
+        {
+            read( fetcher.retrieve( prefix + ".properties" ) );
+            assertArrayEquals( chunk3, read( fetcher.retrieve( prefix + ".3.gz" ) ) );
+            assertArrayEquals( chunk4, read( fetcher.retrieve( prefix + ".4.gz" ) ) );
+        }
+        finally
+        {
+            fetcher.disconnect( );
+        }
+        assertEquals( 0, getRequests( prefix + ".2.gz" ) );
+        assertEquals( 1, getRequests( prefix + ".4.gz" ) );
+        assertEquals( 3, status.getAppliedFiles( ) );
+        assertEquals( prefix + ".4.gz", status.getCurrentFile( ) );
+    }
+
+    @Test
+    public void testResumeAfterRedirect( )
+        throws IOException
+    {
+        String name = "nexus-maven-repository-index.gz";
+        byte[] content = addPartialFile( name, 100000, 30000 );
+
+        RemoteIndexDownloadStatus status = new RemoteIndexDownloadStatus( "central" );
+        ResumableIndexFetcher fetcher =
+            new ResumableIndexFetcher( downloadDirectory, "http://localhost:" + port + "/moved/", status, 2 );
+        try
+        {
+            assertArrayEquals( content, read( fetcher.retrieve( name ) ) );
+        }
+        finally
+        {
+            fetcher.disconnect( );
+        }
+        // the range is kept for the redirected request
+        assertEquals( content.length - 30000, getServedBytes( name ) );
+        assertEquals( content.length, status.getDownloadedBytes( ) );
+        assertEquals( 1, status.getResumedFiles( ) );
+    }
+
+    @Test
+    public void testProxyAuthentication( )
+        throws IOException
+    {
+        proxy = true;
+        String name = "nexus-maven-repository-index.gz";
+        byte[] content = addPartialFile( name, 100000, 30000 );
+
+        RemoteIndexDownloadStatus status = new RemoteIndexDownloadStatus( "central" );
+        ResumableIndexFetcher fetcher = new ResumableIndexFetcher( downloadDirectory, baseUrl, status, 2 );
+        // the server is its own proxy, the different host name keeps the proxy apart from the repository
+        fetcher.setNetworkProxy(
+            new NetworkProxy( "proxy", "http", "127.0.0.1", port, "proxy-user", "proxy-password".toCharArray( ) ) );
+        try
+        {
+            assertArrayEquals( content, read( fetcher.retrieve( name ) ) );
+        }
+        finally
+        {
+            fetcher.disconnect( );
+        }
+        assertEquals( content.length - 30000, getServedBytes( name ) );
+        assertEquals( content.length, status.getDownloadedBytes( ) );
+        assertTrue( proxiedRequests.get( ) > 0 );
+    }
+}
@@ -30,4 +30,10 @@ void scheduleDownloadRemote( String repositoryId, boolean now, boolean fullDownl
         throws DownloadRemoteIndexException;
 
     List<String> getRunningRemoteDownloadIds();
+
+    /**
+     * @return the progress of the running remote index downloads
+     * @since 3.0
+     */
+    List<RemoteIndexDownloadStatus> getRunningRemoteDownloads();
 }
@@ -0,0 +1,141 @@
+package org.apache.archiva.scheduler.indexing;
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a running remote index download. The values are updated by the download threads.
+ *
+ * @since 3.0
+ */
+public class RemoteIndexDownloadStatus
+{
+    private final String repositoryId;
+
+    private final long startTime = System.currentTimeMillis( );
+
+    private final AtomicLong downloadedBytes = new AtomicLong( );
+
+    private final AtomicLong totalBytes = new AtomicLong( );
+
+    private final AtomicInteger downloadedFiles = new AtomicInteger( );
+
+    private final AtomicInteger resumedFiles = new AtomicInteger( );
+
+    private final AtomicInteger appliedFiles = new AtomicInteger( );
+
+    private volatile String currentFile;
+
+    public RemoteIndexDownloadStatus( String repositoryId )
+    {
+        this.repositoryId = repositoryId;
+    }
+
+    public String getRepositoryId( )
+    {
+        return repositoryId;
+    }
+
+    public long getStartTime( )
+    {
+        return startTime;
+    }
+
+    /**
+     * @return the number of bytes transferred, including the parts of resumed files that were downloaded
+     * by a previous run, so that it can be compared to {@link #getTotalBytes()}
+     */
+    public long getDownloadedBytes( )
+    {
+        return downloadedBytes.get( );
+    }
+
+    public void addDownloadedBytes( long bytes )
+    {
+        downloadedBytes.addAndGet( bytes );
+    }
+
+    /**
+     * @return the sum of the sizes of the files to download, as far as they are known
+     */
+    public long getTotalBytes( )
+    {
+        return totalBytes.get( );
+    }
+
+    public void addTotalBytes( long bytes )
+    {
+        totalBytes.addAndGet( bytes );
+    }
+
+    public int getDownloadedFiles( )
+    {
+        return downloadedFiles.get( );
+    }
+
+    public void fileDownloaded( )
+    {
+        downloadedFiles.incrementAndGet( );
+    }
+
+    /**
+     * @return the number of files that have been continued or reused from an interrupted download
+     */
+    public int getResumedFiles( )
+    {
+        return resumedFiles.get( );
+    }
+
+    public void fileResumed( )
+    {
+        resumedFiles.incrementAndGet( );
+    }
+
+    /**
+     * @return the number of files that have been handed to the index updater
+     */
+    public int getAppliedFiles( )
+    {
+        return appliedFiles.get( );
+    }
+
+    /**
+     * Sets the file, that is currently applied to the index.
+     */
+    public void fileApplied( String file )
+    {
+        appliedFiles.incrementAndGet( );
+        this.currentFile = file;
+    }
+
+    public String getCurrentFile( )
+    {
+        return currentFile;
+    }
+
+    @Override
+    public String toString( )
+    {
+        return "RemoteIndexDownloadStatus{repositoryId='" + repositoryId + "', downloadedBytes=" + downloadedBytes
+            + ", totalBytes=" + totalBytes + ", downloadedFiles=" + downloadedFiles + ", resumedFiles="
+            + resumedFiles + ", appliedFiles=" + appliedFiles + ", currentFile='" + currentFile + "'}";
+    }
+}
@@ -0,0 +1,149 @@
+package org.apache.archiva.rest.api.model;
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+
+/**
+ * Progress of a running download of a remote index.
+ *
+ * @since 3.0
+ */
+@XmlRootElement( name = "remoteIndexDownloadProgress" )
+public class RemoteIndexDownloadProgress
+    implements Serializable
+{
+    private String repositoryId;
+
+    private long startTime;
+
+    private long downloadedBytes;
+
+    private long totalBytes;
+
+    private int downloadedFiles;
+
+    private int resumedFiles;
+
+    private int appliedFiles;
+
+    private String currentFile;
+
+    public RemoteIndexDownloadProgress()
+    {
+        // no op
+    }
+
+    public String getRepositoryId()
+    {
+        return repositoryId;
+    }
+
+    public void setRepositoryId( String repositoryId )
+    {
+        this.repositoryId = repositoryId;
+    }
+
+    public long getStartTime()
+    {
+        return startTime;
+    }
+
+    public void setStartTime( long startTime )
+    {
+        this.startTime = startTime;
+    }
+
+    public long getDownloadedBytes()
+    {
+        return downloadedBytes;
+    }
+
+    public void setDownloadedBytes( long downloadedBytes )
+    {
+        this.downloadedBytes = downloadedBytes;
+    }
+
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    public void setTotalBytes( long totalBytes )
+    {
+        this.totalBytes = totalBytes;
+    }
+
+    public int getDownloadedFiles()
+    {
+        return downloadedFiles;
+    }
+
+    public void setDownloadedFiles( int downloadedFiles )
+    {
+        this.downloadedFiles = downloadedFiles;
+    }
+
+    public int getResumedFiles()
+    {
+        return resumedFiles;
+    }
+
+    public void setResumedFiles( int resumedFiles )
+    {
+        this.resumedFiles = resumedFiles;
+    }
+
+    public int getAppliedFiles()
+    {
+        return appliedFiles;
+    }
+
+    public void setAppliedFiles( int appliedFiles )
+    {
+        this.appliedFiles = appliedFiles;
+    }
+
+    public String getCurrentFile()
+    {
+        return currentFile;
+    }
+
+    public void setCurrentFile( String currentFile )
+    {
+        this.currentFile = currentFile;
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder sb = new StringBuilder();
+        sb.append( "RemoteIndexDownloadProgress" );
+        sb.append( "{repositoryId='" ).append( repositoryId ).append( '\'' );
+        sb.append( ", downloadedBytes=" ).append( downloadedBytes );
+        sb.append( ", totalBytes=" ).append( totalBytes );
+        sb.append( ", downloadedFiles=" ).append( downloadedFiles );
+        sb.append( ", resumedFiles=" ).append( resumedFiles );
+        sb.append( ", appliedFiles=" ).append( appliedFiles );
+        sb.append( ", currentFile='" ).append( currentFile ).append( '\'' );
+        sb.append( '}' );
+        return sb.toString();
+    }
+}
@@ -24,6 +24,7 @@
 import org.apache.archiva.redback.authorization.RedbackAuthorization;
 import org.apache.archiva.repository.scanner.RepositoryScanStatistics;
 import org.apache.archiva.rest.api.model.ArtifactTransferRequest;
+import org.apache.archiva.rest.api.model.RemoteIndexDownloadProgress;
 import org.apache.archiva.rest.api.model.StringList;
 import org.apache.archiva.security.common.ArchivaRoleConstants;
 
@@ -36,6 +37,7 @@
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import java.util.List;
 
 /**
  * @author Olivier Lamy
@@ -178,4 +180,14 @@ Boolean deleteProject( @PathParam ("groupId") String groupId, @PathParam ("proje
     @RedbackAuthorization (noPermission = true)
     StringList getRunningRemoteDownloadIds();
 
+    /**
+     * Returns the progress of the running remote index downloads.
+     * @since 3.0
+     */
+    @Path ("runningRemoteDownloads")
+    @GET
+    @Produces ({ MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML })
+    @RedbackAuthorization (noPermission = true)
+    List<RemoteIndexDownloadProgress> getRunningRemoteDownloads();
+
 }
@@ -214,6 +214,26 @@ protected void triggerAuditEvent( String repositoryId, String filePath, String a
         }
     }
 
+    /**
+     * Triggers the same action for several files, so that the listeners can store the events in one batch.
+     */
+    protected void triggerAuditEvents( String repositoryId, Collection<String> filePaths, String action )
+    {
+        AuditInformation auditInformation = getAuditInformation();
+        List<AuditEvent> auditEvents = new ArrayList<>( filePaths.size() );
+        for ( String filePath : filePaths )
+        {
+            AuditEvent auditEvent = new AuditEvent( repositoryId, getPrincipal(), filePath, action );
+            auditEvent.setUserId( auditInformation.getUser() == null ? "" : auditInformation.getUser().getUsername() );
+            auditEvent.setRemoteIP( auditInformation.getRemoteAddr() );
+            auditEvents.add( auditEvent );
+        }
+        for ( AuditListener auditListener : getAuditListeners() )
+        {
+            auditListener.auditEvents( auditEvents );
+        }
+    }
+
     /**
      * @param artifact
      * @return
@@ -616,6 +616,13 @@ public List<Entry> getMetadatas( String groupId, String artifactId, String versi
     public Boolean addMetadata( String groupId, String artifactId, String version, String key, String value,
                                 String repositoryId )
         throws ArchivaRestServiceException
+    {
+        return addMetadata( groupId, artifactId, version, Collections.singletonMap( key, value ), repositoryId );
+    }
+
+    private Boolean addMetadata( String groupId, String artifactId, String version, Map<String, String> metadatas,
+                                 String repositoryId )
+        throws ArchivaRestServiceException
     {
         ProjectVersionMetadata projectVersionMetadata =
             getProjectMetadata( groupId, artifactId, version, repositoryId );
@@ -638,7 +645,7 @@ public Boolean addMetadata( String groupId, String artifactId, String version, S
             metadataFacet = new GenericMetadataFacet();
         }
 
-        properties.put( key, value );
+        properties.putAll( metadatas );
 
         metadataFacet.fromProperties( properties );
 
@@ -1096,18 +1103,13 @@ public List<Artifact> getArtifactsByProperty( String key, String value, String r
     public Boolean importMetadata( MetadataAddRequest metadataAddRequest, String repositoryId )
         throws ArchivaRestServiceException
     {
-        boolean result = true;
-        for ( Map.Entry<String, String> metadata : metadataAddRequest.getMetadatas().entrySet() )
+        if ( metadataAddRequest.getMetadatas().isEmpty() )
         {
-            result = addMetadata( metadataAddRequest.getGroupId(), metadataAddRequest.getArtifactId(),
-                                  metadataAddRequest.getVersion(), metadata.getKey(), metadata.getValue(),
-                                  repositoryId );
-            if ( !result )
-            {
-                break;
-            }
+            return Boolean.TRUE;
         }
-        return result;
+        // all entries are stored with a single update of the project version
+        return addMetadata( metadataAddRequest.getGroupId(), metadataAddRequest.getArtifactId(),
+                            metadataAddRequest.getVersion(), metadataAddRequest.getMetadatas(), repositoryId );
     }
 
     @Override
@@ -20,6 +20,7 @@
 
 import org.apache.archiva.common.utils.VersionUtil;
 import org.apache.archiva.maven2.model.Artifact;
+import org.apache.archiva.metadata.audit.RepositoryListener;
 import org.apache.archiva.metadata.model.ArtifactMetadata;
 import org.apache.archiva.metadata.model.facets.AuditEvent;
 import org.apache.archiva.metadata.repository.MetadataRepository;
@@ -35,11 +36,13 @@
 import org.apache.archiva.rest.api.services.MergeRepositoriesService;
 import org.apache.archiva.stagerepository.merge.RepositoryMerger;
 import org.apache.archiva.stagerepository.merge.RepositoryMergerException;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @author Olivier Lamy
@@ -59,6 +62,10 @@
     @Inject
     private RepositoryRegistry repositoryRegistry;
 
+    @Inject
+    @Autowired( required = false )
+    private List<RepositoryListener> listeners = new ArrayList<>();
+
 
     @Override
     public List<Artifact> getMergeConflictedArtifacts( String sourceRepositoryId, String targetRepositoryId )
@@ -124,6 +131,14 @@ public void mergeRepositories( String sourceRepositoryId, String targetRepositor
         {
             throw new ArchivaRestServiceException( e.getMessage(), e );
         }
+        finally
+        {
+            // the merge may have written to any location of the target repository, even if it failed
+            for ( RepositoryListener listener : listeners )
+            {
+                listener.contentStored( targetRepositoryId, null );
+            }
+        }
 
     }
 
@@ -155,10 +170,7 @@ protected void doMerge( RepositoryMerger merger, String sourceRepositoryId, Stri
             {
                 merger.merge( metadataRepository, sourceRepositoryId, targetRepositoryId );
 
-                for ( ArtifactMetadata metadata : sourceArtifacts )
-                {
-                    triggerAuditEvent( targetRepositoryId, metadata.getId(), AuditEvent.MERGING_REPOSITORIES );
-                }
+                triggerAuditEvents( targetRepositoryId, getIds( sourceArtifacts ), AuditEvent.MERGING_REPOSITORIES );
             }
 
             doScanRepository( targetRepositoryId, false );
@@ -207,10 +219,7 @@ private void mergeBySkippingConflicts( RepositoryMerger merger, String sourceRep
                     new IncludesFilter<ArtifactMetadata>( sourceArtifacts );
                 merger.merge( metadataRepository, sourceRepositoryId, targetRepositoryId,
                                         artifactsWithOutConflicts );
-                for ( ArtifactMetadata metadata : sourceArtifacts )
-                {
-                    triggerAuditEvent( targetRepositoryId, metadata.getId(), AuditEvent.MERGING_REPOSITORIES );
-                }
+                triggerAuditEvents( targetRepositoryId, getIds( sourceArtifacts ), AuditEvent.MERGING_REPOSITORIES );
             }
 
             doScanRepository( targetRepositoryId, false );
@@ -236,15 +245,17 @@ private void mergeWithOutSnapshots( RepositoryMerger merger, MetadataRepository
             {
                 artifactsWithOutSnapshots.add( metadata );
             }
-            else
-            {
-                triggerAuditEvent( repoid, metadata.getId(), AuditEvent.MERGING_REPOSITORIES );
-            }
 
         }
         sourceArtifacts.removeAll( artifactsWithOutSnapshots );
+        triggerAuditEvents( repoid, getIds( sourceArtifacts ), AuditEvent.MERGING_REPOSITORIES );
 
         Filter<ArtifactMetadata> artifactListWithOutSnapShots = new IncludesFilter<ArtifactMetadata>( sourceArtifacts );
         merger.merge( metadataRepository, sourceRepoId, repoid, artifactListWithOutSnapShots );
     }
+
+    private static List<String> getIds( List<ArtifactMetadata> artifacts )
+    {
+        return artifacts.stream( ).map( ArtifactMetadata::getId ).collect( Collectors.toList( ) );
+    }
 }
@@ -23,6 +23,7 @@
 import org.apache.archiva.admin.model.admin.ArchivaAdministration;
 import org.apache.archiva.checksum.ChecksumAlgorithm;
 import org.apache.archiva.checksum.ChecksummedFile;
+import org.apache.archiva.common.utils.FileUtils;
 import org.apache.archiva.common.utils.VersionComparator;
 import org.apache.archiva.common.utils.VersionUtil;
 import org.apache.archiva.components.cache.Cache;
@@ -72,6 +73,7 @@
 import org.apache.archiva.repository.storage.StorageAsset;
 import org.apache.archiva.repository.storage.fs.FsStorageUtil;
 import org.apache.archiva.rest.api.model.ArtifactTransferRequest;
+import org.apache.archiva.rest.api.model.RemoteIndexDownloadProgress;
 import org.apache.archiva.rest.api.model.StringList;
 import org.apache.archiva.rest.api.services.ArchivaRestServiceException;
 import org.apache.archiva.rest.api.services.RepositoriesService;
@@ -79,6 +81,7 @@
 import org.apache.archiva.scheduler.indexing.ArtifactIndexingTask;
 import org.apache.archiva.scheduler.indexing.DownloadRemoteIndexException;
 import org.apache.archiva.scheduler.indexing.DownloadRemoteIndexScheduler;
+import org.apache.archiva.scheduler.indexing.RemoteIndexDownloadStatus;
 import org.apache.archiva.scheduler.indexing.maven.ArchivaIndexingTaskExecutor;
 import org.apache.archiva.scheduler.repository.model.RepositoryTask;
 import org.apache.archiva.security.ArchivaSecurityException;
@@ -155,6 +158,11 @@
 
     private List<ChecksumAlgorithm> algorithms = Arrays.asList(ChecksumAlgorithm.SHA256, ChecksumAlgorithm.SHA1, ChecksumAlgorithm.MD5 );
 
+    /**
+     * If <code>true</code>, copied artifacts are created as hard links, if source and target are on the same filesystem.
+     */
+    private boolean linkFiles = Boolean.getBoolean( "archiva.promotion.linkFiles" );
+
     @Override
     public Boolean scanRepository( String repositoryId, boolean fullScan )
     {
@@ -433,6 +441,7 @@ public Boolean copyArtifact( ArtifactTransferRequest artifactTransferRequest )
             else
             {
                 copyFile(artifactFile, targetFile, fixChecksums );
+                fireContentStored( target.getId(), targetFile );
                 queueRepositoryTask( target.getId(), targetFile );
             }
 
@@ -451,6 +460,7 @@ public Boolean copyArtifact( ArtifactTransferRequest artifactTransferRequest )
             {
                 StorageAsset targetPomFile = target.getAsset( targetDir.getPath() + "/" + pomFilename );
                 copyFile(pomFile, targetPomFile, fixChecksums );
+                fireContentStored( target.getId(), targetPomFile );
                 queueRepositoryTask( target.getId(), targetPomFile );
 
 
@@ -461,6 +471,8 @@ public Boolean copyArtifact( ArtifactTransferRequest artifactTransferRequest )
             {
                 updateProjectMetadata( target.getType(), target, targetDir, lastUpdatedTimestamp, timestamp, newBuildNumber,
                                        fixChecksums, artifactTransferRequest );
+                fireContentStored( target.getId(),
+                                   target.getAsset( targetDir.getParent().getPath() + "/" + MetadataTools.MAVEN_METADATA ) );
 
 
             }
@@ -490,6 +502,14 @@ public Boolean copyArtifact( ArtifactTransferRequest artifactTransferRequest )
         return true;
     }
 
+    private void fireContentStored( String repositoryId, StorageAsset asset )
+    {
+        for ( RepositoryListener listener : listeners )
+        {
+            listener.contentStored( repositoryId, asset.getPath() );
+        }
+    }
+
     private void queueRepositoryTask( String repositoryId, StorageAsset localFile )
     {
 
@@ -528,13 +548,21 @@ private StorageAsset getMetadata( RepositoryStorage storage, String targetPath )
     }
 
     /*
-     * Copies the asset to the new target.
+     * Copies the asset to the new target. Files are linked instead, if enabled.
      */
     private void copyFile(StorageAsset sourceFile, StorageAsset targetPath, boolean fixChecksums)
         throws IOException
     {
 
-        FsStorageUtil.copyAsset( sourceFile, targetPath, true );
+        if ( linkFiles && sourceFile.isFileBased( ) && targetPath.isFileBased( ) )
+        {
+            FileUtils.linkOrCopyFile( sourceFile.getFilePath( ), targetPath.getFilePath( ) );
+            targetPath.refresh( );
+        }
+        else
+        {
+            FsStorageUtil.copyAsset( sourceFile, targetPath, true );
+        }
         if ( fixChecksums )
         {
             fixChecksums( targetPath );
@@ -1240,6 +1268,26 @@ public StringList getRunningRemoteDownloadIds()
         return new StringList( downloadRemoteIndexScheduler.getRunningRemoteDownloadIds() );
     }
 
+    @Override
+    public List<RemoteIndexDownloadProgress> getRunningRemoteDownloads()
+    {
+        List<RemoteIndexDownloadProgress> result = new ArrayList<>();
+        for ( RemoteIndexDownloadStatus status : downloadRemoteIndexScheduler.getRunningRemoteDownloads() )
+        {
+            RemoteIndexDownloadProgress progress = new RemoteIndexDownloadProgress();
+            progress.setRepositoryId( status.getRepositoryId() );
+            progress.setStartTime( status.getStartTime() );
+            progress.setDownloadedBytes( status.getDownloadedBytes() );
+            progress.setTotalBytes( status.getTotalBytes() );
+            progress.setDownloadedFiles( status.getDownloadedFiles() );
+            progress.setResumedFiles( status.getResumedFiles() );
+            progress.setAppliedFiles( status.getAppliedFiles() );
+            progress.setCurrentFile( status.getCurrentFile() );
+            result.add( progress );
+        }
+        return result;
+    }
+
     public RepositorySessionFactory getRepositorySessionFactory()
     {
         return repositorySessionFactory;
@@ -0,0 +1,336 @@
+package org.apache.archiva.rss;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import com.rometools.rome.io.FeedException;
+import org.apache.archiva.metadata.audit.RepositoryListener;
+import org.apache.archiva.metadata.model.ArtifactMetadata;
+import org.apache.archiva.metadata.model.ProjectVersionMetadata;
+import org.apache.archiva.metadata.repository.MetadataRepository;
+import org.apache.archiva.metadata.repository.RepositorySession;
+import org.apache.archiva.metadata.repository.storage.RepositoryStorageMetadataException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the most recent artifacts of each repository and of each artifact (group id and artifact id) for the
+ * RSS feeds, so that a feed request does not need to query the metadata repository.
+ *
+ * A buffer is filled from the metadata repository on the first request and is then updated by the events of
+ * stored and deleted artifacts. A buffer is loaded again, if it is older than the maximum age, so that changes
+ * without an event are picked up. Each buffer holds a bounded number of artifacts and the number of buffers is
+ * bounded, the least recently used buffers are removed first. If the requested artifacts do not fit into a buffer,
+ * they are returned from the metadata repository.
+ *
+ * @since 3.0
+ */
+@Service( "recentArtifactsCache#default" )
+public class RecentArtifactsCache
+    implements RepositoryListener
+{
+    public static final int DEFAULT_MAX_ARTIFACTS = 500;
+
+    public static final int DEFAULT_MAX_BUFFERS = 1000;
+
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofHours( 1 );
+
+    private static final Comparator<ArtifactMetadata> BY_WHEN_GATHERED =
+        Comparator.comparing( ArtifactMetadata::getWhenGathered );
+
+    private static final AtomicLong BUFFER_IDS = new AtomicLong( );
+
+    private final int maxArtifacts;
+
+    private final int maxBuffers;
+
+    private final Duration maxAge;
+
+    private final LinkedHashMap<String, Buffer> buffers = new LinkedHashMap<>( 16, 0.75f, true );
+
+    private final AtomicLong modificationCount = new AtomicLong( );
+
+    public RecentArtifactsCache( )
+    {
+        this( DEFAULT_MAX_ARTIFACTS, DEFAULT_MAX_BUFFERS, DEFAULT_MAX_AGE );
+    }
+
+    /**
+     * @param maxArtifacts the maximum number of artifacts of each buffer
+     * @param maxBuffers the maximum number of buffers
+     * @param maxAge the time after that a buffer is loaded again from the metadata repository
+     */
+    public RecentArtifactsCache( int maxArtifacts, int maxBuffers, Duration maxAge )
+    {
+        this.maxArtifacts = maxArtifacts;
+        this.maxBuffers = maxBuffers;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Loads the artifacts of a buffer from the metadata repository, that have been gathered since the date of the
+     * request.
+     */
+    @FunctionalInterface
+    public interface ArtifactLoader
+    {
+        List<ArtifactMetadata> load( )
+            throws FeedException;
+    }
+
+    public static String getRepositoryKey( String repositoryId )
+    {
+        return "repository:" + repositoryId;
+    }
+
+    public static String getArtifactKey( String groupId, String artifactId )
+    {
+        return "artifact:" + groupId + ":" + artifactId;
+    }
+
+    /**
+     * Returns the most recent artifacts stored for the key, the oldest first.
+     *
+     * @param key the key of the buffer
+     * @param since the date, from which on the artifacts are returned, or <code>null</code> for all artifacts
+     * @param loader loads the artifacts, if the buffer does not exist, is outdated or does not contain all
+     * artifacts since the given date
+     * @return the artifacts ordered by the date, when they were gathered
+     * @throws FeedException if the loader fails
+     */
+    public List<ArtifactMetadata> getArtifacts( String key, ZonedDateTime since, ArtifactLoader loader )
+        throws FeedException
+    {
+        Buffer buffer;
+        synchronized ( buffers )
+        {
+            buffer = buffers.get( key );
+        }
+        if ( buffer == null || buffer.isExpired( maxAge ) || !buffer.isComplete( since ) )
+        {
+            long count = modificationCount.get( );
+            List<ArtifactMetadata> artifacts = new ArrayList<>( loader.load( ) );
+            artifacts.sort( BY_WHEN_GATHERED );
+            Buffer loaded = new Buffer( maxArtifacts, since );
+            for ( ArtifactMetadata artifact : artifacts )
+            {
+                loaded.add( artifact );
+            }
+            // a buffer, that is still valid, is kept, if the loaded artifacts do not fit either, so that the tag
+            // does not change with every request
+            boolean replace = buffer == null || buffer.isExpired( maxAge ) || loaded.isComplete( since );
+            synchronized ( buffers )
+            {
+                // if artifacts have been stored during the load, the loaded state may be outdated already
+                if ( replace && count == modificationCount.get( ) && buffers.get( key ) == buffer )
+                {
+                    buffers.put( key, loaded );
+                    evict( );
+                }
+            }
+            if ( !loaded.isComplete( since ) )
+            {
+                // there are more artifacts than the buffer holds, the feed must not be truncated
+                return artifacts;
+            }
+            buffer = loaded;
+        }
+        return buffer.getArtifacts( since );
+    }
+
+    /**
+     * Returns a tag, that changes whenever the artifacts of the key change, or <code>null</code>, if the buffer
+     * has not been loaded.
+     */
+    public String getTag( String key )
+    {
+        synchronized ( buffers )
+        {
+            Buffer buffer = buffers.get( key );
+            return buffer == null || buffer.isExpired( maxAge )
+                ? null
+                : Long.toHexString( buffer.id ) + "-" + Long.toHexString( buffer.getVersion( ) );
+        }
+    }
+
+    public void clear( )
+    {
+        synchronized ( buffers )
+        {
+            buffers.clear( );
+            modificationCount.incrementAndGet( );
+        }
+    }
+
+    /**
+     * Adds the artifact to the buffers of its repository and of its group and artifact id, if they exist.
+     */
+    public void addArtifact( String repositoryId, ArtifactMetadata artifact )
+    {
+        if ( artifact.getWhenGathered( ) == null )
+        {
+            return;
+        }
+        synchronized ( buffers )
+        {
+            modificationCount.incrementAndGet( );
+            add( getRepositoryKey( repositoryId ), artifact );
+            add( getArtifactKey( artifact.getNamespace( ), artifact.getProject( ) ), artifact );
+        }
+    }
+
+    private void add( String key, ArtifactMetadata artifact )
+    {
+        Buffer buffer = buffers.get( key );
+        if ( buffer != null )
+        {
+            buffer.add( artifact );
+        }
+    }
+
+    private void evict( )
+    {
+        Iterator<Buffer> it = buffers.values( ).iterator( );
+        while ( buffers.size( ) > maxBuffers && it.hasNext( ) )
+        {
+            it.next( );
+            it.remove( );
+        }
+    }
+
+    @Override
+    public void artifactStored( RepositorySession session, String repoId, ArtifactMetadata artifact )
+    {
+        addArtifact( repoId, artifact );
+    }
+
+    @Override
+    public void deleteArtifact( MetadataRepository metadataRepository, String repositoryId, String namespace,
+                                String project, String version, String id )
+    {
+        // the buffers are loaded again on the next request
+        synchronized ( buffers )
+        {
+            modificationCount.incrementAndGet( );
+            buffers.remove( getRepositoryKey( repositoryId ) );
+            buffers.remove( getArtifactKey( namespace, project ) );
+        }
+    }
+
+    @Override
+    public void addArtifact( RepositorySession session, String repoId, String namespace, String projectId,
+                             ProjectVersionMetadata metadata )
+    {
+        // the stored artifacts are reported by artifactStored
+    }
+
+    @Override
+    public void addArtifactProblem( RepositorySession session, String repoId, String namespace, String projectId,
+                                    String projectVersion, RepositoryStorageMetadataException exception )
+    {
+        // no op
+    }
+
+    private static class Buffer
+    {
+        final long id = BUFFER_IDS.incrementAndGet( );
+
+        final long created = System.currentTimeMillis( );
+
+        private final int maxSize;
+
+        private final ZonedDateTime loadedSince;
+
+        private final Deque<ArtifactMetadata> artifacts = new ArrayDeque<>( );
+
+        private long version = 0;
+
+        /**
+         * The newest date of the artifacts, that have been removed, because the buffer was full.
+         */
+        private ZonedDateTime dropped;
+
+        Buffer( int maxSize, ZonedDateTime loadedSince )
+        {
+            this.maxSize = maxSize;
+            this.loadedSince = loadedSince;
+        }
+
+        synchronized void add( ArtifactMetadata artifact )
+        {
+            // an artifact that is stored again replaces the old entry
+            artifacts.removeIf( a -> Objects.equals( a.getId( ), artifact.getId( ) ) && Objects.equals(
+                a.getRepositoryId( ), artifact.getRepositoryId( ) ) && Objects.equals( a.getVersion( ),
+                artifact.getVersion( ) ) );
+            artifacts.addLast( artifact );
+            while ( artifacts.size( ) > maxSize )
+            {
+                ZonedDateTime whenGathered = artifacts.removeFirst( ).getWhenGathered( );
+                if ( dropped == null || whenGathered.isAfter( dropped ) )
+                {
+                    dropped = whenGathered;
+                }
+            }
+            version++;
+        }
+
+        /**
+         * @return <code>true</code>, if the buffer contains all artifacts gathered since the given date
+         */
+        synchronized boolean isComplete( ZonedDateTime since )
+        {
+            if ( loadedSince != null && ( since == null || since.isBefore( loadedSince ) ) )
+            {
+                return false;
+            }
+            return dropped == null || ( since != null && since.isAfter( dropped ) );
+        }
+
+        boolean isExpired( Duration maxAge )
+        {
+            return System.currentTimeMillis( ) - created >= maxAge.toMillis( );
+        }
+
+        synchronized List<ArtifactMetadata> getArtifacts( ZonedDateTime since )
+        {
+            List<ArtifactMetadata> result = artifacts.stream( ) //
+                .filter( a -> since == null || !a.getWhenGathered( ).isBefore( since ) ) //
+                .collect( Collectors.toList( ) );
+            result.sort( BY_WHEN_GATHERED );
+            return result;
+        }
+
+        synchronized long getVersion( )
+        {
+            return version;
+        }
+    }
+}
@@ -25,6 +25,7 @@
 import org.apache.archiva.metadata.repository.MetadataRepositoryException;
 import org.apache.archiva.metadata.repository.RepositorySession;
 import org.apache.archiva.metadata.repository.RepositorySessionFactory;
+import org.apache.archiva.rss.RecentArtifactsCache;
 import org.apache.archiva.rss.RssFeedEntry;
 import org.apache.archiva.rss.RssFeedGenerator;
 import org.slf4j.Logger;
@@ -32,6 +33,7 @@
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
+import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -65,6 +67,9 @@
     @Inject
     private RepositorySessionFactory repositorySessionFactory;
 
+    @Inject
+    private RecentArtifactsCache recentArtifactsCache;
+
 
     private Logger log = LoggerFactory.getLogger( NewArtifactsRssFeedProcessor.class );
 
@@ -88,6 +93,22 @@ public SyndFeed process( Map<String, String> reqParams )
         return null;
     }
 
+    /**
+     * The feed changes with the stored artifacts of the repository and with the day, because the artifacts
+     * older than the number of days are not part of the feed.
+     */
+    @Override
+    public String getFeedTag( Map<String, String> reqParams )
+    {
+        String repoId = reqParams.get( RssFeedProcessor.KEY_REPO_ID );
+        if ( repoId == null || recentArtifactsCache == null )
+        {
+            return null;
+        }
+        String tag = recentArtifactsCache.getTag( RecentArtifactsCache.getRepositoryKey( repoId ) );
+        return tag == null ? null : tag + "-" + LocalDate.now().toEpochDay();
+    }
+
     private SyndFeed processNewArtifactsInRepo( String repoId )
         throws FeedException
     {
@@ -96,14 +117,15 @@ private SyndFeed processNewArtifactsInRepo( String repoId )
                 getNumberOfDaysBeforeNow()
         ).truncatedTo(ChronoUnit.SECONDS);
         List<ArtifactMetadata> artifacts;
-        try(RepositorySession session = repositorySessionFactory.createSession())
+        if ( recentArtifactsCache != null )
         {
-            artifacts = session.getRepository().getArtifactsByDateRange(session , repoId, greaterThanThisDate, null );
+            artifacts = recentArtifactsCache.getArtifacts( RecentArtifactsCache.getRepositoryKey( repoId ),
+                                                           greaterThanThisDate,
+                                                           () -> getArtifacts( repoId, greaterThanThisDate ) );
         }
-        catch ( MetadataRepositoryException e )
+        else
         {
-            throw new FeedException( "Unable to construct feed, metadata could not be retrieved: " + e.getMessage(),
-                                     e );
+            artifacts = getArtifacts( repoId, greaterThanThisDate );
         }
 
         long tmp = 0;
@@ -151,6 +173,20 @@ private SyndFeed processNewArtifactsInRepo( String repoId )
                                            " during repository scan.", entries );
     }
 
+    private List<ArtifactMetadata> getArtifacts( String repoId, ZonedDateTime greaterThanThisDate )
+        throws FeedException
+    {
+        try(RepositorySession session = repositorySessionFactory.createSession())
+        {
+            return session.getRepository().getArtifactsByDateRange(session , repoId, greaterThanThisDate, null );
+        }
+        catch ( MetadataRepositoryException e )
+        {
+            throw new FeedException( "Unable to construct feed, metadata could not be retrieved: " + e.getMessage(),
+                                     e );
+        }
+    }
+
     @Override
     public String getTitle()
     {
@@ -192,4 +228,14 @@ public void setRepositorySessionFactory( RepositorySessionFactory repositorySess
     {
         this.repositorySessionFactory = repositorySessionFactory;
     }
+
+    public RecentArtifactsCache getRecentArtifactsCache( )
+    {
+        return recentArtifactsCache;
+    }
+
+    public void setRecentArtifactsCache( RecentArtifactsCache recentArtifactsCache )
+    {
+        this.recentArtifactsCache = recentArtifactsCache;
+    }
 }
@@ -25,6 +25,7 @@
 import org.apache.archiva.metadata.repository.*;
 import org.apache.archiva.repository.Repository;
 import org.apache.archiva.repository.RepositoryRegistry;
+import org.apache.archiva.rss.RecentArtifactsCache;
 import org.apache.archiva.rss.RssFeedEntry;
 import org.apache.archiva.rss.RssFeedGenerator;
 import org.slf4j.Logger;
@@ -64,6 +65,9 @@
     @Inject
     private RepositorySessionFactory repositorySessionFactory;
 
+    @Inject
+    private RecentArtifactsCache recentArtifactsCache;
+
     /**
      * Process all versions of the artifact which had a rss feed request.
      */
@@ -82,32 +86,31 @@ public SyndFeed process( Map<String, String> reqParams )
         return null;
     }
 
-    private SyndFeed processNewVersionsOfArtifact( String groupId, String artifactId )
-        throws FeedException
+    @Override
+    public String getFeedTag( Map<String, String> reqParams )
     {
-        List<ArtifactMetadata> artifacts = new ArrayList<>();
-        try(RepositorySession session = repositorySessionFactory.createSession())
+        String groupId = reqParams.get( RssFeedProcessor.KEY_GROUP_ID );
+        String artifactId = reqParams.get( RssFeedProcessor.KEY_ARTIFACT_ID );
+        if ( groupId == null || artifactId == null || recentArtifactsCache == null )
         {
-            final MetadataRepository metadataRepository = session.getRepository( );
-            for ( Repository repo : repositoryRegistry.getRepositories() )
-            {
-                final String repoId = repo.getId();
-                Collection<String> versions = metadataRepository.getProjectVersions( session, repoId, groupId, artifactId );
-                for ( String version : versions )
-                {
-                    artifacts.addAll( metadataRepository.getArtifacts(session , repoId, groupId, artifactId, version ) );
-                }
-            }
+            return null;
         }
-        catch ( MetadataRepositoryException e )
+        return recentArtifactsCache.getTag( RecentArtifactsCache.getArtifactKey( groupId, artifactId ) );
+    }
+
+    private SyndFeed processNewVersionsOfArtifact( String groupId, String artifactId )
+        throws FeedException
+    {
+        List<ArtifactMetadata> artifacts;
+        if ( recentArtifactsCache != null )
         {
-            throw new FeedException( "Unable to construct feed, metadata could not be retrieved: " + e.getMessage(),
-                                     e );
+            // the feed contains all versions of the artifact
+            artifacts = recentArtifactsCache.getArtifacts( RecentArtifactsCache.getArtifactKey( groupId, artifactId ),
+                                                           null, () -> getArtifacts( groupId, artifactId ) );
         }
-        catch ( MetadataResolutionException e )
+        else
         {
-            throw new FeedException( "Unable to construct feed, metadata could not be retrieved: " + e.getMessage(),
-                                     e );
+            artifacts = getArtifacts( groupId, artifactId );
         }
 
         long tmp = 0;
@@ -157,6 +160,36 @@ private SyndFeed processNewVersionsOfArtifact( String groupId, String artifactId
                                        entries );
     }
 
+    private List<ArtifactMetadata> getArtifacts( String groupId, String artifactId )
+        throws FeedException
+    {
+        List<ArtifactMetadata> artifacts = new ArrayList<>();
+        try(RepositorySession session = repositorySessionFactory.createSession())
+        {
+            final MetadataRepository metadataRepository = session.getRepository( );
+            for ( Repository repo : repositoryRegistry.getRepositories() )
+            {
+                final String repoId = repo.getId();
+                Collection<String> versions = metadataRepository.getProjectVersions( session, repoId, groupId, artifactId );
+                for ( String version : versions )
+                {
+                    artifacts.addAll( metadataRepository.getArtifacts(session , repoId, groupId, artifactId, version ) );
+                }
+            }
+        }
+        catch ( MetadataRepositoryException e )
+        {
+            throw new FeedException( "Unable to construct feed, metadata could not be retrieved: " + e.getMessage(),
+                                     e );
+        }
+        catch ( MetadataResolutionException e )
+        {
+            throw new FeedException( "Unable to construct feed, metadata could not be retrieved: " + e.getMessage(),
+                                     e );
+        }
+        return artifacts;
+    }
+
     @Override
     public String getTitle()
     {
@@ -189,6 +222,16 @@ public void setRepositorySessionFactory( RepositorySessionFactory repositorySess
         this.repositorySessionFactory = repositorySessionFactory;
     }
 
+    public RecentArtifactsCache getRecentArtifactsCache( )
+    {
+        return recentArtifactsCache;
+    }
+
+    public void setRecentArtifactsCache( RecentArtifactsCache recentArtifactsCache )
+    {
+        this.recentArtifactsCache = recentArtifactsCache;
+    }
+
     public RepositoryRegistry getRepositoryRegistry( )
     {
         return repositoryRegistry;
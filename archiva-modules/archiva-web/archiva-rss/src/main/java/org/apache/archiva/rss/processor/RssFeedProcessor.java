@@ -37,4 +37,17 @@
 
     SyndFeed process( Map<String, String> reqParams )
         throws FeedException;
+
+    /**
+     * Returns a tag of the current content of the feed, that changes whenever the feed changes. It is used to
+     * cache the rendered feed and as entity tag of the response.
+     *
+     * @param reqParams the request parameters
+     * @return the tag, or <code>null</code>, if the state of the feed is not known
+     * @since 3.0
+     */
+    default String getFeedTag( Map<String, String> reqParams )
+    {
+        return null;
+    }
 }
@@ -0,0 +1,198 @@
+package org.apache.archiva.rss;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.metadata.model.ArtifactMetadata;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class RecentArtifactsCacheTest
+    extends TestCase
+{
+    private static final String TEST_REPO = "test-repo";
+
+    private static final ZonedDateTime NOW = ZonedDateTime.now();
+
+    private static final ZonedDateTime ONE_DAY_AGO = NOW.minusDays( 1 );
+
+    private ArtifactMetadata createArtifact( String artifactId, String version, int minutesAgo )
+    {
+        ArtifactMetadata artifact = new ArtifactMetadata();
+        artifact.setRepositoryId( TEST_REPO );
+        artifact.setNamespace( "org.apache.archiva" );
+        artifact.setProject( artifactId );
+        artifact.setProjectVersion( version );
+        artifact.setVersion( version );
+        artifact.setId( artifactId + "-" + version + ".jar" );
+        artifact.setWhenGathered( NOW.minusMinutes( minutesAgo ) );
+        return artifact;
+    }
+
+    @Test
+    public void testLoadOnceAndAddStored()
+        throws Exception
+    {
+        RecentArtifactsCache cache = new RecentArtifactsCache( 10, 10, Duration.ofHours( 1 ) );
+        String key = RecentArtifactsCache.getRepositoryKey( TEST_REPO );
+        AtomicInteger loads = new AtomicInteger();
+        List<ArtifactMetadata> stored =
+            Arrays.asList( createArtifact( "artifact-one", "1.1", 10 ), createArtifact( "artifact-one", "1.0", 20 ) );
+
+        assertNull( cache.getTag( key ) );
+        List<ArtifactMetadata> artifacts = cache.getArtifacts( key, ONE_DAY_AGO, () -> {
+            loads.incrementAndGet();
+            return stored;
+        } );
+        assertEquals( 2, artifacts.size() );
+        assertEquals( "1.0", artifacts.get( 0 ).getVersion() );
+        String tag = cache.getTag( key );
+        assertNotNull( tag );
+
+        cache.artifactStored( null, TEST_REPO, createArtifact( "artifact-two", "1.0", 5 ) );
+        cache.artifactStored( null, TEST_REPO, createArtifact( "artifact-two", "1.1", 1 ) );
+        assertFalse( tag.equals( cache.getTag( key ) ) );
+
+        artifacts = cache.getArtifacts( key, ONE_DAY_AGO, () -> {
+            loads.incrementAndGet();
+            return Collections.emptyList();
+        } );
+        assertEquals( 1, loads.get() );
+        assertEquals( 4, artifacts.size() );
+        assertEquals( "artifact-one-1.0.jar", artifacts.get( 0 ).getId() );
+        assertEquals( "artifact-two-1.1.jar", artifacts.get( 3 ).getId() );
+
+        // only the artifacts of the requested period
+        artifacts = cache.getArtifacts( key, NOW.minusMinutes( 15 ), Collections::emptyList );
+        assertEquals( 3, artifacts.size() );
+        assertEquals( "artifact-one-1.1.jar", artifacts.get( 0 ).getId() );
+    }
+
+    @Test
+    public void testFullBufferFallsBackToLoader()
+        throws Exception
+    {
+        RecentArtifactsCache cache = new RecentArtifactsCache( 3, 10, Duration.ofHours( 1 ) );
+        String key = RecentArtifactsCache.getRepositoryKey( TEST_REPO );
+        AtomicInteger loads = new AtomicInteger();
+        List<ArtifactMetadata> stored = new ArrayList<>(
+            Arrays.asList( createArtifact( "artifact-one", "1.1", 10 ), createArtifact( "artifact-one", "1.0", 20 ) ) );
+        RecentArtifactsCache.ArtifactLoader loader = () -> {
+            loads.incrementAndGet();
+            return stored;
+        };
+        cache.getArtifacts( key, ONE_DAY_AGO, loader );
+
+        stored.add( createArtifact( "artifact-two", "1.0", 5 ) );
+        cache.artifactStored( null, TEST_REPO, stored.get( 2 ) );
+        stored.add( createArtifact( "artifact-two", "1.1", 1 ) );
+        cache.artifactStored( null, TEST_REPO, stored.get( 3 ) );
+        String tag = cache.getTag( key );
+
+        // the buffer has dropped the oldest artifact, the complete period is loaded
+        List<ArtifactMetadata> artifacts = cache.getArtifacts( key, ONE_DAY_AGO, loader );
+        assertEquals( 2, loads.get() );
+        assertEquals( 4, artifacts.size() );
+        assertEquals( "artifact-one-1.0.jar", artifacts.get( 0 ).getId() );
+        // the buffer is kept, because the loaded artifacts do not fit either
+        assertEquals( tag, cache.getTag( key ) );
+
+        // the period after the dropped artifact is returned from the buffer
+        artifacts = cache.getArtifacts( key, NOW.minusMinutes( 15 ), loader );
+        assertEquals( 2, loads.get() );
+        assertEquals( 3, artifacts.size() );
+        assertEquals( "artifact-one-1.1.jar", artifacts.get( 0 ).getId() );
+
+        // a period before the loaded one is loaded again
+        cache = new RecentArtifactsCache( 10, 10, Duration.ofHours( 1 ) );
+        cache.getArtifacts( key, NOW.minusMinutes( 15 ), loader );
+        cache.getArtifacts( key, ONE_DAY_AGO, loader );
+        assertEquals( 4, loads.get() );
+    }
+
+    @Test
+    public void testMaxAge()
+        throws Exception
+    {
+        RecentArtifactsCache cache = new RecentArtifactsCache( 10, 10, Duration.ZERO );
+        String key = RecentArtifactsCache.getRepositoryKey( TEST_REPO );
+        AtomicInteger loads = new AtomicInteger();
+        RecentArtifactsCache.ArtifactLoader loader = () -> {
+            loads.incrementAndGet();
+            return Collections.singletonList( createArtifact( "artifact-one", "1.0", 20 ) );
+        };
+
+        assertEquals( 1, cache.getArtifacts( key, ONE_DAY_AGO, loader ).size() );
+        // an outdated buffer has no tag and is loaded again
+        assertNull( cache.getTag( key ) );
+        assertEquals( 1, cache.getArtifacts( key, ONE_DAY_AGO, loader ).size() );
+        assertEquals( 2, loads.get() );
+    }
+
+    @Test
+    public void testArtifactBuffer()
+        throws Exception
+    {
+        RecentArtifactsCache cache = new RecentArtifactsCache( 10, 10, Duration.ofHours( 1 ) );
+        String key = RecentArtifactsCache.getArtifactKey( "org.apache.archiva", "artifact-one" );
+        cache.getArtifacts( key, null, () -> new ArrayList<>( Collections.singletonList( createArtifact( "artifact-one", "1.0", 20 ) ) ) );
+
+        cache.artifactStored( null, TEST_REPO, createArtifact( "artifact-one", "2.0", 2 ) );
+        cache.artifactStored( null, TEST_REPO, createArtifact( "artifact-other", "1.0", 1 ) );
+        // a stored artifact replaces the previous entry
+        cache.artifactStored( null, TEST_REPO, createArtifact( "artifact-one", "1.0", 0 ) );
+
+        List<ArtifactMetadata> artifacts = cache.getArtifacts( key, null, Collections::emptyList );
+        assertEquals( 2, artifacts.size() );
+        assertEquals( "2.0", artifacts.get( 0 ).getVersion() );
+        assertEquals( "1.0", artifacts.get( 1 ).getVersion() );
+    }
+
+    @Test
+    public void testDeleteAndEviction()
+        throws Exception
+    {
+        RecentArtifactsCache cache = new RecentArtifactsCache( 10, 2, Duration.ofHours( 1 ) );
+        String repoKey = RecentArtifactsCache.getRepositoryKey( TEST_REPO );
+        String artifactKey = RecentArtifactsCache.getArtifactKey( "org.apache.archiva", "artifact-one" );
+        cache.getArtifacts( repoKey, null, Collections::emptyList );
+        cache.getArtifacts( artifactKey, null, Collections::emptyList );
+
+        cache.deleteArtifact( null, TEST_REPO, "org.apache.archiva", "artifact-one", "1.0", "artifact-one-1.0.jar" );
+        assertNull( cache.getTag( repoKey ) );
+        assertNull( cache.getTag( artifactKey ) );
+
+        cache.getArtifacts( "a", null, Collections::emptyList );
+        cache.getArtifacts( "b", null, Collections::emptyList );
+        cache.getArtifacts( "c", null, Collections::emptyList );
+        assertNull( cache.getTag( "a" ) );
+        assertNotNull( cache.getTag( "c" ) );
+    }
+}
@@ -54,6 +54,9 @@
     @Inject
     private SecuritySystem securitySystem;
 
+    @Inject
+    private AuthorizationDecisionCache decisionCache;
+
     @Override
     public boolean isAuthenticated( HttpServletRequest request, AuthenticationResult result )
         throws AuthenticationException, AccountLockedException, MustChangePasswordException
@@ -73,20 +76,40 @@ public boolean isAuthorized( HttpServletRequest request, SecuritySession securit
     {
         // TODO: also check for permission to proxy the resource when MRM-579 is implemented
 
+        String principal = getPrincipal( securitySession );
+        AuthorizationDecisionCache.Decision decision = getDecision( principal, repositoryId, permission );
+        if ( decision != null )
+        {
+            if ( !decision.isAuthorized() )
+            {
+                log.debug( "Authorization Denied (cached) [ip={},permission={},repo={}]", request.getRemoteAddr(),
+                           permission, repositoryId );
+                throw new UnauthorizedException( decision.getMessage() );
+            }
+            return true;
+        }
+
         AuthorizationResult authzResult = securitySystem.authorize( securitySession, permission, repositoryId );
 
         if ( !authzResult.isAuthorized() )
         {
+            String message;
             if ( authzResult.getException() != null )
             {
                 log.info( "Authorization Denied [ip={},permission={},repo={}] : {}", request.getRemoteAddr(),
                           permission, repositoryId, authzResult.getException().getMessage() );
 
-                throw new UnauthorizedException( "Access denied for repository " + repositoryId );
+                message = "Access denied for repository " + repositoryId;
             }
-            throw new UnauthorizedException( "User account is locked" );
+            else
+            {
+                message = "User account is locked";
+            }
+            putDecision( principal, repositoryId, permission, false, message );
+            throw new UnauthorizedException( message );
         }
 
+        putDecision( principal, repositoryId, permission, true, null );
         return true;
     }
 
@@ -94,6 +117,12 @@ public boolean isAuthorized( HttpServletRequest request, SecuritySession securit
     public boolean isAuthorized( String principal, String repoId, String permission )
         throws UnauthorizedException
     {
+        AuthorizationDecisionCache.Decision decision = getDecision( principal, repoId, permission );
+        if ( decision != null )
+        {
+            return decision.isAuthorized();
+        }
+
         try
         {
             User user = securitySystem.getUserManager().findUser( principal );
@@ -110,7 +139,9 @@ public boolean isAuthorized( String principal, String repoId, String permission
             AuthenticationResult authn = new AuthenticationResult( true, principal, null );
             SecuritySession securitySession = new DefaultSecuritySession( authn, user );
 
-            return securitySystem.isAuthorized( securitySession, permission, repoId );
+            boolean authorized = securitySystem.isAuthorized( securitySession, permission, repoId );
+            putDecision( principal, repoId, permission, authorized, null );
+            return authorized;
         }
         catch ( UserNotFoundException e )
         {
@@ -126,6 +157,29 @@ public boolean isAuthorized( String principal, String repoId, String permission
 
     }
 
+    private static String getPrincipal( SecuritySession securitySession )
+    {
+        if ( securitySession == null || securitySession.getUser() == null )
+        {
+            return null;
+        }
+        return securitySession.getUser().getUsername();
+    }
+
+    private AuthorizationDecisionCache.Decision getDecision( String principal, String repositoryId,
+                                                             String permission )
+    {
+        return decisionCache == null ? null : decisionCache.get( principal, repositoryId, permission );
+    }
+
+    private void putDecision( String principal, String repositoryId, String permission, boolean authorized,
+                              String message )
+    {
+        if ( decisionCache != null )
+        {
+            decisionCache.put( principal, repositoryId, permission, authorized, message );
+        }
+    }
 
     public SecuritySystem getSecuritySystem()
     {
@@ -136,4 +190,14 @@ public void setSecuritySystem( SecuritySystem securitySystem )
     {
         this.securitySystem = securitySystem;
     }
+
+    public AuthorizationDecisionCache getDecisionCache()
+    {
+        return decisionCache;
+    }
+
+    public void setDecisionCache( AuthorizationDecisionCache decisionCache )
+    {
+        this.decisionCache = decisionCache;
+    }
 }
@@ -0,0 +1,189 @@
+package org.apache.archiva.security;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache for the results of repository authorization checks, keyed by principal, repository and permission.
+ *
+ * The cache is disabled by default. It is enabled by the RBAC manager that reports all changes of roles,
+ * permissions and user assignments to the cache by {@link #clear()} and {@link #invalidate(String)}. Changes that
+ * are not reported (e.g. locking a user or changes in external role sources) are visible after the time to live
+ * of the entries.
+ *
+ * @since 3.0
+ */
+@Service( "authorizationDecisionCache" )
+public class AuthorizationDecisionCache
+{
+    private static final Logger log = LoggerFactory.getLogger( AuthorizationDecisionCache.class );
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    public static final long DEFAULT_TIME_TO_LIVE = 60000;
+
+    private final Map<String, Decision> decisions;
+
+    private final long timeToLive;
+
+    private volatile boolean enabled = false;
+
+    public AuthorizationDecisionCache( )
+    {
+        this( DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE );
+    }
+
+    /**
+     * @param maxEntries the maximum number of decisions
+     * @param timeToLive the time in milliseconds a decision is valid
+     */
+    public AuthorizationDecisionCache( final int maxEntries, long timeToLive )
+    {
+        this.timeToLive = timeToLive;
+        this.decisions = new LinkedHashMap<String, Decision>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, Decision> eldest )
+            {
+                return size( ) > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached decision.
+     *
+     * @param principal the user name
+     * @param repositoryId the repository id
+     * @param permission the requested operation
+     * @return the decision, or <code>null</code>, if the cache is disabled or there is no valid entry
+     */
+    public Decision get( String principal, String repositoryId, String permission )
+    {
+        if ( !enabled || principal == null )
+        {
+            return null;
+        }
+        String key = getKey( principal, repositoryId, permission );
+        synchronized ( decisions )
+        {
+            Decision decision = decisions.get( key );
+            if ( decision != null && System.currentTimeMillis( ) - decision.created > timeToLive )
+            {
+                decisions.remove( key );
+                return null;
+            }
+            return decision;
+        }
+    }
+
+    /**
+     * Stores a decision.
+     *
+     * @param principal the user name
+     * @param repositoryId the repository id
+     * @param permission the requested operation
+     * @param authorized <code>true</code>, if the access is granted
+     * @param message the reason, if the access is denied
+     */
+    public void put( String principal, String repositoryId, String permission, boolean authorized, String message )
+    {
+        if ( !enabled || principal == null )
+        {
+            return;
+        }
+        Decision decision = new Decision( authorized, message );
+        synchronized ( decisions )
+        {
+            decisions.put( getKey( principal, repositoryId, permission ), decision );
+        }
+    }
+
+    /**
+     * Removes the decisions of the given user.
+     *
+     * @param principal the user name
+     */
+    public void invalidate( String principal )
+    {
+        String prefix = principal + "\u0000";
+        synchronized ( decisions )
+        {
+            decisions.keySet( ).removeIf( key -> key.startsWith( prefix ) );
+        }
+    }
+
+    public void clear( )
+    {
+        synchronized ( decisions )
+        {
+            decisions.clear( );
+        }
+    }
+
+    public boolean isEnabled( )
+    {
+        return enabled;
+    }
+
+    public void setEnabled( boolean enabled )
+    {
+        if ( this.enabled != enabled )
+        {
+            log.info( "Authorization decision cache {}", enabled ? "enabled" : "disabled" );
+        }
+        this.enabled = enabled;
+        clear( );
+    }
+
+    private static String getKey( String principal, String repositoryId, String permission )
+    {
+        return principal + "\u0000" + repositoryId + "\u0000" + permission;
+    }
+
+    public static class Decision
+    {
+        private final boolean authorized;
+        private final String message;
+        private final long created = System.currentTimeMillis( );
+
+        Decision( boolean authorized, String message )
+        {
+            this.authorized = authorized;
+            this.message = message;
+        }
+
+        public boolean isAuthorized( )
+        {
+            return authorized;
+        }
+
+        public String getMessage( )
+        {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.apache.archiva.security;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.security.common.ArchivaRoleConstants;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Test for {@link AuthorizationDecisionCache}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class AuthorizationDecisionCacheTest
+    extends TestCase
+{
+    @Test
+    public void testDisabledByDefault( )
+    {
+        AuthorizationDecisionCache cache = new AuthorizationDecisionCache( );
+        cache.put( "user", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS, true, null );
+        assertNull( cache.get( "user", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ) );
+    }
+
+    @Test
+    public void testDecisions( )
+    {
+        AuthorizationDecisionCache cache = new AuthorizationDecisionCache( );
+        cache.setEnabled( true );
+        cache.put( "user", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS, true, null );
+        cache.put( "user", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_UPLOAD, false, "denied" );
+        cache.put( "other", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS, true, null );
+
+        assertTrue( cache.get( "user", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ).isAuthorized( ) );
+        AuthorizationDecisionCache.Decision denied =
+            cache.get( "user", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_UPLOAD );
+        assertFalse( denied.isAuthorized( ) );
+        assertEquals( "denied", denied.getMessage( ) );
+        assertNull( cache.get( "user", "snapshots", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ) );
+        assertNull( cache.get( null, "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ) );
+
+        cache.invalidate( "user" );
+        assertNull( cache.get( "user", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ) );
+        assertNotNull( cache.get( "other", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ) );
+
+        cache.clear( );
+        assertNull( cache.get( "other", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ) );
+    }
+
+    @Test
+    public void testLimits( )
+        throws Exception
+    {
+        AuthorizationDecisionCache cache = new AuthorizationDecisionCache( 2, 0 );
+        cache.setEnabled( true );
+        cache.put( "user", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS, true, null );
+        Thread.sleep( 5 );
+        assertNull( cache.get( "user", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ) );
+
+        cache = new AuthorizationDecisionCache( 2, 60000 );
+        cache.setEnabled( true );
+        cache.put( "a", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS, true, null );
+        cache.put( "b", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS, true, null );
+        cache.put( "c", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS, true, null );
+        assertNull( cache.get( "a", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ) );
+        assertNotNull( cache.get( "c", "internal", ArchivaRoleConstants.OPERATION_REPOSITORY_ACCESS ) );
+    }
+}
@@ -29,6 +29,7 @@
 import org.apache.archiva.common.utils.VersionUtil;
 import org.apache.archiva.components.taskqueue.TaskQueueException;
 import org.apache.archiva.configuration.ArchivaConfiguration;
+import org.apache.archiva.metadata.audit.RepositoryListener;
 import org.apache.archiva.metadata.model.facets.AuditEvent;
 import org.apache.archiva.model.ArchivaRepositoryMetadata;
 import org.apache.archiva.model.SnapshotVersion;
@@ -60,6 +61,7 @@
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
@@ -122,6 +124,10 @@
     @Inject
     private RepositoryRegistry repositoryRegistry;
 
+    @Inject
+    @Autowired(required = false)
+    private List<RepositoryListener> listeners = new ArrayList<>();
+
     private String getStringValue(MultipartBody multipartBody, String attachmentId)
             throws IOException {
         Attachment attachment = multipartBody.getAttachment(attachmentId);
@@ -383,6 +389,7 @@ protected void savePomFile(String repositoryId, FileMetadata fileMetadata, Strin
 
             copyFile(Paths.get(fileMetadata.getServerFileName()), targetPath, pomFilename, fixChecksums);
             triggerAuditEvent(repository.getId(), targetPath.resolve(pomFilename).toString(), AuditEvent.UPLOAD_FILE);
+            fireContentStored(repository.getId(), targetPath.resolve(pomFilename));
             queueRepositoryTask(repository.getId(), targetPath.resolve(pomFilename));
             log.debug("Finished Saving POM");
         } catch (IOException ie) {
@@ -458,6 +465,7 @@ protected void saveFile(String repositoryId, FileMetadata fileMetadata, boolean
                 } else {
                     copyFile(Paths.get(fileMetadata.getServerFileName()), targetPath, filename, fixChecksums);
                     triggerAuditEvent(repository.getId(), artifactPath.toString(), AuditEvent.UPLOAD_FILE);
+                    fireContentStored(repository.getId(), targetFile);
                     queueRepositoryTask(repository.getId(), targetFile);
                 }
             } catch (IOException ie) {
@@ -481,6 +489,7 @@ protected void saveFile(String repositoryId, FileMetadata fileMetadata, boolean
                     if (fixChecksums) {
                         fixChecksums(generatedPomFile);
                     }
+                    fireContentStored(repository.getId(), generatedPomFile);
                     queueRepositoryTask(repository.getId(), generatedPomFile);
                 } catch (IOException ie) {
                     throw new ArchivaRestServiceException(
@@ -494,10 +503,13 @@ protected void saveFile(String repositoryId, FileMetadata fileMetadata, boolean
                 updateProjectMetadata(targetPath, lastUpdatedTimestamp, timestamp, newBuildNumber,
                         fixChecksums, fileMetadata, groupId, artifactId, version, packaging);
 
+                fireContentStored(repository.getId(), targetPath.getParent().resolve(MetadataTools.MAVEN_METADATA));
+
                 if (VersionUtil.isSnapshot(version)) {
                     updateVersionMetadata(versionMetadata, versionMetadataFile, lastUpdatedTimestamp, timestamp,
                             newBuildNumber, fixChecksums, fileMetadata, groupId, artifactId, version,
                             packaging);
+                    fireContentStored(repository.getId(), versionMetadataFile);
                 }
             }
         }
@@ -516,6 +528,12 @@ protected void saveFile(String repositoryId, FileMetadata fileMetadata, boolean
         }
     }
 
+    private void fireContentStored(String repositoryId, StorageAsset asset) {
+        for (RepositoryListener listener : listeners) {
+            listener.contentStored(repositoryId, asset.getPath());
+        }
+    }
+
     private ArchivaRepositoryMetadata getMetadata(StorageAsset metadataFile)
             throws RepositoryMetadataException {
         ArchivaRepositoryMetadata metadata = new ArchivaRepositoryMetadata();
@@ -55,9 +55,11 @@
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -75,6 +77,8 @@
 
     private static final String USER_NOT_AUTHORIZED = "User not authorized to access feed.";
 
+    private static final int MAX_RENDERED_FEEDS = 200;
+
     private Logger log = LoggerFactory.getLogger( RssFeedServlet.class );
 
     private WebApplicationContext wac;
@@ -89,6 +93,18 @@
 
     private RssFeedProcessor newVersionsprocessor;
 
+    /**
+     * The rendered feeds by request URL, together with the tag of the feed content they were rendered from.
+     */
+    private final Map<String, RenderedFeed> renderedFeeds = new LinkedHashMap<String, RenderedFeed>( 16, 0.75f, true )
+    {
+        @Override
+        protected boolean removeEldestEntry( Map.Entry<String, RenderedFeed> eldest )
+        {
+            return size() > MAX_RENDERED_FEEDS;
+        }
+    };
+
     /**
      * FIXME: this could be multiple implementations and needs to be configured.
      */
@@ -174,6 +190,32 @@ else if ( ( groupId != null ) && ( artifactId != null ) )
                 return;
             }
 
+            // the feed tag is read before the feed is built, so a cached feed is never older than its tag
+            String feedTag = processor.getFeedTag( map );
+            String cacheKey = req.getRequestURL().toString();
+            if ( feedTag != null )
+            {
+                String etag = "\"" + feedTag + "\"";
+                res.setHeader( "ETag", etag );
+                String ifNoneMatch = req.getHeader( "If-None-Match" );
+                if ( ifNoneMatch != null && ( ifNoneMatch.contains( etag ) || "*".equals( ifNoneMatch.trim() ) ) )
+                {
+                    res.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+                    return;
+                }
+                RenderedFeed rendered;
+                synchronized ( renderedFeeds )
+                {
+                    rendered = renderedFeeds.get( cacheKey );
+                }
+                if ( rendered != null && rendered.tag.equals( feedTag ) )
+                {
+                    res.setContentType( MIME_TYPE );
+                    res.getWriter().write( rendered.content );
+                    return;
+                }
+            }
+
             feed = processor.process( map );
 
             if ( feed == null )
@@ -194,7 +236,16 @@ else if ( ( groupId != null ) && ( artifactId != null ) )
             }
 
             SyndFeedOutput output = new SyndFeedOutput();
-            output.output( feed, res.getWriter() );
+            StringWriter content = new StringWriter();
+            output.output( feed, content );
+            if ( feedTag != null )
+            {
+                synchronized ( renderedFeeds )
+                {
+                    renderedFeeds.put( cacheKey, new RenderedFeed( feedTag, content.toString() ) );
+                }
+            }
+            res.getWriter().write( content.toString() );
         }
         catch ( UserNotFoundException unfe )
         {
@@ -348,4 +399,16 @@ private List<String> getObservableRepos( String principal )
         return Collections.emptyList();
     }
 
+    private static class RenderedFeed
+    {
+        final String tag;
+
+        final String content;
+
+        RenderedFeed( String tag, String content )
+        {
+            this.tag = tag;
+            this.content = content;
+        }
+    }
 }
@@ -59,6 +59,9 @@
     @Named(value = "cache#users")
     private Cache<String, User> usersCache;
 
+    @Inject
+    private CredentialCache credentialCache;
+
     private boolean useUsersCache;
 
     @PostConstruct
@@ -171,6 +174,7 @@ public void deleteUser( String username )
                 {
                     userManager.deleteUser( username );
                     allFailed = false;
+                    credentialCache.invalidate( username );
                 }
             }
             catch ( Exception e )
@@ -191,6 +195,7 @@ public void eraseDatabase()
         {
             userManager.eraseDatabase();
         }
+        credentialCache.clear();
     }
 
     @Override
@@ -390,6 +395,8 @@ public User updateUser( User user )
         UserManager userManager = userManagerPerId.get( user.getUserManagerId() );
 
         user = userManager.updateUser( user );
+        // password or lock state may have changed
+        credentialCache.invalidate( user.getUsername() );
 
         if ( useUsersCache() )
         {
@@ -404,6 +411,7 @@ public User updateUser( User user, boolean passwordChangeRequired )
         throws UserNotFoundException, UserManagerException
     {
         user = userManagerPerId.get( user.getUserManagerId() ).updateUser( user, passwordChangeRequired );
+        credentialCache.invalidate( user.getUsername() );
 
         if ( useUsersCache() )
         {
@@ -31,6 +31,7 @@
 import org.apache.archiva.redback.rbac.Resource;
 import org.apache.archiva.redback.rbac.Role;
 import org.apache.archiva.redback.rbac.UserAssignment;
+import org.apache.archiva.security.AuthorizationDecisionCache;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Service;
@@ -91,6 +92,9 @@
     @Named( value = "cache#effectiveRoleSet" )
     private Cache<String, Set<Role>> effectiveRoleSetCache;
 
+    @Inject
+    private AuthorizationDecisionCache authorizationDecisionCache;
+
     @Override
     public void initialize()
     {
@@ -108,6 +112,9 @@ public void initialize()
 
             log.info( "use rbacManagerIds: '{}'", rbacManagerIds );
 
+            // all changes of the rbac model pass this manager, so the repository access decisions can be cached
+            authorizationDecisionCache.setEnabled( true );
+
             this.rbacManagersPerId = new LinkedHashMap<>( rbacManagerIds.size() );
 
             for ( String id : rbacManagerIds )
@@ -137,6 +144,7 @@ private void clearCaches() {
         userAssignmentsCache.clear();
         userPermissionsCache.clear();
         effectiveRoleSetCache.clear();
+        authorizationDecisionCache.clear();
     }
 
     protected RBACManager getRbacManagerForWrite()
@@ -181,6 +189,8 @@ public Role saveRole( Role role )
                 lastException = e;
             }
         }
+        authorizationDecisionCache.clear();
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -209,6 +219,8 @@ public void saveRoles( Collection<Role> roles )
                 lastException = e;
             }
         }
+        authorizationDecisionCache.clear();
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -303,6 +315,8 @@ public void removeRole( Role role )
             }
         }
 
+        authorizationDecisionCache.clear();
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -345,6 +359,8 @@ public Permission savePermission( Permission permission )
             }
         }
 
+        authorizationDecisionCache.clear();
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -440,6 +456,8 @@ public void removePermission( Permission permission )
             }
         }
 
+        authorizationDecisionCache.clear();
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -475,6 +493,8 @@ public Operation saveOperation( Operation operation )
             }
         }
 
+        authorizationDecisionCache.clear();
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -569,6 +589,8 @@ public void removeOperation( Operation operation )
             }
         }
 
+        authorizationDecisionCache.clear();
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -604,6 +626,8 @@ public Resource saveResource( Resource resource )
             }
         }
 
+        authorizationDecisionCache.clear();
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -698,6 +722,8 @@ public void removeResource( Resource resource )
             }
         }
 
+        authorizationDecisionCache.clear();
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -733,6 +759,8 @@ public UserAssignment saveUserAssignment( UserAssignment userAssignment )
             }
         }
 
+        authorizationDecisionCache.invalidate( userAssignment.getPrincipal() );
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -924,6 +952,8 @@ public void removeUserAssignment( UserAssignment userAssignment )
             }
         }
 
+        authorizationDecisionCache.invalidate( userAssignment.getPrincipal() );
+
         if ( lastException != null && allFailed )
         {
             throw new RbacManagerException( lastException.getMessage(), lastException );
@@ -976,6 +1006,7 @@ public boolean roleExists( Role role )
     public void eraseDatabase()
     {
         log.warn( "eraseDatabase not implemented" );
+        authorizationDecisionCache.clear();
     }
 
     @Override
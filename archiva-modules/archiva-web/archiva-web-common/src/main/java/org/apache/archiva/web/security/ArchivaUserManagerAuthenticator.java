@@ -19,6 +19,7 @@
  */
 
 import org.apache.archiva.admin.model.RepositoryAdminException;
+import org.apache.archiva.admin.model.beans.RedbackRuntimeConfiguration;
 import org.apache.archiva.admin.model.runtime.RedbackRuntimeConfigurationAdmin;
 import org.apache.archiva.redback.authentication.AbstractAuthenticator;
 import org.apache.archiva.redback.authentication.AuthenticationConstants;
@@ -35,6 +36,7 @@
 import org.apache.archiva.redback.users.User;
 import org.apache.archiva.redback.users.UserManager;
 import org.apache.archiva.redback.users.UserNotFoundException;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
@@ -44,6 +46,7 @@
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Olivier Lamy
@@ -65,6 +68,9 @@
     @Inject
     private RedbackRuntimeConfigurationAdmin redbackRuntimeConfigurationAdmin;
 
+    @Inject
+    private CredentialCache credentialCache;
+
     private List<UserManager> userManagers;
 
     private boolean valid = false;
@@ -76,8 +82,9 @@ public void initialize()
     {
         try
         {
-            List<String> userManagerImpls =
-                redbackRuntimeConfigurationAdmin.getRedbackRuntimeConfiguration().getUserManagerImpls();
+            RedbackRuntimeConfiguration redbackRuntimeConfiguration =
+                redbackRuntimeConfigurationAdmin.getRedbackRuntimeConfiguration();
+            List<String> userManagerImpls = redbackRuntimeConfiguration.getUserManagerImpls();
 
             userManagers = new ArrayList<>( userManagerImpls.size() );
 
@@ -85,6 +92,7 @@ public void initialize()
             {
                 userManagers.add( applicationContext.getBean( "userManager#" + beanId, UserManager.class ) );
             }
+            configureCredentialCache( redbackRuntimeConfiguration.getConfigurationProperties() );
             valid=true;
         }
         catch ( RepositoryAdminException e )
@@ -95,6 +103,19 @@ public void initialize()
     }
 
 
+    private void configureCredentialCache( Map<String, String> properties )
+    {
+        credentialCache.setTimeToLive( NumberUtils.toInt( properties.get( CredentialCache.TIME_TO_LIVE_KEY ),
+                                                          CredentialCache.DEFAULT_TIME_TO_LIVE ) );
+        credentialCache.setMaxEntries( NumberUtils.toInt( properties.get( CredentialCache.MAX_ENTRIES_KEY ),
+                                                          CredentialCache.DEFAULT_MAX_ENTRIES ) );
+        credentialCache.setEnabled( Boolean.parseBoolean( properties.get( CredentialCache.ENABLED_KEY ) ) );
+        if ( credentialCache.isEnabled() )
+        {
+            log.info( "Caching of verified credentials enabled" );
+        }
+    }
+
     @Override
     public AuthenticationResult authenticate( AuthenticationDataSource ds )
         throws AuthenticationException, AccountLockedException, MustChangePasswordException
@@ -136,10 +157,23 @@ public AuthenticationResult authenticate( AuthenticationDataSource ds )
                                                         e.getMessage() ) );
                 }
 
-                PasswordEncoder encoder = securityPolicy.getPasswordEncoder();
-                log.debug( "PasswordEncoder: {}", encoder.getClass().getName() );
+                // only the verification of the password is cached, the account is checked on every request and
+                // accounts that are locked or need a password change are always verified by the user manager
+                boolean cachedPassword = !user.isLocked() && !user.isPasswordChangeRequired()
+                    && credentialCache.isVerified( source.getUsername(), source.getPassword() );
+                boolean isPasswordValid;
+                if ( cachedPassword )
+                {
+                    log.debug( "Authenticate: {} with cached credentials, {}", source.getUsername(), credentialCache );
+                    isPasswordValid = true;
+                }
+                else
+                {
+                    PasswordEncoder encoder = securityPolicy.getPasswordEncoder();
+                    log.debug( "PasswordEncoder: {}", encoder.getClass().getName() );
 
-                boolean isPasswordValid = encoder.isPasswordValid( user.getEncodedPassword(), source.getPassword() );
+                    isPasswordValid = encoder.isPasswordValid( user.getEncodedPassword(), source.getPassword() );
+                }
                 if ( isPasswordValid )
                 {
                     log.debug( "User {} provided a valid password", source.getUsername() );
@@ -160,6 +194,10 @@ public AuthenticationResult authenticate( AuthenticationDataSource ds )
                             }
                         }
 
+                        if ( !cachedPassword )
+                        {
+                            credentialCache.put( source.getUsername(), source.getPassword() );
+                        }
                         return new AuthenticationResult( true, source.getUsername(), null );
                     }
                     catch ( MustChangePasswordException e )
@@ -175,6 +213,7 @@ public AuthenticationResult authenticate( AuthenticationDataSource ds )
                 {
                     log.warn( "Password is Invalid for user {} and userManager '{}'.", source.getUsername(),
                               userManager.getId() );
+                    credentialCache.invalidate( source.getUsername() );
                     authnResultErrors.add( new AuthenticationFailureCause( AuthenticationConstants.AUTHN_NO_SUCH_USER,
                                                                            "Password is Invalid for user "
                                                                                + source.getUsername() + "." ).user( user ) );
@@ -0,0 +1,266 @@
+package org.apache.archiva.web.security;
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short living cache of successfully verified password credentials.
+ *
+ * Clients that use HTTP basic authentication send the credentials with every request. The cache avoids the
+ * verification of the password by the user managers (password hashing, LDAP bind) for each of these requests.
+ * Only a HMAC of user name and password is stored. The key of the HMAC is generated randomly on startup
+ * and is never persisted.
+ *
+ * The entry of a user is removed, if the user is updated or deleted, or if the verification of a password failed.
+ * The cache is disabled by default and can be enabled by the redback runtime configuration
+ * property {@link #ENABLED_KEY}.
+ *
+ * @since 3.0
+ */
+@Service( "credentialCache#archiva" )
+public class CredentialCache
+{
+    private static final Logger log = LoggerFactory.getLogger( CredentialCache.class );
+
+    public static final String ENABLED_KEY = "authentication.credentialCache.enabled";
+
+    public static final String TIME_TO_LIVE_KEY = "authentication.credentialCache.timeToLiveSeconds";
+
+    public static final String MAX_ENTRIES_KEY = "authentication.credentialCache.maxEntries";
+
+    public static final int DEFAULT_TIME_TO_LIVE = 60;
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec secret;
+
+    private final Map<String, Verified> entries;
+
+    private volatile boolean enabled = false;
+
+    private volatile long timeToLive = DEFAULT_TIME_TO_LIVE * 1000L;
+
+    private volatile int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CredentialCache()
+    {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes( key );
+        this.secret = new SecretKeySpec( key, HMAC_ALGORITHM );
+        this.entries = new LinkedHashMap<String, Verified>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, Verified> eldest )
+            {
+                if ( size() > maxEntries )
+                {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns <code>true</code>, if the given credentials have been verified successfully within the time to live.
+     *
+     * @param username the user name
+     * @param password the password in plain text
+     */
+    public boolean isVerified( String username, String password )
+    {
+        if ( !enabled || username == null || password == null )
+        {
+            return false;
+        }
+        byte[] hash = hash( username, password );
+        Verified entry;
+        synchronized ( entries )
+        {
+            entry = entries.get( username );
+            if ( entry != null && System.currentTimeMillis() > entry.expires )
+            {
+                entries.remove( username );
+                evictions.incrementAndGet();
+                entry = null;
+            }
+        }
+        if ( entry != null && hash != null && MessageDigest.isEqual( entry.hash, hash ) )
+        {
+            hits.incrementAndGet();
+            return true;
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Stores the given credentials after a successful verification.
+     *
+     * @param username the user name
+     * @param password the password in plain text
+     */
+    public void put( String username, String password )
+    {
+        if ( !enabled || username == null || password == null )
+        {
+            return;
+        }
+        byte[] hash = hash( username, password );
+        if ( hash == null )
+        {
+            return;
+        }
+        Verified entry = new Verified( hash, System.currentTimeMillis() + timeToLive );
+        synchronized ( entries )
+        {
+            entries.put( username, entry );
+        }
+    }
+
+    /**
+     * Removes the credentials of the given user.
+     *
+     * @param username the user name
+     */
+    public void invalidate( String username )
+    {
+        if ( username == null )
+        {
+            return;
+        }
+        synchronized ( entries )
+        {
+            entries.remove( username );
+        }
+    }
+
+    public void clear()
+    {
+        synchronized ( entries )
+        {
+            entries.clear();
+        }
+    }
+
+    private byte[] hash( String username, String password )
+    {
+        try
+        {
+            Mac mac = Mac.getInstance( HMAC_ALGORITHM );
+            mac.init( secret );
+            mac.update( username.getBytes( StandardCharsets.UTF_8 ) );
+            mac.update( (byte) 0 );
+            return mac.doFinal( password.getBytes( StandardCharsets.UTF_8 ) );
+        }
+        catch ( GeneralSecurityException e )
+        {
+            log.warn( "Could not compute the credential hash: {}", e.getMessage() );
+            return null;
+        }
+    }
+
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    public void setEnabled( boolean enabled )
+    {
+        this.enabled = enabled;
+        clear();
+    }
+
+    /**
+     * @param timeToLive the time in seconds a verified credential is valid
+     */
+    public void setTimeToLive( int timeToLive )
+    {
+        this.timeToLive = timeToLive * 1000L;
+    }
+
+    public void setMaxEntries( int maxEntries )
+    {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    public long getEvictions()
+    {
+        return evictions.get();
+    }
+
+    public int getSize()
+    {
+        synchronized ( entries )
+        {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CredentialCache{enabled=" + enabled + ", size=" + getSize() + ", hits=" + getHits() + ", misses="
+            + getMisses() + ", evictions=" + getEvictions() + "}";
+    }
+
+    private static class Verified
+    {
+        final byte[] hash;
+        final long expires;
+
+        Verified( byte[] hash, long expires )
+        {
+            this.hash = hash;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.apache.archiva.web.security;
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Test for {@link CredentialCache}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class CredentialCacheTest
+    extends TestCase
+{
+    @Test
+    public void testDisabledByDefault()
+    {
+        CredentialCache cache = new CredentialCache();
+        cache.put( "user", "secret" );
+        assertFalse( cache.isVerified( "user", "secret" ) );
+        assertEquals( 0, cache.getSize() );
+    }
+
+    @Test
+    public void testVerify()
+    {
+        CredentialCache cache = new CredentialCache();
+        cache.setEnabled( true );
+        cache.put( "user", "secret" );
+
+        assertTrue( cache.isVerified( "user", "secret" ) );
+        assertFalse( cache.isVerified( "user", "other" ) );
+        assertFalse( cache.isVerified( "other", "secret" ) );
+        assertFalse( cache.isVerified( "user", null ) );
+        assertEquals( 1, cache.getHits() );
+        assertEquals( 2, cache.getMisses() );
+
+        cache.invalidate( "user" );
+        assertFalse( cache.isVerified( "user", "secret" ) );
+    }
+
+    @Test
+    public void testLimits()
+        throws Exception
+    {
+        CredentialCache cache = new CredentialCache();
+        cache.setEnabled( true );
+        cache.setTimeToLive( 0 );
+        cache.put( "user", "secret" );
+        Thread.sleep( 5 );
+        assertFalse( cache.isVerified( "user", "secret" ) );
+        assertEquals( 0, cache.getSize() );
+
+        cache.setTimeToLive( CredentialCache.DEFAULT_TIME_TO_LIVE );
+        cache.setMaxEntries( 2 );
+        cache.put( "a", "secret" );
+        cache.put( "b", "secret" );
+        cache.put( "c", "secret" );
+        assertEquals( 2, cache.getSize() );
+        assertFalse( cache.isVerified( "a", "secret" ) );
+        assertTrue( cache.isVerified( "c", "secret" ) );
+        assertEquals( 2, cache.getEvictions() );
+    }
+}
@@ -19,7 +19,11 @@
  * under the License.
  */
 
+import org.apache.archiva.checksum.Checksum;
+import org.apache.archiva.checksum.ChecksumAlgorithm;
+import org.apache.archiva.checksum.ChecksumUtil;
 import org.apache.archiva.metadata.model.facets.AuditEvent;
+import org.apache.archiva.repository.Repository;
 import org.apache.archiva.repository.content.LayoutException;
 import org.apache.archiva.repository.storage.RepositoryStorage;
 import org.apache.archiva.repository.storage.StorageAsset;
@@ -27,9 +31,15 @@
 import org.apache.archiva.scheduler.ArchivaTaskScheduler;
 import org.apache.archiva.scheduler.repository.model.RepositoryArchivaTaskScheduler;
 import org.apache.archiva.scheduler.repository.model.RepositoryTask;
+import org.apache.archiva.webdav.util.ByteRange;
+import org.apache.archiva.webdav.util.ContentTransfer;
+import org.apache.archiva.webdav.util.CompressedContentCache;
 import org.apache.archiva.webdav.util.IndexWriter;
 import org.apache.archiva.webdav.util.MimeTypes;
+import org.apache.archiva.webdav.util.UploadChecksums;
+import org.apache.archiva.webdav.util.UploadReceiver;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.jackrabbit.util.Text;
 import org.apache.jackrabbit.webdav.DavException;
 import org.apache.jackrabbit.webdav.DavResource;
@@ -60,13 +70,18 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -108,6 +123,17 @@
 
     private StorageAsset asset;
 
+    private String etag;
+
+    private boolean remote = false;
+
+    private static final Pattern SHA1_PATTERN = Pattern.compile( "[0-9a-f]{40}" );
+
+    private static final List<ChecksumAlgorithm> UPLOAD_CHECKSUM_ALGORITHMS =
+        Arrays.asList( ChecksumAlgorithm.SHA1, ChecksumAlgorithm.MD5 );
+
+    private static final long MAX_CHECKSUM_FILE_SIZE = 8192;
+
     public ArchivaDavResource( StorageAsset localResource, String logicalResource, RepositoryStorage repositoryStorage,
                                DavSession session, ArchivaDavResourceLocator locator, DavResourceFactory factory,
                                MimeTypes mimeTypes, List<AuditListener> auditListeners,
@@ -210,12 +236,207 @@ public void spool( OutputContext outputContext )
 
         if ( !isCollection() && outputContext.hasStream() )
         {
-            repositoryStorage.consumeData( asset, is -> {copyStream(is, outputContext.getOutputStream());}, true );
+            if ( asset.isFileBased() )
+            {
+                // Avoids copying the data through heap buffers, if the file channel is available
+                final long size = asset.getSize();
+                repositoryStorage.consumeDataFromChannel( asset,
+                    ch -> transferChannel( ch, outputContext.getOutputStream(), 0, size ), true );
+            }
+            else
+            {
+                repositoryStorage.consumeData( asset, is -> {copyStream(is, outputContext.getOutputStream());}, true );
+            }
         }
         else if ( outputContext.hasStream() )
         {
-            IndexWriter writer = new IndexWriter( asset, logicalResource );
-            writer.write( outputContext );
+            getIndexWriter().write( outputContext );
+        }
+    }
+
+    /**
+     * Writes the gzip compressed content of the resource, if the resource is a compressible text file.
+     *
+     * @param outputContext the output context
+     * @return <code>true</code>, if the compressed content was written, <code>false</code>, if nothing was written
+     * @throws IOException if the data could not be read or written
+     */
+    public boolean spoolCompressed( OutputContext outputContext )
+        throws IOException
+    {
+        CompressedContentCache cache = getCompressedContentCache();
+        byte[] data = cache == null || isCollection() ? null : cache.getGzip( asset );
+        if ( data == null )
+        {
+            return false;
+        }
+        outputContext.setContentType( mimeTypes.getMimeType( asset.getName() ) );
+        outputContext.setProperty( "Content-Encoding", "gzip" );
+        outputContext.setContentLength( data.length );
+        if ( outputContext.hasStream() )
+        {
+            outputContext.getOutputStream().write( data );
+        }
+        return true;
+    }
+
+    /**
+     * Returns the writer for the listing of this collection.
+     */
+    public IndexWriter getIndexWriter()
+    {
+        IndexWriter writer = new IndexWriter( asset, logicalResource );
+        if ( factory instanceof ArchivaDavResourceFactory )
+        {
+            writer.setListingCache( ( (ArchivaDavResourceFactory) factory ).getListingCache() );
+        }
+        return writer;
+    }
+
+    /**
+     * Writes the given byte ranges of the resource to the output context. A single range is written as is,
+     * multiple ranges are written as <code>multipart/byteranges</code> content. The caller has to set the
+     * response status.
+     *
+     * @param outputContext the output context
+     * @param ranges the satisfiable ranges of the request
+     * @throws IOException if the data could not be written
+     */
+    public void spool( OutputContext outputContext, List<ByteRange> ranges )
+        throws IOException
+    {
+        final long size = asset.getSize();
+        final String contentType = mimeTypes.getMimeType( asset.getName() );
+        if ( ranges.size() == 1 )
+        {
+            ByteRange range = ranges.get( 0 );
+            outputContext.setContentLength( range.getLength() );
+            outputContext.setContentType( contentType );
+            outputContext.setProperty( "Content-Range", range.getContentRange( size ) );
+        }
+        else
+        {
+            String boundary = "ARCHIVA_BYTERANGES_" + Long.toHexString( System.nanoTime() );
+            long length = getPartTrailer( boundary ).length;
+            for ( ByteRange range : ranges )
+            {
+                length += getPartHeader( boundary, contentType, range, size ).length + range.getLength();
+            }
+            outputContext.setContentLength( length );
+            outputContext.setContentType( "multipart/byteranges; boundary=" + boundary );
+            if ( outputContext.hasStream() )
+            {
+                OutputStream os = outputContext.getOutputStream();
+                for ( ByteRange range : ranges )
+                {
+                    os.write( getPartHeader( boundary, contentType, range, size ) );
+                    spoolRange( os, range );
+                }
+                os.write( getPartTrailer( boundary ) );
+            }
+            return;
+        }
+        if ( outputContext.hasStream() )
+        {
+            spoolRange( outputContext.getOutputStream(), ranges.get( 0 ) );
+        }
+    }
+
+    private void spoolRange( OutputStream os, ByteRange range )
+        throws IOException
+    {
+        repositoryStorage.consumeDataFromChannel( asset,
+            ch -> transferChannel( ch, os, range.getStart(), range.getLength() ), true );
+    }
+
+    private static byte[] getPartHeader( String boundary, String contentType, ByteRange range, long size )
+    {
+        return ( "\r\n--" + boundary + "\r\nContent-Type: " + contentType + "\r\nContent-Range: "
+            + range.getContentRange( size ) + "\r\n\r\n" ).getBytes( StandardCharsets.US_ASCII );
+    }
+
+    private static byte[] getPartTrailer( String boundary )
+    {
+        return ( "\r\n--" + boundary + "--\r\n" ).getBytes( StandardCharsets.US_ASCII );
+    }
+
+    /**
+     * Returns the entity tag of the resource. If a checksum file <code>.sha1</code> exists next to the resource and
+     * is not older than the resource, a strong entity tag is created from the checksum. Otherwise a weak entity tag is
+     * created from the size and the modification time.
+     *
+     * @return the entity tag including the quotes, or <code>null</code> for collections
+     */
+    public String getETag()
+    {
+        if ( etag == null && exists() && !isCollection() )
+        {
+            etag = createETag();
+        }
+        return etag;
+    }
+
+    /**
+     * Returns <code>true</code>, if the resource does not exist locally, but a remote repository of the managed
+     * repository provides it. Only HEAD requests are answered by such a resource.
+     */
+    public boolean isRemote()
+    {
+        return remote;
+    }
+
+    public void setRemote( boolean remote )
+    {
+        this.remote = remote;
+    }
+
+    /**
+     * Returns the entity tag of the gzip compressed variant of the resource. The tag differs from the tag of the
+     * original content, so that caches do not mix the variants.
+     *
+     * @return the entity tag including the quotes, or <code>null</code> for collections
+     */
+    public String getGzipETag()
+    {
+        String tag = getETag();
+        return tag == null ? null : tag.substring( 0, tag.length() - 1 ) + "-gzip\"";
+    }
+
+    private String createETag()
+    {
+        if ( asset.hasParent() )
+        {
+            StorageAsset checksumAsset = asset.getParent().resolve( asset.getName() + ".sha1" );
+            if ( checksumAsset.exists() && !checksumAsset.getModificationTime().isBefore( asset.getModificationTime() ) )
+            {
+                try ( InputStream is = checksumAsset.getReadStream() )
+                {
+                    String checksum = StringUtils.substringBefore(
+                        IOUtils.toString( is, StandardCharsets.US_ASCII ).trim(), " " ).toLowerCase( Locale.ROOT );
+                    if ( SHA1_PATTERN.matcher( checksum ).matches() )
+                    {
+                        return "\"" + checksum + "\"";
+                    }
+                }
+                catch ( IOException e )
+                {
+                    log.debug( "Could not read checksum file {}: {}", checksumAsset.getPath(), e.getMessage() );
+                }
+            }
+        }
+        return "W/\"" + Long.toHexString( asset.getSize() ) + "-"
+            + Long.toHexString( asset.getModificationTime().toEpochMilli() ) + "\"";
+    }
+
+    private void transferChannel( ReadableByteChannel ch, OutputStream os, long position, long count ) throws RuntimeException
+    {
+        try
+        {
+            ContentTransfer.transfer( ch, os, position, count );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( "Transfer failed "+e.getMessage(), e );
         }
     }
 
@@ -309,24 +530,18 @@ public void addMember( DavResource resource, InputContext inputContext )
 
         if ( isCollection() && inputContext.hasStream() ) // New File
         {
+            StorageAsset member = repositoryStorage.addAsset( newPath, false );
+            ChecksumAlgorithm checksumFileType = UploadReceiver.getChecksumAlgorithm( resource.getDisplayName() );
+            // the checksums of the content are computed while it is received, checksum files are verified instead
+            List<Checksum> checksums = checksumFileType == null
+                ? ChecksumUtil.newChecksums( getUploadChecksumAlgorithms() )
+                : Collections.emptyList();
             Path tempFile = null;
             try
             {
-                tempFile = Files.createTempFile( "archiva_upload","dat" );
-                try(OutputStream os = Files.newOutputStream( tempFile, StandardOpenOption.CREATE ))
-                {
-                    IOUtils.copy( inputContext.getInputStream( ), os );
-                }
+                tempFile = createUploadFile( member );
+                long actualContentLength = UploadReceiver.receive( inputContext.getInputStream(), tempFile, checksums );
                 long expectedContentLength = inputContext.getContentLength();
-                long actualContentLength = 0;
-                try
-                {
-                    actualContentLength = Files.size(tempFile);
-                }
-                catch ( IOException e )
-                {
-                    log.error( "Could not get length of file {}: {}", tempFile, e.getMessage(), e );
-                }
                 // length of -1 is given for a chunked request or unknown length, in which case we accept what was uploaded
                 if ( expectedContentLength >= 0 && expectedContentLength != actualContentLength )
                 {
@@ -334,9 +549,26 @@ public void addMember( DavResource resource, InputContext inputContext )
                     log.debug( "Upload failed: {}", msg );
                     throw new DavException( HttpServletResponse.SC_BAD_REQUEST, msg );
                 }
-                StorageAsset member = repositoryStorage.addAsset( newPath, false );
-                member.create();
+                if ( checksumFileType != null )
+                {
+                    verifyChecksumFile( newPath, checksumFileType, tempFile );
+                }
+                if ( !member.isFileBased() )
+                {
+                    member.create();
+                }
                 member.replaceDataFromFile( tempFile );
+                UploadChecksums uploadChecksums = getUploadChecksums();
+                if ( uploadChecksums != null )
+                {
+                    uploadChecksums.put( member, checksums );
+                }
+                CompressedContentCache compressedContentCache = getCompressedContentCache();
+                if ( compressedContentCache != null )
+                {
+                    compressedContentCache.remove( member );
+                }
+                contentWritten( member.getPath() );
             }
             catch ( IOException e )
             {
@@ -368,6 +600,7 @@ else if ( !inputContext.hasStream() && isCollection() ) // New directory
             {
                 StorageAsset member = repositoryStorage.addAsset( newPath, true );
                 member.create();
+                contentWritten( member.getPath() );
             }
             catch ( IOException e )
             {
@@ -387,6 +620,116 @@ else if ( !inputContext.hasStream() && isCollection() ) // New directory
         }
     }
 
+    /**
+     * Creates the file that receives the upload. For file based storages the file is created in the directory
+     * of the target, so that it can be moved into place by a rename.
+     */
+    private Path createUploadFile( StorageAsset member )
+        throws IOException
+    {
+        if ( member.isFileBased() )
+        {
+            Path directory = member.getFilePath().getParent();
+            Files.createDirectories( directory );
+            return Files.createTempFile( directory, HIDDEN_PATH_PREFIX + "upload-", ".tmp" );
+        }
+        return Files.createTempFile( "archiva_upload", "dat" );
+    }
+
+    /**
+     * Compares the content of an uploaded checksum file with the checksum of the file it belongs to.
+     * The checksums computed during the upload of the file are used, if available.
+     */
+    private void verifyChecksumFile( String checksumPath, ChecksumAlgorithm algorithm, Path checksumFile )
+        throws IOException, DavException
+    {
+        if ( Files.size( checksumFile ) > MAX_CHECKSUM_FILE_SIZE )
+        {
+            return;
+        }
+        String expected =
+            UploadReceiver.parseChecksum( new String( Files.readAllBytes( checksumFile ), StandardCharsets.UTF_8 ) );
+        StorageAsset reference = repositoryStorage.getAsset( StringUtils.substringBeforeLast( checksumPath, "." ) );
+        if ( expected == null || !reference.exists() || reference.isContainer() )
+        {
+            return;
+        }
+        UploadChecksums uploadChecksums = getUploadChecksums();
+        String actual = uploadChecksums == null ? null : uploadChecksums.get( reference ).get( algorithm );
+        if ( actual == null )
+        {
+            Checksum checksum = new Checksum( algorithm );
+            try ( InputStream is = reference.getReadStream() )
+            {
+                UploadReceiver.update( is, checksum );
+            }
+            actual = checksum.getChecksum();
+        }
+        if ( !actual.equalsIgnoreCase( expected ) )
+        {
+            String msg = "Checksum mismatch for " + reference.getPath() + ": " + algorithm.getType() + " is " + actual
+                + " but the uploaded checksum is " + expected;
+            log.debug( "Upload failed: {}", msg );
+            throw new DavException( HttpServletResponse.SC_BAD_REQUEST, msg );
+        }
+    }
+
+    private List<ChecksumAlgorithm> getUploadChecksumAlgorithms()
+    {
+        if ( !( factory instanceof ArchivaDavResourceFactory ) )
+        {
+            return Collections.emptyList();
+        }
+        List<ChecksumAlgorithm> algorithms =
+            new ArrayList<>( ( (ArchivaDavResourceFactory) factory ).getChecksumAlgorithms() );
+        // the checksum files deployed by maven can always be verified
+        for ( ChecksumAlgorithm algorithm : UPLOAD_CHECKSUM_ALGORITHMS )
+        {
+            if ( !algorithms.contains( algorithm ) )
+            {
+                algorithms.add( algorithm );
+            }
+        }
+        return algorithms;
+    }
+
+    private UploadChecksums getUploadChecksums()
+    {
+        return factory instanceof ArchivaDavResourceFactory
+            ? ( (ArchivaDavResourceFactory) factory ).getUploadChecksums()
+            : null;
+    }
+
+    /**
+     * Reports content, that has been written successfully, to the factory.
+     */
+    private void contentWritten( String path )
+    {
+        if ( factory instanceof ArchivaDavResourceFactory && repositoryStorage instanceof Repository )
+        {
+            ( (ArchivaDavResourceFactory) factory ).contentWritten( ( (Repository) repositoryStorage ).getId(),
+                path );
+        }
+    }
+
+    /**
+     * Reports content, that has been removed, to the factory.
+     */
+    private void contentRemoved( String path )
+    {
+        if ( factory instanceof ArchivaDavResourceFactory )
+        {
+            ( (ArchivaDavResourceFactory) factory ).contentRemoved( path );
+        }
+    }
+
+    private CompressedContentCache getCompressedContentCache()
+    {
+        return factory instanceof ArchivaDavResourceFactory
+            ? ( (ArchivaDavResourceFactory) factory ).getCompressedContentCache()
+            : null;
+    }
+
     public StorageAsset getAsset() {
         return asset;
     }
@@ -436,9 +779,16 @@ public void removeMember( DavResource member )
                 else
                 {
                     repositoryStorage.removeAsset( resource );
+                    CompressedContentCache compressedContentCache = getCompressedContentCache();
+                    if ( compressedContentCache != null )
+                    {
+                        compressedContentCache.remove( resource );
+                    }
                     triggerAuditEvent( member, AuditEvent.REMOVE_FILE );
                 }
 
+                contentRemoved( resource.getPath() );
+
                 log.debug( "{}{}' removed (current user '{}')", ( resource.isContainer() ? "Directory '" : "File '" ),
                            member.getDisplayName(), this.principal );
 
@@ -481,6 +831,7 @@ public void move( DavResource destination )
         try
         {
             ArchivaDavResource resource = checkDavResourceIsArchivaDavResource( destination );
+            String sourcePath = asset.getPath();
             if ( isCollection() )
             {
                 this.asset = repositoryStorage.moveAsset( asset, destination.getResourcePath() );
@@ -492,6 +843,9 @@ public void move( DavResource destination )
                 triggerAuditEvent( remoteAddr, locator.getRepositoryId(), logicalResource, AuditEvent.MOVE_FILE );
             }
 
+            contentRemoved( sourcePath );
+            contentWritten( destination.getResourcePath() );
+
             log.debug( "{}{}' moved to '{}' (current user '{}')", ( isCollection() ? "Directory '" : "File '" ),
                        asset.getPath(), destination, this.principal );
 
@@ -532,6 +886,8 @@ public void copy( DavResource destination, boolean shallow )
                 triggerAuditEvent( remoteAddr, locator.getRepositoryId(), logicalResource, AuditEvent.COPY_FILE );
             }
 
+            contentWritten( destination.getResourcePath() );
+
             log.debug( "{}{}' copied to '{}' (current user '{}')", ( isCollection() ? "Directory '" : "File '" ),
                        asset.getPath(), destination, this.principal );
 
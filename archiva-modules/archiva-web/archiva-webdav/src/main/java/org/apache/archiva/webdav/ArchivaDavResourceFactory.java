@@ -69,6 +69,8 @@
 import org.apache.archiva.repository.content.Artifact;
 import org.apache.archiva.repository.content.ContentItem;
 import org.apache.archiva.repository.content.ItemSelector;
+import org.apache.archiva.repository.event.LifecycleEvent;
+import org.apache.archiva.repository.event.RepositoryRegistryEvent;
 import org.apache.archiva.repository.features.IndexCreationFeature;
 import org.apache.archiva.repository.metadata.RepositoryMetadataException;
 import org.apache.archiva.repository.metadata.base.MetadataTools;
@@ -78,8 +80,13 @@
 import org.apache.archiva.repository.storage.fs.FilesystemStorage;
 import org.apache.archiva.scheduler.repository.model.RepositoryArchivaTaskScheduler;
 import org.apache.archiva.security.ServletAuthenticator;
+import org.apache.archiva.webdav.util.CompressedContentCache;
+import org.apache.archiva.webdav.util.DirectoryListingCache;
+import org.apache.archiva.webdav.util.GroupMetadataCache;
+import org.apache.archiva.webdav.util.GroupRoutingIndex;
 import org.apache.archiva.webdav.util.MimeTypes;
 import org.apache.archiva.webdav.util.TemporaryGroupIndexSessionCleaner;
+import org.apache.archiva.webdav.util.UploadChecksums;
 import org.apache.archiva.webdav.util.WebdavMethodUtil;
 import org.apache.archiva.xml.XMLException;
 import org.apache.commons.io.FilenameUtils;
@@ -132,6 +139,13 @@
 
     private static final String HTTP_PUT_METHOD = "PUT";
 
+    private static final String HTTP_HEAD_METHOD = "HEAD";
+
+    /**
+     * Max age in seconds of release artifacts in client and proxy caches
+     */
+    private static final long RELEASE_MAX_AGE = 365L * 24 * 60 * 60;
+
     private Logger log = LoggerFactory.getLogger( ArchivaDavResourceFactory.class );
 
     @Inject
@@ -185,6 +199,23 @@
 
     private ApplicationContext applicationContext;
 
+    /**
+     * Merged maven-metadata.xml files of the repository groups
+     */
+    private final GroupMetadataCache groupMetadataCache = new GroupMetadataCache( );
+
+    @Inject
+    @Named( value = "groupRoutingIndex#default" )
+    private GroupRoutingIndex groupRoutingIndex = new GroupRoutingIndex( );
+
+    private final UploadChecksums uploadChecksums = new UploadChecksums( );
+
+    @Inject
+    @Named( value = "directoryListingCache#default" )
+    private DirectoryListingCache listingCache = new DirectoryListingCache( );
+
+    private final CompressedContentCache compressedContentCache = new CompressedContentCache( );
+
 
     @Inject
     public ArchivaDavResourceFactory( ApplicationContext applicationContext, ArchivaConfiguration archivaConfiguration )
@@ -197,7 +228,25 @@ public ArchivaDavResourceFactory( ApplicationContext applicationContext, Archiva
     @PostConstruct
     public void initialize() throws IOException
     {
-
+        if ( repositoryRegistry != null )
+        {
+            // Member changes of a group or removal of the group require a new merge
+            repositoryRegistry.registerEventHandler( LifecycleEvent.ANY, event -> {
+                if ( event.getRepository( ) instanceof RepositoryGroup )
+                {
+                    groupMetadataCache.invalidate( event.getRepository( ).getId( ) );
+                }
+                else if ( event.getRepository( ) instanceof ManagedRepository )
+                {
+                    groupRoutingIndex.invalidate( event.getRepository( ).getId( ) );
+                }
+            } );
+            repositoryRegistry.registerEventHandler( RepositoryRegistryEvent.RELOADED, event -> {
+                groupMetadataCache.clear( );
+                groupRoutingIndex.clear( );
+                listingCache.clear( );
+            } );
+        }
     }
 
 
@@ -238,7 +287,7 @@ public DavResource createResource( final DavResourceLocator locator, final DavSe
                     getResourceFromGroup( request, archivaLocator,
                                           repoGroup );
 
-                setHeaders( response, locator, davResource, true );
+                setHeaders( response, locator, davResource, null, true );
 
                 return davResource;
 
@@ -334,32 +383,30 @@ public DavResource createResource( final DavResourceLocator locator, final DavSe
                 {
                     if ( resourcesInAbsolutePath != null && resourcesInAbsolutePath.size() > 1 )
                     {
-                        // merge the metadata of all repos under group
-                        ArchivaRepositoryMetadata mergedMetadata = new ArchivaRepositoryMetadata();
-                        for ( String resourceAbsPath : resourcesInAbsolutePath )
+                        // the state of the member files is recorded before reading them, so that
+                        // concurrent modifications invalidate the cache entry
+                        List<String> memberState = GroupMetadataCache.getFingerprint( resourcesInAbsolutePath );
+                        StorageAsset cachedFile = repoGroup.getAsset( newPath );
+                        boolean upToDate = cachedFile.exists( )
+                            && groupMetadataCache.isValid( repoGroup.getId( ), newPath, memberState );
+
+                        try
                         {
-                            try
-                            {
-                                Path metadataFile = Paths.get( resourceAbsPath );
-                                FilesystemStorage storage = new FilesystemStorage( metadataFile.getParent( ), new DefaultFileLockManager( ) );
-                                ArchivaRepositoryMetadata repoMetadata = repositoryRegistry.getMetadataReader( repoGroup.getType( ) ).read( storage.getAsset( metadataFile.getFileName().toString() ) );
-                                mergedMetadata = RepositoryMetadataMerge.merge( mergedMetadata, repoMetadata );
-                            }
-                            catch ( RepositoryMetadataException r )
+                            StorageAsset resourceFile;
+                            if ( upToDate || ( HTTP_HEAD_METHOD.equals( request.getMethod( ) )
+                                && GroupMetadataCache.isNewerThanMembers( cachedFile, resourcesInAbsolutePath ) ) )
                             {
-                                throw new DavException( HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
-                                                        "Error occurred while merging metadata file." );
+                                // existence checks do not merge the metadata again, as long as the merged file is
+                                // newer than the member files, its Last-Modified and Content-Length are correct
+                                log.debug( "Using cached merged metadata {} of group {}", newPath, repoGroup.getId( ) );
+                                resourceFile = cachedFile;
                             }
-                            catch ( IOException e )
+                            else
                             {
-                                throw new DavException( HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
-                                    "Error occurred while merging metadata file." );
+                                ArchivaRepositoryMetadata mergedMetadata = mergeMetadata( repoGroup, resourcesInAbsolutePath );
+                                resourceFile = writeMergedMetadataToFile( repoGroup, mergedMetadata, newPath );
+                                groupMetadataCache.put( repoGroup.getId( ), newPath, memberState );
                             }
-                        }
-
-                        try
-                        {
-                            StorageAsset resourceFile = writeMergedMetadataToFile( repoGroup, mergedMetadata, newPath );
 
                             LogicalResource logicalResource =
                                 new LogicalResource( getLogicalResource( archivaLocator, null, false ) );
@@ -390,7 +437,7 @@ public DavResource createResource( final DavResourceLocator locator, final DavSe
             }
         }
 
-        setHeaders( response, locator, resource, false );
+        setHeaders( response, locator, resource, repositoryRequestInfo, false );
 
         // compatibility with MRM-440 to ensure browsing the repository works ok
         if ( resource.isCollection() && !request.getRequestURI().endsWith( "/" ) )
@@ -409,6 +456,7 @@ private DavResource processRepositoryGroup( final DavServletRequest request,
     {
         DavResource resource = null;
         List<DavException> storedExceptions = new ArrayList<>();
+        List<String> skippedRepositories = new ArrayList<>();
 
         String pathInfo = StringUtils.removeEnd( request.getPathInfo(), "/" );
 
@@ -439,6 +487,7 @@ private DavResource processRepositoryGroup( final DavServletRequest request,
         }
         else
         {
+            boolean readMethod = WebdavMethodUtil.isReadMethod( request.getMethod() );
             for ( ManagedRepository repository : repoGroup.getRepositories() )
             {
                 String repositoryId = repository.getId();
@@ -447,6 +496,15 @@ private DavResource processRepositoryGroup( final DavServletRequest request,
                 if (managedRepository==null) {
                     throw new DavException( HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Could not find repository with id "+repositoryId );
                 }
+                // Members without proxies can only provide the resource, if they contain its path prefix
+                if ( readMethod && !hasProxies( managedRepository ) && !groupRoutingIndex.mayContain( repositoryId,
+                    managedRepository.getRoot(), archivaLocator.getResourcePath() ) )
+                {
+                    log.trace( "Skipping repository '{}' of group '{}' for {}", repositoryId, repoGroup.getId(),
+                        archivaLocator.getResourcePath() );
+                    skippedRepositories.add( repositoryId );
+                    continue;
+                }
                 managedRepositoryContent = managedRepository.getContent();
                 if (managedRepositoryContent==null) {
                     log.error("Inconsistency detected. Repository content not found for '{}'",repositoryId);
@@ -457,7 +515,8 @@ private DavResource processRepositoryGroup( final DavServletRequest request,
                     DavResource updatedResource =
                         processRepository( request, archivaLocator, activePrincipal, managedRepositoryContent,
                                            managedRepository );
-                    if ( resource == null )
+                    // a member that has the resource locally is preferred over a remote existence check
+                    if ( resource == null || ( isRemote( resource ) && !isRemote( updatedResource ) ) )
                     {
                         resource = updatedResource;
                     }
@@ -478,6 +537,18 @@ private DavResource processRepositoryGroup( final DavServletRequest request,
         }
         if ( resource == null )
         {
+            // The skipped repositories must ask for authentication like the others
+            for ( String repositoryId : skippedRepositories )
+            {
+                try
+                {
+                    isAuthorized( request, repositoryId );
+                }
+                catch ( DavException e )
+                {
+                    storedExceptions.add( e );
+                }
+            }
             if ( !storedExceptions.isEmpty() )
             {
                 // MRM-1232
@@ -593,7 +664,20 @@ private DavResource processRepository( final DavServletRequest request, ArchivaD
                     {
                         boolean previouslyExisted = repoAsset.exists();
 
-                        boolean fromProxy = fetchContentFromProxies( managedRepository, request, logicalResource );
+                        if ( HTTP_HEAD_METHOD.equals( request.getMethod() ) && !previouslyExisted
+                            && hasProxies( managedRepository )
+                            && proxyRegistry.getHandler( managedRepository.getType() ).get( 0 )
+                                .existsInProxies( managedRepository, logicalResource.getPath() ) )
+                        {
+                            // answer existence checks without downloading the resource
+                            log.debug( "Resource {} exists on a remote repository", logicalResource.getPath() );
+                            ( (ArchivaDavResource) resource ).setRemote( true );
+                            return resource;
+                        }
+
+                        // HEAD requests are answered from the local file, if it exists
+                        boolean fromProxy = !( previouslyExisted && HTTP_HEAD_METHOD.equals( request.getMethod() ) )
+                            && fetchContentFromProxies( managedRepository, request, logicalResource );
 
                         StorageAsset resourceAsset=null;
                         // At this point the incoming request can either be in default or
@@ -629,6 +713,7 @@ private DavResource processRepository( final DavServletRequest request, ArchivaD
 
                             triggerAuditEvent( request.getRemoteAddr(), archivaLocator.getRepositoryId(),
                                                logicalResource.getPath(), action, activePrincipal );
+                            contentWritten( managedRepository.getId(), logicalResource.getPath() );
                         }
 
                         if ( !resourceAsset.exists() )
@@ -754,6 +839,12 @@ public DavResource createResource( final DavResourceLocator locator, final DavSe
         return resource;
     }
 
+    private boolean hasProxies( ManagedRepository managedRepository )
+    {
+        return proxyRegistry.hasHandler( managedRepository.getType() )
+            && proxyRegistry.getHandler( managedRepository.getType() ).get( 0 ).hasProxies( managedRepository );
+    }
+
     private boolean fetchContentFromProxies( ManagedRepository managedRepository, DavServletRequest request,
                                              LogicalResource resource )
         throws DavException
@@ -856,12 +947,31 @@ public void removeAuditListener( AuditListener listener )
         this.auditListeners.remove( listener );
     }
 
+    private static boolean isRemote( DavResource resource )
+    {
+        return resource instanceof ArchivaDavResource && ( (ArchivaDavResource) resource ).isRemote();
+    }
+
     private void setHeaders( DavServletResponse response, DavResourceLocator locator, DavResource resource,
-                             boolean group )
+                             RepositoryRequestInfo repositoryRequestInfo, boolean group )
     {
+        if ( isRemote( resource ) )
+        {
+            // there is no local file that provides the headers
+            return;
+        }
         // [MRM-503] - Metadata file need Pragma:no-cache response
         // header.
-        if ( locator.getResourcePath().endsWith( "/maven-metadata.xml" ) || ( resource instanceof ArchivaDavResource
+        if ( locator.getResourcePath().endsWith( "/maven-metadata.xml" ) && resource instanceof ArchivaDavResource
+            && resource.exists() && !resource.isCollection() )
+        {
+            // Clients have to revalidate the metadata, but can do so by a conditional request
+            response.setHeader( "Pragma", "no-cache" );
+            response.setHeader( "Cache-Control", "no-cache" );
+            response.setDateHeader( "Last-Modified", resource.getModificationTime() );
+            response.setHeader( "ETag", ArchivaDavResource.class.cast( resource ).getETag() );
+        }
+        else if ( locator.getResourcePath().endsWith( "/maven-metadata.xml" ) || ( resource instanceof ArchivaDavResource
             && ( ArchivaDavResource.class.cast( resource ).getAsset().isContainer() ) ) )
         {
             response.setHeader( "Pragma", "no-cache" );
@@ -885,13 +995,59 @@ else if ( group )
                 //MRM-1854 here we have a directory so force "Last-Modified"
                 response.setDateHeader( "Last-Modified", new Date().getTime() );
             }
+            else if ( resource instanceof ArchivaDavResource && resource.exists() )
+            {
+                response.setHeader( "ETag", ArchivaDavResource.class.cast( resource ).getETag() );
+            }
         }
         else
         {
             // We need to specify this so connecting wagons can work correctly
             response.setDateHeader( "Last-Modified", resource.getModificationTime() );
+            if ( resource instanceof ArchivaDavResource && resource.exists() )
+            {
+                response.setHeader( "ETag", ArchivaDavResource.class.cast( resource ).getETag() );
+                // Release artifacts and their checksums do not change, all other files are revalidated
+                if ( isReleaseArtifact( repositoryRequestInfo, locator.getResourcePath() ) )
+                {
+                    response.setHeader( "Cache-Control", "max-age=" + RELEASE_MAX_AGE + ", immutable" );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true, if the path is a file of a released artifact version. Metadata files, archetype catalogs,
+     * index files and files of snapshot versions may change and are not cached as immutable.
+     */
+    private boolean isReleaseArtifact( RepositoryRequestInfo repositoryRequestInfo, String resourcePath )
+    {
+        if ( repositoryRequestInfo == null || StringUtils.isEmpty( resourcePath ) )
+        {
+            return false;
+        }
+        String path = StringUtils.removeStart( resourcePath, "/" );
+        if ( repositoryRequestInfo.isMetadata( resourcePath ) || repositoryRequestInfo.isMetadataSupportFile(
+            resourcePath ) || repositoryRequestInfo.isArchetypeCatalog( resourcePath ) )
+        {
+            return false;
+        }
+        // the index (.index/, .indexer/) and other hidden directories are updated in place
+        if ( path.startsWith( "." ) || path.contains( "/." ) )
+        {
+            return false;
+        }
+        try
+        {
+            ItemSelector selector = repositoryRequestInfo.toItemSelector( path );
+            return selector != null && selector.hasArtifactId( ) && selector.hasVersion( )
+                && !VersionUtil.isSnapshot( selector.getVersion( ) ) && !( selector.hasArtifactVersion( )
+                && VersionUtil.isSnapshot( selector.getArtifactVersion( ) ) );
+        }
+        catch ( LayoutException e )
+        {
+            return false;
         }
-        // TODO: [MRM-524] determine http caching options for other types of files (artifacts, sha1, md5, snapshots)
     }
 
     private ArchivaDavResourceLocator checkLocatorIsInstanceOfRepositoryLocator( DavResourceLocator locator )
@@ -1108,6 +1264,10 @@ private DavResource getResourceFromGroup( DavServletRequest request,
                         throw new DavException( HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
                             "Invalid managed repository <" + repo.getId() + ">");
                     }
+                    if ( !groupRoutingIndex.mayContain( repo.getId(), repo.getRoot(), logicalResource.getPath() ) )
+                    {
+                        continue;
+                    }
                     // Path resourceFile = Paths.get( managedRepository.getRepoRoot(), logicalResource.getPath() );
                     StorageAsset resourceFile = repo.getAsset(logicalResource.getPath());
                     if ( resourceFile.exists() && managedRepository.getRepository().supportsFeature( IndexCreationFeature.class ))
@@ -1251,6 +1411,34 @@ private boolean isAllowedToContinue( DavServletRequest request, List<ManagedRepo
         return allow;
     }
 
+    private ArchivaRepositoryMetadata mergeMetadata( RepositoryGroup repoGroup, List<String> resourcesInAbsolutePath )
+        throws DavException
+    {
+        // merge the metadata of all repos under group
+        ArchivaRepositoryMetadata mergedMetadata = new ArchivaRepositoryMetadata();
+        for ( String resourceAbsPath : resourcesInAbsolutePath )
+        {
+            try
+            {
+                Path metadataFile = Paths.get( resourceAbsPath );
+                FilesystemStorage storage = new FilesystemStorage( metadataFile.getParent( ), new DefaultFileLockManager( ) );
+                ArchivaRepositoryMetadata repoMetadata = repositoryRegistry.getMetadataReader( repoGroup.getType( ) ).read( storage.getAsset( metadataFile.getFileName().toString() ) );
+                mergedMetadata = RepositoryMetadataMerge.merge( mergedMetadata, repoMetadata );
+            }
+            catch ( RepositoryMetadataException r )
+            {
+                throw new DavException( HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                                        "Error occurred while merging metadata file." );
+            }
+            catch ( IOException e )
+            {
+                throw new DavException( HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                    "Error occurred while merging metadata file." );
+            }
+        }
+        return mergedMetadata;
+    }
+
     private StorageAsset writeMergedMetadataToFile( RepositoryGroup repoGroup, ArchivaRepositoryMetadata mergedMetadata, String outputFilename )
         throws RepositoryMetadataException, IOException
     {
@@ -1264,8 +1452,58 @@ private StorageAsset writeMergedMetadataToFile( RepositoryGroup repoGroup, Archi
     }
 
 
+    /**
+     * Updates the routing of the repository groups and the directory listings after content has been written to a
+     * managed repository.
+     */
+    void contentWritten( String repositoryId, String path )
+    {
+        groupRoutingIndex.add( repositoryId, path );
+        listingCache.invalidate( path );
+    }
+
+    /**
+     * Updates the directory listings after content has been removed from a managed repository.
+     */
+    void contentRemoved( String path )
+    {
+        listingCache.invalidate( path );
+    }
+
+    /**
+     * Returns the checksums that were computed for recently uploaded files.
+     */
+    public UploadChecksums getUploadChecksums( )
+    {
+        return uploadChecksums;
+    }
+
+    /**
+     * Returns the cache for the listings of repository directories.
+     */
+    public DirectoryListingCache getListingCache( )
+    {
+        return listingCache;
+    }
+
+    /**
+     * Returns the cache for the compressed variants of text resources.
+     */
+    public CompressedContentCache getCompressedContentCache( )
+    {
+        return compressedContentCache;
+    }
+
+    /**
+     * Returns the checksum algorithms that are configured for the repository files.
+     */
+    public List<ChecksumAlgorithm> getChecksumAlgorithms( )
+    {
+        return ChecksumUtil.getAlgorithms( archivaConfiguration.getConfiguration( ).getArchivaRuntimeConfiguration( ).getChecksumTypes( ) );
+    }
+
     private void createChecksumFiles(RepositoryGroup repo, String path) {
-        List<ChecksumAlgorithm> algorithms = ChecksumUtil.getAlgorithms( archivaConfiguration.getConfiguration( ).getArchivaRuntimeConfiguration( ).getChecksumTypes( ) );
+        List<ChecksumAlgorithm> algorithms = getChecksumAlgorithms( );
         List<OutputStream> outStreams = algorithms.stream( ).map( algo -> {
             String ext = algo.getDefaultExtension( );
             try
@@ -86,13 +86,25 @@ public ArchivaVirtualDavResource(List<StorageAsset> localResources, String logic
     public void spool( OutputContext outputContext ) {
         if ( outputContext.hasStream() )
         {
-            List<StorageAsset> localResourceFiles = localResources.stream().filter(Objects::nonNull)
-                    .filter(repoAsset -> repoAsset.exists())
-                    .sorted(Comparator.comparing(o -> o.getName())).collect(Collectors.toList());
+            getIndexWriter().write( outputContext );
+        }
+    }
 
-            IndexWriter writer = new IndexWriter(localResourceFiles, logicalResource );
-            writer.write( outputContext );
+    /**
+     * Returns the writer for the merged listing of the collections of the group members.
+     */
+    public IndexWriter getIndexWriter()
+    {
+        List<StorageAsset> localResourceFiles = localResources.stream().filter(Objects::nonNull)
+                .filter(repoAsset -> repoAsset.exists())
+                .sorted(Comparator.comparing(o -> o.getName())).collect(Collectors.toList());
+
+        IndexWriter writer = new IndexWriter(localResourceFiles, logicalResource );
+        if ( factory instanceof ArchivaDavResourceFactory )
+        {
+            writer.setListingCache( ( (ArchivaDavResourceFactory) factory ).getListingCache() );
         }
+        return writer;
     }
 
     @Override
@@ -28,6 +28,12 @@
 import org.apache.archiva.repository.ManagedRepository;
 import org.apache.archiva.repository.RepositoryRegistry;
 import org.apache.archiva.security.ServletAuthenticator;
+import org.apache.archiva.webdav.util.ByteRange;
+import org.apache.archiva.webdav.util.CompressedContentCache;
+import org.apache.archiva.webdav.util.IndexWriter;
+import org.apache.archiva.webdav.util.UploadReceiver;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.jackrabbit.webdav.DavException;
 import org.apache.jackrabbit.webdav.DavLocatorFactory;
 import org.apache.jackrabbit.webdav.DavMethods;
@@ -46,12 +52,26 @@
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.WebApplicationContextUtils;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * RepositoryServlet
@@ -74,12 +94,77 @@
 
     protected final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
 
+    /**
+     * Init parameter for the number of threads that process downloads asynchronously. Asynchronous processing is
+     * disabled, if the value is 0 or missing.
+     */
+    public static final String ASYNC_THREADS_PARAM = "async-threads";
+
+    /**
+     * Init parameter to process asynchronous downloads with virtual threads, if the JVM supports them.
+     */
+    public static final String ASYNC_VIRTUAL_THREADS_PARAM = "async-virtual-threads";
+
+    /**
+     * Init parameter for the timeout of asynchronous requests in milliseconds. The default is 0 (no timeout).
+     */
+    public static final String ASYNC_TIMEOUT_PARAM = "async-timeout";
+
+    private static final String MAVEN_METADATA = "maven-metadata.xml";
+
+    private static final int LISTING_BUFFER_SIZE = 8192;
+
+    private volatile ExecutorService asyncExecutor;
+
+    private long asyncTimeout = 0;
+
     @Override
     public void init( ServletConfig servletConfig )
         throws ServletException
     {
         super.init( servletConfig );
         initServers( servletConfig );
+        initAsync( servletConfig );
+    }
+
+    /**
+     * Creates the executor for asynchronous downloads. The servlet and all filters of the repository path must
+     * support asynchronous requests, otherwise requests are processed synchronously.
+     */
+    private void initAsync( ServletConfig servletConfig )
+    {
+        asyncTimeout = NumberUtils.toLong( servletConfig.getInitParameter( ASYNC_TIMEOUT_PARAM ), 0 );
+        if ( Boolean.parseBoolean( servletConfig.getInitParameter( ASYNC_VIRTUAL_THREADS_PARAM ) ) )
+        {
+            try
+            {
+                // Only available on JDK 21+
+                asyncExecutor = (ExecutorService) Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" )
+                    .invoke( null );
+                log.info( "Repository downloads are processed asynchronously by virtual threads" );
+                return;
+            }
+            catch ( ReflectiveOperationException e )
+            {
+                log.info( "Virtual threads are not supported by this JVM, using a thread pool" );
+            }
+        }
+        int threads = NumberUtils.toInt( servletConfig.getInitParameter( ASYNC_THREADS_PARAM ), 0 );
+        if ( threads > 0 )
+        {
+            AtomicInteger threadNumber = new AtomicInteger( );
+            ThreadPoolExecutor executor =
+                new ThreadPoolExecutor( threads, threads, 60L, TimeUnit.SECONDS, new SynchronousQueue<>( ),
+                                        r -> {
+                                            Thread thread = new Thread( r, "repository-download-"
+                                                + threadNumber.incrementAndGet( ) );
+                                            thread.setDaemon( true );
+                                            return thread;
+                                        } );
+            executor.allowCoreThreadTimeOut( true );
+            asyncExecutor = executor;
+            log.info( "Repository downloads are processed asynchronously by up to {} threads", threads );
+        }
     }
 
     /**
@@ -94,6 +179,143 @@ public void init( ServletConfig servletConfig )
     @Override
     protected void service( HttpServletRequest request, HttpServletResponse response )
         throws ServletException, IOException
+    {
+        // the executor is removed by destroy(), requests that arrive afterwards are processed synchronously
+        ExecutorService executor = asyncExecutor;
+        if ( executor != null && isAsyncRequest( request ) )
+        {
+            AsyncContext asyncContext = request.startAsync( request, response );
+            asyncContext.setTimeout( asyncTimeout );
+            AsyncDownload download = new AsyncDownload( asyncContext );
+            asyncContext.addListener( download );
+            try
+            {
+                executor.execute( download );
+                return;
+            }
+            catch ( RejectedExecutionException e )
+            {
+                // All download threads are busy or the executor is shut down, process the request on the
+                // container thread
+                log.debug( "Asynchronous processing rejected for {}", request.getRequestURI() );
+                download.run();
+                return;
+            }
+        }
+        processRequest( request, response );
+    }
+
+    /**
+     * Returns <code>true</code>, if the request is a download of a repository file that is processed by the
+     * asynchronous executor. Directory listings, metadata and checksum files are cheap and stay on the container
+     * thread.
+     */
+    private boolean isAsyncRequest( HttpServletRequest request )
+    {
+        if ( !request.isAsyncSupported() || request.isAsyncStarted()
+            || !DavMethods.METHOD_GET.equals( request.getMethod() ) )
+        {
+            return false;
+        }
+        String path = request.getPathInfo();
+        return path != null && !path.endsWith( "/" ) && !path.endsWith( MAVEN_METADATA )
+            && UploadReceiver.getChecksumAlgorithm( path ) == null;
+    }
+
+    /**
+     * Processes an asynchronous download. The asynchronous context is completed exactly once, either by the
+     * download thread or by the container, if the request times out or fails before.
+     */
+    private class AsyncDownload
+        implements Runnable, AsyncListener
+    {
+        private final AsyncContext asyncContext;
+
+        private final AtomicBoolean completed = new AtomicBoolean( false );
+
+        AsyncDownload( AsyncContext asyncContext )
+        {
+            this.asyncContext = asyncContext;
+        }
+
+        @Override
+        public void run()
+        {
+            HttpServletRequest request = (HttpServletRequest) asyncContext.getRequest();
+            HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+            try
+            {
+                processRequest( request, response );
+            }
+            catch ( Exception e )
+            {
+                log.error( "Could not process repository request: {}", e.getMessage(), e );
+                sendError( response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR );
+            }
+            finally
+            {
+                complete();
+            }
+        }
+
+        @Override
+        public void onTimeout( AsyncEvent event )
+        {
+            log.warn( "Repository request timed out after {}ms: {}", asyncTimeout,
+                      ( (HttpServletRequest) asyncContext.getRequest() ).getRequestURI() );
+            sendError( (HttpServletResponse) asyncContext.getResponse(), HttpServletResponse.SC_SERVICE_UNAVAILABLE );
+            complete();
+        }
+
+        @Override
+        public void onError( AsyncEvent event )
+        {
+            log.warn( "Repository request failed: {}", event.getThrowable() == null
+                ? "" : event.getThrowable().getMessage() );
+            complete();
+        }
+
+        @Override
+        public void onComplete( AsyncEvent event )
+        {
+            completed.set( true );
+        }
+
+        @Override
+        public void onStartAsync( AsyncEvent event )
+        {
+            // no op
+        }
+
+        private void sendError( HttpServletResponse response, int status )
+        {
+            if ( !completed.get() && !response.isCommitted() )
+            {
+                try
+                {
+                    response.sendError( status );
+                }
+                catch ( IOException | IllegalStateException e )
+                {
+                    log.debug( "Could not send error: {}", e.getMessage() );
+                }
+            }
+        }
+
+        private void complete()
+        {
+            if ( completed.compareAndSet( false, true ) )
+            {
+                asyncContext.complete();
+            }
+        }
+    }
+
+    /**
+     * Processes the request on the current thread.
+     */
+    protected void processRequest( HttpServletRequest request, HttpServletResponse response )
+        throws ServletException, IOException
     {
         WebdavRequest webdavRequest = new WebdavRequestImpl( request, getLocatorFactory() );
         // DeltaV requires 'Cache-Control' header for all methods except 'VERSION-CONTROL' and 'REPORT'.
@@ -220,6 +442,269 @@ ArchivaConfiguration getConfiguration()
         return configuration;
     }
 
+    /**
+     * Adds support for conditional requests by entity tag and for byte ranges to the GET requests of
+     * repository files. Listings of collections are written compressed, if the client accepts it.
+     */
+    @Override
+    protected void doGet( WebdavRequest request, WebdavResponse response, DavResource resource )
+        throws IOException, DavException
+    {
+        if ( resource.exists() && resource.isCollection() )
+        {
+            IndexWriter writer = getIndexWriter( resource );
+            if ( writer != null )
+            {
+                writeListing( request, response, writer );
+                return;
+            }
+        }
+        if ( !( resource instanceof ArchivaDavResource ) || !resource.exists() || resource.isCollection() )
+        {
+            super.doGet( request, response, resource );
+            return;
+        }
+        ArchivaDavResource davResource = (ArchivaDavResource) resource;
+        if ( isNotModified( request, response, davResource ) )
+        {
+            response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+            return;
+        }
+        response.setHeader( "Accept-Ranges", ByteRange.BYTES_UNIT );
+        long size = davResource.getAsset().getSize();
+        List<ByteRange> ranges = isRangeValid( request, davResource )
+            ? ByteRange.parse( request.getHeader( "Range" ), size )
+            : null;
+        if ( ranges == null )
+        {
+            if ( !( CompressedContentCache.isCompressible( davResource.getAsset().getName() )
+                && spoolCompressed( request, response, davResource ) ) )
+            {
+                davResource.spool( getOutputContext( response, response.getOutputStream() ) );
+            }
+        }
+        else if ( ranges.isEmpty() )
+        {
+            response.setHeader( "Content-Range", ByteRange.BYTES_UNIT + " */" + size );
+            response.sendError( HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE );
+            return;
+        }
+        else
+        {
+            response.setStatus( HttpServletResponse.SC_PARTIAL_CONTENT );
+            davResource.spool( getOutputContext( response, response.getOutputStream() ), ranges );
+        }
+        response.flushBuffer();
+    }
+
+    /**
+     * Writes the compressed variant of a text resource, if the client accepts gzip encoding.
+     */
+    private boolean spoolCompressed( WebdavRequest request, WebdavResponse response, ArchivaDavResource resource )
+        throws IOException
+    {
+        response.setHeader( "Vary", "Accept-Encoding" );
+        if ( !acceptsGzip( request ) )
+        {
+            return false;
+        }
+        // the compressed variant has its own entity tag, the header is reset if nothing was written
+        response.setHeader( "ETag", resource.getGzipETag() );
+        if ( resource.spoolCompressed( getOutputContext( response, response.getOutputStream() ) ) )
+        {
+            return true;
+        }
+        response.setHeader( "ETag", resource.getETag() );
+        return false;
+    }
+
+    private static boolean acceptsGzip( HttpServletRequest request )
+    {
+        return acceptsGzip( request.getHeader( "Accept-Encoding" ) );
+    }
+
+    /**
+     * Returns <code>true</code>, if the given <code>Accept-Encoding</code> header allows a gzip compressed response.
+     * Codings with a quality value of 0 are not acceptable. The wildcard applies, if gzip is not listed itself.
+     */
+    static boolean acceptsGzip( String acceptEncoding )
+    {
+        if ( acceptEncoding == null )
+        {
+            return false;
+        }
+        boolean wildcard = false;
+        for ( String element : StringUtils.split( acceptEncoding, ',' ) )
+        {
+            String[] parts = StringUtils.split( element, ';' );
+            if ( parts.length == 0 )
+            {
+                continue;
+            }
+            String coding = parts[0].trim().toLowerCase( Locale.ROOT );
+            if ( "gzip".equals( coding ) || "x-gzip".equals( coding ) )
+            {
+                return getQuality( parts ) > 0;
+            }
+            if ( "*".equals( coding ) )
+            {
+                wildcard = getQuality( parts ) > 0;
+            }
+        }
+        return wildcard;
+    }
+
+    /**
+     * Returns the quality value of a coding, that is split at the parameter separators. A missing quality value
+     * is 1, a malformed one is 0.
+     */
+    private static double getQuality( String[] parts )
+    {
+        for ( int i = 1; i < parts.length; i++ )
+        {
+            String parameter = parts[i].trim();
+            if ( parameter.length() > 1 && Character.toLowerCase( parameter.charAt( 0 ) ) == 'q'
+                && parameter.charAt( 1 ) == '=' )
+            {
+                return NumberUtils.toDouble( parameter.substring( 2 ).trim(), 0 );
+            }
+        }
+        return 1;
+    }
+
+    private static IndexWriter getIndexWriter( DavResource resource )
+    {
+        if ( resource instanceof ArchivaDavResource )
+        {
+            return ( (ArchivaDavResource) resource ).getIndexWriter();
+        }
+        if ( resource instanceof ArchivaVirtualDavResource )
+        {
+            return ( (ArchivaVirtualDavResource) resource ).getIndexWriter();
+        }
+        return null;
+    }
+
+    /**
+     * Writes the listing of a collection. The format is selected by the <code>format</code> parameter
+     * (<code>html</code> or <code>json</code>), large listings can be split into pages by the <code>page</code>
+     * and <code>pageSize</code> parameters.
+     */
+    private void writeListing( WebdavRequest request, WebdavResponse response, IndexWriter writer )
+        throws IOException
+    {
+        IndexWriter.Format format = "json".equalsIgnoreCase( request.getParameter( "format" ) )
+            ? IndexWriter.Format.JSON
+            : IndexWriter.Format.HTML;
+        int page = Math.max( NumberUtils.toInt( request.getParameter( "page" ), 1 ), 1 );
+        int pageSize = Math.max( NumberUtils.toInt( request.getParameter( "pageSize" ), 0 ), 0 );
+        response.setHeader( "Vary", "Accept-Encoding" );
+        if ( acceptsGzip( request ) )
+        {
+            response.setHeader( "Content-Encoding", "gzip" );
+            try ( GZIPOutputStream out = new GZIPOutputStream( response.getOutputStream(), LISTING_BUFFER_SIZE ) )
+            {
+                writer.write( getOutputContext( response, out ), format, page, pageSize );
+            }
+        }
+        else
+        {
+            writer.write( getOutputContext( response, response.getOutputStream() ), format, page, pageSize );
+        }
+    }
+
+    @Override
+    protected void doHead( WebdavRequest request, WebdavResponse response, DavResource resource )
+        throws IOException, DavException
+    {
+        if ( resource instanceof ArchivaDavResource && ( (ArchivaDavResource) resource ).isRemote() )
+        {
+            // the resource exists on a remote repository and is not downloaded for the existence check
+            response.setStatus( HttpServletResponse.SC_OK );
+            return;
+        }
+        if ( resource instanceof ArchivaDavResource && resource.exists() && !resource.isCollection() )
+        {
+            if ( isNotModified( request, response, (ArchivaDavResource) resource ) )
+            {
+                response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+                return;
+            }
+            response.setHeader( "Accept-Ranges", ByteRange.BYTES_UNIT );
+        }
+        super.doHead( request, response, resource );
+    }
+
+    /**
+     * Evaluates the <code>If-None-Match</code> and <code>If-Modified-Since</code> headers. If both are present,
+     * only the entity tag is used. If the tag of the compressed variant matches, it is set on the response.
+     */
+    private boolean isNotModified( WebdavRequest request, WebdavResponse response, ArchivaDavResource resource )
+    {
+        String ifNoneMatch = request.getHeader( "If-None-Match" );
+        if ( ifNoneMatch != null )
+        {
+            String etag = resource.getETag();
+            // a client that accepts gzip may hold the compressed variant
+            String gzipETag = acceptsGzip( request ) && CompressedContentCache.isCompressible(
+                resource.getAsset().getName() ) ? resource.getGzipETag() : null;
+            for ( String tag : ifNoneMatch.split( "," ) )
+            {
+                tag = tag.trim();
+                if ( "*".equals( tag ) || ( etag != null && getOpaqueTag( etag ).equals( getOpaqueTag( tag ) ) ) )
+                {
+                    return true;
+                }
+                if ( gzipETag != null && getOpaqueTag( gzipETag ).equals( getOpaqueTag( tag ) ) )
+                {
+                    response.setHeader( "ETag", gzipETag );
+                    return true;
+                }
+            }
+            return false;
+        }
+        long modifiedSince = getDateHeader( request, "If-Modified-Since" );
+        // The header has only a precision of seconds
+        return modifiedSince >= 0 && resource.getModificationTime() / 1000 * 1000 <= modifiedSince;
+    }
+
+    /**
+     * Evaluates the <code>If-Range</code> header. The range is only used, if the header is missing, or if it
+     * matches the strong entity tag or the modification date of the resource.
+     */
+    private boolean isRangeValid( WebdavRequest request, ArchivaDavResource resource )
+    {
+        String ifRange = request.getHeader( "If-Range" );
+        if ( ifRange == null )
+        {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if ( ifRange.startsWith( "\"" ) )
+        {
+            return ifRange.equals( resource.getETag() );
+        }
+        long date = getDateHeader( request, "If-Range" );
+        return date >= 0 && resource.getModificationTime() / 1000 * 1000 == date;
+    }
+
+    private static String getOpaqueTag( String tag )
+    {
+        return tag.startsWith( "W/" ) ? tag.substring( 2 ) : tag;
+    }
+
+    private static long getDateHeader( WebdavRequest request, String name )
+    {
+        try
+        {
+            return request.getDateHeader( name );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            return -1;
+        }
+    }
+
     @Override
     protected boolean isPreconditionValid( final WebdavRequest request, final DavResource davResource )
     {
@@ -278,6 +763,12 @@ public String getAuthenticateHeaderValue( String repository )
     @Override
     public void destroy()
     {
+        ExecutorService executor = asyncExecutor;
+        asyncExecutor = null;
+        if ( executor != null )
+        {
+            executor.shutdown();
+        }
         rwLock.writeLock().lock();
         try {
             configuration.removeListener(this);
@@ -0,0 +1,182 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single byte range of a HTTP <code>Range</code> request header (RFC 7233).
+ *
+ * @since 3.0
+ */
+public class ByteRange
+{
+    public static final String BYTES_UNIT = "bytes";
+
+    /**
+     * Requests with more ranges are answered with the full content.
+     */
+    public static final int MAX_RANGES = 16;
+
+    private final long start;
+
+    private final long end;
+
+    public ByteRange( long start, long end )
+    {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the position of the first byte.
+     */
+    public long getStart( )
+    {
+        return start;
+    }
+
+    /**
+     * Returns the position of the last byte (inclusive).
+     */
+    public long getEnd( )
+    {
+        return end;
+    }
+
+    public long getLength( )
+    {
+        return end - start + 1;
+    }
+
+    /**
+     * Returns the value of the <code>Content-Range</code> header for this range.
+     *
+     * @param completeLength the size of the complete content
+     */
+    public String getContentRange( long completeLength )
+    {
+        return BYTES_UNIT + " " + start + "-" + end + "/" + completeLength;
+    }
+
+    /**
+     * Parses the value of a <code>Range</code> header.
+     *
+     * @param header the header value
+     * @param length the size of the content
+     * @return the list of satisfiable ranges in the order of the header. The list is empty, if none of the ranges is
+     * satisfiable. <code>null</code> is returned, if the header is missing, invalid, uses another unit
+     * or has too many ranges. In this case the header should be ignored.
+     */
+    public static List<ByteRange> parse( String header, long length )
+    {
+        if ( StringUtils.isBlank( header ) )
+        {
+            return null;
+        }
+        String value = header.trim( );
+        if ( !value.startsWith( BYTES_UNIT + "=" ) )
+        {
+            return null;
+        }
+        String[] specs = value.substring( BYTES_UNIT.length( ) + 1 ).split( "," );
+        if ( specs.length > MAX_RANGES )
+        {
+            return null;
+        }
+        List<ByteRange> ranges = new ArrayList<>( specs.length );
+        for ( String spec : specs )
+        {
+            String rangeSpec = spec.trim( );
+            int dash = rangeSpec.indexOf( '-' );
+            if ( dash < 0 )
+            {
+                return null;
+            }
+            String first = rangeSpec.substring( 0, dash ).trim( );
+            String last = rangeSpec.substring( dash + 1 ).trim( );
+            try
+            {
+                if ( first.isEmpty( ) )
+                {
+                    // Suffix range: the last n bytes
+                    long suffix = Long.parseLong( last );
+                    if ( suffix < 0 )
+                    {
+                        return null;
+                    }
+                    if ( suffix > 0 && length > 0 )
+                    {
+                        ranges.add( new ByteRange( Math.max( 0, length - suffix ), length - 1 ) );
+                    }
+                }
+                else
+                {
+                    long start = Long.parseLong( first );
+                    long end = last.isEmpty( ) ? Long.MAX_VALUE : Long.parseLong( last );
+                    if ( start < 0 || end < start )
+                    {
+                        return null;
+                    }
+                    if ( start < length )
+                    {
+                        ranges.add( new ByteRange( start, Math.min( end, length - 1 ) ) );
+                    }
+                }
+            }
+            catch ( NumberFormatException e )
+            {
+                return null;
+            }
+        }
+        return ranges.isEmpty( ) ? Collections.emptyList( ) : ranges;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass( ) != o.getClass( ) )
+        {
+            return false;
+        }
+        ByteRange byteRange = (ByteRange) o;
+        return start == byteRange.start && end == byteRange.end;
+    }
+
+    @Override
+    public int hashCode( )
+    {
+        return 31 * Long.hashCode( start ) + Long.hashCode( end );
+    }
+
+    @Override
+    public String toString( )
+    {
+        return start + "-" + end;
+    }
+}
@@ -0,0 +1,227 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.repository.storage.StorageAsset;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of gzip compressed variants of text resources like POM files and metadata files.
+ *
+ * A variant is created on the first request that accepts the encoding and is kept in memory. It is only
+ * returned as long as size and modification time of the original file are unchanged, so replaced files are never
+ * served from stale data. The original file is read under the read lock of its storage. Binary artifacts are never
+ * compressed, neither are checksum and signature files, which are too small to gain anything. The total size of
+ * the cached variants is limited.
+ *
+ * @since 3.0
+ */
+public class CompressedContentCache
+{
+    public static final long DEFAULT_MAX_FILE_SIZE = 4 * 1024 * 1024;
+
+    public static final long DEFAULT_MAX_TOTAL_SIZE = 64 * 1024 * 1024;
+
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Collections.unmodifiableSet( new HashSet<>(
+        Arrays.asList( "pom", "xml", "json", "txt", "properties", "html" ) ) );
+
+    private final long maxFileSize;
+
+    private final long maxTotalSize;
+
+    private final LinkedHashMap<String, Variant> variants = new LinkedHashMap<>( 16, 0.75f, true );
+
+    private long totalSize = 0;
+
+    public CompressedContentCache( )
+    {
+        this( DEFAULT_MAX_FILE_SIZE, DEFAULT_MAX_TOTAL_SIZE );
+    }
+
+    /**
+     * @param maxFileSize the maximum size of original files that are compressed
+     * @param maxTotalSize the maximum size of all cached variants
+     */
+    public CompressedContentCache( long maxFileSize, long maxTotalSize )
+    {
+        this.maxFileSize = maxFileSize;
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    /**
+     * Returns <code>true</code>, if files with the given name are compressed.
+     *
+     * @param fileName the name of the file
+     */
+    public static boolean isCompressible( String fileName )
+    {
+        String extension = StringUtils.substringAfterLast( fileName, "." ).toLowerCase( Locale.ROOT );
+        return COMPRESSIBLE_EXTENSIONS.contains( extension );
+    }
+
+    /**
+     * Returns the gzip compressed content of the given file.
+     *
+     * @param asset the original file
+     * @return the compressed data, or <code>null</code>, if the file is not compressible or too large
+     * @throws IOException if the file could not be read
+     */
+    public byte[] getGzip( StorageAsset asset )
+        throws IOException
+    {
+        if ( !asset.exists( ) || asset.isContainer( ) || !isCompressible( asset.getName( ) ) )
+        {
+            return null;
+        }
+        long size = asset.getSize( );
+        if ( size > maxFileSize )
+        {
+            return null;
+        }
+        Instant modificationTime = asset.getModificationTime( );
+        String key = getKey( asset );
+        synchronized ( variants )
+        {
+            Variant variant = variants.get( key );
+            if ( variant != null && variant.size == size && variant.modificationTime.equals( modificationTime ) )
+            {
+                return variant.data;
+            }
+        }
+        Variant variant = compress( asset );
+        if ( variant.size > maxFileSize )
+        {
+            return null;
+        }
+        synchronized ( variants )
+        {
+            Variant previous = variants.put( key, variant );
+            totalSize += variant.data.length - ( previous == null ? 0 : previous.data.length );
+            evict( );
+        }
+        return variant.data;
+    }
+
+    /**
+     * Removes the variant of the given file. Should be called, if the file is replaced or deleted.
+     *
+     * @param asset the original file
+     */
+    public void remove( StorageAsset asset )
+    {
+        synchronized ( variants )
+        {
+            Variant previous = variants.remove( getKey( asset ) );
+            if ( previous != null )
+            {
+                totalSize -= previous.data.length;
+            }
+        }
+    }
+
+    public void clear( )
+    {
+        synchronized ( variants )
+        {
+            variants.clear( );
+            totalSize = 0;
+        }
+    }
+
+    private void evict( )
+    {
+        Iterator<Variant> it = variants.values( ).iterator( );
+        while ( totalSize > maxTotalSize && it.hasNext( ) )
+        {
+            totalSize -= it.next( ).data.length;
+            it.remove( );
+        }
+    }
+
+    /**
+     * Compresses the file under the read lock. Size and modification time are taken inside the lock, so that
+     * they belong to the compressed data.
+     */
+    private static Variant compress( StorageAsset asset )
+        throws IOException
+    {
+        AtomicReference<Variant> variant = new AtomicReference<>( );
+        try
+        {
+            asset.getStorage( ).consumeData( asset, in -> {
+                long size = asset.getSize( );
+                Instant modificationTime = asset.getModificationTime( );
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream( (int) Math.max( size / 4, 64 ) );
+                try ( GZIPOutputStream out = new GZIPOutputStream( bytes ) )
+                {
+                    IOUtils.copy( in, out );
+                }
+                catch ( IOException e )
+                {
+                    throw new UncheckedIOException( e );
+                }
+                variant.set( new Variant( size, modificationTime, bytes.toByteArray( ) ) );
+            }, true );
+        }
+        catch ( UncheckedIOException e )
+        {
+            throw e.getCause( );
+        }
+        if ( variant.get( ) == null )
+        {
+            throw new IOException( "Could not read " + asset.getPath( ) );
+        }
+        return variant.get( );
+    }
+
+    private static String getKey( StorageAsset asset )
+    {
+        return asset.getStorage( ).getLocation( ) + ":" + asset.getPath( );
+    }
+
+    private static class Variant
+    {
+        final long size;
+        final Instant modificationTime;
+        final byte[] data;
+
+        Variant( long size, Instant modificationTime, byte[] data )
+        {
+            this.size = size;
+            this.modificationTime = modificationTime;
+            this.data = data;
+        }
+    }
+}
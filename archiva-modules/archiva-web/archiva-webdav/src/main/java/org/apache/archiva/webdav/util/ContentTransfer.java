@@ -0,0 +1,172 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Copies the content of repository files to the response stream.
+ *
+ * If the source is a {@link FileChannel} and the target stream of the container is a channel too,
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} is used, which lets the operating
+ * system copy the data (sendfile). Otherwise the file content is read with positional reads into a
+ * single buffer that is written to the stream directly, without intermediate copies.
+ *
+ * @since 3.0
+ */
+public final class ContentTransfer
+{
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * The number of times a transfer without progress is repeated, before the copy fails.
+     */
+    static final int MAX_STALLED_TRANSFERS = 50;
+
+    private static final long STALLED_TRANSFER_WAIT = 10;
+
+    private ContentTransfer( )
+    {
+    }
+
+    /**
+     * Copies <code>count</code> bytes, starting at <code>position</code>, from the source channel to the
+     * output stream. If the source is a file, the count is limited by the size of the file.
+     *
+     * @param source the channel to read from
+     * @param target the stream to write to
+     * @param position the start position in the source
+     * @param count the maximum number of bytes to copy
+     * @return the number of bytes copied
+     * @throws IOException if the data could not be read or written, or if the file has been truncated while
+     * it was copied
+     */
+    public static long transfer( ReadableByteChannel source, OutputStream target, long position, long count )
+        throws IOException
+    {
+        if ( source instanceof FileChannel )
+        {
+            FileChannel fileChannel = (FileChannel) source;
+            if ( target instanceof WritableByteChannel )
+            {
+                return transferTo( fileChannel, (WritableByteChannel) target, position, count );
+            }
+            return copyFile( fileChannel, target, position, count );
+        }
+        return copyChannel( source, target, position, count );
+    }
+
+    private static long transferTo( FileChannel source, WritableByteChannel target, long position, long count )
+        throws IOException
+    {
+        long end = Math.min( position + count, source.size( ) );
+        long current = position;
+        int stalled = 0;
+        while ( current < end )
+        {
+            long transferred = source.transferTo( current, end - current, target );
+            if ( transferred > 0 )
+            {
+                current += transferred;
+                stalled = 0;
+                continue;
+            }
+            // zero is returned too, if the target cannot take data at the moment
+            if ( current >= source.size( ) )
+            {
+                throw new EOFException( "File has been truncated at " + current + " bytes, expected " + end );
+            }
+            if ( ++stalled > MAX_STALLED_TRANSFERS )
+            {
+                throw new IOException( "No progress of the transfer at " + current + " bytes" );
+            }
+            try
+            {
+                Thread.sleep( STALLED_TRANSFER_WAIT );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+                throw new InterruptedIOException( "Transfer has been interrupted" );
+            }
+        }
+        return current - position;
+    }
+
+    private static long copyFile( FileChannel source, OutputStream target, long position, long count )
+        throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( (int) Math.max( 1, Math.min( BUFFER_SIZE, count ) ) );
+        long current = position;
+        long end = position + count;
+        while ( current < end )
+        {
+            buffer.clear( );
+            buffer.limit( (int) Math.min( buffer.capacity( ), end - current ) );
+            int read = source.read( buffer, current );
+            if ( read < 0 )
+            {
+                break;
+            }
+            target.write( buffer.array( ), 0, read );
+            current += read;
+        }
+        return current - position;
+    }
+
+    private static long copyChannel( ReadableByteChannel source, OutputStream target, long position, long count )
+        throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+        long skipped = 0;
+        while ( skipped < position )
+        {
+            buffer.clear( );
+            buffer.limit( (int) Math.min( buffer.capacity( ), position - skipped ) );
+            int read = source.read( buffer );
+            if ( read < 0 )
+            {
+                return 0;
+            }
+            skipped += read;
+        }
+        long copied = 0;
+        while ( copied < count )
+        {
+            buffer.clear( );
+            buffer.limit( (int) Math.min( buffer.capacity( ), count - copied ) );
+            int read = source.read( buffer );
+            if ( read < 0 )
+            {
+                break;
+            }
+            target.write( buffer.array( ), 0, read );
+            copied += read;
+        }
+        return copied;
+    }
+}
@@ -0,0 +1,353 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.metadata.audit.RepositoryListener;
+import org.apache.archiva.metadata.model.ProjectVersionMetadata;
+import org.apache.archiva.metadata.repository.MetadataRepository;
+import org.apache.archiva.metadata.repository.RepositorySession;
+import org.apache.archiva.metadata.repository.storage.RepositoryStorageMetadataException;
+import org.apache.archiva.repository.storage.StorageAsset;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Cache of sorted directory listings for the HTML and JSON collection views.
+ *
+ * A listing is the sorted list of the children of one or more directories (the members of a repository group).
+ * It is valid as long as the modification times of the listed directories are unchanged, so a cached listing
+ * costs only the lookup of the directory attributes. Files that are overwritten in place do not change the
+ * modification time of the directory. The write paths therefore invalidate the listings of the written path and
+ * its parents by {@link #invalidate(String)}: WebDAV uploads, deletions, moves and copies, proxy downloads and,
+ * by {@link #contentStored(String, String)}, the uploads, copies and merges of the REST services.
+ * The number of cached directories and the total number of entries are limited.
+ *
+ * @since 3.0
+ */
+@Service( "directoryListingCache#default" )
+public class DirectoryListingCache
+    implements RepositoryListener
+{
+    private static final Logger log = LoggerFactory.getLogger( DirectoryListingCache.class );
+
+    public static final int DEFAULT_MAX_DIRECTORIES = 200;
+
+    public static final int DEFAULT_MAX_ENTRIES = 500000;
+
+    private final int maxDirectories;
+
+    private final int maxEntries;
+
+    private final LinkedHashMap<String, Listing> listings = new LinkedHashMap<>( 16, 0.75f, true );
+
+    private int entryCount = 0;
+
+    /**
+     * Incremented by each invalidation, listings that were created during an invalidation are not cached
+     */
+    private long generation = 0;
+
+    public DirectoryListingCache( )
+    {
+        this( DEFAULT_MAX_DIRECTORIES, DEFAULT_MAX_ENTRIES );
+    }
+
+    /**
+     * @param maxDirectories the maximum number of cached listings
+     * @param maxEntries the maximum number of entries of all cached listings
+     */
+    public DirectoryListingCache( int maxDirectories, int maxEntries )
+    {
+        this.maxDirectories = maxDirectories;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the sorted listing of the given directories, from the cache if it is still valid.
+     *
+     * @param directories the directories to list. If an entry name exists in more than one directory, the
+     *                    entry of the first directory is used.
+     * @return the entries sorted by name
+     */
+    public List<Item> getListing( List<? extends StorageAsset> directories )
+    {
+        String key = getKey( directories );
+        List<Long> stamps = getStamps( directories );
+        long startGeneration;
+        synchronized ( listings )
+        {
+            Listing listing = listings.get( key );
+            if ( listing != null && listing.stamps.equals( stamps ) )
+            {
+                return listing.items;
+            }
+            startGeneration = generation;
+        }
+        long start = System.currentTimeMillis( );
+        List<Item> items = createListing( directories );
+        log.debug( "Listed {} entries of {} in {}ms", items.size( ), key, System.currentTimeMillis( ) - start );
+        if ( items.size( ) <= maxEntries )
+        {
+            Listing listing = new Listing( getPaths( directories ), stamps, items );
+            synchronized ( listings )
+            {
+                if ( generation == startGeneration )
+                {
+                    Listing previous = listings.put( key, listing );
+                    entryCount += items.size( ) - ( previous == null ? 0 : previous.items.size( ) );
+                    evict( );
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Removes the listings of the given path and of all its parent directories. The listings of all
+     * repositories with this path are removed.
+     *
+     * @param path the path of the written or removed file or directory relative to the repository root
+     */
+    public void invalidate( String path )
+    {
+        String normalized = normalize( path );
+        synchronized ( listings )
+        {
+            generation++;
+            Iterator<Listing> it = listings.values( ).iterator( );
+            while ( it.hasNext( ) )
+            {
+                Listing listing = it.next( );
+                if ( listing.contains( normalized ) )
+                {
+                    entryCount -= listing.items.size( );
+                    it.remove( );
+                }
+            }
+        }
+    }
+
+    public void clear( )
+    {
+        synchronized ( listings )
+        {
+            generation++;
+            listings.clear( );
+            entryCount = 0;
+        }
+    }
+
+    @Override
+    public void contentStored( String repoId, String path )
+    {
+        if ( path == null )
+        {
+            clear( );
+        }
+        else
+        {
+            invalidate( path );
+        }
+    }
+
+    @Override
+    public void deleteArtifact( MetadataRepository metadataRepository, String repositoryId, String namespace,
+                                String project, String version, String id )
+    {
+        if ( namespace != null )
+        {
+            invalidate( namespace.replace( '.', '/' ) + "/" + project + "/" + version + "/" + id );
+        }
+    }
+
+    @Override
+    public void addArtifact( RepositorySession session, String repoId, String namespace, String projectId,
+                             ProjectVersionMetadata metadata )
+    {
+        // no op
+    }
+
+    @Override
+    public void addArtifactProblem( RepositorySession session, String repoId, String namespace, String projectId,
+                                    String projectVersion, RepositoryStorageMetadataException exception )
+    {
+        // no op
+    }
+
+    private void evict( )
+    {
+        Iterator<Listing> it = listings.values( ).iterator( );
+        while ( ( listings.size( ) > maxDirectories || entryCount > maxEntries ) && it.hasNext( ) )
+        {
+            entryCount -= it.next( ).items.size( );
+            it.remove( );
+        }
+    }
+
+    /**
+     * Lists the given directories without caching.
+     *
+     * @param directories the directories to list
+     * @return the entries sorted by name
+     */
+    public static List<Item> createListing( List<? extends StorageAsset> directories )
+    {
+        List<List<? extends StorageAsset>> children = new ArrayList<>( directories.size( ) );
+        for ( StorageAsset directory : directories )
+        {
+            children.add( directory.list( ) );
+        }
+        return mergeChildren( children );
+    }
+
+    private static List<Item> mergeChildren( List<List<? extends StorageAsset>> children )
+    {
+        SortedMap<String, Item> uniqueChildFiles = new TreeMap<>( );
+        for ( List<? extends StorageAsset> files : children )
+        {
+            for ( StorageAsset file : files )
+            {
+                // the first entry wins
+                if ( !uniqueChildFiles.containsKey( file.getName( ) ) )
+                {
+                    boolean container = file.isContainer( );
+                    uniqueChildFiles.put( file.getName( ),
+                        new Item( file.getName( ), container ? 0 : file.getSize( ),
+                            file.getModificationTime( ).toEpochMilli( ), container ) );
+                }
+            }
+        }
+        return Collections.unmodifiableList( new ArrayList<>( uniqueChildFiles.values( ) ) );
+    }
+
+    private static String getKey( List<? extends StorageAsset> directories )
+    {
+        StringBuilder key = new StringBuilder( );
+        for ( StorageAsset directory : directories )
+        {
+            key.append( directory.getStorage( ).getLocation( ) ).append( ':' ).append( directory.getPath( ) )
+                .append( '|' );
+        }
+        return key.toString( );
+    }
+
+    private static List<Long> getStamps( List<? extends StorageAsset> directories )
+    {
+        List<Long> stamps = new ArrayList<>( directories.size( ) );
+        for ( StorageAsset directory : directories )
+        {
+            stamps.add( directory.getModificationTime( ).toEpochMilli( ) );
+        }
+        return stamps;
+    }
+
+    private static List<String> getPaths( List<? extends StorageAsset> directories )
+    {
+        List<String> paths = new ArrayList<>( directories.size( ) );
+        for ( StorageAsset directory : directories )
+        {
+            paths.add( normalize( directory.getPath( ) ) );
+        }
+        return paths;
+    }
+
+    private static String normalize( String path )
+    {
+        return StringUtils.strip( StringUtils.defaultString( path ), "/" );
+    }
+
+    private static class Listing
+    {
+        final List<String> paths;
+        final List<Long> stamps;
+        final List<Item> items;
+
+        Listing( List<String> paths, List<Long> stamps, List<Item> items )
+        {
+            this.paths = paths;
+            this.stamps = stamps;
+            this.items = items;
+        }
+
+        /**
+         * Returns <code>true</code>, if one of the listed directories is the given path or one of its parents.
+         */
+        boolean contains( String path )
+        {
+            for ( String directory : paths )
+            {
+                if ( directory.isEmpty( ) || path.equals( directory ) || path.startsWith( directory + "/" ) )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A single entry of a directory listing.
+     */
+    public static class Item
+    {
+        private final String name;
+        private final long size;
+        private final long lastModified;
+        private final boolean container;
+
+        public Item( String name, long size, long lastModified, boolean container )
+        {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.container = container;
+        }
+
+        public String getName( )
+        {
+            return name;
+        }
+
+        public long getSize( )
+        {
+            return size;
+        }
+
+        public long getLastModified( )
+        {
+            return lastModified;
+        }
+
+        public boolean isContainer( )
+        {
+            return container;
+        }
+    }
+}
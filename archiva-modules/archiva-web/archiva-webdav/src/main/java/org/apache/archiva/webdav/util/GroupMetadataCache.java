@@ -0,0 +1,197 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.repository.storage.StorageAsset;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the merged <code>maven-metadata.xml</code> files of repository groups.
+ *
+ * For each group and merged metadata path the state of the member metadata files used for the merge
+ * is stored. As long as the member files are unchanged, the merged file and its checksums that are
+ * stored in the group storage can be served directly, without parsing and merging the member files again.
+ * Any deploy, delete or proxy fetch that modifies a member metadata file changes its modification time
+ * or size and thus invalidates the entry.
+ *
+ * @since 3.0
+ */
+public class GroupMetadataCache
+{
+    private static final Logger log = LoggerFactory.getLogger( GroupMetadataCache.class );
+
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private final Map<String, List<String>> entries;
+
+    public GroupMetadataCache( )
+    {
+        this( DEFAULT_MAX_ENTRIES );
+    }
+
+    public GroupMetadataCache( final int maxEntries )
+    {
+        this.entries = new LinkedHashMap<String, List<String>>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, List<String>> eldest )
+            {
+                return size( ) > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns <code>true</code>, if the merged metadata for the given group path was created from member
+     * files with the given state.
+     *
+     * @param groupId the repository group id
+     * @param mergedPath the path of the merged metadata file in the group storage
+     * @param memberState the state of the member files as returned by {@link #getFingerprint(List)}
+     * @return <code>true</code>, if the merged file is up to date, otherwise <code>false</code>
+     */
+    public boolean isValid( String groupId, String mergedPath, List<String> memberState )
+    {
+        List<String> cached;
+        synchronized ( entries )
+        {
+            cached = entries.get( getKey( groupId, mergedPath ) );
+        }
+        return cached != null && cached.equals( memberState );
+    }
+
+    /**
+     * Stores the state of the member files that were used for creating the merged metadata file.
+     *
+     * @param groupId the repository group id
+     * @param mergedPath the path of the merged metadata file in the group storage
+     * @param memberState the state of the member files as returned by {@link #getFingerprint(List)}
+     */
+    public void put( String groupId, String mergedPath, List<String> memberState )
+    {
+        synchronized ( entries )
+        {
+            entries.put( getKey( groupId, mergedPath ), memberState );
+        }
+    }
+
+    /**
+     * Removes all entries of the given group.
+     *
+     * @param groupId the repository group id
+     */
+    public void invalidate( String groupId )
+    {
+        String prefix = groupId + ":";
+        synchronized ( entries )
+        {
+            entries.keySet( ).removeIf( key -> key.startsWith( prefix ) );
+        }
+        log.debug( "Invalidated merged metadata of group {}", groupId );
+    }
+
+    public void clear( )
+    {
+        synchronized ( entries )
+        {
+            entries.clear( );
+        }
+    }
+
+    private static String getKey( String groupId, String mergedPath )
+    {
+        return groupId + ":" + mergedPath;
+    }
+
+    /**
+     * Returns <code>true</code>, if the merged file was modified after all member files. After a restart or
+     * an eviction the cache has no entry for a merged file, then a merged file that is newer than its member files
+     * can still be served without merging again.
+     *
+     * @param mergedFile the merged metadata file in the group storage
+     * @param memberFiles the absolute paths of the member metadata files
+     * @return <code>false</code>, if a member file is newer or as old as the merged file or if it does not exist
+     */
+    public static boolean isNewerThanMembers( StorageAsset mergedFile, List<String> memberFiles )
+    {
+        if ( !mergedFile.exists( ) )
+        {
+            return false;
+        }
+        long merged = mergedFile.getModificationTime( ).toEpochMilli( );
+        for ( String file : memberFiles )
+        {
+            try
+            {
+                if ( Files.getLastModifiedTime( Paths.get( file ) ).toMillis( ) >= merged )
+                {
+                    return false;
+                }
+            }
+            catch ( IOException e )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current state (modification time and size) of the given files.
+     *
+     * @param memberFiles the absolute paths of the member metadata files
+     * @return a list that contains a state entry for each file
+     */
+    public static List<String> getFingerprint( List<String> memberFiles )
+    {
+        List<String> fingerprint = new ArrayList<>( memberFiles.size( ) );
+        for ( String file : memberFiles )
+        {
+            Path path = Paths.get( file );
+            try
+            {
+                BasicFileAttributes attributes = Files.readAttributes( path, BasicFileAttributes.class );
+                fingerprint.add( file + ";" + attributes.lastModifiedTime( ) + ";" + attributes.size( ) );
+            }
+            catch ( NoSuchFileException e )
+            {
+                fingerprint.add( file + ";-1" );
+            }
+            catch ( IOException e )
+            {
+                // Makes sure, that the entry is not valid
+                fingerprint.add( file + ";" + System.nanoTime( ) );
+            }
+        }
+        return fingerprint;
+    }
+}
@@ -0,0 +1,237 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.metadata.audit.RepositoryListener;
+import org.apache.archiva.metadata.model.ArtifactMetadata;
+import org.apache.archiva.metadata.model.ProjectVersionMetadata;
+import org.apache.archiva.metadata.repository.MetadataRepository;
+import org.apache.archiva.metadata.repository.RepositorySession;
+import org.apache.archiva.metadata.repository.storage.RepositoryStorageMetadataException;
+import org.apache.archiva.repository.storage.StorageAsset;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the path prefixes that exist in the member repositories of repository groups.
+ *
+ * For each managed repository the set of directories on the second level (e.g. <code>org/apache</code>)
+ * is stored. A group request for a path below such a directory has only to be forwarded to the members that
+ * contain the directory. Paths with less than three segments are not pruned.
+ *
+ * The index of a repository is built on first use and rebuilt after the maximum age. Uploads through
+ * WebDAV add their prefix by {@link #add(String, String)} after the content has been written, repository changes
+ * remove the index by {@link #invalidate(String)}. Content that is stored by other means is reported by
+ * {@link #contentStored(String, String)} or by the repository scan. As content may also be written directly
+ * to the storage, a prefix that is missing in the index is confirmed by a lookup in the storage, before the
+ * repository is skipped.
+ *
+ * @since 3.0
+ */
+@Service( "groupRoutingIndex#default" )
+public class GroupRoutingIndex
+    implements RepositoryListener
+{
+    private static final Logger log = LoggerFactory.getLogger( GroupRoutingIndex.class );
+
+    public static final long DEFAULT_MAX_AGE = 60000;
+
+    private final long maxAge;
+
+    private final Map<String, MemberIndex> members = new ConcurrentHashMap<>( );
+
+    public GroupRoutingIndex( )
+    {
+        this( DEFAULT_MAX_AGE );
+    }
+
+    /**
+     * @param maxAge the time in milliseconds after that the index of a repository is rebuilt
+     */
+    public GroupRoutingIndex( long maxAge )
+    {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Returns <code>true</code>, if the given repository may contain the given path.
+     *
+     * @param repositoryId the id of the managed repository
+     * @param root the root asset of the managed repository
+     * @param path the path relative to the repository root
+     * @return <code>false</code>, if the prefix of the path does not exist in the repository, otherwise <code>true</code>
+     */
+    public boolean mayContain( String repositoryId, StorageAsset root, String path )
+    {
+        String prefix = getPrefix( path );
+        if ( prefix == null )
+        {
+            return true;
+        }
+        MemberIndex index = members.get( repositoryId );
+        if ( index == null || System.currentTimeMillis( ) - index.created > maxAge )
+        {
+            index = build( repositoryId, root );
+            members.put( repositoryId, index );
+        }
+        if ( index.prefixes.contains( prefix ) )
+        {
+            return true;
+        }
+        // the index may be older than the content, a single lookup is still cheaper than resolving the resource
+        if ( root != null && root.resolve( prefix ).exists( ) )
+        {
+            index.prefixes.add( prefix );
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the prefix of the given path to the index of the repository.
+     *
+     * @param repositoryId the id of the managed repository
+     * @param path the path relative to the repository root
+     */
+    public void add( String repositoryId, String path )
+    {
+        String prefix = getPrefix( path );
+        MemberIndex index = members.get( repositoryId );
+        if ( prefix != null && index != null )
+        {
+            index.prefixes.add( prefix );
+        }
+    }
+
+    /**
+     * Removes the index of the given repository.
+     *
+     * @param repositoryId the id of the managed repository
+     */
+    public void invalidate( String repositoryId )
+    {
+        members.remove( repositoryId );
+    }
+
+    public void clear( )
+    {
+        members.clear( );
+    }
+
+    @Override
+    public void artifactStored( RepositorySession session, String repoId, ArtifactMetadata artifact )
+    {
+        if ( artifact.getNamespace( ) != null )
+        {
+            add( repoId, artifact.getNamespace( ).replace( '.', '/' ) + "/" + artifact.getProject( ) + "/"
+                + artifact.getProjectVersion( ) + "/" + artifact.getId( ) );
+        }
+    }
+
+    @Override
+    public void contentStored( String repoId, String path )
+    {
+        if ( path == null )
+        {
+            invalidate( repoId );
+        }
+        else
+        {
+            add( repoId, path );
+        }
+    }
+
+    @Override
+    public void deleteArtifact( MetadataRepository metadataRepository, String repositoryId, String namespace,
+                                String project, String version, String id )
+    {
+        // a prefix that remains after the deletion only causes an additional lookup
+    }
+
+    @Override
+    public void addArtifact( RepositorySession session, String repoId, String namespace, String projectId,
+                             ProjectVersionMetadata metadata )
+    {
+        // the stored artifacts are reported by artifactStored
+    }
+
+    @Override
+    public void addArtifactProblem( RepositorySession session, String repoId, String namespace, String projectId,
+                                    String projectVersion, RepositoryStorageMetadataException exception )
+    {
+        // no op
+    }
+
+    /**
+     * Returns the first two segments of the path, if the path has at least three segments.
+     */
+    static String getPrefix( String path )
+    {
+        String[] segments = StringUtils.split( path, '/' );
+        if ( segments == null || segments.length < 3 )
+        {
+            return null;
+        }
+        return segments[0] + "/" + segments[1];
+    }
+
+    private static MemberIndex build( String repositoryId, StorageAsset root )
+    {
+        long start = System.currentTimeMillis( );
+        MemberIndex index = new MemberIndex( start );
+        if ( root != null && root.exists( ) )
+        {
+            for ( StorageAsset first : root.list( ) )
+            {
+                // hidden directories like .index are indexed too, their content is served by the group as well
+                if ( first.isContainer( ) )
+                {
+                    for ( StorageAsset second : first.list( ) )
+                    {
+                        if ( second.isContainer( ) )
+                        {
+                            index.prefixes.add( first.getName( ) + "/" + second.getName( ) );
+                        }
+                    }
+                }
+            }
+        }
+        log.debug( "Built routing index of repository {} with {} prefixes in {}ms", repositoryId,
+            index.prefixes.size( ), System.currentTimeMillis( ) - start );
+        return index;
+    }
+
+    private static class MemberIndex
+    {
+        final long created;
+        final Set<String> prefixes = ConcurrentHashMap.newKeySet( );
+
+        MemberIndex( long created )
+        {
+            this.created = created;
+        }
+    }
+}
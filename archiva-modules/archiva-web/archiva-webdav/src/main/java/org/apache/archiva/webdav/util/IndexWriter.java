@@ -25,72 +25,141 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 /**
+ * Writes the listing of a collection as HTML page or as JSON document.
+ *
+ * The sorted listing is taken from a {@link DirectoryListingCache}, if one is set. Listings can be split
+ * into pages.
  */
 public class IndexWriter
 {
 
     private static final Logger log = LoggerFactory.getLogger( IndexWriter.class );
 
+    private static final int BUFFER_SIZE = 32 * 1024;
+
+    /**
+     * The output formats of a listing
+     */
+    public enum Format
+    {
+        HTML( "text/html; charset=UTF-8" ), JSON( "application/json; charset=UTF-8" );
+
+        private final String contentType;
+
+        Format( String contentType )
+        {
+            this.contentType = contentType;
+        }
+
+        public String getContentType( )
+        {
+            return contentType;
+        }
+    }
+
     private final String logicalResource;
 
     private final List<StorageAsset> repositoryAssets;
 
-
-    private final boolean isVirtual;
+    private DirectoryListingCache listingCache;
 
     public IndexWriter( StorageAsset reference, String logicalResource )
     {
         this.repositoryAssets = new ArrayList<>(  );
         this.repositoryAssets.add(reference);
         this.logicalResource = logicalResource;
-        this.isVirtual = false;
     }
 
     public IndexWriter( List<StorageAsset> localResources, String logicalResource )
     {
         this.logicalResource = logicalResource;
         this.repositoryAssets = localResources;
-        this.isVirtual = true;
+    }
+
+    /**
+     * Sets the cache for the sorted listings. If no cache is set, the directories are listed for each call.
+     */
+    public void setListingCache( DirectoryListingCache listingCache )
+    {
+        this.listingCache = listingCache;
     }
 
     public void write( OutputContext outputContext )
+    {
+        write( outputContext, Format.HTML, 1, 0 );
+    }
+
+    /**
+     * Writes the listing.
+     *
+     * @param outputContext the output context
+     * @param format the output format
+     * @param page the number of the page to write, starting with 1
+     * @param pageSize the number of entries of a page, or 0 to write all entries
+     */
+    public void write( OutputContext outputContext, Format format, int page, int pageSize )
     {
         outputContext.setModificationTime( new Date().getTime() );
-        outputContext.setContentType( "text/html" );
+        outputContext.setContentType( format.getContentType() );
         outputContext.setETag( "" ); // skygo ETag MRM-1127 seems to be fixed
         if ( outputContext.hasStream() )
         {
-            PrintWriter writer = new PrintWriter( outputContext.getOutputStream() );
-            writeDocumentStart( writer );
-            try
+            PrintWriter writer = new PrintWriter( new BufferedWriter(
+                new OutputStreamWriter( outputContext.getOutputStream(), StandardCharsets.UTF_8 ), BUFFER_SIZE ) );
+            List<DirectoryListingCache.Item> items = getItems();
+            int total = items.size();
+            if ( pageSize > 0 )
             {
-                writeHyperlinks( writer );
+                int from = Math.min( ( Math.max( page, 1 ) - 1 ) * pageSize, total );
+                items = items.subList( from, Math.min( from + pageSize, total ) );
             }
-            catch ( IOException e )
+            if ( format == Format.JSON )
             {
-                log.error("Could not write hyperlinks {}", e.getMessage(), e);
+                writeJson( writer, items, total );
+            }
+            else
+            {
+                writeDocumentStart( writer );
+                for ( DirectoryListingCache.Item item : items )
+                {
+                    writeHyperlink( writer, item.getName(), item.getLastModified(), item.getSize(),
+                        item.isContainer() );
+                }
+                writeDocumentEnd( writer, page, pageSize, total );
             }
-            writeDocumentEnd( writer );
             writer.flush();
             writer.close();
         }
     }
 
+    private List<DirectoryListingCache.Item> getItems()
+    {
+        try
+        {
+            return listingCache == null
+                ? DirectoryListingCache.createListing( repositoryAssets )
+                : listingCache.getListing( repositoryAssets );
+        }
+        catch ( RuntimeException e )
+        {
+            log.error("Could not write hyperlinks {}", e.getMessage(), e);
+            return new ArrayList<>( );
+        }
+    }
+
     private void writeDocumentStart( PrintWriter writer )
     {
         writer.println("<!DOCTYPE html>");
@@ -141,47 +210,66 @@ private void writeDocumentStart( PrintWriter writer )
         writer.println( "<tr><th>Name</th><th>Size (Bytes)</th><th>Last Modified</th></tr>" );
     }
 
-    private void writeDocumentEnd( PrintWriter writer )
+    private void writeDocumentEnd( PrintWriter writer, int page, int pageSize, int total )
     {
         writer.println( "</table>" );
+        if ( pageSize > 0 && total > pageSize )
+        {
+            int current = Math.max( page, 1 );
+            int pages = ( total + pageSize - 1 ) / pageSize;
+            writer.print( "<p>Page " + current + " of " + pages );
+            if ( current > 1 )
+            {
+                writer.print( " <a href=\"?page=" + ( current - 1 ) + "&amp;pageSize=" + pageSize + "\">Previous</a>" );
+            }
+            if ( current < pages )
+            {
+                writer.print( " <a href=\"?page=" + ( current + 1 ) + "&amp;pageSize=" + pageSize + "\">Next</a>" );
+            }
+            writer.println( "</p>" );
+        }
         writer.println( "</body>" );
         writer.println( "</html>" );
     }
 
-    private void writeHyperlinks( PrintWriter writer ) throws IOException
+    private void writeJson( PrintWriter writer, List<DirectoryListingCache.Item> items, int total )
     {
-        if ( !isVirtual )
+        writer.print( "{\"path\":\"/" );
+        writeJsonString( writer, StringUtils.defaultString( logicalResource ) );
+        writer.print( "\",\"total\":" + total + ",\"entries\":[" );
+        boolean first = true;
+        for ( DirectoryListingCache.Item item : items )
         {
-            for ( StorageAsset localResource : repositoryAssets )
+            writer.print( first ? "\n{\"name\":\"" : ",\n{\"name\":\"" );
+            writeJsonString( writer, item.getName() );
+            writer.print( "\",\"directory\":" + item.isContainer() );
+            if ( !item.isContainer() )
             {
-                localResource.list().stream().sorted(
-                    Comparator.comparing( StorageAsset::getName )
-                ).forEach( asset -> {
-                    writeHyperlink( writer, asset.getName(), asset.getModificationTime().toEpochMilli(), asset.getSize(),
-                        asset.isContainer() );
-                } );
+                writer.print( ",\"size\":" + item.getSize() );
             }
+            writer.print( ",\"lastModified\":" + item.getLastModified() + "}" );
+            first = false;
         }
-        else
+        writer.println( "]}" );
+    }
+
+    private static void writeJsonString( PrintWriter writer, String value )
+    {
+        for ( int i = 0; i < value.length(); i++ )
         {
-            // virtual repository - filter unique directories
-            SortedMap<String, StorageAsset> uniqueChildFiles = new TreeMap<>();
-            for ( StorageAsset resource : repositoryAssets )
+            char c = value.charAt( i );
+            if ( c == '"' || c == '\\' )
             {
-                List<? extends StorageAsset> files = resource.list();
-                for ( StorageAsset file : files )
-                {
-                    // the first entry wins
-                    if (!uniqueChildFiles.containsKey( file.getName() )) {
-                        uniqueChildFiles.put(file.getName(), file);
-                    }
-                }
+                writer.print( '\\' );
+                writer.print( c );
+            }
+            else if ( c < 0x20 )
+            {
+                writer.print( String.format( "\\u%04x", (int) c ) );
             }
-            for ( Map.Entry<String, StorageAsset> entry : uniqueChildFiles.entrySet())
+            else
             {
-                final StorageAsset asset = entry.getValue();
-                 writeHyperlink( writer, asset.getName(), asset.getModificationTime().toEpochMilli(),
-                            asset.getSize(), asset.isContainer());
+                writer.print( c );
             }
         }
     }
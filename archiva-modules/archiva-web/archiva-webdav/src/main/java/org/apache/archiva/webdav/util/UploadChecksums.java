@@ -0,0 +1,137 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.checksum.Checksum;
+import org.apache.archiva.checksum.ChecksumAlgorithm;
+import org.apache.archiva.repository.storage.StorageAsset;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the checksums that were computed while recently uploaded files were received.
+ *
+ * Checksum files that are uploaded after the file they belong to are verified against these values, without
+ * reading the uploaded file again. An entry is only returned as long as size and modification time of the
+ * file are unchanged.
+ *
+ * @since 3.0
+ */
+public class UploadChecksums
+{
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private final Map<String, Digests> entries;
+
+    public UploadChecksums( )
+    {
+        this( DEFAULT_MAX_ENTRIES );
+    }
+
+    public UploadChecksums( final int maxEntries )
+    {
+        this.entries = new LinkedHashMap<String, Digests>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, Digests> eldest )
+            {
+                return size( ) > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Stores the checksums of the given file.
+     *
+     * @param asset the uploaded file
+     * @param checksums the finished checksums of the content
+     */
+    public void put( StorageAsset asset, List<Checksum> checksums )
+    {
+        if ( checksums.isEmpty( ) )
+        {
+            return;
+        }
+        Map<ChecksumAlgorithm, String> values = new EnumMap<>( ChecksumAlgorithm.class );
+        for ( Checksum checksum : checksums )
+        {
+            values.put( checksum.getAlgorithm( ), checksum.getChecksum( ) );
+        }
+        Digests entry = new Digests( asset.getSize( ), asset.getModificationTime( ), values );
+        synchronized ( entries )
+        {
+            entries.put( getKey( asset ), entry );
+        }
+    }
+
+    /**
+     * Returns the checksums of the given file.
+     *
+     * @param asset the uploaded file
+     * @return the hex encoded checksums, or an empty map, if there are no valid checksums for the file
+     */
+    public Map<ChecksumAlgorithm, String> get( StorageAsset asset )
+    {
+        String key = getKey( asset );
+        Digests entry;
+        synchronized ( entries )
+        {
+            entry = entries.get( key );
+        }
+        if ( entry == null || !asset.exists( ) || asset.getSize( ) != entry.size
+            || !entry.modificationTime.equals( asset.getModificationTime( ) ) )
+        {
+            return Collections.emptyMap( );
+        }
+        return Collections.unmodifiableMap( entry.values );
+    }
+
+    public void remove( StorageAsset asset )
+    {
+        synchronized ( entries )
+        {
+            entries.remove( getKey( asset ) );
+        }
+    }
+
+    private static String getKey( StorageAsset asset )
+    {
+        return asset.getStorage( ).getLocation( ) + ":" + asset.getPath( );
+    }
+
+    private static class Digests
+    {
+        final long size;
+        final Instant modificationTime;
+        final Map<ChecksumAlgorithm, String> values;
+
+        Digests( long size, Instant modificationTime, Map<ChecksumAlgorithm, String> values )
+        {
+            this.size = size;
+            this.modificationTime = modificationTime;
+            this.values = values;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.checksum.Checksum;
+import org.apache.archiva.checksum.ChecksumAlgorithm;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes the body of upload requests to a file and computes the checksums of the content in the same pass.
+ *
+ * @since 3.0
+ */
+public final class UploadReceiver
+{
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern CHECKSUM_PATTERN = Pattern.compile( "(?:^|[\\s=])([0-9a-fA-F]{32,128})(?:$|\\s)" );
+
+    private UploadReceiver( )
+    {
+    }
+
+    /**
+     * Copies the input to the given file and updates the checksums with the content.
+     * The checksums are finished after the copy.
+     *
+     * @param input the request body
+     * @param target the file to write to. The file is created or truncated.
+     * @param checksums the checksums to update, may be empty
+     * @return the number of bytes written
+     * @throws IOException if the data could not be read or written
+     */
+    public static long receive( InputStream input, Path target, List<Checksum> checksums )
+        throws IOException
+    {
+        long size = 0;
+        ReadableByteChannel source = Channels.newChannel( input );
+        try ( FileChannel channel = FileChannel.open( target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING ) )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+            while ( source.read( buffer ) >= 0 )
+            {
+                buffer.flip( );
+                for ( Checksum checksum : checksums )
+                {
+                    checksum.update( buffer.duplicate( ) );
+                }
+                while ( buffer.hasRemaining( ) )
+                {
+                    size += channel.write( buffer );
+                }
+                buffer.clear( );
+            }
+        }
+        for ( Checksum checksum : checksums )
+        {
+            checksum.finish( );
+        }
+        return size;
+    }
+
+    /**
+     * Updates the checksum with the remaining content of the stream and finishes it.
+     *
+     * @param input the stream to read
+     * @param checksum the checksum to update
+     * @throws IOException if the data could not be read
+     */
+    public static void update( InputStream input, Checksum checksum )
+        throws IOException
+    {
+        ReadableByteChannel source = Channels.newChannel( input );
+        ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+        while ( source.read( buffer ) >= 0 )
+        {
+            buffer.flip( );
+            checksum.update( buffer );
+            buffer.clear( );
+        }
+        checksum.finish( );
+    }
+
+    /**
+     * Returns the checksum algorithm for the extension of the given file name, or <code>null</code>, if the
+     * file is not a checksum file. Signature files are not regarded as checksum files.
+     *
+     * @param fileName the name of the file
+     */
+    public static ChecksumAlgorithm getChecksumAlgorithm( String fileName )
+    {
+        String extension = StringUtils.substringAfterLast( fileName, "." ).toLowerCase( Locale.ROOT );
+        if ( extension.isEmpty( ) || !ChecksumAlgorithm.getAllExtensions( ).contains( extension ) )
+        {
+            return null;
+        }
+        for ( ChecksumAlgorithm algorithm : ChecksumAlgorithm.values( ) )
+        {
+            if ( algorithm != ChecksumAlgorithm.ASC && algorithm.getExt( ).contains( extension ) )
+            {
+                return algorithm;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the checksum of the content of a checksum file in lower case. The plain format, the format of
+     * the <code>sha1sum</code> tools and the BSD format are supported.
+     *
+     * @param content the content of the checksum file
+     * @return the hex encoded checksum, or <code>null</code>, if the content contains no checksum
+     */
+    public static String parseChecksum( String content )
+    {
+        if ( content == null )
+        {
+            return null;
+        }
+        Matcher matcher = CHECKSUM_PATTERN.matcher( content.trim( ) );
+        return matcher.find( ) ? matcher.group( 1 ).toLowerCase( Locale.ROOT ) : null;
+    }
+}
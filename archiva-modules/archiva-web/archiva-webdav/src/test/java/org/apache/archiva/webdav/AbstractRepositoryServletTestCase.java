@@ -73,6 +73,7 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
@@ -212,6 +213,12 @@ public void setUp()
     protected void startRepository()
         throws Exception
     {
+        startRepository( Collections.<String, String>emptyMap() );
+    }
+
+    protected void startRepository( Map<String, String> initParameters )
+        throws Exception
+    {
 
         final MockServletContext mockServletContext = new MockServletContext();
 
@@ -229,6 +236,10 @@ public ServletContext getServletContext()
                 return mockServletContext;
             }
         };
+        for ( Map.Entry<String, String> parameter : initParameters.entrySet() )
+        {
+            mockServletConfig.addInitParameter( parameter.getKey(), parameter.getValue() );
+        }
 
         unauthenticatedRepositoryServlet.init( mockServletConfig );
 
@@ -602,6 +602,9 @@ public void testRequestArtifactMetadataThreePartsRepoHasDefaultLayout()
             response.setDateHeader( eq("Last-Modified"), anyLong() );
             expectLastCall();
 
+            response.setHeader( eq( "ETag" ), anyString() );
+            expectLastCall().anyTimes();
+
             archivaConfigurationControl.replay();
             repoContentFactoryControl.replay();
             requestControl.replay();
@@ -0,0 +1,211 @@
+package org.apache.archiva.webdav;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.configuration.ProxyConnectorConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the asynchronous processing of repository downloads.
+ */
+public class RepositoryServletAsyncTest
+    extends AbstractRepositoryServletTestCase
+{
+    private static final String RELEASE_JAR = "commons-lang/commons-lang/2.1/commons-lang-2.1.jar";
+
+    private static final String CONTENT = "dummy-jar-content";
+
+    private AsyncTestServlet servlet;
+
+    public static class AsyncTestServlet
+        extends UnauthenticatedRepositoryServlet
+    {
+        volatile String threadName;
+
+        volatile CountDownLatch release;
+
+        volatile RuntimeException failure;
+
+        final CountDownLatch finished = new CountDownLatch( 1 );
+
+        @Override
+        protected void processRequest( HttpServletRequest request, HttpServletResponse response )
+            throws ServletException, IOException
+        {
+            threadName = Thread.currentThread().getName();
+            try
+            {
+                if ( release != null )
+                {
+                    release.await( 10, TimeUnit.SECONDS );
+                }
+                if ( failure != null )
+                {
+                    throw failure;
+                }
+                super.processRequest( request, response );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+            finally
+            {
+                finished.countDown();
+            }
+        }
+    }
+
+    @Before
+    @Override
+    public void setUp()
+        throws Exception
+    {
+        super.setUp();
+        archivaConfiguration.getConfiguration().setProxyConnectors( new ArrayList<ProxyConnectorConfiguration>() );
+        servlet = new AsyncTestServlet();
+        unauthenticatedRepositoryServlet = servlet;
+        startRepository( Collections.singletonMap( RepositoryServlet.ASYNC_THREADS_PARAM, "2" ) );
+
+        Path jarFile = repoRootInternal.resolve( RELEASE_JAR );
+        Files.createDirectories( jarFile.getParent() );
+        org.apache.archiva.common.utils.FileUtils.writeStringToFile( jarFile, Charset.defaultCharset(), CONTENT );
+    }
+
+    @Override
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        if ( servlet.release != null )
+        {
+            servlet.release.countDown();
+        }
+        super.tearDown();
+    }
+
+    private MockHttpServletRequest createRequest( String path )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRequestURI( "/repository/internal/" + path );
+        request.setServletPath( "/repository" );
+        request.setPathInfo( "/internal/" + path );
+        request.addHeader( "User-Agent", "Apache Archiva unit test" );
+        request.setMethod( "GET" );
+        request.setAsyncSupported( true );
+        return request;
+    }
+
+    private static void waitForCompletion( MockHttpServletRequest request )
+        throws InterruptedException
+    {
+        long end = System.currentTimeMillis() + 10000;
+        while ( request.isAsyncStarted() && System.currentTimeMillis() < end )
+        {
+            Thread.sleep( 10 );
+        }
+        assertFalse( "Asynchronous request is not completed", request.isAsyncStarted() );
+    }
+
+    @Test
+    public void testAsyncDownload()
+        throws Exception
+    {
+        MockHttpServletRequest request = createRequest( RELEASE_JAR );
+        MockHttpServletResponse response = execute( request );
+        waitForCompletion( request );
+
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        assertEquals( CONTENT, response.getContentAsString() );
+        assertTrue( servlet.threadName, servlet.threadName.startsWith( "repository-download-" ) );
+    }
+
+    @Test
+    public void testMetadataIsProcessedSynchronously()
+        throws Exception
+    {
+        String metadata = "commons-lang/commons-lang/maven-metadata.xml";
+        Path metadataFile = repoRootInternal.resolve( metadata );
+        org.apache.archiva.common.utils.FileUtils.writeStringToFile( metadataFile, Charset.defaultCharset(),
+                                                                     "dummy-project-metadata" );
+
+        MockHttpServletRequest request = createRequest( metadata );
+        MockHttpServletResponse response = execute( request );
+
+        assertFalse( request.isAsyncStarted() );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        assertEquals( Thread.currentThread().getName(), servlet.threadName );
+    }
+
+    @Test
+    public void testTimeout()
+        throws Exception
+    {
+        servlet.release = new CountDownLatch( 1 );
+        MockHttpServletRequest request = createRequest( RELEASE_JAR );
+        MockHttpServletResponse response = execute( request );
+        assertTrue( request.isAsyncStarted() );
+
+        // the container notifies the listeners, when the timeout is reached
+        MockAsyncContext asyncContext = (MockAsyncContext) request.getAsyncContext();
+        for ( AsyncListener listener : new ArrayList<>( asyncContext.getListeners() ) )
+        {
+            listener.onTimeout( new AsyncEvent( asyncContext, request, response ) );
+        }
+        assertFalse( request.isAsyncStarted() );
+        assertEquals( HttpServletResponse.SC_SERVICE_UNAVAILABLE, response.getStatus() );
+
+        // the download thread finishes later and must not change the response
+        servlet.release.countDown();
+        assertTrue( servlet.finished.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( HttpServletResponse.SC_SERVICE_UNAVAILABLE, response.getStatus() );
+    }
+
+    @Test
+    public void testError()
+        throws Exception
+    {
+        servlet.failure = new IllegalStateException( "Test failure" );
+        MockHttpServletRequest request = createRequest( RELEASE_JAR );
+        MockHttpServletResponse response = execute( request );
+        waitForCompletion( request );
+
+        assertEquals( HttpServletResponse.SC_INTERNAL_SERVER_ERROR, response.getStatus() );
+    }
+}
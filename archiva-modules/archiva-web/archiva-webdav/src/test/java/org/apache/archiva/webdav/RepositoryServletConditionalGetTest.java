@@ -0,0 +1,271 @@
+package org.apache.archiva.webdav;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.configuration.ProxyConnectorConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Tests the conditional and the range requests of repository files.
+ */
+public class RepositoryServletConditionalGetTest
+    extends AbstractRepositoryServletTestCase
+{
+    private static final String RELEASE_JAR = "commons-lang/commons-lang/2.1/commons-lang-2.1.jar";
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @Before
+    @Override
+    public void setUp()
+        throws Exception
+    {
+        super.setUp();
+        archivaConfiguration.getConfiguration().setProxyConnectors( new ArrayList<ProxyConnectorConfiguration>() );
+        startRepository();
+    }
+
+    @Override
+    @After
+    public void tearDown()
+        throws Exception
+    {
+        super.tearDown();
+    }
+
+    private void createFile( String path, String content )
+        throws Exception
+    {
+        Path file = repoRootInternal.resolve( path );
+        Files.createDirectories( file.getParent() );
+        org.apache.archiva.common.utils.FileUtils.writeStringToFile( file, Charset.defaultCharset(), content );
+    }
+
+    private MockHttpServletRequest createRequest( String method, String path )
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRequestURI( "/repository/internal/" + path );
+        request.addHeader( "User-Agent", "Apache Archiva unit test" );
+        request.setMethod( method );
+        return request;
+    }
+
+    @Test
+    public void testNotModifiedByEntityTag()
+        throws Exception
+    {
+        createFile( RELEASE_JAR, CONTENT );
+
+        MockHttpServletResponse response = execute( createRequest( "GET", RELEASE_JAR ) );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        String etag = response.getHeader( "ETag" );
+        assertNotNull( etag );
+
+        MockHttpServletRequest request = createRequest( "GET", RELEASE_JAR );
+        request.addHeader( "If-None-Match", etag );
+        response = execute( request );
+        assertEquals( HttpServletResponse.SC_NOT_MODIFIED, response.getStatus() );
+        assertEquals( 0, response.getContentAsByteArray().length );
+
+        request = createRequest( "GET", RELEASE_JAR );
+        request.addHeader( "If-None-Match", "\"0000000000000000000000000000000000000000\"" );
+        response = execute( request );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        assertEquals( CONTENT, response.getContentAsString() );
+    }
+
+    @Test
+    public void testNotModifiedSince()
+        throws Exception
+    {
+        createFile( RELEASE_JAR, CONTENT );
+        long lastModified = Files.getLastModifiedTime( repoRootInternal.resolve( RELEASE_JAR ) ).toMillis();
+
+        MockHttpServletRequest request = createRequest( "GET", RELEASE_JAR );
+        request.addHeader( "If-Modified-Since", lastModified + 1000 );
+        MockHttpServletResponse response = execute( request );
+        assertEquals( HttpServletResponse.SC_NOT_MODIFIED, response.getStatus() );
+
+        request = createRequest( "GET", RELEASE_JAR );
+        request.addHeader( "If-Modified-Since", lastModified - 10000 );
+        response = execute( request );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        assertEquals( CONTENT, response.getContentAsString() );
+    }
+
+    @Test
+    public void testSingleRange()
+        throws Exception
+    {
+        createFile( RELEASE_JAR, CONTENT );
+
+        MockHttpServletRequest request = createRequest( "GET", RELEASE_JAR );
+        request.addHeader( "Range", "bytes=2-5" );
+        MockHttpServletResponse response = execute( request );
+        assertEquals( HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus() );
+        assertEquals( "bytes 2-5/20", response.getHeader( "Content-Range" ) );
+        assertEquals( "2345", response.getContentAsString() );
+
+        request = createRequest( "GET", RELEASE_JAR );
+        request.addHeader( "Range", "bytes=-4" );
+        response = execute( request );
+        assertEquals( HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus() );
+        assertEquals( "bytes 16-19/20", response.getHeader( "Content-Range" ) );
+        assertEquals( "ghij", response.getContentAsString() );
+    }
+
+    @Test
+    public void testRangeIgnoredIfChanged()
+        throws Exception
+    {
+        createFile( RELEASE_JAR, CONTENT );
+
+        MockHttpServletRequest request = createRequest( "GET", RELEASE_JAR );
+        request.addHeader( "Range", "bytes=2-5" );
+        request.addHeader( "If-Range", "\"0000000000000000000000000000000000000000\"" );
+        MockHttpServletResponse response = execute( request );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        assertEquals( CONTENT, response.getContentAsString() );
+    }
+
+    @Test
+    public void testRangeNotSatisfiable()
+        throws Exception
+    {
+        createFile( RELEASE_JAR, CONTENT );
+
+        MockHttpServletRequest request = createRequest( "GET", RELEASE_JAR );
+        request.addHeader( "Range", "bytes=100-200" );
+        MockHttpServletResponse response = execute( request );
+        assertEquals( HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus() );
+        assertEquals( "bytes */20", response.getHeader( "Content-Range" ) );
+    }
+
+    @Test
+    public void testCompressedVariantHasOwnEntityTag()
+        throws Exception
+    {
+        String pom = "commons-lang/commons-lang/2.1/commons-lang-2.1.pom";
+        createFile( pom, "<project><modelVersion>4.0.0</modelVersion></project>" );
+        createFile( pom + ".sha1", "dummy-checksum" );
+
+        String identityETag = execute( createRequest( "GET", pom ) ).getHeader( "ETag" );
+        MockHttpServletRequest request = createRequest( "GET", pom );
+        request.addHeader( "Accept-Encoding", "gzip" );
+        MockHttpServletResponse response = execute( request );
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        assertEquals( "gzip", response.getHeader( "Content-Encoding" ) );
+        String gzipETag = response.getHeader( "ETag" );
+        assertTrue( gzipETag, gzipETag.endsWith( "-gzip\"" ) );
+        assertFalse( gzipETag.equals( identityETag ) );
+
+        request = createRequest( "GET", pom );
+        request.addHeader( "Accept-Encoding", "gzip" );
+        request.addHeader( "If-None-Match", gzipETag );
+        response = execute( request );
+        assertEquals( HttpServletResponse.SC_NOT_MODIFIED, response.getStatus() );
+        assertEquals( gzipETag, response.getHeader( "ETag" ) );
+
+        // checksum files are not compressed
+        request = createRequest( "GET", pom + ".sha1" );
+        request.addHeader( "Accept-Encoding", "gzip" );
+        response = execute( request );
+        assertNull( response.getHeader( "Content-Encoding" ) );
+        assertEquals( "dummy-checksum", response.getContentAsString() );
+    }
+
+    @Test
+    public void testCompressionRefusedByQualityValue()
+        throws Exception
+    {
+        String pom = "commons-lang/commons-lang/2.1/commons-lang-2.1.pom";
+        createFile( pom, "<project><modelVersion>4.0.0</modelVersion></project>" );
+
+        for ( String acceptEncoding : new String[]{ "gzip;q=0", "*;q=0", "deflate, gzip; q=0.0", "identity" } )
+        {
+            MockHttpServletRequest request = createRequest( "GET", pom );
+            request.addHeader( "Accept-Encoding", acceptEncoding );
+            MockHttpServletResponse response = execute( request );
+            assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+            assertNull( acceptEncoding, response.getHeader( "Content-Encoding" ) );
+        }
+
+        MockHttpServletRequest request = createRequest( "GET", pom );
+        request.addHeader( "Accept-Encoding", "deflate;q=1.0, gzip;q=0.5" );
+        assertEquals( "gzip", execute( request ).getHeader( "Content-Encoding" ) );
+    }
+
+    @Test
+    public void testAcceptsGzip()
+    {
+        assertTrue( RepositoryServlet.acceptsGzip( "gzip" ) );
+        assertTrue( RepositoryServlet.acceptsGzip( "deflate, GZIP;q=0.8" ) );
+        assertTrue( RepositoryServlet.acceptsGzip( "x-gzip" ) );
+        assertTrue( RepositoryServlet.acceptsGzip( "identity, *" ) );
+        assertTrue( RepositoryServlet.acceptsGzip( "*;q=0, gzip" ) );
+        assertFalse( RepositoryServlet.acceptsGzip( null ) );
+        assertFalse( RepositoryServlet.acceptsGzip( "" ) );
+        assertFalse( RepositoryServlet.acceptsGzip( "gzip;q=0" ) );
+        assertFalse( RepositoryServlet.acceptsGzip( "gzip;q=0.000" ) );
+        assertFalse( RepositoryServlet.acceptsGzip( "gzip;q=invalid" ) );
+        assertFalse( RepositoryServlet.acceptsGzip( "*;q=0" ) );
+        assertFalse( RepositoryServlet.acceptsGzip( "gzip;q=0, *" ) );
+        assertFalse( RepositoryServlet.acceptsGzip( "gzipped, deflate" ) );
+    }
+
+    @Test
+    public void testImmutableOnlyForReleaseArtifacts()
+        throws Exception
+    {
+        String snapshotJar = "org/apache/archiva/test/1.0-SNAPSHOT/test-1.0-SNAPSHOT.jar";
+        String metadata = "commons-lang/commons-lang/maven-metadata.xml";
+        String indexFile = ".index/nexus-maven-repository-index.properties";
+        createFile( RELEASE_JAR, CONTENT );
+        createFile( RELEASE_JAR + ".sha1", "dummy-checksum" );
+        createFile( snapshotJar, CONTENT );
+        createFile( metadata, "dummy-project-metadata" );
+        createFile( metadata + ".sha1", "dummy-checksum" );
+        createFile( indexFile, "nexus.index.id=internal" );
+
+        assertTrue( execute( createRequest( "GET", RELEASE_JAR ) ).getHeader( "Cache-Control" ).contains(
+            "immutable" ) );
+        assertTrue( execute( createRequest( "GET", RELEASE_JAR + ".sha1" ) ).getHeader( "Cache-Control" ).contains(
+            "immutable" ) );
+
+        for ( String path : new String[]{ snapshotJar, metadata, metadata + ".sha1", indexFile } )
+        {
+            MockHttpServletResponse response = execute( createRequest( "GET", path ) );
+            assertEquals( path, HttpServletResponse.SC_OK, response.getStatus() );
+            String cacheControl = response.getHeader( "Cache-Control" );
+            assertTrue( path + ": " + cacheControl, cacheControl == null || !cacheControl.contains( "immutable" ) );
+            assertNotNull( path, response.getHeader( "Last-Modified" ) );
+        }
+    }
+}
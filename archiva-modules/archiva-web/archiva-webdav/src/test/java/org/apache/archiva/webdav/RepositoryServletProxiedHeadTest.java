@@ -0,0 +1,100 @@
+package org.apache.archiva.webdav;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.configuration.RepositoryGroupConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+
+/**
+ * Tests, that HEAD requests of resources, that only exist on a remote repository, are answered without
+ * downloading the resource.
+ */
+public class RepositoryServletProxiedHeadTest
+    extends AbstractRepositoryServletProxiedTestCase
+{
+    private static final String REPO_GROUP = "proxied-group";
+
+    private static final String RELEASE_JAR = "org/apache/archiva/test/1.0/test-1.0.jar";
+
+    @Before
+    @Override
+    public void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        setupCentralRemoteRepo();
+        setupCleanInternalRepo();
+        setupConnector( REPOID_INTERNAL, remoteCentral );
+
+        RepositoryGroupConfiguration group = new RepositoryGroupConfiguration();
+        group.setId( REPO_GROUP );
+        group.setRepositories( Collections.singletonList( REPOID_INTERNAL ) );
+        archivaConfiguration.getConfiguration().addRepositoryGroup( group );
+        saveConfiguration();
+
+        populateRepo( remoteCentral, RELEASE_JAR, "remote content" );
+    }
+
+    private MockHttpServletResponse head( String repositoryId, String path )
+        throws Exception
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRequestURI( "/repository/" + repositoryId + "/" + path );
+        request.addHeader( "User-Agent", "Apache Archiva unit test" );
+        request.setMethod( "HEAD" );
+        return execute( request );
+    }
+
+    @Test
+    public void testHeadOfRemoteResource()
+        throws Exception
+    {
+        MockHttpServletResponse response = head( REPOID_INTERNAL, RELEASE_JAR );
+
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        assertManagedFileNotExists( repoRootInternal, RELEASE_JAR );
+    }
+
+    @Test
+    public void testGroupHeadOfRemoteResource()
+        throws Exception
+    {
+        MockHttpServletResponse response = head( REPO_GROUP, RELEASE_JAR );
+
+        assertEquals( HttpServletResponse.SC_OK, response.getStatus() );
+        assertManagedFileNotExists( repoRootInternal, RELEASE_JAR );
+    }
+
+    @Test
+    public void testGroupHeadOfMissingResource()
+        throws Exception
+    {
+        MockHttpServletResponse response = head( REPO_GROUP, "org/apache/archiva/test/1.0/missing-1.0.jar" );
+
+        assertEquals( HttpServletResponse.SC_NOT_FOUND, response.getStatus() );
+    }
+}
@@ -0,0 +1,76 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test for {@link ByteRange}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class ByteRangeTest
+    extends TestCase
+{
+    @Test
+    public void testParse( )
+    {
+        assertEquals( Arrays.asList( new ByteRange( 0, 499 ) ), ByteRange.parse( "bytes=0-499", 1000 ) );
+        assertEquals( Arrays.asList( new ByteRange( 500, 999 ) ), ByteRange.parse( "bytes=500-", 1000 ) );
+        assertEquals( Arrays.asList( new ByteRange( 900, 999 ) ), ByteRange.parse( "bytes=-100", 1000 ) );
+        assertEquals( Arrays.asList( new ByteRange( 0, 999 ) ), ByteRange.parse( "bytes=-2000", 1000 ) );
+        assertEquals( Arrays.asList( new ByteRange( 900, 999 ) ), ByteRange.parse( "bytes=900-5000", 1000 ) );
+
+        List<ByteRange> ranges = ByteRange.parse( "bytes=0-0, 10-19,-1", 1000 );
+        assertEquals( Arrays.asList( new ByteRange( 0, 0 ), new ByteRange( 10, 19 ), new ByteRange( 999, 999 ) ),
+            ranges );
+        assertEquals( "bytes 10-19/1000", ranges.get( 1 ).getContentRange( 1000 ) );
+        assertEquals( 10, ranges.get( 1 ).getLength( ) );
+    }
+
+    @Test
+    public void testUnsatisfiable( )
+    {
+        assertTrue( ByteRange.parse( "bytes=1000-", 1000 ).isEmpty( ) );
+        assertTrue( ByteRange.parse( "bytes=-0", 1000 ).isEmpty( ) );
+        assertTrue( ByteRange.parse( "bytes=0-", 0 ).isEmpty( ) );
+    }
+
+    @Test
+    public void testIgnored( )
+    {
+        assertNull( ByteRange.parse( null, 1000 ) );
+        assertNull( ByteRange.parse( "items=0-10", 1000 ) );
+        assertNull( ByteRange.parse( "bytes=10-5", 1000 ) );
+        assertNull( ByteRange.parse( "bytes=a-b", 1000 ) );
+        assertNull( ByteRange.parse( "bytes=10", 1000 ) );
+        StringBuilder header = new StringBuilder( "bytes=0-0" );
+        for ( int i = 1; i <= ByteRange.MAX_RANGES; i++ )
+        {
+            header.append( "," ).append( i ).append( "-" ).append( i );
+        }
+        assertNull( ByteRange.parse( header.toString( ), 1000 ) );
+    }
+}
@@ -0,0 +1,116 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.common.filelock.DefaultFileLockManager;
+import org.apache.archiva.repository.storage.StorageAsset;
+import org.apache.archiva.repository.storage.fs.FilesystemStorage;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Test for {@link CompressedContentCache}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class CompressedContentCacheTest
+    extends TestCase
+{
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder( );
+
+    private Path repoDir;
+
+    private FilesystemStorage storage;
+
+    @Before
+    public void setUp( )
+        throws Exception
+    {
+        super.setUp( );
+        repoDir = tempDir.newFolder( "internal" ).toPath( );
+        storage = new FilesystemStorage( repoDir, new DefaultFileLockManager( ) );
+    }
+
+    @Test
+    public void testIsCompressible( )
+    {
+        assertTrue( CompressedContentCache.isCompressible( "archiva-1.0.pom" ) );
+        assertTrue( CompressedContentCache.isCompressible( "maven-metadata.xml" ) );
+        assertFalse( CompressedContentCache.isCompressible( "archiva-1.0.jar.SHA1" ) );
+        assertFalse( CompressedContentCache.isCompressible( "archiva-1.0.pom.md5" ) );
+        assertFalse( CompressedContentCache.isCompressible( "archiva-1.0.pom.asc" ) );
+        assertFalse( CompressedContentCache.isCompressible( "archiva-1.0.jar" ) );
+        assertFalse( CompressedContentCache.isCompressible( "archiva-1.0.tar.gz" ) );
+        assertFalse( CompressedContentCache.isCompressible( "README" ) );
+    }
+
+    @Test
+    public void testGzipIsRecreatedAfterModification( )
+        throws Exception
+    {
+        Path file = repoDir.resolve( "test-1.0.pom" );
+        Files.write( file, "<project/>".getBytes( StandardCharsets.UTF_8 ) );
+        Files.setLastModifiedTime( file, FileTime.fromMillis( 1000000L ) );
+        StorageAsset asset = storage.getAsset( "test-1.0.pom" );
+        CompressedContentCache cache = new CompressedContentCache( );
+
+        byte[] data = cache.getGzip( asset );
+        assertEquals( "<project/>", decompress( data ) );
+        assertSame( data, cache.getGzip( asset ) );
+
+        Files.write( file, "<project></project>".getBytes( StandardCharsets.UTF_8 ) );
+        Files.setLastModifiedTime( file, FileTime.fromMillis( 2000000L ) );
+        assertEquals( "<project></project>", decompress( cache.getGzip( asset ) ) );
+    }
+
+    @Test
+    public void testBinaryAndLargeFilesAreNotCompressed( )
+        throws Exception
+    {
+        Files.write( repoDir.resolve( "test-1.0.jar" ), new byte[10] );
+        Files.write( repoDir.resolve( "large.xml" ), new byte[100] );
+        CompressedContentCache cache = new CompressedContentCache( 50, 1000 );
+        assertNull( cache.getGzip( storage.getAsset( "test-1.0.jar" ) ) );
+        assertNull( cache.getGzip( storage.getAsset( "large.xml" ) ) );
+        assertNull( cache.getGzip( storage.getAsset( "missing.xml" ) ) );
+    }
+
+    private static String decompress( byte[] data )
+        throws Exception
+    {
+        try ( GZIPInputStream in = new GZIPInputStream( new ByteArrayInputStream( data ) ) )
+        {
+            return IOUtils.toString( in, StandardCharsets.UTF_8 );
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test for {@link ContentTransfer}.
+ *
+ * The benchmark compares the transfer with the stream copy that was used before. The size of the
+ * file can be set by the system property <code>archiva.benchmark.spoolSize</code> (in bytes) and the
+ * number of iterations by <code>archiva.benchmark.iterations</code>.
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class ContentTransferTest
+    extends TestCase
+{
+    private static final Logger log = LoggerFactory.getLogger( ContentTransferTest.class );
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder( );
+
+    private byte[] data;
+
+    private Path createFile( int size )
+        throws Exception
+    {
+        data = new byte[size];
+        new Random( 42 ).nextBytes( data );
+        Path file = tempDir.newFile( ).toPath( );
+        Files.write( file, data );
+        return file;
+    }
+
+    @Test
+    public void testFileToStream( )
+        throws Exception
+    {
+        Path file = createFile( 3 * ContentTransfer.BUFFER_SIZE + 17 );
+        ByteArrayOutputStream out = new ByteArrayOutputStream( );
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+        {
+            assertEquals( data.length, ContentTransfer.transfer( channel, out, 0, data.length ) );
+        }
+        assertTrue( Arrays.equals( data, out.toByteArray( ) ) );
+    }
+
+    @Test
+    public void testFileToChannel( )
+        throws Exception
+    {
+        Path file = createFile( 100000 );
+        ChannelOutputStream out = new ChannelOutputStream( );
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+        {
+            assertEquals( 1000, ContentTransfer.transfer( channel, out, 500, 1000 ) );
+            // The count is limited by the file size
+            assertEquals( 100, ContentTransfer.transfer( channel, out, 99900, 1000 ) );
+        }
+        byte[] expected = new byte[1100];
+        System.arraycopy( data, 500, expected, 0, 1000 );
+        System.arraycopy( data, 99900, expected, 1000, 100 );
+        assertTrue( Arrays.equals( expected, out.toByteArray( ) ) );
+    }
+
+    @Test
+    public void testStalledChannel( )
+        throws Exception
+    {
+        Path file = createFile( 100000 );
+        ChannelOutputStream out = new ChannelOutputStream( );
+        out.stalls = 3;
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+        {
+            // the channel cannot take data for some calls, the transfer continues
+            assertEquals( data.length, ContentTransfer.transfer( channel, out, 0, data.length ) );
+        }
+        assertTrue( Arrays.equals( data, out.toByteArray( ) ) );
+
+        out = new ChannelOutputStream( );
+        out.stalls = ContentTransfer.MAX_STALLED_TRANSFERS + 1;
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+        {
+            ContentTransfer.transfer( channel, out, 0, data.length );
+            fail( "A transfer without progress must fail" );
+        }
+        catch ( IOException e )
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTruncatedFile( )
+        throws Exception
+    {
+        Path file = createFile( 100000 );
+        ChannelOutputStream out = new ChannelOutputStream( );
+        out.stalls = 1;
+        out.truncate = file;
+        try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+        {
+            ContentTransfer.transfer( channel, out, 0, data.length );
+            fail( "A truncated file must not be copied silently" );
+        }
+        catch ( EOFException e )
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testStreamChannelRange( )
+        throws Exception
+    {
+        createFile( 200000 );
+        ByteArrayOutputStream out = new ByteArrayOutputStream( );
+        long copied = ContentTransfer.transfer( Channels.newChannel( new ByteArrayInputStream( data ) ), out,
+            70000, 200000 );
+        assertEquals( 130000, copied );
+        assertTrue( Arrays.equals( Arrays.copyOfRange( data, 70000, 200000 ), out.toByteArray( ) ) );
+    }
+
+    @Test
+    public void testBenchmark( )
+        throws Exception
+    {
+        int size = Integer.getInteger( "archiva.benchmark.spoolSize", 16 * 1024 * 1024 );
+        int iterations = Integer.getInteger( "archiva.benchmark.iterations", 3 );
+        Path file = createFile( size );
+        OutputStream out = NullOutputStream.NULL_OUTPUT_STREAM;
+
+        long streamTime = 0;
+        long transferTime = 0;
+        for ( int i = 0; i < iterations; i++ )
+        {
+            long start = System.nanoTime( );
+            try ( InputStream is = Files.newInputStream( file ) )
+            {
+                IOUtils.copy( is, out );
+            }
+            streamTime += System.nanoTime( ) - start;
+
+            start = System.nanoTime( );
+            try ( FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+            {
+                ContentTransfer.transfer( channel, out, 0, size );
+            }
+            transferTime += System.nanoTime( ) - start;
+        }
+        log.info( "{} bytes, {} iterations: stream copy={}ms, transfer={}ms", size, iterations,
+            streamTime / 1000000, transferTime / 1000000 );
+    }
+
+    /**
+     * Output stream that is a channel too, like the output streams of some servlet containers.
+     */
+    private static class ChannelOutputStream
+        extends ByteArrayOutputStream
+        implements WritableByteChannel
+    {
+        /**
+         * The number of writes, that take no data, like a channel with a full send buffer.
+         */
+        int stalls = 0;
+
+        /**
+         * The file, that is truncated on the first stalled write.
+         */
+        Path truncate;
+
+        @Override
+        public int write( ByteBuffer src )
+            throws IOException
+        {
+            if ( stalls > 0 )
+            {
+                stalls--;
+                if ( truncate != null )
+                {
+                    try ( FileChannel channel = FileChannel.open( truncate, StandardOpenOption.WRITE ) )
+                    {
+                        channel.truncate( 1000 );
+                    }
+                }
+                return 0;
+            }
+            int length = src.remaining( );
+            byte[] bytes = new byte[length];
+            src.get( bytes );
+            write( bytes, 0, length );
+            return length;
+        }
+
+        @Override
+        public boolean isOpen( )
+        {
+            return true;
+        }
+    }
+}
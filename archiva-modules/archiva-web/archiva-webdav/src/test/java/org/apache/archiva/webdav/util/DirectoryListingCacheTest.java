@@ -0,0 +1,146 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.common.filelock.DefaultFileLockManager;
+import org.apache.archiva.repository.storage.StorageAsset;
+import org.apache.archiva.repository.storage.fs.FilesystemStorage;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test for {@link DirectoryListingCache}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class DirectoryListingCacheTest
+    extends TestCase
+{
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder( );
+
+    @Test
+    public void testListingIsSortedAndMerged( )
+        throws Exception
+    {
+        Path first = tempDir.newFolder( "first" ).toPath( );
+        Path second = tempDir.newFolder( "second" ).toPath( );
+        Files.createDirectories( first.resolve( "org" ) );
+        Files.write( first.resolve( "b.txt" ), new byte[3] );
+        Files.write( second.resolve( "b.txt" ), new byte[5] );
+        Files.write( second.resolve( "a.txt" ), new byte[1] );
+
+        List<DirectoryListingCache.Item> items = new DirectoryListingCache( ).getListing(
+            Arrays.asList( getRoot( first ), getRoot( second ) ) );
+        assertEquals( 3, items.size( ) );
+        assertEquals( "a.txt", items.get( 0 ).getName( ) );
+        assertEquals( "b.txt", items.get( 1 ).getName( ) );
+        assertEquals( 3, items.get( 1 ).getSize( ) );
+        assertEquals( "org", items.get( 2 ).getName( ) );
+        assertTrue( items.get( 2 ).isContainer( ) );
+    }
+
+    @Test
+    public void testListingIsInvalidatedByModification( )
+        throws Exception
+    {
+        Path dir = tempDir.newFolder( "repo" ).toPath( );
+        Files.write( dir.resolve( "a.txt" ), new byte[1] );
+        Files.setLastModifiedTime( dir, FileTime.fromMillis( 1000000L ) );
+        DirectoryListingCache cache = new DirectoryListingCache( );
+        List<StorageAsset> directories = Collections.singletonList( getRoot( dir ) );
+
+        List<DirectoryListingCache.Item> items = cache.getListing( directories );
+        assertEquals( 1, items.size( ) );
+        assertSame( items, cache.getListing( directories ) );
+
+        Files.write( dir.resolve( "b.txt" ), new byte[1] );
+        Files.setLastModifiedTime( dir, FileTime.fromMillis( 2000000L ) );
+        assertEquals( 2, cache.getListing( directories ).size( ) );
+    }
+
+    @Test
+    public void testListingIsInvalidatedByOverwrite( )
+        throws Exception
+    {
+        Path dir = tempDir.newFolder( "repo" ).toPath( );
+        Path file = dir.resolve( "org/apache/maven-metadata.xml" );
+        Files.createDirectories( file.getParent( ) );
+        Files.write( file, new byte[1] );
+        Files.setLastModifiedTime( file.getParent( ), FileTime.fromMillis( 1000000L ) );
+        DirectoryListingCache cache = new DirectoryListingCache( );
+        List<StorageAsset> directories = Collections.singletonList( getRoot( dir ).resolve( "org/apache" ) );
+        List<DirectoryListingCache.Item> items = cache.getListing( directories );
+        assertEquals( 1, items.get( 0 ).getSize( ) );
+
+        // an overwrite in place does not change the modification time of the directory
+        Files.write( file, new byte[10] );
+        Files.setLastModifiedTime( file.getParent( ), FileTime.fromMillis( 1000000L ) );
+        assertSame( items, cache.getListing( directories ) );
+
+        cache.invalidate( "/org/other/maven-metadata.xml" );
+        assertSame( items, cache.getListing( directories ) );
+
+        cache.invalidate( "/org/apache/maven-metadata.xml" );
+        assertEquals( 10, cache.getListing( directories ).get( 0 ).getSize( ) );
+    }
+
+    @Test
+    public void testParentListingsAreInvalidated( )
+        throws Exception
+    {
+        Path dir = tempDir.newFolder( "repo" ).toPath( );
+        Files.createDirectories( dir.resolve( "org/apache/archiva" ) );
+        StorageAsset root = getRoot( dir );
+        DirectoryListingCache cache = new DirectoryListingCache( );
+        List<StorageAsset> rootListing = Collections.singletonList( root );
+        List<StorageAsset> orgListing = Collections.singletonList( root.resolve( "org" ) );
+        List<StorageAsset> apacheListing = Collections.singletonList( root.resolve( "org/apache" ) );
+        List<DirectoryListingCache.Item> rootItems = cache.getListing( rootListing );
+        List<DirectoryListingCache.Item> orgItems = cache.getListing( orgListing );
+        List<DirectoryListingCache.Item> apacheItems = cache.getListing( apacheListing );
+
+        cache.invalidate( "org/apache" );
+        assertNotSame( rootItems, cache.getListing( rootListing ) );
+        assertNotSame( orgItems, cache.getListing( orgListing ) );
+        assertNotSame( apacheItems, cache.getListing( apacheListing ) );
+
+        apacheItems = cache.getListing( apacheListing );
+        cache.contentStored( "internal", null );
+        assertNotSame( apacheItems, cache.getListing( apacheListing ) );
+    }
+
+    private static StorageAsset getRoot( Path dir )
+        throws IOException
+    {
+        return new FilesystemStorage( dir, new DefaultFileLockManager( ) ).getRoot( );
+    }
+}
@@ -0,0 +1,166 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.common.filelock.DefaultFileLockManager;
+import org.apache.archiva.repository.storage.StorageAsset;
+import org.apache.archiva.repository.storage.fs.FilesystemStorage;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Test for {@link GroupMetadataCache}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class GroupMetadataCacheTest
+    extends TestCase
+{
+    private static final String GROUP_ID = "test-group";
+
+    private static final String METADATA_PATH = "org/apache/archiva/test/maven-metadata.xml";
+
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder( );
+
+    private List<String> createMemberFiles( )
+        throws Exception
+    {
+        Path first = tempDir.newFolder( "internal" ).toPath( ).resolve( "maven-metadata.xml" );
+        Path second = tempDir.newFolder( "snapshots" ).toPath( ).resolve( "maven-metadata.xml" );
+        Files.write( first, "<metadata/>".getBytes( "UTF-8" ) );
+        Files.write( second, "<metadata/>".getBytes( "UTF-8" ) );
+        Files.setLastModifiedTime( first, FileTime.fromMillis( 1000000L ) );
+        Files.setLastModifiedTime( second, FileTime.fromMillis( 1000000L ) );
+        return Arrays.asList( first.toString( ), second.toString( ) );
+    }
+
+    @Test
+    public void testHitAndMiss( )
+        throws Exception
+    {
+        List<String> memberFiles = createMemberFiles( );
+        GroupMetadataCache cache = new GroupMetadataCache( );
+
+        List<String> state = GroupMetadataCache.getFingerprint( memberFiles );
+        assertFalse( cache.isValid( GROUP_ID, METADATA_PATH, state ) );
+
+        cache.put( GROUP_ID, METADATA_PATH, state );
+        assertTrue( cache.isValid( GROUP_ID, METADATA_PATH, GroupMetadataCache.getFingerprint( memberFiles ) ) );
+        assertFalse( cache.isValid( "other-group", METADATA_PATH, state ) );
+        assertFalse( cache.isValid( GROUP_ID, "org/apache/archiva/other/maven-metadata.xml", state ) );
+    }
+
+    @Test
+    public void testMemberChangeInvalidatesEntry( )
+        throws Exception
+    {
+        List<String> memberFiles = createMemberFiles( );
+        GroupMetadataCache cache = new GroupMetadataCache( );
+        cache.put( GROUP_ID, METADATA_PATH, GroupMetadataCache.getFingerprint( memberFiles ) );
+
+        // a deploy to a member changes the size and modification time of its metadata
+        Path second = Paths.get( memberFiles.get( 1 ) );
+        Files.write( second, "<metadata><version>1.1</version></metadata>".getBytes( "UTF-8" ) );
+        assertFalse( cache.isValid( GROUP_ID, METADATA_PATH, GroupMetadataCache.getFingerprint( memberFiles ) ) );
+
+        // same size, but a new modification time
+        cache.put( GROUP_ID, METADATA_PATH, GroupMetadataCache.getFingerprint( memberFiles ) );
+        Files.setLastModifiedTime( second, FileTime.fromMillis( 2000000L ) );
+        assertFalse( cache.isValid( GROUP_ID, METADATA_PATH, GroupMetadataCache.getFingerprint( memberFiles ) ) );
+
+        // a removed member file
+        cache.put( GROUP_ID, METADATA_PATH, GroupMetadataCache.getFingerprint( memberFiles ) );
+        Files.delete( second );
+        assertFalse( cache.isValid( GROUP_ID, METADATA_PATH, GroupMetadataCache.getFingerprint( memberFiles ) ) );
+    }
+
+    @Test
+    public void testInvalidateGroup( )
+        throws Exception
+    {
+        List<String> memberFiles = createMemberFiles( );
+        List<String> state = GroupMetadataCache.getFingerprint( memberFiles );
+        GroupMetadataCache cache = new GroupMetadataCache( );
+        cache.put( GROUP_ID, METADATA_PATH, state );
+        cache.put( "other-group", METADATA_PATH, state );
+
+        cache.invalidate( GROUP_ID );
+        assertFalse( cache.isValid( GROUP_ID, METADATA_PATH, state ) );
+        assertTrue( cache.isValid( "other-group", METADATA_PATH, state ) );
+
+        cache.clear( );
+        assertFalse( cache.isValid( "other-group", METADATA_PATH, state ) );
+    }
+
+    @Test
+    public void testMergedFileNewerThanMembers( )
+        throws Exception
+    {
+        List<String> memberFiles = createMemberFiles( );
+        Path groupDir = tempDir.newFolder( "group" ).toPath( );
+        Path mergedPath = groupDir.resolve( "maven-metadata-group.xml" );
+        StorageAsset merged =
+            new FilesystemStorage( groupDir, new DefaultFileLockManager( ) ).getAsset( "maven-metadata-group.xml" );
+        assertFalse( GroupMetadataCache.isNewerThanMembers( merged, memberFiles ) );
+
+        Files.write( mergedPath, "<metadata/>".getBytes( "UTF-8" ) );
+        Files.setLastModifiedTime( mergedPath, FileTime.fromMillis( 1500000L ) );
+        assertTrue( GroupMetadataCache.isNewerThanMembers( merged, memberFiles ) );
+
+        // a deploy to a member after the merge
+        Path second = Paths.get( memberFiles.get( 1 ) );
+        Files.setLastModifiedTime( second, FileTime.fromMillis( 2000000L ) );
+        assertFalse( GroupMetadataCache.isNewerThanMembers( merged, memberFiles ) );
+
+        // a removed member file
+        Files.setLastModifiedTime( mergedPath, FileTime.fromMillis( 2500000L ) );
+        assertTrue( GroupMetadataCache.isNewerThanMembers( merged, memberFiles ) );
+        Files.delete( second );
+        assertFalse( GroupMetadataCache.isNewerThanMembers( merged, memberFiles ) );
+    }
+
+    @Test
+    public void testEviction( )
+        throws Exception
+    {
+        List<String> state = GroupMetadataCache.getFingerprint( createMemberFiles( ) );
+        GroupMetadataCache cache = new GroupMetadataCache( 2 );
+        cache.put( GROUP_ID, "a/maven-metadata.xml", state );
+        cache.put( GROUP_ID, "b/maven-metadata.xml", state );
+        // access the first entry, so that the second one is the least recently used
+        assertTrue( cache.isValid( GROUP_ID, "a/maven-metadata.xml", state ) );
+        cache.put( GROUP_ID, "c/maven-metadata.xml", state );
+
+        assertTrue( cache.isValid( GROUP_ID, "a/maven-metadata.xml", state ) );
+        assertFalse( cache.isValid( GROUP_ID, "b/maven-metadata.xml", state ) );
+        assertTrue( cache.isValid( GROUP_ID, "c/maven-metadata.xml", state ) );
+    }
+}
@@ -0,0 +1,158 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.common.filelock.DefaultFileLockManager;
+import org.apache.archiva.metadata.model.ArtifactMetadata;
+import org.apache.archiva.repository.storage.StorageAsset;
+import org.apache.archiva.repository.storage.fs.FilesystemStorage;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Test for {@link GroupRoutingIndex}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class GroupRoutingIndexTest
+    extends TestCase
+{
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder( );
+
+    private Path repoDir;
+
+    private StorageAsset root;
+
+    @Before
+    public void setUp( )
+        throws Exception
+    {
+        super.setUp( );
+        repoDir = tempDir.newFolder( "internal" ).toPath( );
+        Files.createDirectories( repoDir.resolve( "org/apache/archiva/archiva/1.0" ) );
+        Files.createDirectories( repoDir.resolve( ".indexer/sub" ) );
+        root = new FilesystemStorage( repoDir, new DefaultFileLockManager( ) ).getRoot( );
+    }
+
+    @Test
+    public void testMayContain( )
+    {
+        GroupRoutingIndex index = new GroupRoutingIndex( );
+        assertTrue( index.mayContain( "internal", root, "/org/apache/archiva/archiva/1.0/archiva-1.0.jar" ) );
+        assertTrue( index.mayContain( "internal", root, "org/apache/maven/maven-metadata.xml" ) );
+        assertFalse( index.mayContain( "internal", root, "/org/codehaus/plexus/plexus/1.0/plexus-1.0.pom" ) );
+        assertFalse( index.mayContain( "internal", root, "/com/example/test/1.0/test-1.0.jar" ) );
+        // Short paths are not pruned
+        assertTrue( index.mayContain( "internal", root, "/com/example" ) );
+        assertTrue( index.mayContain( "internal", root, "/archetype-catalog.xml" ) );
+    }
+
+    @Test
+    public void testAddAndInvalidate( )
+        throws Exception
+    {
+        GroupRoutingIndex index = new GroupRoutingIndex( );
+        assertFalse( index.mayContain( "internal", root, "/com/example/test/1.0/test-1.0.jar" ) );
+
+        index.add( "internal", "com/example/test/1.0/test-1.0.jar" );
+        assertTrue( index.mayContain( "internal", root, "/com/example/test/1.0/test-1.0.jar" ) );
+
+        // a removed prefix is kept until the index is rebuilt
+        Files.delete( repoDir.resolve( "org/apache/archiva/archiva/1.0" ) );
+        Files.delete( repoDir.resolve( "org/apache/archiva/archiva" ) );
+        Files.delete( repoDir.resolve( "org/apache/archiva" ) );
+        Files.delete( repoDir.resolve( "org/apache" ) );
+        assertTrue( index.mayContain( "internal", root, "/org/apache/archiva/archiva/1.0/archiva-1.0.jar" ) );
+        index.invalidate( "internal" );
+        assertFalse( index.mayContain( "internal", root, "/org/apache/archiva/archiva/1.0/archiva-1.0.jar" ) );
+    }
+
+    @Test
+    public void testContentWrittenToStorage( )
+        throws Exception
+    {
+        GroupRoutingIndex index = new GroupRoutingIndex( );
+        assertFalse( index.mayContain( "internal", root, "/net/example/test/1.0/test-1.0.jar" ) );
+
+        // content that is written without notification is found by the lookup of the missing prefix
+        Files.createDirectories( repoDir.resolve( "net/example/test/1.0" ) );
+        assertTrue( index.mayContain( "internal", root, "/net/example/test/1.0/test-1.0.jar" ) );
+        assertTrue( index.mayContain( "internal", root, "/net/example/other/maven-metadata.xml" ) );
+    }
+
+    @Test
+    public void testContentStored( )
+        throws Exception
+    {
+        GroupRoutingIndex index = new GroupRoutingIndex( );
+        assertFalse( index.mayContain( "internal", root, "/com/example/test/1.0/test-1.0.jar" ) );
+
+        index.contentStored( "internal", "/com/example/test/1.0/test-1.0.jar" );
+        assertTrue( index.mayContain( "internal", root, "/com/example/test/1.0/test-1.0.jar" ) );
+
+        Files.delete( repoDir.resolve( ".indexer/sub" ) );
+        assertTrue( index.mayContain( "internal", root, "/.indexer/sub/segments.gen" ) );
+        index.contentStored( "internal", null );
+        assertFalse( index.mayContain( "internal", root, "/.indexer/sub/segments.gen" ) );
+    }
+
+    @Test
+    public void testHiddenDirectories( )
+    {
+        GroupRoutingIndex index = new GroupRoutingIndex( );
+        assertTrue( index.mayContain( "internal", root, "/.indexer/sub/segments.gen" ) );
+        assertFalse( index.mayContain( "internal", root, "/.indexer/other/segments.gen" ) );
+    }
+
+    @Test
+    public void testArtifactStored( )
+    {
+        GroupRoutingIndex index = new GroupRoutingIndex( );
+        assertFalse( index.mayContain( "internal", root, "/com/example/test/1.0/test-1.0.jar" ) );
+
+        ArtifactMetadata artifact = new ArtifactMetadata( );
+        artifact.setNamespace( "com.example" );
+        artifact.setProject( "test" );
+        artifact.setProjectVersion( "1.0" );
+        artifact.setId( "test-1.0.jar" );
+        index.artifactStored( null, "internal", artifact );
+        assertTrue( index.mayContain( "internal", root, "/com/example/test/1.0/test-1.0.jar" ) );
+        assertTrue( index.mayContain( "internal", root, "/com/example/test/maven-metadata.xml" ) );
+    }
+
+    @Test
+    public void testMaxAge( )
+        throws Exception
+    {
+        GroupRoutingIndex index = new GroupRoutingIndex( 0 );
+        assertFalse( index.mayContain( "internal", root, "/net/example/test/1.0/test-1.0.jar" ) );
+        Files.createDirectories( repoDir.resolve( "net/example" ) );
+        Thread.sleep( 5 );
+        assertTrue( index.mayContain( "internal", root, "/net/example/test/1.0/test-1.0.jar" ) );
+    }
+}
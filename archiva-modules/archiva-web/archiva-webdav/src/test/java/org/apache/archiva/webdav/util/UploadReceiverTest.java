@@ -0,0 +1,90 @@
+package org.apache.archiva.webdav.util;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.checksum.Checksum;
+import org.apache.archiva.checksum.ChecksumAlgorithm;
+import org.apache.archiva.checksum.ChecksumUtil;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test for {@link UploadReceiver}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class UploadReceiverTest
+    extends TestCase
+{
+    @Rule
+    public TemporaryFolder tempDir = new TemporaryFolder( );
+
+    @Test
+    public void testReceive( )
+        throws Exception
+    {
+        byte[] content = new byte[3 * UploadReceiver.BUFFER_SIZE + 17];
+        new Random( 42 ).nextBytes( content );
+        Path target = tempDir.newFile( "upload.jar" ).toPath( );
+        List<Checksum> checksums =
+            ChecksumUtil.newChecksums( Arrays.asList( ChecksumAlgorithm.SHA1, ChecksumAlgorithm.MD5 ) );
+
+        long size = UploadReceiver.receive( new ByteArrayInputStream( content ), target, checksums );
+
+        assertEquals( content.length, size );
+        assertTrue( Arrays.equals( content, Files.readAllBytes( target ) ) );
+        List<Checksum> expected = ChecksumUtil.initializeChecksums( target,
+            Arrays.asList( ChecksumAlgorithm.SHA1, ChecksumAlgorithm.MD5 ) );
+        assertEquals( expected.get( 0 ).getChecksum( ), checksums.get( 0 ).getChecksum( ) );
+        assertEquals( expected.get( 1 ).getChecksum( ), checksums.get( 1 ).getChecksum( ) );
+
+        Checksum checksum = new Checksum( ChecksumAlgorithm.SHA1 );
+        UploadReceiver.update( new ByteArrayInputStream( content ), checksum );
+        assertEquals( expected.get( 0 ).getChecksum( ), checksum.getChecksum( ) );
+    }
+
+    @Test
+    public void testChecksumFiles( )
+    {
+        assertEquals( ChecksumAlgorithm.SHA1, UploadReceiver.getChecksumAlgorithm( "artifact-1.0.jar.sha1" ) );
+        assertEquals( ChecksumAlgorithm.MD5, UploadReceiver.getChecksumAlgorithm( "artifact-1.0.jar.MD5" ) );
+        assertEquals( ChecksumAlgorithm.SHA512, UploadReceiver.getChecksumAlgorithm( "artifact-1.0.jar.sha512" ) );
+        assertNull( UploadReceiver.getChecksumAlgorithm( "artifact-1.0.jar.asc" ) );
+        assertNull( UploadReceiver.getChecksumAlgorithm( "artifact-1.0.jar" ) );
+        assertNull( UploadReceiver.getChecksumAlgorithm( "README" ) );
+
+        String sha1 = "99a8679a33a4e9f01e593a7551cb67a3061b0f73";
+        assertEquals( sha1, UploadReceiver.parseChecksum( sha1 ) );
+        assertEquals( sha1, UploadReceiver.parseChecksum( sha1.toUpperCase( ) + "  artifact.jar\n" ) );
+        assertEquals( sha1, UploadReceiver.parseChecksum( "SHA1 (artifact.jar) = " + sha1 ) );
+        assertNull( UploadReceiver.parseChecksum( "" ) );
+        assertNull( UploadReceiver.parseChecksum( "no checksum" ) );
+    }
+}
@@ -0,0 +1,164 @@
+package org.apache.archiva.metadata.audit;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.event.AsyncEventManager;
+import org.apache.archiva.event.BatchEventHandler;
+import org.apache.archiva.metadata.model.ProjectVersionMetadata;
+import org.apache.archiva.metadata.repository.MetadataRepository;
+import org.apache.archiva.metadata.repository.MetadataRepositoryException;
+import org.apache.archiva.metadata.repository.RepositorySession;
+import org.apache.archiva.metadata.repository.RepositorySessionFactory;
+import org.apache.archiva.metadata.repository.storage.RepositoryStorageMetadataException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+
+/**
+ * Base class for repository listeners that process the events asynchronously.
+ *
+ * The listener methods only queue the event and return immediately, so that the listener does not
+ * add latency to the request or scan thread. The queued events are delivered in batches and in the order
+ * they were fired. Each batch is processed in its own repository session, that is saved after the batch.
+ * The session that was passed by the caller is not used.
+ *
+ * Because the events are processed in another session, they must only be processed after the changes of the
+ * caller are visible. Events that carry the session of the caller are therefore queued by
+ * {@link RepositorySession#runAfterSave(Runnable)}, after the session is saved. They are dropped, if the session is
+ * reverted. {@link #deleteArtifact(MetadataRepository, String, String, String, String, String)} does not provide
+ * the session of the caller and is queued immediately, so the processing of delete events must not depend on
+ * the removal of the artifact metadata.
+ *
+ * The statistics of the event queue are available by {@link #getQueueStatistics()} and are logged,
+ * when the queue is full and on shutdown.
+ *
+ * @since 3.0
+ */
+public abstract class AsyncRepositoryListener
+    implements RepositoryListener, BatchEventHandler<RepositoryListenerEvent>
+{
+    private static final Logger log = LoggerFactory.getLogger( AsyncRepositoryListener.class );
+
+    private final AsyncEventManager eventManager;
+
+    protected AsyncRepositoryListener( )
+    {
+        this.eventManager = new AsyncEventManager( this );
+        this.eventManager.registerEventHandler( RepositoryListenerEvent.ANY, this );
+    }
+
+    /**
+     * Returns the factory used to create the sessions for the event processing.
+     */
+    protected abstract RepositorySessionFactory getRepositorySessionFactory( );
+
+    protected abstract void processDeleteArtifact( RepositorySession session, String repositoryId, String namespace,
+                                                   String project, String version, String id );
+
+    protected abstract void processAddArtifact( RepositorySession session, String repoId, String namespace,
+                                                String projectId, ProjectVersionMetadata metadata );
+
+    protected abstract void processAddArtifactProblem( RepositorySession session, String repoId, String namespace,
+                                                       String projectId, String projectVersion,
+                                                       RepositoryStorageMetadataException exception );
+
+    @Override
+    public void deleteArtifact( MetadataRepository metadataRepository, String repositoryId, String namespace,
+                                String project, String version, String id )
+    {
+        eventManager.fireEvent( RepositoryListenerEvent.deleteArtifact( this, repositoryId, namespace, project, version, id ) );
+    }
+
+    @Override
+    public void addArtifact( RepositorySession session, String repoId, String namespace, String projectId,
+                             ProjectVersionMetadata metadata )
+    {
+        fireAfterSave( session, RepositoryListenerEvent.addArtifact( this, repoId, namespace, projectId, metadata ) );
+    }
+
+    @Override
+    public void addArtifactProblem( RepositorySession session, String repoId, String namespace, String projectId,
+                                    String projectVersion, RepositoryStorageMetadataException exception )
+    {
+        fireAfterSave( session,
+            RepositoryListenerEvent.addArtifactProblem( this, repoId, namespace, projectId, projectVersion, exception ) );
+    }
+
+    private void fireAfterSave( RepositorySession session, RepositoryListenerEvent event )
+    {
+        if ( session == null )
+        {
+            eventManager.fireEvent( event );
+        }
+        else
+        {
+            session.runAfterSave( ( ) -> eventManager.fireEvent( event ) );
+        }
+    }
+
+    @Override
+    public void handleBatch( List<RepositoryListenerEvent> events )
+    {
+        try ( RepositorySession session = getRepositorySessionFactory( ).createSession( ) )
+        {
+            for ( RepositoryListenerEvent event : events )
+            {
+                if ( event.getType( ) == RepositoryListenerEvent.DELETE_ARTIFACT )
+                {
+                    processDeleteArtifact( session, event.getRepositoryId( ), event.getNamespace( ),
+                        event.getProjectId( ), event.getProjectVersion( ), event.getId( ) );
+                }
+                else if ( event.getType( ) == RepositoryListenerEvent.ADD_ARTIFACT )
+                {
+                    processAddArtifact( session, event.getRepositoryId( ), event.getNamespace( ),
+                        event.getProjectId( ), event.getMetadata( ) );
+                }
+                else if ( event.getType( ) == RepositoryListenerEvent.ADD_ARTIFACT_PROBLEM )
+                {
+                    processAddArtifactProblem( session, event.getRepositoryId( ), event.getNamespace( ),
+                        event.getProjectId( ), event.getProjectVersion( ), event.getException( ) );
+                }
+            }
+        }
+        catch ( MetadataRepositoryException e )
+        {
+            log.error( "Could not create session for processing {} repository events: {}", events.size( ), e.getMessage( ), e );
+        }
+    }
+
+    /**
+     * Returns the statistics of the event queue.
+     */
+    public List<AsyncEventManager.QueueStatistics> getQueueStatistics( )
+    {
+        return eventManager.getStatistics( );
+    }
+
+    /**
+     * Processes the remaining events.
+     */
+    @PreDestroy
+    public void shutdown( )
+    {
+        eventManager.close( );
+    }
+}
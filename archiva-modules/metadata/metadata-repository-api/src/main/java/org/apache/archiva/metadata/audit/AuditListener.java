@@ -21,6 +21,8 @@
 
 import org.apache.archiva.metadata.model.facets.AuditEvent;
 
+import java.util.Collection;
+
 /**
  * AuditListener 
  *
@@ -34,4 +36,17 @@
      * @param event the event details.
      */
     void auditEvent( AuditEvent event );
+
+    /**
+     * Notification that several audit events occured at once, e.g. while merging repositories.
+     *
+     * @param events the event details.
+     */
+    default void auditEvents( Collection<AuditEvent> events )
+    {
+        for ( AuditEvent event : events )
+        {
+            auditEvent( event );
+        }
+    }
 }
@@ -19,6 +19,7 @@
  * under the License.
  */
 
+import org.apache.archiva.metadata.model.ArtifactMetadata;
 import org.apache.archiva.metadata.model.ProjectVersionMetadata;
 import org.apache.archiva.metadata.repository.MetadataRepository;
 import org.apache.archiva.metadata.repository.RepositorySession;
@@ -45,4 +46,29 @@ void addArtifact( RepositorySession session, String repoId, String namespace, St
     // FIXME: this would be better as a "processException" method, with the event information captured in a single class
     void addArtifactProblem( RepositorySession session, String repoId, String namespace, String projectId,
                              String projectVersion, RepositoryStorageMetadataException exception );
+
+    /**
+     * Called after the metadata of an artifact has been stored in the metadata repository, by a repository scan
+     * or by resolving it from the storage.
+     *
+     * @since 3.0
+     */
+    default void artifactStored( RepositorySession session, String repoId, ArtifactMetadata artifact )
+    {
+        // no op
+    }
+
+    /**
+     * Called after content has been written to the storage of a repository by other means than a WebDAV request,
+     * e.g. by an upload, a copy or a merge.
+     *
+     * @param repoId the id of the repository
+     * @param path the path of the written file relative to the repository root, or <code>null</code>, if arbitrary
+     *             content of the repository may have changed
+     * @since 3.0
+     */
+    default void contentStored( String repoId, String path )
+    {
+        // no op
+    }
 }
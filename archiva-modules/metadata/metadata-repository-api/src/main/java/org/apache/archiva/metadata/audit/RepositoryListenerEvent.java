@@ -0,0 +1,134 @@
+package org.apache.archiva.metadata.audit;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.event.Event;
+import org.apache.archiva.event.EventType;
+import org.apache.archiva.metadata.model.ProjectVersionMetadata;
+import org.apache.archiva.metadata.repository.storage.RepositoryStorageMetadataException;
+
+/**
+ * Event that represents a call of one of the {@link RepositoryListener} methods. Used for the
+ * asynchronous delivery of the calls by {@link AsyncRepositoryListener}.
+ *
+ * @since 3.0
+ */
+public class RepositoryListenerEvent extends Event
+{
+    private static final long serialVersionUID = 2425834934307519328L;
+
+    public static final EventType<RepositoryListenerEvent> ANY = new EventType<>( Event.ANY, "REPOSITORY_LISTENER" );
+    public static final EventType<RepositoryListenerEvent> DELETE_ARTIFACT = new EventType<>( ANY, "REPOSITORY_LISTENER.DELETE_ARTIFACT" );
+    public static final EventType<RepositoryListenerEvent> ADD_ARTIFACT = new EventType<>( ANY, "REPOSITORY_LISTENER.ADD_ARTIFACT" );
+    public static final EventType<RepositoryListenerEvent> ADD_ARTIFACT_PROBLEM = new EventType<>( ANY, "REPOSITORY_LISTENER.ADD_ARTIFACT_PROBLEM" );
+
+    private final String repositoryId;
+    private final String namespace;
+    private final String projectId;
+    private final String projectVersion;
+    private String id;
+    private ProjectVersionMetadata metadata;
+    private RepositoryStorageMetadataException exception;
+
+    private RepositoryListenerEvent( EventType<RepositoryListenerEvent> type, Object origin, String repositoryId,
+                                     String namespace, String projectId, String projectVersion )
+    {
+        super( type, origin );
+        this.repositoryId = repositoryId;
+        this.namespace = namespace;
+        this.projectId = projectId;
+        this.projectVersion = projectVersion;
+    }
+
+    public static RepositoryListenerEvent deleteArtifact( Object origin, String repositoryId, String namespace,
+                                                          String projectId, String projectVersion, String id )
+    {
+        RepositoryListenerEvent event = new RepositoryListenerEvent( DELETE_ARTIFACT, origin, repositoryId, namespace, projectId, projectVersion );
+        event.id = id;
+        return event;
+    }
+
+    public static RepositoryListenerEvent addArtifact( Object origin, String repositoryId, String namespace,
+                                                       String projectId, ProjectVersionMetadata metadata )
+    {
+        RepositoryListenerEvent event = new RepositoryListenerEvent( ADD_ARTIFACT, origin, repositoryId, namespace, projectId, metadata.getId( ) );
+        event.metadata = metadata;
+        return event;
+    }
+
+    public static RepositoryListenerEvent addArtifactProblem( Object origin, String repositoryId, String namespace,
+                                                              String projectId, String projectVersion,
+                                                              RepositoryStorageMetadataException exception )
+    {
+        RepositoryListenerEvent event = new RepositoryListenerEvent( ADD_ARTIFACT_PROBLEM, origin, repositoryId, namespace, projectId, projectVersion );
+        event.exception = exception;
+        return event;
+    }
+
+    @Override
+    public EventType<? extends RepositoryListenerEvent> getType( )
+    {
+        return (EventType<? extends RepositoryListenerEvent>) super.getType( );
+    }
+
+    public String getRepositoryId( )
+    {
+        return repositoryId;
+    }
+
+    public String getNamespace( )
+    {
+        return namespace;
+    }
+
+    public String getProjectId( )
+    {
+        return projectId;
+    }
+
+    public String getProjectVersion( )
+    {
+        return projectVersion;
+    }
+
+    /**
+     * @return the artifact id of a deleted artifact
+     */
+    public String getId( )
+    {
+        return id;
+    }
+
+    /**
+     * @return the metadata of an added artifact
+     */
+    public ProjectVersionMetadata getMetadata( )
+    {
+        return metadata;
+    }
+
+    /**
+     * @return the exception of an artifact problem
+     */
+    public RepositoryStorageMetadataException getException( )
+    {
+        return exception;
+    }
+}
@@ -70,6 +70,28 @@ public void updateProjectVersion( RepositorySession session, String repositoryId
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public void updateArtifacts( RepositorySession session, String repositoryId, Collection<ArtifactMetadata> artifacts )
+        throws MetadataRepositoryException
+    {
+        for ( ArtifactMetadata artifact : artifacts )
+        {
+            updateArtifact( session, repositoryId, artifact.getNamespace(), artifact.getProject(),
+                artifact.getProjectVersion(), artifact );
+        }
+    }
+
+    @Override
+    public void updateProjectVersions( RepositorySession session, String repositoryId, String namespace, String projectId,
+                                       Collection<ProjectVersionMetadata> versions )
+        throws MetadataRepositoryException
+    {
+        for ( ProjectVersionMetadata versionMetadata : versions )
+        {
+            updateProjectVersion( session, repositoryId, namespace, projectId, versionMetadata );
+        }
+    }
+
     @Override
     public void updateNamespace( RepositorySession session, String repositoryId, String namespace )
         throws MetadataRepositoryException
@@ -97,6 +119,16 @@ public void addMetadataFacet( RepositorySession session, String repositoryId, Me
     {
     }
 
+    @Override
+    public void addMetadataFacets( RepositorySession session, String repositoryId, Collection<? extends MetadataFacet> facets )
+        throws MetadataRepositoryException
+    {
+        for ( MetadataFacet facet : facets )
+        {
+            addMetadataFacet( session, repositoryId, facet );
+        }
+    }
+
     @Override
     public void removeMetadataFacets( RepositorySession session, String repositoryId, String facetId )
         throws MetadataRepositoryException
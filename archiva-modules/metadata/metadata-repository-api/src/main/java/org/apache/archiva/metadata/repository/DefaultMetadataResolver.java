@@ -440,6 +440,10 @@ public Collection<ArtifactMetadata> resolveArtifacts( RepositorySession session,
                     try
                     {
                         metadataRepository.updateArtifact( session, repoId, namespace, projectId, projectVersion, artifact );
+                        for ( RepositoryListener listener : listeners )
+                        {
+                            listener.artifactStored( session, repoId, artifact );
+                        }
                     }
                     catch ( MetadataRepositoryException e )
                     {
@@ -27,6 +27,7 @@
 import org.apache.archiva.metadata.model.ProjectVersionReference;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -137,6 +138,37 @@ void updateProjectVersion( RepositorySession session, String repositoryId,
                                ProjectVersionMetadata versionMetadata )
         throws MetadataRepositoryException;
 
+    /**
+     * Updates the metadata of a collection of artifacts. The namespace, project and project version of each artifact
+     * are taken from the artifact metadata. Missing namespaces, projects and versions are created.
+     * Implementations write the artifacts with as few backend operations as possible, so this method should be
+     * preferred to single updates, if many artifacts are stored at once.
+     *
+     * @param session      The repository session
+     * @param repositoryId The repository id
+     * @param artifacts    The artifacts to update
+     * @throws MetadataRepositoryException if something goes wrong during update.
+     * @since 3.0
+     */
+    void updateArtifacts( RepositorySession session, String repositoryId, Collection<ArtifactMetadata> artifacts )
+        throws MetadataRepositoryException;
+
+    /**
+     * Updates the metadata of a collection of versions of the given project. If the namespace, project or a version does
+     * not exist, it will be created.
+     *
+     * @param session      The repository session
+     * @param repositoryId The repository id
+     * @param namespace    The namespace ('.' separated)
+     * @param projectId    The project id
+     * @param versions     The metadata of the versions
+     * @throws MetadataRepositoryException if something goes wrong during update
+     * @since 3.0
+     */
+    void updateProjectVersions( RepositorySession session, String repositoryId, String namespace, String projectId,
+                                Collection<ProjectVersionMetadata> versions )
+        throws MetadataRepositoryException;
+
     /**
      * Create the namespace in the repository, if it does not exist.
      * Namespaces do not have specific metadata attached.
@@ -257,6 +289,19 @@ void addMetadataFacet( RepositorySession session, String repositoryId,
                            MetadataFacet metadataFacet )
         throws MetadataRepositoryException;
 
+    /**
+     * Adds a collection of facets to the repository level.
+     *
+     * @param session      The repository session
+     * @param repositoryId The id of the repository
+     * @param facets       The facets to add
+     * @throws MetadataRepositoryException if the facets cannot be stored.
+     * @since 3.0
+     */
+    void addMetadataFacets( RepositorySession session, String repositoryId,
+                            Collection<? extends MetadataFacet> facets )
+        throws MetadataRepositoryException;
+
     /**
      * Removes all facets with the given facetId from the repository level.
      *
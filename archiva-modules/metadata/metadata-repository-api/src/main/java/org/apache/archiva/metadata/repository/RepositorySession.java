@@ -22,6 +22,9 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * The repository session provides a single interface to accessing Archiva repositories. It provides access to three
  * resources:
@@ -44,6 +47,8 @@
 
     private boolean dirty;
 
+    private final List<Runnable> afterSaveActions = new ArrayList<>( );
+
     private Logger log = LoggerFactory.getLogger( getClass() );
 
     // FIXME: include storage here too - perhaps a factory based on repository ID, or one per type to retrieve and
@@ -69,14 +74,54 @@ protected boolean isDirty() {
         return dirty;
     }
 
+    /**
+     * Saves the changes of the session and runs the actions registered by {@link #runAfterSave(Runnable)}.
+     * Implementations that override this method must call it after their changes are persisted.
+     */
     public void save() throws MetadataSessionException
     {
         this.dirty = false;
+        runAfterSaveActions();
     }
 
     public void revert() throws MetadataSessionException
     {
         this.dirty = false;
+        afterSaveActions.clear();
+    }
+
+    /**
+     * Registers an action that is run, after the current changes of the session are saved. The actions run
+     * in the order they were registered on the next {@link #save()}, or on {@link #close()}, if there is nothing
+     * to save. The actions are discarded by {@link #revert()}.
+     *
+     * @param action the action to run
+     * @since 3.0
+     */
+    public void runAfterSave( Runnable action )
+    {
+        afterSaveActions.add( action );
+    }
+
+    private void runAfterSaveActions()
+    {
+        if ( afterSaveActions.isEmpty() )
+        {
+            return;
+        }
+        List<Runnable> actions = new ArrayList<>( afterSaveActions );
+        afterSaveActions.clear();
+        for ( Runnable action : actions )
+        {
+            try
+            {
+                action.run();
+            }
+            catch ( RuntimeException e )
+            {
+                log.error( "Error while running action after save: {}", e.getMessage(), e );
+            }
+        }
     }
 
     /**
@@ -95,6 +140,10 @@ public void close()
             {
                 save();
             }
+            else
+            {
+                runAfterSaveActions();
+            }
         }
         catch ( MetadataSessionException e )
         {
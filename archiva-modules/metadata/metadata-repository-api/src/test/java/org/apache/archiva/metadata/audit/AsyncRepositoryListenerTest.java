@@ -0,0 +1,194 @@
+package org.apache.archiva.metadata.audit;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.metadata.model.ProjectVersionMetadata;
+import org.apache.archiva.metadata.repository.RepositorySession;
+import org.apache.archiva.metadata.repository.RepositorySessionFactory;
+import org.apache.archiva.metadata.repository.storage.RepositoryStorageMetadataException;
+import org.apache.archiva.metadata.repository.storage.RepositoryStorageMetadataNotFoundException;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test for {@link AsyncRepositoryListener}
+ */
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class AsyncRepositoryListenerTest
+    extends TestCase
+{
+    private static final String TEST_REPO_ID = "test-repo";
+
+    private static final String TEST_NAMESPACE = "org.apache.archiva";
+
+    private static final String TEST_PROJECT = "test-project";
+
+    private static class TestListener
+        extends AsyncRepositoryListener
+    {
+        final List<String> processed = Collections.synchronizedList( new ArrayList<>( ) );
+
+        final CountDownLatch release = new CountDownLatch( 1 );
+
+        @Override
+        protected RepositorySessionFactory getRepositorySessionFactory( )
+        {
+            return new RepositorySessionFactory( )
+            {
+                @Override
+                public void open( )
+                {
+                }
+
+                @Override
+                public boolean isOpen( )
+                {
+                    return true;
+                }
+
+                @Override
+                public RepositorySession createSession( )
+                {
+                    return new RepositorySession( null, null );
+                }
+
+                @Override
+                public void close( )
+                {
+                }
+            };
+        }
+
+        @Override
+        protected void processDeleteArtifact( RepositorySession session, String repositoryId, String namespace,
+                                              String project, String version, String id )
+        {
+            processed.add( "delete:" + version );
+        }
+
+        @Override
+        protected void processAddArtifact( RepositorySession session, String repoId, String namespace,
+                                           String projectId, ProjectVersionMetadata metadata )
+        {
+            try
+            {
+                release.await( 10, TimeUnit.SECONDS );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread( ).interrupt( );
+            }
+            processed.add( "add:" + metadata.getId( ) );
+        }
+
+        @Override
+        protected void processAddArtifactProblem( RepositorySession session, String repoId, String namespace,
+                                                  String projectId, String projectVersion,
+                                                  RepositoryStorageMetadataException exception )
+        {
+            processed.add( "problem:" + projectVersion );
+        }
+
+        long getQueuedOrDelivered( )
+        {
+            return getQueueStatistics( ).stream( ).mapToLong( s -> s.getDelivered( ) + s.getSize( ) ).sum( );
+        }
+    }
+
+    private static ProjectVersionMetadata createMetadata( String version )
+    {
+        ProjectVersionMetadata metadata = new ProjectVersionMetadata( );
+        metadata.setId( version );
+        return metadata;
+    }
+
+    @Test
+    public void testEventsAreQueuedAfterSave( )
+        throws Exception
+    {
+        TestListener listener = new TestListener( );
+        listener.release.countDown( );
+        RepositorySession session = new RepositorySession( null, null );
+        listener.addArtifact( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, createMetadata( "1.0" ) );
+        listener.addArtifactProblem( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, "1.1",
+            new RepositoryStorageMetadataNotFoundException( "missing" ) );
+        session.markDirty( );
+
+        // nothing is queued, before the changes of the caller are saved
+        Thread.sleep( 100 );
+        assertEquals( 0, listener.getQueuedOrDelivered( ) );
+        assertTrue( listener.processed.isEmpty( ) );
+
+        session.save( );
+        listener.shutdown( );
+        assertEquals( Arrays.asList( "add:1.0", "problem:1.1" ), listener.processed );
+    }
+
+    @Test
+    public void testRevertDropsEvents( )
+        throws Exception
+    {
+        TestListener listener = new TestListener( );
+        listener.release.countDown( );
+        RepositorySession session = new RepositorySession( null, null );
+        listener.addArtifact( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, createMetadata( "1.0" ) );
+        session.revert( );
+        session.close( );
+
+        listener.deleteArtifact( null, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, "2.0", "test-project-2.0.jar" );
+        listener.shutdown( );
+        assertEquals( Collections.singletonList( "delete:2.0" ), listener.processed );
+    }
+
+    @Test
+    public void testCallerIsNotBlockedAndOrderIsKept( )
+        throws Exception
+    {
+        TestListener listener = new TestListener( );
+        List<String> expected = new ArrayList<>( );
+        long start = System.nanoTime( );
+        try ( RepositorySession session = new RepositorySession( null, null ) )
+        {
+            for ( int i = 0; i < 20; i++ )
+            {
+                listener.addArtifact( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, createMetadata( "1." + i ) );
+                expected.add( "add:1." + i );
+            }
+        }
+        // the events are queued by close, while the processing waits for the release
+        long duration = TimeUnit.NANOSECONDS.toMillis( System.nanoTime( ) - start );
+        assertTrue( "The caller waited for the processing: " + duration + "ms", duration < 5000 );
+        assertTrue( listener.processed.isEmpty( ) );
+
+        listener.release.countDown( );
+        listener.shutdown( );
+        assertEquals( expected, listener.processed );
+        assertEquals( 0, listener.getQueueStatistics( ).get( 0 ).getBlocked( ) );
+    }
+}
@@ -724,6 +724,99 @@ public void testUpdateArtifactMetadataWithExistingFacetsFacetPropertyWasRemoved(
         }
     }
 
+    @Test
+    public void testUpdateArtifacts( )
+        throws Exception
+    {
+        try ( RepositorySession session = getSessionFactory( ).createSession( ) )
+        {
+            ArtifactMetadata otherVersion = createArtifact( );
+            otherVersion.setId( TEST_PROJECT + "-2.0.jar" );
+            otherVersion.setVersion( "2.0" );
+            otherVersion.setProjectVersion( "2.0" );
+            getRepository( ).updateArtifacts( session, TEST_REPO_ID,
+                Arrays.asList( createArtifact( "jar" ), createArtifact( "pom" ), otherVersion ) );
+            session.save( );
+
+            tryAssert( ( ) -> {
+                assertThat( getRepository( ).getProjectVersions( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT ) )
+                    .containsOnly( TEST_PROJECT_VERSION, "2.0" );
+                assertThat( getRepository( ).getArtifacts( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT,
+                    TEST_PROJECT_VERSION ) ).hasSize( 2 );
+                assertThat( getRepository( ).getArtifacts( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, "2.0" ) )
+                    .hasSize( 1 );
+            } );
+        }
+    }
+
+    @Test
+    public void testUpdateProjectVersions( )
+        throws Exception
+    {
+        try ( RepositorySession session = getSessionFactory( ).createSession( ) )
+        {
+            List<ProjectVersionMetadata> versions = new ArrayList<>( );
+            for ( String id : Arrays.asList( "1.0", "1.1", "2.0" ) )
+            {
+                ProjectVersionMetadata metadata = new ProjectVersionMetadata( );
+                metadata.setId( id );
+                metadata.setUrl( TEST_URL );
+                versions.add( metadata );
+            }
+            getRepository( ).updateProjectVersions( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, versions );
+            session.save( );
+
+            tryAssert( ( ) -> {
+                assertThat( getRepository( ).getProjectVersions( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT ) )
+                    .containsOnly( "1.0", "1.1", "2.0" );
+                assertEquals( TEST_URL, getRepository( ).getProjectVersion( session, TEST_REPO_ID, TEST_NAMESPACE,
+                    TEST_PROJECT, "1.1" ).getUrl( ) );
+            } );
+        }
+    }
+
+    /*
+     * Compares single updates of artifacts with a batch update. The number of artifacts can be raised for measuring
+     * the throughput of the backend by the system property archiva.benchmark.artifacts
+     */
+    @Test
+    public void testUpdateArtifactsThroughput( )
+        throws Exception
+    {
+        int count = Integer.getInteger( "archiva.benchmark.artifacts", 40 );
+        try ( RepositorySession session = getSessionFactory( ).createSession( ) )
+        {
+            List<ArtifactMetadata> singleArtifacts = createArtifacts( "single-project", count );
+            List<ArtifactMetadata> batchArtifacts = createArtifacts( "batch-project", count );
+
+            long start = System.nanoTime( );
+            for ( ArtifactMetadata artifact : singleArtifacts )
+            {
+                getRepository( ).updateArtifact( session, TEST_REPO_ID, artifact.getNamespace( ), artifact.getProject( ),
+                    artifact.getProjectVersion( ), artifact );
+            }
+            session.save( );
+            long single = System.nanoTime( ) - start;
+
+            start = System.nanoTime( );
+            getRepository( ).updateArtifacts( session, TEST_REPO_ID, batchArtifacts );
+            session.save( );
+            long batch = System.nanoTime( ) - start;
+            log.info( "{} artifacts: single updates={}ms ({} artifacts/s), batch update={}ms ({} artifacts/s)", count,
+                single / 1000000, count * 1000000000L / Math.max( single, 1 ), batch / 1000000,
+                count * 1000000000L / Math.max( batch, 1 ) );
+
+            tryAssert( ( ) -> {
+                int stored = 0;
+                for ( String version : getRepository( ).getProjectVersions( session, TEST_REPO_ID, TEST_NAMESPACE, "batch-project" ) )
+                {
+                    stored += getRepository( ).getArtifacts( session, TEST_REPO_ID, TEST_NAMESPACE, "batch-project", version ).size( );
+                }
+                assertEquals( count, stored );
+            } );
+        }
+    }
+
     @Test
     public void testUpdateArtifactMetadataWithExistingFacets( )
         throws Exception
@@ -878,6 +971,21 @@ public void testGetMetadataFacets( )
         }
     }
 
+    @Test
+    public void testAddMetadataFacets( )
+        throws Exception
+    {
+        try ( RepositorySession session = getSessionFactory( ).createSession( ) )
+        {
+            getRepository( ).addMetadataFacets( session, TEST_REPO_ID,
+                Arrays.asList( new TestMetadataFacet( TEST_FACET_ID, TEST_VALUE, "name1" ),
+                    new TestMetadataFacet( TEST_FACET_ID, TEST_VALUE, "name2" ) ) );
+
+            tryAssert( ( ) -> assertThat( getRepository( ).getMetadataFacets( session, TEST_REPO_ID, TEST_FACET_ID ) )
+                .containsOnly( "name1", "name2" ) );
+        }
+    }
+
     @Test
     public void testGetMetadataFacetsStream( )
         throws Exception
@@ -2348,6 +2456,22 @@ private static ArtifactMetadata createArtifact( String type )
         return artifact;
     }
 
+    private static List<ArtifactMetadata> createArtifacts( String projectId, int count )
+    {
+        List<ArtifactMetadata> artifacts = new ArrayList<>( count );
+        for ( int i = 0; i < count; i++ )
+        {
+            String version = "1." + ( i % 4 );
+            ArtifactMetadata artifact = createArtifact( );
+            artifact.setProject( projectId );
+            artifact.setVersion( version );
+            artifact.setProjectVersion( version );
+            artifact.setId( projectId + "-" + version + "-" + i + ".jar" );
+            artifacts.add( artifact );
+        }
+        return artifacts;
+    }
+
     private static class ArtifactMetadataComparator
         implements Comparator<ArtifactMetadata>
     {
@@ -0,0 +1,399 @@
+package org.apache.archiva.audit;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.metadata.model.facets.AuditEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append only store of audit events, that is partitioned by repository and day.
+ *
+ * Each repository has its own directory with one segment file per day (UTC), named <code>yyyy-MM-dd.log</code>.
+ * A segment contains one event per line. Because the segment names sort by time, the most recent events
+ * are found by reading the newest segments only, and a range query reads only the segments of the days in the range.
+ * Old segments can be removed by a retention period.
+ *
+ * @since 3.0
+ */
+public class AuditLogStore
+{
+    private static final Logger log = LoggerFactory.getLogger( AuditLogStore.class );
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String IMPORTED_MARKER = ".imported";
+
+    private static final DateTimeFormatter SEGMENT_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    private static final Comparator<AuditEvent> MOST_RECENT_FIRST =
+        Comparator.comparing( AuditEvent::getTimestamp ).reversed( );
+
+    private final Path baseDirectory;
+
+    /**
+     * @param baseDirectory the directory of the store, it is created on the first write
+     */
+    public AuditLogStore( Path baseDirectory )
+    {
+        this.baseDirectory = baseDirectory;
+    }
+
+    public Path getBaseDirectory( )
+    {
+        return baseDirectory;
+    }
+
+    /**
+     * Appends the event to the segment of its day.
+     *
+     * @param event the event, the repository id and timestamp must be set
+     * @throws IOException if the segment could not be written
+     */
+    public synchronized void append( AuditEvent event )
+        throws IOException
+    {
+        Path segment = getSegment( event.getRepositoryId( ), getDay( event.getTimestamp( ) ) );
+        Files.createDirectories( segment.getParent( ) );
+        try ( BufferedWriter writer = Files.newBufferedWriter( segment, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND ) )
+        {
+            writer.write( encode( event ) );
+            writer.newLine( );
+        }
+    }
+
+    /**
+     * Returns <code>true</code>, if the events of the repository have been imported into the store.
+     */
+    public boolean isImported( String repositoryId )
+    {
+        return Files.exists( getRepositoryDirectory( repositoryId ).resolve( IMPORTED_MARKER ) );
+    }
+
+    /**
+     * Adds events, that have been recorded before the store was used, and marks the repository as imported.
+     *
+     * @param repositoryId the repository
+     * @param events the existing events of the repository
+     * @throws IOException if the segments could not be written
+     */
+    public synchronized void importEvents( String repositoryId, Collection<AuditEvent> events )
+        throws IOException
+    {
+        for ( AuditEvent event : events )
+        {
+            event.setRepositoryId( repositoryId );
+            append( event );
+        }
+        Path directory = getRepositoryDirectory( repositoryId );
+        Files.createDirectories( directory );
+        Files.write( directory.resolve( IMPORTED_MARKER ), Collections.singletonList( Instant.now( ).toString( ) ),
+            StandardCharsets.UTF_8 );
+        log.info( "Imported {} audit events of repository {}", events.size( ), repositoryId );
+    }
+
+    /**
+     * Returns the most recent events of the given repositories. Only the newest segments are read.
+     *
+     * @param repositoryIds the repositories
+     * @param count the maximum number of events
+     * @return the events, the most recent event first
+     * @throws IOException if a segment could not be read
+     */
+    public List<AuditEvent> getMostRecent( Collection<String> repositoryIds, int count )
+        throws IOException
+    {
+        List<AuditEvent> result = new ArrayList<>( );
+        for ( String repositoryId : repositoryIds )
+        {
+            int found = 0;
+            for ( LocalDate day : getDays( repositoryId, true ) )
+            {
+                List<AuditEvent> events = readSegment( repositoryId, day );
+                result.addAll( events );
+                found += events.size( );
+                if ( found >= count )
+                {
+                    break;
+                }
+            }
+        }
+        result.sort( MOST_RECENT_FIRST );
+        return result.size( ) > count ? new ArrayList<>( result.subList( 0, count ) ) : result;
+    }
+
+    /**
+     * Returns the events of the given repositories in the time range. Only the segments of the days in the range
+     * are read.
+     *
+     * @param repositoryIds the repositories
+     * @param resource the prefix of the resource, or <code>null</code> for all resources
+     * @param startTime the start of the range (inclusive), or <code>null</code>
+     * @param endTime the end of the range (inclusive), or <code>null</code>
+     * @return the events, the most recent event first
+     * @throws IOException if a segment could not be read
+     */
+    public List<AuditEvent> getInRange( Collection<String> repositoryIds, String resource, Date startTime,
+                                        Date endTime )
+        throws IOException
+    {
+        LocalDate startDay = startTime == null ? null : getDay( startTime );
+        LocalDate endDay = endTime == null ? null : getDay( endTime );
+        List<AuditEvent> result = new ArrayList<>( );
+        for ( String repositoryId : repositoryIds )
+        {
+            for ( LocalDate day : getDays( repositoryId, false ) )
+            {
+                if ( ( startDay != null && day.isBefore( startDay ) ) || ( endDay != null && day.isAfter( endDay ) ) )
+                {
+                    continue;
+                }
+                for ( AuditEvent event : readSegment( repositoryId, day ) )
+                {
+                    Date date = event.getTimestamp( );
+                    if ( ( startTime == null || !date.before( startTime ) ) && ( endTime == null || !date.after(
+                        endTime ) ) && ( resource == null || ( event.getResource( ) != null
+                        && event.getResource( ).startsWith( resource ) ) ) )
+                    {
+                        result.add( event );
+                    }
+                }
+            }
+        }
+        result.sort( MOST_RECENT_FIRST );
+        return result;
+    }
+
+    /**
+     * Removes all events of the repository.
+     */
+    public synchronized void deleteRepository( String repositoryId )
+        throws IOException
+    {
+        org.apache.archiva.common.utils.FileUtils.deleteDirectory( getRepositoryDirectory( repositoryId ) );
+    }
+
+    /**
+     * Removes the segments of all repositories, that contain only events older than the given day.
+     *
+     * @param oldestDay the oldest day to keep
+     * @return the number of removed segments
+     * @throws IOException if the directories could not be read or a segment could not be removed
+     */
+    public synchronized int deleteBefore( LocalDate oldestDay )
+        throws IOException
+    {
+        if ( !Files.isDirectory( baseDirectory ) )
+        {
+            return 0;
+        }
+        int removed = 0;
+        try ( DirectoryStream<Path> repositories = Files.newDirectoryStream( baseDirectory, Files::isDirectory ) )
+        {
+            for ( Path repositoryDirectory : repositories )
+            {
+                for ( LocalDate day : getDays( repositoryDirectory.getFileName( ).toString( ), false ) )
+                {
+                    if ( !day.isBefore( oldestDay ) )
+                    {
+                        break;
+                    }
+                    Files.deleteIfExists( repositoryDirectory.resolve( day.format( SEGMENT_FORMAT ) + SEGMENT_SUFFIX ) );
+                    removed++;
+                }
+            }
+        }
+        if ( removed > 0 )
+        {
+            log.info( "Removed {} audit log segments older than {}", removed, oldestDay );
+        }
+        return removed;
+    }
+
+    private Path getRepositoryDirectory( String repositoryId )
+    {
+        return baseDirectory.resolve( repositoryId );
+    }
+
+    private Path getSegment( String repositoryId, LocalDate day )
+    {
+        return getRepositoryDirectory( repositoryId ).resolve( day.format( SEGMENT_FORMAT ) + SEGMENT_SUFFIX );
+    }
+
+    private static LocalDate getDay( Date date )
+    {
+        return date.toInstant( ).atZone( ZoneOffset.UTC ).toLocalDate( );
+    }
+
+    /**
+     * Returns the days of the segments of the repository in ascending or descending order.
+     */
+    private List<LocalDate> getDays( String repositoryId, boolean descending )
+        throws IOException
+    {
+        Path directory = getRepositoryDirectory( repositoryId );
+        if ( !Files.isDirectory( directory ) )
+        {
+            return Collections.emptyList( );
+        }
+        try ( Stream<Path> files = Files.list( directory ) )
+        {
+            Comparator<LocalDate> order = descending ? Comparator.reverseOrder( ) : Comparator.naturalOrder( );
+            return files.map( file -> file.getFileName( ).toString( ) )
+                .filter( name -> name.endsWith( SEGMENT_SUFFIX ) )
+                .map( name -> LocalDate.parse( name.substring( 0, name.length( ) - SEGMENT_SUFFIX.length( ) ), SEGMENT_FORMAT ) )
+                .sorted( order ).collect( Collectors.toList( ) );
+        }
+    }
+
+    private List<AuditEvent> readSegment( String repositoryId, LocalDate day )
+        throws IOException
+    {
+        List<AuditEvent> events = new ArrayList<>( );
+        Path segment = getSegment( repositoryId, day );
+        if ( !Files.exists( segment ) )
+        {
+            return events;
+        }
+        try ( BufferedReader reader = Files.newBufferedReader( segment, StandardCharsets.UTF_8 ) )
+        {
+            String line;
+            while ( ( line = reader.readLine( ) ) != null )
+            {
+                AuditEvent event = decode( repositoryId, line );
+                if ( event != null )
+                {
+                    events.add( event );
+                }
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Encodes the event as a tab separated line: timestamp, action, user, remote IP, resource.
+     */
+    static String encode( AuditEvent event )
+    {
+        return event.getTimestamp( ).getTime( ) + "\t" + escape( event.getAction( ) ) + "\t" + escape(
+            event.getUserId( ) ) + "\t" + escape( event.getRemoteIP( ) ) + "\t" + escape( event.getResource( ) );
+    }
+
+    static AuditEvent decode( String repositoryId, String line )
+    {
+        String[] fields = line.split( "\t", -1 );
+        if ( fields.length != 5 )
+        {
+            log.warn( "Ignoring invalid audit log entry of repository {}: {}", repositoryId, line );
+            return null;
+        }
+        AuditEvent event = new AuditEvent( );
+        event.setRepositoryId( repositoryId );
+        try
+        {
+            event.setTimestamp( new Date( Long.parseLong( fields[0] ) ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            log.warn( "Ignoring audit log entry of repository {} with invalid timestamp: {}", repositoryId, line );
+            return null;
+        }
+        event.setAction( unescape( fields[1] ) );
+        event.setUserId( unescape( fields[2] ) );
+        event.setRemoteIP( unescape( fields[3] ) );
+        event.setResource( unescape( fields[4] ) );
+        return event;
+    }
+
+    private static String escape( String value )
+    {
+        if ( value == null )
+        {
+            return "\\0";
+        }
+        StringBuilder sb = new StringBuilder( value.length( ) );
+        for ( char c : value.toCharArray( ) )
+        {
+            switch ( c )
+            {
+                case '\\':
+                    sb.append( "\\\\" );
+                    break;
+                case '\t':
+                    sb.append( "\\t" );
+                    break;
+                case '\n':
+                    sb.append( "\\n" );
+                    break;
+                case '\r':
+                    sb.append( "\\r" );
+                    break;
+                default:
+                    sb.append( c );
+            }
+        }
+        return sb.toString( );
+    }
+
+    private static String unescape( String value )
+    {
+        if ( "\\0".equals( value ) )
+        {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder( value.length( ) );
+        for ( int i = 0; i < value.length( ); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '\\' && i + 1 < value.length( ) )
+            {
+                char next = value.charAt( ++i );
+                sb.append( next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next );
+            }
+            else
+            {
+                sb.append( c );
+            }
+        }
+        return sb.toString( );
+    }
+}
@@ -35,6 +35,15 @@ List<AuditEvent> getMostRecentAuditEvents( MetadataRepository metadataRepository
     void addAuditEvent( MetadataRepository repository, AuditEvent event )
         throws MetadataRepositoryException;
 
+    /**
+     * Adds the given events with one batch update per repository.
+     *
+     * @param repository the metadata repository
+     * @param events     the events to add
+     */
+    void addAuditEvents( MetadataRepository repository, Collection<AuditEvent> events )
+        throws MetadataRepositoryException;
+
     void deleteAuditEvents( MetadataRepository metadataRepository, String repositoryId )
         throws MetadataRepositoryException;
 
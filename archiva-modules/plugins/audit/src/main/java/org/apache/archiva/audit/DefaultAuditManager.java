@@ -19,6 +19,7 @@
  * under the License.
  */
 
+import org.apache.archiva.configuration.ArchivaConfiguration;
 import org.apache.archiva.metadata.model.facets.AuditEvent;
 import org.apache.archiva.metadata.repository.MetadataRepository;
 import org.apache.archiva.metadata.repository.MetadataRepositoryException;
@@ -26,17 +27,24 @@
 import org.apache.archiva.metadata.repository.RepositorySessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
 
 /**
@@ -55,13 +63,49 @@
     @Inject
     RepositorySessionFactory repositorySessionFactory;
 
+    @Autowired( required = false )
+    private ArchivaConfiguration archivaConfiguration;
+
+    /**
+     * Time partitioned copy of the audit events used for the queries. If it is not set, the queries list
+     * the audit facets of the metadata repository.
+     */
+    private AuditLogStore auditLogStore;
+
+    /**
+     * Number of days, the events are kept in the audit log store. 0 keeps them forever.
+     */
+    private int retentionDays = Integer.getInteger( "archiva.audit.retentionDays", 0 );
+
+    private LocalDate lastRetentionDay;
+
+    @PostConstruct
+    public void initialize( )
+    {
+        if ( auditLogStore == null && archivaConfiguration != null && archivaConfiguration.getDataDirectory( ) != null )
+        {
+            auditLogStore = new AuditLogStore( archivaConfiguration.getDataDirectory( ).resolve( "audit" ) );
+        }
+    }
+
     @Override
     public List<AuditEvent> getMostRecentAuditEvents( MetadataRepository metadataRepository,
                                                       List<String> repositoryIds )
         throws MetadataRepositoryException
     {
         try(RepositorySession session = repositorySessionFactory.createSession()) {
-            // TODO: consider a more efficient implementation that directly gets the last ten from the content repository
+            if ( auditLogStore != null )
+            {
+                try
+                {
+                    importAuditEvents( metadataRepository, session, repositoryIds );
+                    return auditLogStore.getMostRecent( repositoryIds, NUM_RECENT_EVENTS );
+                }
+                catch ( IOException e )
+                {
+                    log.warn( "Could not read the audit log store, using the metadata repository: {}", e.getMessage( ) );
+                }
+            }
             List<AuditRecord> records = new ArrayList<>();
             for (String repositoryId : repositoryIds) {
                 List<String> names = metadataRepository.getMetadataFacets(session, repositoryId, AuditEvent.FACET_ID);
@@ -90,7 +134,71 @@ public void addAuditEvent( MetadataRepository repository, AuditEvent event )
         try(RepositorySession session = repositorySessionFactory.createSession()) {
             // ignore those with no repository - they will still be logged to the textual audit log
             if (event.getRepositoryId() != null) {
+                if ( auditLogStore != null )
+                {
+                    // import the existing events first, so the new one is not imported twice
+                    importAuditEvents( repository, session, Collections.singletonList( event.getRepositoryId( ) ) );
+                }
                 repository.addMetadataFacet(session, event.getRepositoryId(), event);
+                if ( auditLogStore != null )
+                {
+                    try
+                    {
+                        auditLogStore.append( event );
+                        applyRetention( );
+                    }
+                    catch ( IOException e )
+                    {
+                        log.error( "Could not write audit event to the audit log store: {}", e.getMessage( ), e );
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void addAuditEvents( MetadataRepository repository, Collection<AuditEvent> events )
+        throws MetadataRepositoryException
+    {
+        Map<String, List<AuditEvent>> eventsByRepository = new LinkedHashMap<>( );
+        for ( AuditEvent event : events )
+        {
+            // ignore those with no repository - they will still be logged to the textual audit log
+            if ( event.getRepositoryId( ) != null )
+            {
+                eventsByRepository.computeIfAbsent( event.getRepositoryId( ), k -> new ArrayList<>( ) ).add( event );
+            }
+        }
+        if ( eventsByRepository.isEmpty( ) )
+        {
+            return;
+        }
+        try(RepositorySession session = repositorySessionFactory.createSession()) {
+            if ( auditLogStore != null )
+            {
+                importAuditEvents( repository, session, eventsByRepository.keySet( ) );
+            }
+            for ( Map.Entry<String, List<AuditEvent>> entry : eventsByRepository.entrySet( ) )
+            {
+                repository.addMetadataFacets( session, entry.getKey( ), entry.getValue( ) );
+            }
+            if ( auditLogStore != null )
+            {
+                try
+                {
+                    for ( List<AuditEvent> repositoryEvents : eventsByRepository.values( ) )
+                    {
+                        for ( AuditEvent event : repositoryEvents )
+                        {
+                            auditLogStore.append( event );
+                        }
+                    }
+                    applyRetention( );
+                }
+                catch ( IOException e )
+                {
+                    log.error( "Could not write audit events to the audit log store: {}", e.getMessage( ), e );
+                }
             }
         }
     }
@@ -101,6 +209,18 @@ public void deleteAuditEvents( MetadataRepository metadataRepository, String rep
     {
         try(RepositorySession session = repositorySessionFactory.createSession()) {
             metadataRepository.removeMetadataFacets(session, repositoryId, AuditEvent.FACET_ID);
+            if ( auditLogStore != null )
+            {
+                try
+                {
+                    auditLogStore.deleteRepository( repositoryId );
+                }
+                catch ( IOException e )
+                {
+                    log.error( "Could not delete audit events of {} from the audit log store: {}", repositoryId,
+                               e.getMessage( ), e );
+                }
+            }
         }
     }
 
@@ -119,6 +239,18 @@ public List<AuditEvent> getAuditEventsInRange( MetadataRepository metadataReposi
         throws MetadataRepositoryException
     {
         try(RepositorySession session = repositorySessionFactory.createSession()) {
+            if ( auditLogStore != null )
+            {
+                try
+                {
+                    importAuditEvents( metadataRepository, session, repositoryIds );
+                    return auditLogStore.getInRange( repositoryIds, resource, startTime, endTime );
+                }
+                catch ( IOException e )
+                {
+                    log.warn( "Could not read the audit log store, using the metadata repository: {}", e.getMessage( ) );
+                }
+            }
             List<AuditEvent> results = new ArrayList<>();
             for (String repositoryId : repositoryIds) {
                 List<String> list = metadataRepository.getMetadataFacets(session, repositoryId, AuditEvent.FACET_ID);
@@ -151,6 +283,57 @@ public int compare(AuditEvent o1, AuditEvent o2) {
         }
     }
 
+    /**
+     * Copies the audit events of the metadata repository into the audit log store, for all repositories that
+     * have not been imported yet. This is done once per repository.
+     */
+    private synchronized void importAuditEvents( MetadataRepository metadataRepository, RepositorySession session,
+                                                 Collection<String> repositoryIds )
+        throws MetadataRepositoryException
+    {
+        for ( String repositoryId : repositoryIds )
+        {
+            if ( auditLogStore.isImported( repositoryId ) )
+            {
+                continue;
+            }
+            List<AuditEvent> events = new ArrayList<>( );
+            for ( String name : metadataRepository.getMetadataFacets( session, repositoryId, AuditEvent.FACET_ID ) )
+            {
+                AuditEvent event =
+                    (AuditEvent) metadataRepository.getMetadataFacet( session, repositoryId, AuditEvent.FACET_ID, name );
+                if ( event != null )
+                {
+                    events.add( event );
+                }
+            }
+            try
+            {
+                auditLogStore.importEvents( repositoryId, events );
+            }
+            catch ( IOException e )
+            {
+                throw new MetadataRepositoryException(
+                    "Could not import audit events of " + repositoryId + ": " + e.getMessage( ), e );
+            }
+        }
+    }
+
+    /**
+     * Removes the segments of the audit log store, that are older than the retention period. This is done
+     * once per day.
+     */
+    private synchronized void applyRetention( )
+        throws IOException
+    {
+        LocalDate today = LocalDate.now( ZoneOffset.UTC );
+        if ( retentionDays > 0 && !today.equals( lastRetentionDay ) )
+        {
+            lastRetentionDay = today;
+            auditLogStore.deleteBefore( today.minusDays( retentionDays ) );
+        }
+    }
+
     private static SimpleDateFormat createNameFormat()
     {
         SimpleDateFormat fmt = new SimpleDateFormat( AuditEvent.TIMESTAMP_FORMAT );
@@ -188,4 +371,24 @@ public void setRepositorySessionFactory( RepositorySessionFactory repositorySess
     {
         this.repositorySessionFactory = repositorySessionFactory;
     }
+
+    public AuditLogStore getAuditLogStore( )
+    {
+        return auditLogStore;
+    }
+
+    public void setAuditLogStore( AuditLogStore auditLogStore )
+    {
+        this.auditLogStore = auditLogStore;
+    }
+
+    public int getRetentionDays( )
+    {
+        return retentionDays;
+    }
+
+    public void setRetentionDays( int retentionDays )
+    {
+        this.retentionDays = retentionDays;
+    }
 }
@@ -29,6 +29,9 @@
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  *
@@ -55,9 +58,7 @@
     @Override
     public void auditEvent( AuditEvent event )
     {
-        // for now we only log upload events, some of the others are quite noisy
-        if ( event.getAction().equals( AuditEvent.CREATE_FILE ) || event.getAction().equals( AuditEvent.UPLOAD_FILE ) ||
-            event.getAction().equals( AuditEvent.MERGING_REPOSITORIES ) )
+        if ( isStored( event ) )
         {
             RepositorySession repositorySession = null;
             try
@@ -87,4 +88,37 @@ public void auditEvent( AuditEvent event )
             }
         }
     }
+
+    @Override
+    public void auditEvents( Collection<AuditEvent> events )
+    {
+        List<AuditEvent> storedEvents = new ArrayList<>( );
+        for ( AuditEvent event : events )
+        {
+            if ( isStored( event ) )
+            {
+                storedEvents.add( event );
+            }
+        }
+        if ( storedEvents.isEmpty( ) )
+        {
+            return;
+        }
+        try ( RepositorySession repositorySession = repositorySessionFactory.createSession() )
+        {
+            auditManager.addAuditEvents( repositorySession.getRepository(), storedEvents );
+            repositorySession.save();
+        }
+        catch ( MetadataRepositoryException | org.apache.archiva.metadata.repository.MetadataSessionException e )
+        {
+            log.warn( "Unable to write audit events to repository: {}", e.getMessage(), e );
+        }
+    }
+
+    private static boolean isStored( AuditEvent event )
+    {
+        // for now we only log upload events, some of the others are quite noisy
+        return event.getAction().equals( AuditEvent.CREATE_FILE ) || event.getAction().equals( AuditEvent.UPLOAD_FILE ) ||
+            event.getAction().equals( AuditEvent.MERGING_REPOSITORIES );
+    }
 }
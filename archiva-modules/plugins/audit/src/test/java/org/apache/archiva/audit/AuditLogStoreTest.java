@@ -0,0 +1,172 @@
+package org.apache.archiva.audit;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import junit.framework.TestCase;
+import org.apache.archiva.common.utils.FileUtils;
+import org.apache.archiva.metadata.model.facets.AuditEvent;
+import org.apache.archiva.test.utils.ArchivaBlockJUnit4ClassRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith( ArchivaBlockJUnit4ClassRunner.class )
+public class AuditLogStoreTest
+    extends TestCase
+{
+    private static final String TEST_REPO_ID = "test-repo";
+
+    private static final String TEST_REPO_ID_2 = "repo2";
+
+    private static final long DAY = TimeUnit.DAYS.toMillis( 1 );
+
+    private static final long START = LocalDate.of( 2020, 3, 1 ).atStartOfDay( ZoneOffset.UTC ).toInstant( ).toEpochMilli( );
+
+    private Path baseDirectory;
+
+    private AuditLogStore store;
+
+    @Override
+    @Before
+    public void setUp( )
+        throws Exception
+    {
+        super.setUp( );
+        baseDirectory = Files.createTempDirectory( "archiva-audit" );
+        store = new AuditLogStore( baseDirectory );
+    }
+
+    @Override
+    @After
+    public void tearDown( )
+        throws Exception
+    {
+        FileUtils.deleteDirectory( baseDirectory );
+        super.tearDown( );
+    }
+
+    private AuditEvent createEvent( String repositoryId, long timestamp, String resource )
+    {
+        AuditEvent event = new AuditEvent( );
+        event.setRepositoryId( repositoryId );
+        event.setTimestamp( new Date( timestamp ) );
+        event.setAction( AuditEvent.UPLOAD_FILE );
+        event.setUserId( "test_user" );
+        event.setResource( resource );
+        return event;
+    }
+
+    @Test
+    public void testMostRecentAcrossSegments( )
+        throws Exception
+    {
+        // 5 days with 4 events each, in two repositories
+        for ( int day = 0; day < 5; day++ )
+        {
+            for ( int i = 0; i < 4; i++ )
+            {
+                long time = START + day * DAY + i * 1000;
+                store.append( createEvent( i % 2 == 0 ? TEST_REPO_ID : TEST_REPO_ID_2, time, "test/resource" + day + i ) );
+            }
+        }
+
+        List<AuditEvent> events = store.getMostRecent( Arrays.asList( TEST_REPO_ID, TEST_REPO_ID_2 ), 10 );
+        assertEquals( 10, events.size( ) );
+        assertEquals( "test/resource43", events.get( 0 ).getResource( ) );
+        assertEquals( TEST_REPO_ID_2, events.get( 0 ).getRepositoryId( ) );
+        for ( int i = 1; i < events.size( ); i++ )
+        {
+            assertFalse( events.get( i ).getTimestamp( ).after( events.get( i - 1 ).getTimestamp( ) ) );
+        }
+        assertEquals( "test/resource22", events.get( 9 ).getResource( ) );
+
+        assertEquals( 2, store.getMostRecent( Collections.singletonList( TEST_REPO_ID ), 2 ).size( ) );
+        assertTrue( store.getMostRecent( Collections.singletonList( "unknown" ), 10 ).isEmpty( ) );
+    }
+
+    @Test
+    public void testRange( )
+        throws Exception
+    {
+        for ( int day = 0; day < 5; day++ )
+        {
+            store.append( createEvent( TEST_REPO_ID, START + day * DAY, "test/resource" + day ) );
+            store.append( createEvent( TEST_REPO_ID, START + day * DAY + 1000, "other/resource" + day ) );
+        }
+
+        List<AuditEvent> events = store.getInRange( Collections.singletonList( TEST_REPO_ID ), null,
+            new Date( START + DAY + 1000 ), new Date( START + 3 * DAY ) );
+        assertEquals( 4, events.size( ) );
+        assertEquals( "test/resource3", events.get( 0 ).getResource( ) );
+        assertEquals( "other/resource2", events.get( 1 ).getResource( ) );
+        assertEquals( "test/resource2", events.get( 2 ).getResource( ) );
+        assertEquals( "other/resource1", events.get( 3 ).getResource( ) );
+
+        events = store.getInRange( Collections.singletonList( TEST_REPO_ID ), "test", null, null );
+        assertEquals( 5, events.size( ) );
+    }
+
+    @Test
+    public void testEncoding( )
+        throws Exception
+    {
+        AuditEvent event = createEvent( TEST_REPO_ID, START, "a\tb\\c\nd" );
+        event.setRemoteIP( null );
+        store.append( event );
+
+        AuditEvent read = store.getMostRecent( Collections.singletonList( TEST_REPO_ID ), 1 ).get( 0 );
+        assertEquals( event, read );
+        assertNull( read.getRemoteIP( ) );
+    }
+
+    @Test
+    public void testRetentionAndDelete( )
+        throws Exception
+    {
+        for ( int day = 0; day < 5; day++ )
+        {
+            store.append( createEvent( TEST_REPO_ID, START + day * DAY, "test/resource" + day ) );
+            store.append( createEvent( TEST_REPO_ID_2, START + day * DAY, "test/resource" + day ) );
+        }
+
+        assertEquals( 6, store.deleteBefore( LocalDate.of( 2020, 3, 4 ) ) );
+        List<AuditEvent> events = store.getInRange( Collections.singletonList( TEST_REPO_ID ), null, null, null );
+        assertEquals( 2, events.size( ) );
+        assertEquals( "test/resource3", events.get( 1 ).getResource( ) );
+
+        store.importEvents( TEST_REPO_ID, Collections.emptyList( ) );
+        assertTrue( store.isImported( TEST_REPO_ID ) );
+        store.deleteRepository( TEST_REPO_ID );
+        assertFalse( store.isImported( TEST_REPO_ID ) );
+        assertTrue( store.getMostRecent( Collections.singletonList( TEST_REPO_ID ), 10 ).isEmpty( ) );
+        assertEquals( 2, store.getMostRecent( Collections.singletonList( TEST_REPO_ID_2 ), 10 ).size( ) );
+    }
+}
@@ -276,6 +276,33 @@ public void testAddAuditEvent()
         metadataRepositoryControl.verify();
     }
 
+    @Test
+    public void testAddAuditEvents()
+        throws Exception
+    {
+        String ts = TIMESTAMP_FORMAT.format( new Date() );
+        AuditEvent event1 = createEvent( TEST_REPO_ID, ts, getDefaultTestResourceName( "1" ) );
+        AuditEvent event2 = createEvent( TEST_REPO_ID_2, ts, getDefaultTestResourceName( "2" ) );
+        AuditEvent event3 = createEvent( TEST_REPO_ID, ts, getDefaultTestResourceName( "3" ) );
+        AuditEvent noRepositoryEvent = createEvent( TEST_REPO_ID, ts, getDefaultTestResourceName( "4" ) );
+        noRepositoryEvent.setRepositoryId( null );
+
+        sessionControl.reset();
+        factoryControl.reset();
+        EasyMock.expect( repositorySessionFactory.createSession() ).andStubReturn( session );
+        factoryControl.replay();
+
+        // one batch update per repository
+        metadataRepository.addMetadataFacets( session, TEST_REPO_ID, Arrays.asList( event1, event3 ) );
+        metadataRepository.addMetadataFacets( session, TEST_REPO_ID_2, Collections.singletonList( event2 ) );
+
+        metadataRepositoryControl.replay();
+
+        auditManager.addAuditEvents( metadataRepository, Arrays.asList( event1, event2, event3, noRepositoryEvent ) );
+
+        metadataRepositoryControl.verify();
+    }
+
     @Test
     public void testAddAuditEventNoRepositoryId()
         throws Exception
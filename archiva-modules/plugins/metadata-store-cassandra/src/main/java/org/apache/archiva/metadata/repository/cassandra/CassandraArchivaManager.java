@@ -58,4 +58,10 @@
 
     String getChecksumFamilyName();
 
+    /**
+     * @return the number of rows, that are fetched by a single range query of paged results
+     * @since 3.0
+     */
+    int getPageSize();
+
 }
@@ -71,16 +71,21 @@
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.UUID;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -125,12 +130,15 @@
 
     private final StringSerializer ss = StringSerializer.get();
 
+    private int pageSize;
+
     public CassandraMetadataRepository( MetadataService metadataService,
                                         CassandraArchivaManager cassandraArchivaManager )
     {
         super( metadataService );
         this.cassandraArchivaManager = cassandraArchivaManager;
         this.keyspace = cassandraArchivaManager.getKeyspace();
+        this.pageSize = cassandraArchivaManager.getPageSize();
 
         this.projectVersionMetadataTemplate =
             new ThriftColumnFamilyTemplate<>( cassandraArchivaManager.getKeyspace(), //
@@ -180,6 +188,19 @@ public CassandraMetadataRepository( MetadataService metadataService,
                 StringSerializer.get() );
     }
 
+    public int getPageSize()
+    {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of rows, that are fetched by a single query, if results are read page by page.
+     */
+    public void setPageSize( int pageSize )
+    {
+        this.pageSize = pageSize;
+    }
+
 
     /**
      * if the repository doesn't exist it will be created
@@ -747,6 +768,30 @@ public void updateProjectVersion( RepositorySession session, String repositoryId
             throw new MetadataRepositoryException( e.getMessage(), e );
         }
 
+        updateProjectVersionModel( repositoryId, namespaceId, projectId, versionMetadata );
+    }
+
+    @Override
+    public void updateProjectVersions( RepositorySession session, String repositoryId, String namespaceId, String projectId,
+                                       Collection<ProjectVersionMetadata> versions )
+        throws MetadataRepositoryException
+    {
+        if ( versions.isEmpty() )
+        {
+            return;
+        }
+        Iterator<ProjectVersionMetadata> it = versions.iterator();
+        // the first update creates the namespace and project, if necessary
+        updateProjectVersion( session, repositoryId, namespaceId, projectId, it.next() );
+        while ( it.hasNext() )
+        {
+            updateProjectVersionModel( repositoryId, namespaceId, projectId, it.next() );
+        }
+    }
+
+    private void updateProjectVersionModel( String repositoryId, String namespaceId, String projectId,
+                                            ProjectVersionMetadata versionMetadata )
+    {
         QueryResult<OrderedRows<String, String, String>> result = HFactory //
             .createRangeSlicesQuery( keyspace, ss, ss, ss ) //
             .setColumnFamily( cassandraArchivaManager.getProjectVersionMetadataFamilyName() ) //
@@ -1049,6 +1094,13 @@ protected void recordChecksums( String repositoryId, String artifactMetadataKey,
             return;
         }
         Mutator<String> checksumMutator = this.checksumTemplate.createMutator();
+        addChecksumInsertions( checksumMutator, repositoryId, artifactMetadataKey, checksums );
+        checksumMutator.execute();
+    }
+
+    private void addChecksumInsertions( Mutator<String> checksumMutator, String repositoryId, String artifactMetadataKey,
+                                        Map<String, String> checksums )
+    {
         for ( Map.Entry<String, String> entry : checksums.entrySet())
         {
             // we don't care about the key as the real used one with the projectVersionMetadata
@@ -1063,7 +1115,6 @@ protected void recordChecksums( String repositoryId, String artifactMetadataKey,
             addInsertion(checksumMutator, keyChecksums, cfChecksums, REPOSITORY_NAME.toString(), repositoryId);
 
         }
-        checksumMutator.execute();
     }
 
     protected void removeChecksums( String artifactMetadataKey )
@@ -1492,6 +1543,115 @@ public void updateArtifact( RepositorySession session, String repositoryId, Stri
 
     }
 
+    @Override
+    public void updateArtifacts( RepositorySession session, String repositoryId, Collection<ArtifactMetadata> artifacts )
+        throws MetadataRepositoryException
+    {
+        if ( artifacts.isEmpty() )
+        {
+            return;
+        }
+
+        // namespaces and projects are checked only once for all artifacts
+        Map<String, Namespace> namespaces = new HashMap<>();
+        Set<String> projects = new HashSet<>();
+        // if an artifact is contained more than once, the last entry is stored
+        Map<String, ArtifactMetadata> artifactsByKey = new LinkedHashMap<>();
+        for ( ArtifactMetadata artifactMeta : artifacts )
+        {
+            String namespaceId = artifactMeta.getNamespace();
+            Namespace namespace = namespaces.get( namespaceId );
+            if ( namespace == null )
+            {
+                namespace = getNamespace( repositoryId, namespaceId );
+                if ( namespace == null )
+                {
+                    namespace = updateOrAddNamespace( repositoryId, namespaceId );
+                }
+                namespaces.put( namespaceId, namespace );
+            }
+            if ( projects.add( namespaceId + ":" + artifactMeta.getProject() ) )
+            {
+                ProjectMetadata projectMetadata = new ProjectMetadata();
+                projectMetadata.setId( artifactMeta.getProject() );
+                projectMetadata.setNamespace( namespaceId );
+                updateProject( session, repositoryId, projectMetadata );
+            }
+            String key = new ArtifactMetadataModel.KeyBuilder().withNamespace( namespace ).withProject(
+                artifactMeta.getProject() ).withId( artifactMeta.getId() ).withProjectVersion(
+                artifactMeta.getProjectVersion() ).build();
+            artifactsByKey.remove( key );
+            artifactsByKey.put( key, artifactMeta );
+        }
+
+        // all rows are written with a single batch mutation, existing rows are overwritten
+        Mutator<String> mutator = HFactory.createMutator( keyspace, ss );
+        String cf = this.cassandraArchivaManager.getArtifactMetadataFamilyName();
+        String versionCf = this.cassandraArchivaManager.getProjectVersionMetadataFamilyName();
+        Set<String> versions = new HashSet<>();
+        for ( Map.Entry<String, ArtifactMetadata> entry : artifactsByKey.entrySet() )
+        {
+            String key = entry.getKey();
+            ArtifactMetadata artifactMeta = entry.getValue();
+            String namespaceId = artifactMeta.getNamespace();
+            String projectId = artifactMeta.getProject();
+            String projectVersion = artifactMeta.getProjectVersion();
+
+            removeChecksums( key );
+            mutator.addInsertion( key, cf, column( ID.toString(), artifactMeta.getId() ) ) //
+                .addInsertion( key, cf, column( REPOSITORY_NAME.toString(), repositoryId ) ) //
+                .addInsertion( key, cf, column( NAMESPACE_ID.toString(), namespaceId ) ) //
+                .addInsertion( key, cf, column( PROJECT.toString(), projectId ) ) //
+                .addInsertion( key, cf, column( PROJECT_VERSION.toString(), projectVersion ) ) //
+                .addInsertion( key, cf, column( FILE_LAST_MODIFIED.toString(), artifactMeta.getFileLastModified().toInstant().toEpochMilli() ) ) //
+                .addInsertion( key, cf, column( SIZE.toString(), artifactMeta.getSize() ) ) //
+                .addInsertion( key, cf, column( WHEN_GATHERED.toString(), artifactMeta.getWhenGathered().toInstant().toEpochMilli() ) );
+            addInsertion( mutator, key, cf, VERSION.toString(), artifactMeta.getVersion() );
+            addChecksumInsertions( mutator, repositoryId, key, mapChecksums( artifactMeta.getChecksums() ) );
+
+            if ( versions.add( namespaceId + ":" + projectId + ":" + projectVersion + ":" + artifactMeta.getVersion() ) )
+            {
+                QueryResult<OrderedRows<String, String, String>> result = HFactory //
+                    .createRangeSlicesQuery( keyspace, ss, ss, ss ) //
+                    .setColumnFamily( versionCf ) //
+                    .setColumnNames( VERSION.toString() ) //
+                    .addEqualsExpression( REPOSITORY_NAME.toString(), repositoryId ) //
+                    .addEqualsExpression( NAMESPACE_ID.toString(), namespaceId ) //
+                    .addEqualsExpression( PROJECT_ID.toString(), projectId ) //
+                    .addEqualsExpression( PROJECT_VERSION.toString(), projectVersion ) //
+                    .addEqualsExpression( VERSION.toString(), artifactMeta.getVersion() ) //
+                    .execute();
+                if ( result.get().getCount() <= 0 )
+                {
+                    String versionKey = new ProjectVersionMetadataModel.KeyBuilder() //
+                        .withRepository( repositoryId ) //
+                        .withNamespace( namespaces.get( namespaceId ) ) //
+                        .withProjectId( projectId ) //
+                        .withProjectVersion( projectVersion ) //
+                        .withId( artifactMeta.getId() ) //
+                        .build();
+                    mutator.addInsertion( versionKey, versionCf, column( NAMESPACE_ID.toString(), namespaceId ) ) //
+                        .addInsertion( versionKey, versionCf, column( REPOSITORY_NAME.toString(), repositoryId ) ) //
+                        .addInsertion( versionKey, versionCf, column( PROJECT_VERSION.toString(), projectVersion ) ) //
+                        .addInsertion( versionKey, versionCf, column( PROJECT_ID.toString(), projectId ) ) //
+                        .addInsertion( versionKey, versionCf, column( VERSION.toString(), artifactMeta.getVersion() ) );
+                }
+            }
+        }
+        mutator.execute();
+
+        for ( ArtifactMetadata artifactMeta : artifactsByKey.values() )
+        {
+            ArtifactMetadataModel artifactMetadataModel = new ArtifactMetadataModel();
+            artifactMetadataModel.setRepositoryId( repositoryId );
+            artifactMetadataModel.setNamespace( artifactMeta.getNamespace() );
+            artifactMetadataModel.setProject( artifactMeta.getProject() );
+            artifactMetadataModel.setProjectVersion( artifactMeta.getProjectVersion() );
+            artifactMetadataModel.setVersion( artifactMeta.getVersion() );
+            updateFacets( artifactMeta, artifactMetadataModel );
+        }
+    }
+
     @Override
     public List<String> getArtifactVersions( RepositorySession session, final String repoId, final String namespace, final String projectId,
                                              final String projectVersion )
@@ -1604,6 +1764,122 @@ public List<String> getMetadataFacets( RepositorySession session, final String r
         return facets;
     }
 
+    /**
+     * Returns the rows of the query as a lazily fetched stream. The rows are read page by page with key range
+     * queries, the next page starts with the last key of the previous page. So only the rows of a single page are
+     * kept in memory.
+     *
+     * @param query the query, the key range and row count of the query are set for each page
+     * @return the stream of rows in the order of the row keys
+     */
+    private <V> Stream<Row<String, String, V>> getRowStream( final RangeSlicesQuery<String, String, V> query )
+    {
+        // the first row of a page repeats the last row of the previous page, so a page must contain more than one row
+        final int rowCount = Math.max( 2, pageSize );
+        Iterator<Row<String, String, V>> it = new Iterator<Row<String, String, V>>( )
+        {
+            // the start key of the current page, null for the first page
+            private String pageStartKey;
+
+            private String nextStartKey;
+
+            private boolean lastPage = false;
+
+            private Iterator<Row<String, String, V>> page = Collections.emptyIterator( );
+
+            private Row<String, String, V> next;
+
+            @Override
+            public boolean hasNext( )
+            {
+                while ( next == null )
+                {
+                    if ( page.hasNext( ) )
+                    {
+                        Row<String, String, V> row = page.next( );
+                        // skip the start row of following pages and deleted rows without columns
+                        if ( !row.getKey( ).equals( pageStartKey ) && !row.getColumnSlice( ).getColumns( ).isEmpty( ) )
+                        {
+                            next = row;
+                        }
+                    }
+                    else if ( lastPage )
+                    {
+                        return false;
+                    }
+                    else
+                    {
+                        fetchPage( );
+                    }
+                }
+                return true;
+            }
+
+            private void fetchPage( )
+            {
+                pageStartKey = nextStartKey;
+                OrderedRows<String, String, V> rows = query.setKeys( pageStartKey == null ? "" : pageStartKey, "" ) //
+                    .setRowCount( rowCount ) //
+                    .execute( ).get( );
+                lastPage = rows.getCount( ) < rowCount;
+                if ( rows.getCount( ) > 0 )
+                {
+                    nextStartKey = rows.peekLast( ).getKey( );
+                }
+                page = rows.iterator( );
+            }
+
+            @Override
+            public Row<String, String, V> next( )
+            {
+                if ( !hasNext( ) )
+                {
+                    throw new NoSuchElementException( );
+                }
+                Row<String, String, V> row = next;
+                next = null;
+                return row;
+            }
+        };
+        return StreamSupport.stream( Spliterators.spliteratorUnknownSize( it, Spliterator.ORDERED | Spliterator.NONNULL ), false );
+    }
+
+    /**
+     * Applies the ordering, offset and limit of the query parameter to the stream. For the ordering only the first
+     * offset + limit items are kept in memory, the stream is sorted completely only, if there is no limit.
+     *
+     * @param stream the stream
+     * @param comparator the ordering, or <code>null</code>, if the stream is not ordered
+     * @param queryParameter the offset and limit
+     * @return the ordered and limited stream
+     */
+    private static <T> Stream<T> applyQueryParameter( Stream<T> stream, Comparator<T> comparator, QueryParameter queryParameter )
+    {
+        final long offset = queryParameter.getOffset( );
+        final long limit = queryParameter.getLimit( );
+        if ( comparator == null )
+        {
+            return stream.skip( offset ).limit( limit );
+        }
+        final long window = offset + limit;
+        if ( window < 0 || window >= Integer.MAX_VALUE )
+        {
+            return stream.sorted( comparator ).skip( offset ).limit( limit );
+        }
+        // the heap keeps the first items of the ordering, the last of them is at the head
+        PriorityQueue<T> heap = new PriorityQueue<>( comparator.reversed( ) );
+        stream.forEach( item -> {
+            heap.add( item );
+            if ( heap.size( ) > window )
+            {
+                heap.poll( );
+            }
+        } );
+        List<T> result = new ArrayList<>( heap );
+        result.sort( comparator );
+        return result.stream( ).skip( offset );
+    }
+
     private <T> Spliterator<T> createResultSpliterator( QueryResult<OrderedRows<String, String, String>> result, BiFunction<Row<String, String, String>, T, T> converter) throws MetadataRepositoryException
     {
         final int size = result.get().getCount();
@@ -1827,6 +2103,42 @@ public void addMetadataFacet( RepositorySession session, String repositoryId, Me
         }
     }
 
+    @Override
+    public void addMetadataFacets( RepositorySession session, String repositoryId, Collection<? extends MetadataFacet> facets )
+        throws MetadataRepositoryException
+    {
+        // the rows are written with a single batch mutation, an insertion overwrites the columns of an existing row
+        Mutator<String> mutator = this.metadataFacetTemplate.createMutator();
+        String cf = this.cassandraArchivaManager.getMetadataFacetFamilyName();
+        for ( MetadataFacet metadataFacet : facets )
+        {
+            if ( metadataFacet == null )
+            {
+                continue;
+            }
+            Map<String, String> properties = metadataFacet.toProperties();
+            if ( properties.isEmpty() )
+            {
+                String key = new MetadataFacetModel.KeyBuilder().withRepositoryId( repositoryId ).withFacetId(
+                    metadataFacet.getFacetId() ).withName( metadataFacet.getName() ).build();
+                mutator.addInsertion( key, cf, column( REPOSITORY_NAME.toString(), repositoryId ) ) //
+                    .addInsertion( key, cf, column( FACET_ID.toString(), metadataFacet.getFacetId() ) ) //
+                    .addInsertion( key, cf, column( NAME.toString(), metadataFacet.getName() ) );
+            }
+            for ( Map.Entry<String, String> entry : properties.entrySet() )
+            {
+                String key = new MetadataFacetModel.KeyBuilder().withRepositoryId( repositoryId ).withFacetId(
+                    metadataFacet.getFacetId() ).withName( metadataFacet.getName() ).withKey( entry.getKey() ).build();
+                mutator.addInsertion( key, cf, column( REPOSITORY_NAME.toString(), repositoryId ) ) //
+                    .addInsertion( key, cf, column( FACET_ID.toString(), metadataFacet.getFacetId() ) ) //
+                    .addInsertion( key, cf, column( NAME.toString(), metadataFacet.getName() ) ) //
+                    .addInsertion( key, cf, column( KEY.toString(), entry.getKey() ) ) //
+                    .addInsertion( key, cf, column( VALUE.toString(), entry.getValue() ) );
+            }
+        }
+        mutator.execute();
+    }
+
     @Override
     public void removeMetadataFacets( RepositorySession session, final String repositoryId, final String facetId )
         throws MetadataRepositoryException
@@ -1872,45 +2184,14 @@ public List<ArtifactMetadata> getArtifactsByDateRange( RepositorySession session
                                                            final ZonedDateTime endTime, QueryParameter queryParameter )
         throws MetadataRepositoryException
     {
-
-        LongSerializer ls = LongSerializer.get();
-        RangeSlicesQuery<String, String, Long> query = HFactory //
-            .createRangeSlicesQuery( keyspace, ss, ss, ls ) //
-            .setColumnFamily( cassandraArchivaManager.getArtifactMetadataFamilyName() ) //
-            .setColumnNames( ArtifactMetadataModel.COLUMNS ); //
-
-
-        if ( startTime != null )
-        {
-            query = query.addGteExpression( WHEN_GATHERED.toString(), startTime.toInstant().toEpochMilli() );
-        }
-        if ( endTime != null )
-        {
-            query = query.addLteExpression( WHEN_GATHERED.toString(), endTime.toInstant().toEpochMilli() );
-        }
-        QueryResult<OrderedRows<String, String, Long>> result = query.execute();
-
-        List<ArtifactMetadata> artifactMetadatas = new ArrayList<>( result.get().getCount() );
-        Iterator<Row<String, String, Long>> keyIter = result.get().iterator();
-        if (keyIter.hasNext()) {
-            String key = keyIter.next().getKey();
-            for (Row<String, String, Long> row : result.get()) {
-                ColumnSlice<String, Long> columnSlice = row.getColumnSlice();
-                String repositoryName = getAsStringValue(columnSlice, REPOSITORY_NAME.toString());
-                if (StringUtils.equals(repositoryName, repositoryId)) {
-
-                    artifactMetadatas.add(mapArtifactMetadataLongColumnSlice(key, columnSlice));
-                }
-            }
-        }
-
-        return artifactMetadatas;
+        return getArtifactByDateRangeStream( session, repositoryId, startTime, endTime, queryParameter ).collect( Collectors.toList( ) );
     }
 
     /**
      * For documentation see {@link MetadataRepository#getArtifactByDateRangeStream(RepositorySession, String, ZonedDateTime, ZonedDateTime, QueryParameter)}
      *
-     * This implementation orders the stream. It does not order the query in the backend.
+     * The rows are fetched page by page. The ordering is not done by the query in the backend, only the
+     * first offset + limit artifacts are kept in memory for the ordering.
      *
      * @param session The repository session
      * @param repositoryId The repository id
@@ -1924,8 +2205,27 @@ public List<ArtifactMetadata> getArtifactsByDateRange( RepositorySession session
     @Override
     public Stream<ArtifactMetadata> getArtifactByDateRangeStream( RepositorySession session, String repositoryId, ZonedDateTime startTime, ZonedDateTime endTime, QueryParameter queryParameter) throws MetadataRepositoryException
     {
+        LongSerializer ls = LongSerializer.get();
+        RangeSlicesQuery<String, String, Long> query = HFactory //
+            .createRangeSlicesQuery( keyspace, ss, ss, ls ) //
+            .setColumnFamily( cassandraArchivaManager.getArtifactMetadataFamilyName() ) //
+            .setColumnNames( ArtifactMetadataModel.COLUMNS ); //
+
+
+        if ( startTime != null )
+        {
+            query = query.addGteExpression( WHEN_GATHERED.toString(), startTime.toInstant().toEpochMilli() );
+        }
+        if ( endTime != null )
+        {
+            query = query.addLteExpression( WHEN_GATHERED.toString(), endTime.toInstant().toEpochMilli() );
+        }
+
+        Stream<ArtifactMetadata> stream = getRowStream( query ) //
+            .filter( row -> StringUtils.equals( getAsStringValue( row.getColumnSlice(), REPOSITORY_NAME.toString() ), repositoryId ) ) //
+            .map( row -> mapArtifactMetadataLongColumnSlice( row.getKey(), row.getColumnSlice() ) );
         Comparator<ArtifactMetadata> comp = getArtifactMetadataComparator(queryParameter, "whenGathered");
-        return getArtifactsByDateRange(session, repositoryId, startTime, endTime, queryParameter).stream().sorted(comp).skip(queryParameter.getOffset()).limit(queryParameter.getLimit());
+        return applyQueryParameter( stream, comp, queryParameter );
     }
 
 
@@ -2207,21 +2507,9 @@ public List<ArtifactMetadata> getArtifacts( RepositorySession session, final Str
 
         query = query.addEqualsExpression( REPOSITORY_NAME.toString(), repositoryId );
 
-        QueryResult<OrderedRows<String, String, String>> result = query.execute();
-
-
-
-        List<ArtifactMetadata> artifactMetadatas = new ArrayList<>( result.get().getCount() );
-
-        for ( Row<String, String, String> row : result.get() )
-        {
-            String key = row.getKey();
-            ColumnSlice<String, String> columnSlice = row.getColumnSlice();
-            artifactMetadatas.add( mapArtifactMetadataStringColumnSlice( key, columnSlice ) );
-
-        }
-
-        return artifactMetadatas;
+        return getRowStream( query ) //
+            .map( row -> mapArtifactMetadataStringColumnSlice( row.getKey(), row.getColumnSlice() ) ) //
+            .collect( Collectors.toList() );
     }
 
 
@@ -2478,18 +2766,12 @@ public Stream<ArtifactMetadata> getArtifactStream( final RepositorySession sessi
 
         query = query.addEqualsExpression( REPOSITORY_NAME.toString(), repositoryId );
 
-        QueryResult<OrderedRows<String, String, String>> result = query.execute();
-
-        try
-        {
-            return StreamSupport.stream( createResultSpliterator( result, ( Row<String, String, String> row, ArtifactMetadata last ) ->
-                mapArtifactMetadataStringColumnSlice( row.getKey( ), row.getColumnSlice( ) ) ), false )
-                .skip( queryParameter.getOffset( ) ).limit( queryParameter.getLimit( ) );
-        }
-        catch ( MetadataRepositoryException e )
-        {
-            throw new MetadataResolutionException( e.getMessage( ), e );
-        }
+        // the rows are fetched page by page, while the stream is consumed
+        Stream<ArtifactMetadata> stream = getRowStream( query ) //
+            .map( row -> mapArtifactMetadataStringColumnSlice( row.getKey( ), row.getColumnSlice( ) ) );
+        Comparator<ArtifactMetadata> comparator =
+            queryParameter.getSortFields( ).isEmpty( ) ? null : getArtifactMetadataComparator( queryParameter, "id" );
+        return applyQueryParameter( stream, comparator, queryParameter );
     }
 
     @Override
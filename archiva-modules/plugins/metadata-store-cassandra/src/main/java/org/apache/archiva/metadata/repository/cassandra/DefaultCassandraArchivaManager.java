@@ -118,6 +118,9 @@
     @Value("${cassandra.cluster.name}")
     private String clusterName;
 
+    @Value("${cassandra.pageSize:500}")
+    private int pageSize;
+
     @Inject
     private RepositorySessionFactoryBean repositorySessionFactoryBean;
 
@@ -603,4 +606,10 @@ public String getDependencyFamilyName()
     public String getChecksumFamilyName() {
         return checksumFamilyName;
     }
+
+    @Override
+    public int getPageSize()
+    {
+        return pageSize;
+    }
 }
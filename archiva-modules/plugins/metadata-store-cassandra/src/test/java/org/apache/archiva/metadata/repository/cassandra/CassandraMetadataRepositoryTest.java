@@ -19,6 +19,8 @@
  * under the License.
  */
 
+import org.apache.archiva.metadata.QueryParameter;
+import org.apache.archiva.metadata.model.ArtifactMetadata;
 import org.apache.archiva.metadata.model.MetadataFacetFactory;
 import org.apache.archiva.metadata.repository.AbstractMetadataRepositoryTest;
 import org.apache.archiva.metadata.repository.MetadataRepository;
@@ -37,7 +39,10 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -139,6 +144,45 @@ public void clean_dependant_tables()
     }
 
 
+    @Test
+    public void testPagedArtifactStream()
+        throws Exception
+    {
+        // more pages than artifacts per page
+        cmr.setPageSize( 3 );
+        List<ArtifactMetadata> artifacts = new ArrayList<>( );
+        ZonedDateTime now = ZonedDateTime.now( );
+        for ( int i = 0; i < 10; i++ )
+        {
+            ArtifactMetadata artifact = new ArtifactMetadata( );
+            artifact.setId( TEST_PROJECT + "-" + TEST_PROJECT_VERSION + "-" + i + ".jar" );
+            artifact.setNamespace( TEST_NAMESPACE );
+            artifact.setProject( TEST_PROJECT );
+            artifact.setRepositoryId( TEST_REPO_ID );
+            artifact.setVersion( TEST_PROJECT_VERSION );
+            artifact.setProjectVersion( TEST_PROJECT_VERSION );
+            artifact.setFileLastModified( System.currentTimeMillis( ) );
+            artifact.setWhenGathered( now.minusMinutes( 10 - i ) );
+            artifacts.add( artifact );
+        }
+        cmr.updateArtifacts( null, TEST_REPO_ID, artifacts );
+
+        assertThat( cmr.getArtifacts( null, TEST_REPO_ID ) ).hasSize( 10 );
+        assertThat( cmr.getArtifactStream( null, TEST_REPO_ID, new QueryParameter( ) ).count( ) ).isEqualTo( 10 );
+
+        List<String> ids = cmr.getArtifactStream( null, TEST_REPO_ID, new QueryParameter( false, 2, 3, "id" ) )
+            .map( ArtifactMetadata::getId ).collect( Collectors.toList( ) );
+        assertThat( ids ).containsExactly( TEST_PROJECT + "-" + TEST_PROJECT_VERSION + "-7.jar",
+            TEST_PROJECT + "-" + TEST_PROJECT_VERSION + "-6.jar", TEST_PROJECT + "-" + TEST_PROJECT_VERSION + "-5.jar" );
+
+        List<ArtifactMetadata> recent =
+            cmr.getArtifactsByDateRange( null, TEST_REPO_ID, now.minusMinutes( 4 ), null, new QueryParameter( 0, 2 ) );
+        assertThat( recent ).hasSize( 2 );
+        assertThat( recent.get( 0 ).getId( ) ).isEqualTo( TEST_PROJECT + "-" + TEST_PROJECT_VERSION + "-6.jar" );
+        assertThat( cmr.getArtifactByDateRangeStream( null, TEST_REPO_ID, now.minusMinutes( 4 ), null,
+            new QueryParameter( ) ).count( ) ).isEqualTo( 4 );
+    }
+
     @After
     public void shutdown()
         throws Exception
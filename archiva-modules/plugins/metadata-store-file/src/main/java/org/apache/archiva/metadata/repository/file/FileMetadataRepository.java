@@ -65,6 +65,7 @@
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -148,10 +149,26 @@ private void updateProject(RepositorySession session, String repoId, String name
     @Override
     public void updateProjectVersion(RepositorySession session, String repoId, String namespace, String projectId,
                                      ProjectVersionMetadata versionMetadata) {
+        updateProject(session, repoId, namespace, projectId);
+        writeProjectVersion(repoId, namespace, projectId, versionMetadata);
+    }
 
-        try {
-            updateProject(session, repoId, namespace, projectId);
+    @Override
+    public void updateProjectVersions(RepositorySession session, String repoId, String namespace, String projectId,
+                                      Collection<ProjectVersionMetadata> versions) {
+        if (versions.isEmpty()) {
+            return;
+        }
+        // the namespace and project properties are written only once for all versions
+        updateProject(session, repoId, namespace, projectId);
+        for (ProjectVersionMetadata versionMetadata : versions) {
+            writeProjectVersion(repoId, namespace, projectId, versionMetadata);
+        }
+    }
 
+    private void writeProjectVersion(String repoId, String namespace, String projectId,
+                                     ProjectVersionMetadata versionMetadata) {
+        try {
             Path directory =
                     getDirectory(repoId).resolve(namespace + "/" + projectId + "/" + versionMetadata.getId());
 
@@ -761,6 +778,25 @@ private void setProperty(Properties properties, String name, String value) {
     @Override
     public void updateArtifact(RepositorySession session, String repoId, String namespace, String projectId, String projectVersion,
                                ArtifactMetadata artifact) {
+        updateArtifacts(session, repoId, namespace, projectId, projectVersion, Collections.singletonList(artifact));
+    }
+
+    @Override
+    public void updateArtifacts(RepositorySession session, String repoId, Collection<ArtifactMetadata> artifacts) {
+        // all artifacts of a project version are stored in the same properties file
+        Map<List<String>, List<ArtifactMetadata>> byVersion = new LinkedHashMap<>();
+        for (ArtifactMetadata artifact : artifacts) {
+            byVersion.computeIfAbsent(Arrays.asList(artifact.getNamespace(), artifact.getProject(), artifact.getProjectVersion()),
+                    k -> new ArrayList<>()).add(artifact);
+        }
+        for (Map.Entry<List<String>, List<ArtifactMetadata>> entry : byVersion.entrySet()) {
+            List<String> path = entry.getKey();
+            updateArtifacts(session, repoId, path.get(0), path.get(1), path.get(2), entry.getValue());
+        }
+    }
+
+    private void updateArtifacts(RepositorySession session, String repoId, String namespace, String projectId, String projectVersion,
+                                 List<ArtifactMetadata> artifacts) {
         try {
             ProjectVersionMetadata metadata = new ProjectVersionMetadata();
             metadata.setId(projectVersion);
@@ -770,25 +806,9 @@ public void updateArtifact(RepositorySession session, String repoId, String name
 
             Properties properties = readOrCreateProperties(directory, PROJECT_VERSION_METADATA_KEY);
 
-            clearMetadataFacetProperties(artifact.getFacetList(), properties,
-                    "artifact:facet:" + artifact.getId() + ":");
-
-            String id = artifact.getId();
-            properties.setProperty("artifact:updated:" + id,
-                    Long.toString(artifact.getFileLastModified().toInstant().toEpochMilli()));
-            properties.setProperty("artifact:whenGathered:" + id,
-                    Long.toString(artifact.getWhenGathered().toInstant().toEpochMilli()));
-            properties.setProperty("artifact:size:" + id, Long.toString(artifact.getSize()));
-            artifact.getChecksums().entrySet().stream().forEach( entry ->
-                properties.setProperty( "artifact:checksum:"+id+":"+entry.getKey().name(), entry.getValue() ));
-            properties.setProperty("artifact:version:" + id, artifact.getVersion());
-
-            Set<String> facetIds = new LinkedHashSet<>(artifact.getFacetIds());
-            String property = "artifact:facetIds:" + id;
-            facetIds.addAll(Arrays.asList(properties.getProperty(property, "").split(",")));
-            properties.setProperty(property, join(facetIds));
-
-            updateArtifactFacets(artifact, properties);
+            for (ArtifactMetadata artifact : artifacts) {
+                setArtifactProperties(artifact, properties);
+            }
 
             writeProperties(properties, directory, PROJECT_VERSION_METADATA_KEY);
         } catch (IOException e) {
@@ -797,6 +817,28 @@ public void updateArtifact(RepositorySession session, String repoId, String name
         }
     }
 
+    private void setArtifactProperties(ArtifactMetadata artifact, Properties properties) {
+        clearMetadataFacetProperties(artifact.getFacetList(), properties,
+                "artifact:facet:" + artifact.getId() + ":");
+
+        String id = artifact.getId();
+        properties.setProperty("artifact:updated:" + id,
+                Long.toString(artifact.getFileLastModified().toInstant().toEpochMilli()));
+        properties.setProperty("artifact:whenGathered:" + id,
+                Long.toString(artifact.getWhenGathered().toInstant().toEpochMilli()));
+        properties.setProperty("artifact:size:" + id, Long.toString(artifact.getSize()));
+        artifact.getChecksums().entrySet().stream().forEach( entry ->
+            properties.setProperty( "artifact:checksum:"+id+":"+entry.getKey().name(), entry.getValue() ));
+        properties.setProperty("artifact:version:" + id, artifact.getVersion());
+
+        Set<String> facetIds = new LinkedHashSet<>(artifact.getFacetIds());
+        String property = "artifact:facetIds:" + id;
+        facetIds.addAll(Arrays.asList(properties.getProperty(property, "").split(",")));
+        properties.setProperty(property, join(facetIds));
+
+        updateArtifactFacets(artifact, properties);
+    }
+
     private Properties readOrCreateProperties(Path directory, String propertiesKey) {
         try {
             return readProperties(directory, propertiesKey);
@@ -55,6 +55,15 @@
     String FACET_ID_CONTAINER_TYPE = "archiva:facetIdContainer";
     String FOLDER_TYPE = "archiva:folder";
 
+    // Running totals of the repository statistics, maintained by the RepositoryStatisticsEditorProvider
+    String STATISTICS_NODE = "statistics";
+    String STATISTICS_TYPES_NODE = "types";
+    String STATISTICS_ARTIFACT_COUNT = "totalArtifactCount";
+    String STATISTICS_ARTIFACT_SIZE = "totalArtifactFileSize";
+    String STATISTICS_PROJECT_COUNT = "totalProjectCount";
+    String STATISTICS_GROUP_COUNT = "totalGroupCount";
+    String STATISTICS_INITIALIZE = "initialize";
+
     // Must be alphabetically ordered!
     String[] PROJECT_VERSION_VERSION_PROPERTIES = {"ci.system","ci.url", "description", "incomplete", "issue.system","issue.url", "name", "org.name", "org.url", "url", "scm.connection", "scm.developerConnection", "scm.url"};
 }
@@ -50,6 +50,7 @@
 import org.apache.jackrabbit.commons.JcrUtils;
 import org.apache.jackrabbit.commons.cnd.CndImporter;
 import org.apache.jackrabbit.commons.cnd.ParseException;
+import org.apache.jackrabbit.util.Text;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -97,6 +98,7 @@
 import java.util.stream.StreamSupport;
 
 import static javax.jcr.Property.JCR_LAST_MODIFIED;
+import static org.apache.jackrabbit.JcrConstants.NT_UNSTRUCTURED;
 import static org.apache.archiva.metadata.repository.jcr.JcrConstants.*;
 
 /**
@@ -122,6 +124,9 @@
             + "] AS artifact ON ISCHILDNODE(artifact, projectVersion) WHERE ([projectVersion].[";
     static final String QUERY_ARTIFACTS_BY_PROPERTY_2 = "] = $value)";
 
+    static final String QUERY_ARTIFACTS_BY_CHECKSUM = "SELECT * FROM [" + ARTIFACT_NODE_TYPE + "] AS artifact INNER JOIN [" + CHECKSUM_NODE_TYPE
+            + "] AS checksum ON ISDESCENDANTNODE(checksum, artifact) WHERE ([checksum].[value] = $checksum)";
+
 
     private static final String QUERY_ARTIFACT_2 = "')";
 
@@ -637,26 +642,35 @@ private <T extends MetadataFacet> T createFacetFromNode(final MetadataFacetFacto
     @Override
     public void addMetadataFacet(RepositorySession session, String repositoryId, MetadataFacet metadataFacet)
             throws MetadataRepositoryException {
+        addMetadataFacets(session, repositoryId, Collections.singletonList(metadataFacet));
+    }
+
+    @Override
+    public void addMetadataFacets(RepositorySession session, String repositoryId, Collection<? extends MetadataFacet> facets)
+            throws MetadataRepositoryException {
         final Session jcrSession = getSession(session);
         try {
             Node repo = getOrAddRepositoryNode(jcrSession, repositoryId);
-            Node facets = JcrUtils.getOrAddNode(repo, "facets", FACETS_FOLDER_TYPE);
+            Node facetsNode = JcrUtils.getOrAddNode(repo, "facets", FACETS_FOLDER_TYPE);
 
-            String id = metadataFacet.getFacetId();
-            Node facetNode = JcrUtils.getOrAddNode(facets, id, FACET_ID_CONTAINER_TYPE);
-            if (!facetNode.hasProperty("id")) {
-                facetNode.setProperty("id", id);
-            }
+            for (MetadataFacet metadataFacet : facets) {
+                String id = metadataFacet.getFacetId();
+                Node facetNode = JcrUtils.getOrAddNode(facetsNode, id, FACET_ID_CONTAINER_TYPE);
+                if (!facetNode.hasProperty("id")) {
+                    facetNode.setProperty("id", id);
+                }
 
-            Node facetInstance = getOrAddNodeByPath(facetNode, metadataFacet.getName(), FACET_NODE_TYPE, true);
-            if (!facetInstance.hasProperty("archiva:facetId")) {
-                facetInstance.setProperty("archiva:facetId", id);
-                facetInstance.setProperty("archiva:name", metadataFacet.getName());
-            }
+                Node facetInstance = getOrAddNodeByPath(facetNode, metadataFacet.getName(), FACET_NODE_TYPE, true);
+                if (!facetInstance.hasProperty("archiva:facetId")) {
+                    facetInstance.setProperty("archiva:facetId", id);
+                    facetInstance.setProperty("archiva:name", metadataFacet.getName());
+                }
 
-            for (Map.Entry<String, String> entry : metadataFacet.toProperties().entrySet()) {
-                facetInstance.setProperty(entry.getKey(), entry.getValue());
+                for (Map.Entry<String, String> entry : metadataFacet.toProperties().entrySet()) {
+                    facetInstance.setProperty(entry.getKey(), entry.getValue());
+                }
             }
+            // all facets are persisted with a single save
             session.save();
         } catch (RepositoryException | MetadataSessionException e) {
             throw new MetadataRepositoryException(e.getMessage(), e);
@@ -742,12 +756,17 @@ private QueryResult queryArtifactByDateRange(Session jcrSession, String reposito
             query.setOffset(queryParameter.getOffset());
             query.setLimit(queryParameter.getLimit());
             ValueFactory valueFactory = jcrSession.getValueFactory();
+            Map<String, Value> bindings = new HashMap<>();
             if (startTime != null) {
-                query.bindValue("start", valueFactory.createValue(createCalendar(startTime.withZoneSameInstant(ModelInfo.STORAGE_TZ))));
+                bindings.put("start", valueFactory.createValue(createCalendar(startTime.withZoneSameInstant(ModelInfo.STORAGE_TZ))));
             }
             if (endTime != null) {
-                query.bindValue("end", valueFactory.createValue(createCalendar(endTime.withZoneSameInstant(ModelInfo.STORAGE_TZ))));
+                bindings.put("end", valueFactory.createValue(createCalendar(endTime.withZoneSameInstant(ModelInfo.STORAGE_TZ))));
+            }
+            for (Entry<String, Value> entry : bindings.entrySet()) {
+                query.bindValue(entry.getKey(), entry.getValue());
             }
+            logQueryPlan(jcrSession, q, bindings);
             return query.execute();
         } catch (RepositoryException e) {
             throw new MetadataRepositoryException(e.getMessage(), e);
@@ -798,17 +817,21 @@ public List<ArtifactMetadata> getArtifactsByChecksum(RepositorySession session,
         final Session jcrSession = getSession(session);
         List<ArtifactMetadata> artifacts;
 
-        String q = getArtifactQuery(repositoryId).append(" AND ([artifact].[checksums/*/value] = $checksum)").toString();
+        // the checksum nodes are matched by the property index on their value, instead of traversing the artifacts
+        String q = new StringBuilder(QUERY_ARTIFACTS_BY_CHECKSUM).append(" AND ISDESCENDANTNODE(artifact,'/")
+                .append(getRepositoryContentPath(repositoryId)).append("')").toString();
 
         try {
             Query query = jcrSession.getWorkspace().getQueryManager().createQuery(q, Query.JCR_SQL2);
-            ValueFactory valueFactory = jcrSession.getValueFactory();
-            query.bindValue("checksum", valueFactory.createValue(checksum));
+            Value value = jcrSession.getValueFactory().createValue(checksum);
+            query.bindValue("checksum", value);
+            logQueryPlan(jcrSession, q, Collections.singletonMap("checksum", value));
             QueryResult result = query.execute();
 
             artifacts = new ArrayList<>();
-            for (Node n : JcrUtils.getNodes(result)) {
-                artifacts.add(getArtifactFromNode(repositoryId, n));
+            RowIterator rows = result.getRows();
+            while (rows.hasNext()) {
+                artifacts.add(getArtifactFromNode(repositoryId, rows.nextRow().getNode("artifact")));
             }
         } catch (RepositoryException e) {
             throw new MetadataRepositoryException(e.getMessage(), e);
@@ -845,10 +868,7 @@ public List<ArtifactMetadata> runJcrQuery(final Session jcrSession, final String
         } catch (RepositoryException e) {
             throw new MetadataRepositoryException(e.getMessage(), e);
         }
-        log.info("Artifacts found {}", artifacts.size());
-        for (ArtifactMetadata meta : artifacts) {
-            log.info("Artifact: " + meta.getVersion() + " " + meta.getFacetList());
-        }
+        log.debug("Artifacts found {}", artifacts.size());
         return artifacts;
     }
 
@@ -871,12 +891,14 @@ public QueryResult runNativeJcrQuery(final Session jcrSession, final String q, f
             query.setLimit(maxEntries);
             query.setOffset(offset);
             ValueFactory valueFactory = jcrSession.getValueFactory();
+            Map<String, Value> values = new HashMap<>();
             for (Entry<String, String> entry : bindings.entrySet()) {
                 log.debug("Binding: {}={}", entry.getKey(), entry.getValue());
                 Value value = valueFactory.createValue(entry.getValue());
-                log.debug("Binding value {}={}", entry.getKey(), value);
                 query.bindValue(entry.getKey(), value);
+                values.put(entry.getKey(), value);
             }
+            logQueryPlan(jcrSession, q, values);
             long start = System.currentTimeMillis();
             log.debug("Execute query {}", query);
             QueryResult result = query.execute();
@@ -888,6 +910,27 @@ public QueryResult runNativeJcrQuery(final Session jcrSession, final String q, f
         }
     }
 
+    /**
+     * Logs the plan of the query on debug level, to show which index is used for the query.
+     */
+    private void logQueryPlan(final Session jcrSession, final String q, final Map<String, Value> bindings) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        try {
+            Query query = jcrSession.getWorkspace().getQueryManager().createQuery("EXPLAIN " + q, Query.JCR_SQL2);
+            for (Entry<String, Value> entry : bindings.entrySet()) {
+                query.bindValue(entry.getKey(), entry.getValue());
+            }
+            RowIterator rows = query.execute().getRows();
+            if (rows.hasNext()) {
+                log.debug("Query plan: {}, query={}", rows.nextRow().getValue("plan").getString(), q);
+            }
+        } catch (RepositoryException e) {
+            log.debug("Could not retrieve the plan of query {}: {}", q, e.getMessage());
+        }
+    }
+
     @Override
     public List<ArtifactMetadata> getArtifactsByProjectVersionFacet(RepositorySession session, String key, String value, String repositoryId)
             throws MetadataRepositoryException {
@@ -1558,6 +1601,10 @@ private List<String> getNodeNames(Session jcrSession, String path, String nodeTy
         return names;
     }
 
+    private static String getStatisticsPath(String repositoryId) {
+        return STATISTICS_NODE + "/" + repositoryId;
+    }
+
     private static String getRepositoryPath(String repositoryId) {
         return "repositories/" + repositoryId;
     }
@@ -1756,9 +1803,19 @@ public void populateStatistics(RepositorySession repositorySession, MetadataRepo
                     "The statistics population is only possible for JcrMetdataRepository implementations");
         }
         Session session = getSession(repositorySession);
-        // TODO: these may be best as running totals, maintained by observations on the properties in JCR
 
         try {
+            String statisticsPath = getStatisticsPath(repositoryId);
+            if (!session.getRootNode().hasNode(statisticsPath) && initializeStatistics(repositoryId)) {
+                session.refresh(true);
+            }
+            Node root = session.getRootNode();
+            if (root.hasNode(statisticsPath)) {
+                // Running totals maintained by the RepositoryStatisticsEditorProvider
+                readStatistics(root.getNode(statisticsPath), repositoryStatistics);
+                return;
+            }
+
             QueryManager queryManager = session.getWorkspace().getQueryManager();
 
             // TODO: Check, if this is still the case - Switched to Jackrabbit OAK with archiva 3.0
@@ -1817,6 +1874,48 @@ public void populateStatistics(RepositorySession repositorySession, MetadataRepo
         }
     }
 
+    private void readStatistics(Node statisticsNode, RepositoryStatistics repositoryStatistics) throws RepositoryException {
+        repositoryStatistics.setTotalArtifactCount(getPropertyLong(statisticsNode, STATISTICS_ARTIFACT_COUNT));
+        repositoryStatistics.setTotalArtifactFileSize(getPropertyLong(statisticsNode, STATISTICS_ARTIFACT_SIZE));
+        repositoryStatistics.setTotalProjectCount(getPropertyLong(statisticsNode, STATISTICS_PROJECT_COUNT));
+        repositoryStatistics.setTotalGroupCount(getPropertyLong(statisticsNode, STATISTICS_GROUP_COUNT));
+        if (statisticsNode.hasNode(STATISTICS_TYPES_NODE)) {
+            for (Property property : JcrUtils.getProperties(statisticsNode.getNode(STATISTICS_TYPES_NODE))) {
+                if (!property.getName().startsWith("jcr:")) {
+                    repositoryStatistics.setTotalCountForType(Text.unescapeIllegalJcrChars(property.getName()), property.getLong());
+                }
+            }
+        }
+    }
+
+    /*
+     * Requests the initial count of the running totals. The RepositoryStatisticsEditorProvider counts the
+     * repository content in the commit that adds the statistics node, so commits that run concurrently are
+     * either part of the initial count or update the counters afterwards.
+     * A separate session is used to avoid saving pending changes of the caller.
+     */
+    private boolean initializeStatistics(String repositoryId) {
+        Session session = null;
+        try {
+            session = login();
+            Node statisticsNode = JcrUtils.getOrAddNode(session.getRootNode(), STATISTICS_NODE, NT_UNSTRUCTURED);
+            statisticsNode = JcrUtils.getOrAddNode(statisticsNode, repositoryId, NT_UNSTRUCTURED);
+            statisticsNode.setProperty(STATISTICS_INITIALIZE, true);
+            session.save();
+            return true;
+        } catch (RepositoryException e) {
+            log.warn("Could not initialize the statistics counters of repository {}: {}", repositoryId, e.getMessage());
+            return false;
+        } finally {
+            if (session != null) {
+                session.logout();
+            }
+        }
+    }
+
+    private static long getPropertyLong(Node node, String name) throws RepositoryException {
+        return node.hasProperty(name) ? node.getProperty(name).getLong() : 0;
+    }
 
     public Session login() throws RepositoryException {
         return repository.login(new SimpleCredentials("admin", "admin".toCharArray()));
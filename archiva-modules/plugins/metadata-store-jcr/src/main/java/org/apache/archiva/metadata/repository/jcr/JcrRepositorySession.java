@@ -84,7 +84,6 @@ protected boolean isDirty( )
     @Override
     public void save( ) throws MetadataSessionException
     {
-        super.save( );
         try
         {
             jcrSession.save();
@@ -93,6 +92,8 @@ public void save( ) throws MetadataSessionException
         {
             throw new MetadataSessionException( e.getMessage( ), e );
         }
+        // runs the after save actions, when the changes are persisted
+        super.save( );
     }
 
     @Override
@@ -20,6 +20,7 @@
  */
 
 import org.apache.commons.lang3.time.StopWatch;
+import org.apache.jackrabbit.oak.api.PropertyState;
 import org.apache.jackrabbit.oak.api.Type;
 import org.apache.jackrabbit.oak.jcr.Jcr;
 import org.apache.jackrabbit.oak.plugins.index.AsyncIndexInfoService;
@@ -108,6 +109,20 @@
 
     private Logger log = LoggerFactory.getLogger( OakRepositoryFactory.class );
 
+    /**
+     * The version of the index definitions. Existing definitions with a lower version are replaced on startup.
+     * Increase it with every change of the repo-lucene definition: the first startup after the upgrade drops
+     * the old index and reindexes the whole content repository, which takes a while on large repositories.
+     * Queries served by the Lucene index return incomplete results until the asynchronous reindex has finished.
+     */
+    static final long INDEX_VERSION = 2;
+
+    static final String INDEX_VERSION_PROPERTY = "archivaIndexVersion";
+
+    static final String CHECKSUM_INDEX = "archivaChecksums";
+
+    static final String FACET_ID_INDEX = "archivaFacetIds";
+
     private FileStore fileStore;
 
     private NodeStore nodeStore;
@@ -433,6 +448,24 @@ private IndexDefinitionBuilder.PropertyRule initBaseRule( IndexDefinitionBuilder
                     .property( "id" ).propertyIndex().analyzed( );
             }
 
+            private boolean isOutdated( NodeBuilder index ) {
+                PropertyState version = index.getProperty( INDEX_VERSION_PROPERTY );
+                return version == null || version.getValue( Type.LONG ) < INDEX_VERSION;
+            }
+
+            /**
+             * Creates a synchronous property index, if it does not exist. The property indexes are updated
+             * with each commit, so that lookups by exact value find the artifacts immediately after they are stored.
+             */
+            private void initPropertyIndex( NodeBuilder oakIdx, String name, List<String> propertyNames, String nodeType ) {
+                if ( !oakIdx.hasChildNode( name ) )
+                {
+                    log.info( "Creating property index {} for {} on {}", name, propertyNames, nodeType );
+                    IndexUtils.createIndexDefinition( oakIdx, name, true, false, propertyNames,
+                        Collections.singletonList( nodeType ) );
+                }
+            }
+
             @Override
             public void initialize(  NodeBuilder root )
             {
@@ -451,8 +484,14 @@ public void initialize(  NodeBuilder root )
                 log.info( "Creating index " );
 
                 NodeBuilder oakIdx = IndexUtils.getOrCreateOakIndex( root );
-                if (!oakIdx.hasChildNode( "repo-lucene" ))
+                boolean indexExists = oakIdx.hasChildNode( "repo-lucene" );
+                if ( !indexExists || isOutdated( oakIdx.getChildNode( "repo-lucene" ) ) )
                 {
+                    if ( indexExists )
+                    {
+                        log.info( "Updating index repo-lucene to version {}", INDEX_VERSION );
+                        oakIdx.getChildNode( "repo-lucene" ).remove( );
+                    }
                     NodeBuilder lucene = oakIdx.child( "repo-lucene" );
                     lucene.setProperty( JCR_PRIMARYTYPE, "oak:QueryIndexDefinition", NAME );
 
@@ -490,14 +529,14 @@ public void initialize(  NodeBuilder root )
                     initBaseRule(idxBuilder.indexRule( ARTIFACT_NODE_TYPE ))
                         .property( "whenGathered" ).type("Date").propertyIndex().analyzed().ordered()
                         .property("size").type("Long").propertyIndex().analyzed().ordered()
-                        .property("version").propertyIndex().analyzed().ordered()
-                        .property("checksums/*/value").propertyIndex();
+                        .property("version").propertyIndex().analyzed().ordered();
 
                     initBaseRule( idxBuilder.indexRule( CHECKSUM_NODE_TYPE ) )
                         .property("type").propertyIndex()
                         .property("value").propertyIndex();
 
                     initRegexAll( idxBuilder.indexRule( FACET_NODE_TYPE ) )
+                        .property("facetId").propertyIndex()
                         .property("archiva:facetId").propertyIndex().analyzed().ordered()
                         .property("archiva:name").propertyIndex().analyzed().ordered().nullCheckEnabled().notNullCheckEnabled();
 
@@ -533,17 +572,26 @@ public void initialize(  NodeBuilder root )
                         .path("dependencies/*" ).relativeNode();
 
                     idxBuilder.build( );
-
-                    List<String> parameterList = Arrays.asList("jcr:uuid", "rep:principalName");
-                    parameterList = Collections.unmodifiableList(parameterList);
-                    IndexUtils.createIndexDefinition( oakIdx, "baseIndexes", true, false, parameterList, null );
+                    lucene.setProperty( INDEX_VERSION_PROPERTY, INDEX_VERSION );
+                    if ( indexExists )
+                    {
+                        lucene.setProperty( "reindex", true );
+                    }
 
                     log.info( "Index: {} repo-lucene: {}", lucene, lucene.getChildNode( "repo-lucene" ) );
                     log.info( "repo-lucene Properties: {}", lucene.getChildNode( "repo-lucene" ).getProperties( ) );
                 } else {
                     log.info( "No Index update" );
                 }
-                // IndexUtils.createIndexDefinition(  )
+
+                if ( !oakIdx.hasChildNode( "baseIndexes" ) )
+                {
+                    List<String> parameterList = Arrays.asList( "jcr:uuid", "rep:principalName" );
+                    parameterList = Collections.unmodifiableList( parameterList );
+                    IndexUtils.createIndexDefinition( oakIdx, "baseIndexes", true, false, parameterList, null );
+                }
+                initPropertyIndex( oakIdx, CHECKSUM_INDEX, Collections.singletonList( "value" ), CHECKSUM_NODE_TYPE );
+                initPropertyIndex( oakIdx, FACET_ID_INDEX, Arrays.asList( "facetId", "archiva:facetId" ), FACET_NODE_TYPE );
 
             }
         };
@@ -557,6 +605,7 @@ public void initialize(  NodeBuilder root )
 
         log.info( "Starting Jcr repo with nodeStore {}", nodeStore );
         Jcr jcr = new Jcr( nodeStore ).with( editorProvider ) //
+            .with( new RepositoryStatisticsEditorProvider( ) ) //
             .with( backgroundObserver ) //
             .with( externalIndexObserver )
             // .with(observer)
@@ -0,0 +1,434 @@
+package org.apache.archiva.metadata.repository.jcr;
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+import org.apache.archiva.metadata.maven.model.MavenArtifactFacet;
+import org.apache.jackrabbit.oak.api.PropertyState;
+import org.apache.jackrabbit.oak.api.Type;
+import org.apache.jackrabbit.oak.spi.commit.CommitInfo;
+import org.apache.jackrabbit.oak.spi.commit.DefaultEditor;
+import org.apache.jackrabbit.oak.spi.commit.Editor;
+import org.apache.jackrabbit.oak.spi.commit.EditorProvider;
+import org.apache.jackrabbit.oak.spi.state.ChildNodeEntry;
+import org.apache.jackrabbit.oak.spi.state.NodeBuilder;
+import org.apache.jackrabbit.oak.spi.state.NodeState;
+import org.apache.jackrabbit.util.Text;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.archiva.metadata.repository.jcr.JcrConstants.*;
+import static org.apache.jackrabbit.JcrConstants.JCR_MIXINTYPES;
+import static org.apache.jackrabbit.JcrConstants.JCR_PRIMARYTYPE;
+import static org.apache.jackrabbit.JcrConstants.NT_UNSTRUCTURED;
+
+/**
+ * Commit editor that maintains running totals of the repository statistics.
+ *
+ * The editor inspects the changes of each commit below <code>/repositories/&lt;id&gt;/content</code>
+ * and applies the differences of artifact count, artifact size, artifact types, project count and
+ * group count to the node <code>/statistics/&lt;id&gt;</code>. Because the editor runs as part of the commit,
+ * the counters are updated in the same transaction as the artifact nodes.
+ *
+ * The counters are only updated, if the statistics node exists, or if the repository content is created
+ * by the current commit. Repositories that existed before the statistics node are initialized by
+ * {@link JcrMetadataRepository#populateStatistics}, which adds the statistics node with the property
+ * <code>initialize</code>. The editor counts the whole repository content in that commit, so the initial
+ * values are consistent with the commits before and after it.
+ *
+ * @since 3.0.0
+ */
+public class RepositoryStatisticsEditorProvider implements EditorProvider
+{
+    private static final Logger log = LoggerFactory.getLogger( RepositoryStatisticsEditorProvider.class );
+
+    static final String REPOSITORIES_NODE = "repositories";
+    static final String CONTENT_NODE = "content";
+
+    // Node types that cannot contain artifacts, projects or namespaces.
+    private static final Set<String> LEAF_TYPES = Collections.unmodifiableSet( new HashSet<>( Arrays.asList(
+        ARTIFACT_NODE_TYPE, FACET_NODE_TYPE, CHECKSUMS_FOLDER_TYPE, DEPENDENCIES_FOLDER_TYPE,
+        LICENSES_FOLDER_TYPE, MAILINGLISTS_FOLDER_TYPE ) ) );
+
+    @Override
+    public Editor getRootEditor( NodeState before, NodeState after, NodeBuilder builder, CommitInfo info )
+    {
+        return new RootEditor( builder );
+    }
+
+    /*
+     * Replaces the counters of the repository with the totals of the current repository content.
+     */
+    private static void recount( NodeBuilder root, NodeState rootState, String repositoryId )
+    {
+        log.debug( "Counting the content of repository {}", repositoryId );
+        StatisticsDelta totals = new StatisticsDelta( );
+        count( rootState.getChildNode( REPOSITORIES_NODE ).getChildNode( repositoryId ).getChildNode( CONTENT_NODE ),
+            totals );
+        NodeBuilder stats = getOrAddUnstructured( getOrAddUnstructured( root, STATISTICS_NODE ), repositoryId );
+        stats.removeProperty( STATISTICS_INITIALIZE );
+        for ( String name : Arrays.asList( STATISTICS_ARTIFACT_COUNT, STATISTICS_ARTIFACT_SIZE,
+            STATISTICS_PROJECT_COUNT, STATISTICS_GROUP_COUNT ) )
+        {
+            stats.setProperty( name, 0L, Type.LONG );
+        }
+        if ( stats.hasChildNode( STATISTICS_TYPES_NODE ) )
+        {
+            stats.getChildNode( STATISTICS_TYPES_NODE ).remove( );
+        }
+        totals.applyTo( stats );
+    }
+
+    private static void count( NodeState parent, StatisticsDelta totals )
+    {
+        for ( ChildNodeEntry entry : parent.getChildNodeEntries( ) )
+        {
+            NodeState child = entry.getNodeState( );
+            totals.add( child, 1 );
+            if ( ContentEditor.isContainer( child ) )
+            {
+                count( child, totals );
+            }
+        }
+    }
+
+    private static void removeStatistics( NodeBuilder root, String repositoryId )
+    {
+        NodeBuilder stats = root.getChildNode( STATISTICS_NODE ).getChildNode( repositoryId );
+        if ( stats.exists( ) )
+        {
+            log.debug( "Removing statistics of repository {}", repositoryId );
+            stats.remove( );
+        }
+    }
+
+    private static class RootEditor extends DefaultEditor
+    {
+        private final NodeBuilder root;
+        private final Set<String> initialize = new HashSet<>( );
+
+        RootEditor( NodeBuilder root )
+        {
+            this.root = root;
+        }
+
+        @Override
+        public Editor childNodeAdded( String name, NodeState after )
+        {
+            return childNodeChanged( name, null, after );
+        }
+
+        @Override
+        public Editor childNodeChanged( String name, NodeState before, NodeState after )
+        {
+            if ( REPOSITORIES_NODE.equals( name ) )
+            {
+                return new RepositoriesEditor( root );
+            }
+            return STATISTICS_NODE.equals( name ) ? new StatisticsEditor( initialize ) : null;
+        }
+
+        @Override
+        public void leave( NodeState before, NodeState after )
+        {
+            for ( String repositoryId : initialize )
+            {
+                recount( root, after, repositoryId );
+            }
+        }
+
+        @Override
+        public Editor childNodeDeleted( String name, NodeState before )
+        {
+            if ( REPOSITORIES_NODE.equals( name ) && root.hasChildNode( STATISTICS_NODE ) )
+            {
+                root.getChildNode( STATISTICS_NODE ).remove( );
+            }
+            return null;
+        }
+    }
+
+    /*
+     * Collects the repositories, whose statistics node requests an initial count.
+     */
+    private static class StatisticsEditor extends DefaultEditor
+    {
+        private final Set<String> initialize;
+
+        StatisticsEditor( Set<String> initialize )
+        {
+            this.initialize = initialize;
+        }
+
+        @Override
+        public Editor childNodeAdded( String name, NodeState after )
+        {
+            return childNodeChanged( name, null, after );
+        }
+
+        @Override
+        public Editor childNodeChanged( String name, NodeState before, NodeState after )
+        {
+            if ( after.getBoolean( STATISTICS_INITIALIZE ) )
+            {
+                initialize.add( name );
+            }
+            return null;
+        }
+    }
+
+    private static class RepositoriesEditor extends DefaultEditor
+    {
+        private final NodeBuilder root;
+
+        RepositoriesEditor( NodeBuilder root )
+        {
+            this.root = root;
+        }
+
+        @Override
+        public Editor childNodeAdded( String name, NodeState after )
+        {
+            return new RepositoryEditor( root, name, false );
+        }
+
+        @Override
+        public Editor childNodeChanged( String name, NodeState before, NodeState after )
+        {
+            return new RepositoryEditor( root, name, before.hasChildNode( CONTENT_NODE ) );
+        }
+
+        @Override
+        public Editor childNodeDeleted( String name, NodeState before )
+        {
+            removeStatistics( root, name );
+            return null;
+        }
+    }
+
+    private static class RepositoryEditor extends DefaultEditor
+    {
+        private final NodeBuilder root;
+        private final String repositoryId;
+        private final boolean existedBefore;
+        private final StatisticsDelta delta = new StatisticsDelta( );
+        private boolean removed = false;
+
+        RepositoryEditor( NodeBuilder root, String repositoryId, boolean existedBefore )
+        {
+            this.root = root;
+            this.repositoryId = repositoryId;
+            this.existedBefore = existedBefore;
+        }
+
+        @Override
+        public Editor childNodeAdded( String name, NodeState after )
+        {
+            return CONTENT_NODE.equals( name ) ? new ContentEditor( delta ) : null;
+        }
+
+        @Override
+        public Editor childNodeChanged( String name, NodeState before, NodeState after )
+        {
+            return CONTENT_NODE.equals( name ) ? new ContentEditor( delta ) : null;
+        }
+
+        @Override
+        public Editor childNodeDeleted( String name, NodeState before )
+        {
+            if ( CONTENT_NODE.equals( name ) )
+            {
+                removeStatistics( root, repositoryId );
+                removed = true;
+            }
+            return null;
+        }
+
+        @Override
+        public void leave( NodeState before, NodeState after )
+        {
+            if ( removed || delta.isEmpty( ) )
+            {
+                return;
+            }
+            NodeBuilder stats = root.getChildNode( STATISTICS_NODE ).getChildNode( repositoryId );
+            if ( !stats.exists( ) )
+            {
+                if ( existedBefore )
+                {
+                    // The counters are initialized on the first statistics request
+                    log.debug( "Statistics of repository {} are not initialized. Skipping update.", repositoryId );
+                    return;
+                }
+                stats = getOrAddUnstructured( getOrAddUnstructured( root, STATISTICS_NODE ), repositoryId );
+            }
+            delta.applyTo( stats );
+        }
+    }
+
+    private static class ContentEditor extends DefaultEditor
+    {
+        private final StatisticsDelta delta;
+
+        ContentEditor( StatisticsDelta delta )
+        {
+            this.delta = delta;
+        }
+
+        @Override
+        public Editor childNodeAdded( String name, NodeState after )
+        {
+            delta.add( after, 1 );
+            return isContainer( after ) ? this : null;
+        }
+
+        @Override
+        public Editor childNodeChanged( String name, NodeState before, NodeState after )
+        {
+            delta.add( before, -1 );
+            delta.add( after, 1 );
+            return isContainer( before ) || isContainer( after ) ? this : null;
+        }
+
+        @Override
+        public Editor childNodeDeleted( String name, NodeState before )
+        {
+            delta.add( before, -1 );
+            return isContainer( before ) ? this : null;
+        }
+
+        static boolean isContainer( NodeState state )
+        {
+            String primaryType = state.getName( JCR_PRIMARYTYPE );
+            return primaryType == null || !LEAF_TYPES.contains( primaryType );
+        }
+    }
+
+    /**
+     * Collects the changes of the statistics values of a single repository during a commit.
+     */
+    static class StatisticsDelta
+    {
+        long artifactCount = 0;
+        long artifactSize = 0;
+        long projectCount = 0;
+        long groupCount = 0;
+        final Map<String, Long> typeCount = new HashMap<>( );
+
+        void add( NodeState state, int sign )
+        {
+            if ( ARTIFACT_NODE_TYPE.equals( state.getName( JCR_PRIMARYTYPE ) ) )
+            {
+                artifactCount += sign;
+                artifactSize += sign * getLong( state, "size" );
+                typeCount.merge( getArtifactType( state ), (long) sign, Long::sum );
+            }
+            for ( String mixin : state.getNames( JCR_MIXINTYPES ) )
+            {
+                if ( PROJECT_MIXIN_TYPE.equals( mixin ) )
+                {
+                    projectCount += sign;
+                }
+                else if ( NAMESPACE_MIXIN_TYPE.equals( mixin ) && state.hasProperty( "namespace" ) )
+                {
+                    groupCount += sign;
+                }
+            }
+        }
+
+        boolean isEmpty( )
+        {
+            return artifactCount == 0 && artifactSize == 0 && projectCount == 0 && groupCount == 0
+                && typeCount.values( ).stream( ).allMatch( v -> v == 0 );
+        }
+
+        void applyTo( NodeBuilder stats )
+        {
+            increment( stats, STATISTICS_ARTIFACT_COUNT, artifactCount );
+            increment( stats, STATISTICS_ARTIFACT_SIZE, artifactSize );
+            increment( stats, STATISTICS_PROJECT_COUNT, projectCount );
+            increment( stats, STATISTICS_GROUP_COUNT, groupCount );
+            NodeBuilder types = getOrAddUnstructured( stats, STATISTICS_TYPES_NODE );
+            for ( Map.Entry<String, Long> entry : typeCount.entrySet( ) )
+            {
+                String name = Text.escapeIllegalJcrChars( entry.getKey( ) );
+                if ( entry.getValue( ) != 0 )
+                {
+                    long value = increment( types, name, entry.getValue( ) );
+                    if ( value <= 0 )
+                    {
+                        types.removeProperty( name );
+                    }
+                }
+            }
+        }
+
+        private static long increment( NodeBuilder builder, String name, long delta )
+        {
+            long value = getLong( builder.getProperty( name ) ) + delta;
+            builder.setProperty( name, value, Type.LONG );
+            return value;
+        }
+
+        private static String getArtifactType( NodeState artifactState )
+        {
+            NodeState facet = artifactState.getChildNode( MavenArtifactFacet.FACET_ID );
+            String type = facet.exists( ) ? facet.getString( "type" ) : null;
+            return type == null ? "Other" : type;
+        }
+
+        private static long getLong( NodeState state, String name )
+        {
+            return getLong( state.getProperty( name ) );
+        }
+
+        private static long getLong( PropertyState property )
+        {
+            if ( property == null || property.isArray( ) )
+            {
+                return 0;
+            }
+            try
+            {
+                return property.getValue( Type.LONG );
+            }
+            catch ( RuntimeException e )
+            {
+                return 0;
+            }
+        }
+    }
+
+    private static NodeBuilder getOrAddUnstructured( NodeBuilder parent, String name )
+    {
+        NodeBuilder child = parent.child( name );
+        if ( !child.hasProperty( JCR_PRIMARYTYPE ) )
+        {
+            child.setProperty( JCR_PRIMARYTYPE, NT_UNSTRUCTURED, Type.NAME );
+        }
+        return child;
+    }
+}
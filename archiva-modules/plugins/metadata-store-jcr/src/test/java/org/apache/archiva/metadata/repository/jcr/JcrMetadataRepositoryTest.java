@@ -19,8 +19,11 @@
  * under the License.
  */
 
+import org.apache.archiva.metadata.generic.GenericMetadataFacet;
 import org.apache.archiva.metadata.model.ArtifactMetadata;
+import org.apache.archiva.metadata.model.MetadataFacet;
 import org.apache.archiva.metadata.model.MetadataFacetFactory;
+import org.apache.archiva.metadata.model.ProjectVersionMetadata;
 import org.apache.archiva.metadata.repository.AbstractMetadataRepositoryTest;
 import org.apache.archiva.metadata.repository.DefaultMetadataResolver;
 import org.apache.archiva.metadata.repository.MetadataRepositoryException;
@@ -39,7 +42,9 @@
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.ZonedDateTime;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -76,6 +81,12 @@ public static void setupSpec( ) throws IOException, InvalidFileStoreVersionExcep
             org.apache.archiva.common.utils.FileUtils.deleteDirectory( directory );
         }
 
+        openSessionFactory( );
+
+    }
+
+    private static void openSessionFactory( )
+    {
         List<MetadataFacetFactory> factories = createTestMetadataFacetFactories( );
         MetadataService metadataService = new MetadataService();
         metadataService.setMetadataFacetFactories( factories );
@@ -86,7 +97,6 @@ public static void setupSpec( ) throws IOException, InvalidFileStoreVersionExcep
         jcrSessionFactory.open( );
         sessionFactory = jcrSessionFactory;
         repository = jcrSessionFactory.getMetadataRepository( );
-
     }
 
     @Before
@@ -135,6 +145,103 @@ public static void stopSpec( )
     }
 
 
+    @Test
+    public void testIndexDefinitions( )
+        throws Exception
+    {
+        try ( RepositorySession session = sessionFactory.createSession( ) )
+        {
+            Session jcrSession = ( (JcrRepositorySession) session ).getJcrSession( );
+            assertThat( jcrSession.nodeExists( "/oak:index/" + OakRepositoryFactory.CHECKSUM_INDEX ) ).isTrue( );
+            assertThat( jcrSession.nodeExists( "/oak:index/" + OakRepositoryFactory.FACET_ID_INDEX ) ).isTrue( );
+            assertThat( jcrSession.getNode( "/oak:index/repo-lucene" )
+                .getProperty( OakRepositoryFactory.INDEX_VERSION_PROPERTY ).getLong( ) )
+                .isEqualTo( OakRepositoryFactory.INDEX_VERSION );
+        }
+    }
+
+    /**
+     * Stores the content with an index of the previous version, and restarts the repository like the first
+     * startup after an upgrade. The checksum and facet lookups must find the content stored before the upgrade.
+     */
+    @Test
+    public void testLookupsAfterIndexUpgrade( )
+        throws Exception
+    {
+        String sha1 = "d4bd5b4c8ed1a0fe9a7c4b9f28b7b5a5ba4e6a2f";
+        String md5 = "6f1ed002ab5595859014ebf0951522d9";
+        try ( RepositorySession session = sessionFactory.createSession( ) )
+        {
+            ArtifactMetadata artifact = new ArtifactMetadata( );
+            artifact.setId( TEST_PROJECT + "-" + TEST_PROJECT_VERSION + ".jar" );
+            artifact.setWhenGathered( ZonedDateTime.now( ) );
+            artifact.setNamespace( TEST_NAMESPACE );
+            artifact.setProject( TEST_PROJECT );
+            artifact.setRepositoryId( TEST_REPO_ID );
+            artifact.setFileLastModified( System.currentTimeMillis( ) );
+            artifact.setVersion( TEST_PROJECT_VERSION );
+            artifact.setProjectVersion( TEST_PROJECT_VERSION );
+            artifact.setSha1( sha1 );
+            artifact.setMd5( md5 );
+            artifact.addFacet( createGenericFacet( "artifactkey", "artifactvalue" ) );
+            repository.updateArtifact( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, TEST_PROJECT_VERSION, artifact );
+
+            ProjectVersionMetadata metadata =
+                repository.getProjectVersion( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, TEST_PROJECT_VERSION );
+            metadata.addFacet( createGenericFacet( "versionkey", "versionvalue" ) );
+            repository.updateProjectVersion( session, TEST_REPO_ID, TEST_NAMESPACE, TEST_PROJECT, metadata );
+            session.save( );
+
+            // turn the index definitions back into the state before the upgrade
+            Session jcrSession = ( (JcrRepositorySession) session ).getJcrSession( );
+            jcrSession.removeItem( "/oak:index/" + OakRepositoryFactory.CHECKSUM_INDEX );
+            jcrSession.removeItem( "/oak:index/" + OakRepositoryFactory.FACET_ID_INDEX );
+            jcrSession.getNode( "/oak:index/repo-lucene" )
+                .setProperty( OakRepositoryFactory.INDEX_VERSION_PROPERTY, OakRepositoryFactory.INDEX_VERSION - 1 );
+            session.save( );
+        }
+
+        repository.close( );
+        sessionFactory.close( );
+        openSessionFactory( );
+
+        try ( RepositorySession session = sessionFactory.createSession( ) )
+        {
+            Session jcrSession = ( (JcrRepositorySession) session ).getJcrSession( );
+            assertThat( jcrSession.nodeExists( "/oak:index/" + OakRepositoryFactory.CHECKSUM_INDEX ) ).isTrue( );
+            assertThat( jcrSession.nodeExists( "/oak:index/" + OakRepositoryFactory.FACET_ID_INDEX ) ).isTrue( );
+            assertThat( jcrSession.getNode( "/oak:index/repo-lucene" )
+                .getProperty( OakRepositoryFactory.INDEX_VERSION_PROPERTY ).getLong( ) )
+                .isEqualTo( OakRepositoryFactory.INDEX_VERSION );
+
+            // the property indexes are built synchronously with the commit of the startup
+            assertThat( repository.getArtifactsByChecksum( session, TEST_REPO_ID, sha1 ) )
+                .extracting( ArtifactMetadata::getId ).containsExactly( TEST_PROJECT + "-" + TEST_PROJECT_VERSION + ".jar" );
+            assertThat( repository.getArtifactsByChecksum( session, TEST_REPO_ID, md5 ) ).hasSize( 1 );
+            assertThat( repository.getArtifactsByAttribute( session, "facetId", GenericMetadataFacet.FACET_ID, TEST_REPO_ID ) )
+                .hasSize( 1 );
+        }
+
+        // the repo-lucene index is rebuilt asynchronously
+        tryAssert( ( ) -> {
+            try ( RepositorySession session = sessionFactory.createSession( ) )
+            {
+                session.refreshAndDiscard( );
+                assertThat( repository.getArtifactsByAttribute( session, "artifactkey", "artifactvalue", TEST_REPO_ID ) )
+                    .hasSize( 1 );
+                assertThat( repository.getArtifactsByProjectVersionFacet( session, "versionkey", "versionvalue", TEST_REPO_ID ) )
+                    .hasSize( 1 );
+            }
+        } );
+    }
+
+    private static MetadataFacet createGenericFacet( String key, String value )
+    {
+        MetadataFacet facet = new GenericMetadataFacet( );
+        facet.fromProperties( Collections.singletonMap( key, value ) );
+        return facet;
+    }
+
     @Test
     public void testSearchArtifactsByKey( )
         throws Exception
@@ -278,6 +278,39 @@ public void testJcrStatisticsQuery()
             assertEquals(95954585, testedStatistics.getTotalArtifactFileSize());
         });
 
+            // The running totals are updated by the commit that removes the artifact
+            final String repoId = "another-repo";
+            assertTrue( jcrSession.getRootNode( ).hasNode( "statistics/" + repoId ) );
+            Node artifactNode = jcrSession.getRootNode( ).getNode( "repositories/" + repoId + "/content/org/apache/archiva/archiva/1.1/archiva-1.1.pom" );
+            long artifactSize = artifactNode.getProperty( "size" ).getLong( );
+            artifactNode.remove( );
+            jcrSession.save( );
+
+            DefaultRepositoryStatistics updatedStatistics = new DefaultRepositoryStatistics();
+            repository.populateStatistics(repSession, repository, repoId, updatedStatistics);
+            assertEquals(268, updatedStatistics.getTotalArtifactCount());
+            assertEquals(95954585 - artifactSize, updatedStatistics.getTotalArtifactFileSize());
+            assertEquals(143, updatedStatistics.getTotalCountForType("pom"));
+            assertEquals(108, updatedStatistics.getTotalCountForType("jar"));
+            assertEquals(1, updatedStatistics.getTotalGroupCount());
+            assertEquals(43, updatedStatistics.getTotalProjectCount());
+
+            // Counters that are removed are counted again on the next request
+            jcrSession.getRootNode( ).getNode( "statistics/" + TEST_REPO ).remove( );
+            jcrSession.save( );
+            DefaultRepositoryStatistics recountedStatistics = new DefaultRepositoryStatistics();
+            repository.populateStatistics(repSession, repository, TEST_REPO, recountedStatistics);
+            assertTrue( jcrSession.getRootNode( ).hasNode( "statistics/" + TEST_REPO ) );
+            assertFalse( jcrSession.getRootNode( ).getNode( "statistics/" + TEST_REPO ).hasProperty( "initialize" ) );
+            assertEquals(269, recountedStatistics.getTotalArtifactCount());
+            assertEquals(95954585, recountedStatistics.getTotalArtifactFileSize());
+            assertEquals(144, recountedStatistics.getTotalCountForType("pom"));
+            assertEquals(1, recountedStatistics.getTotalGroupCount());
+            assertEquals(43, recountedStatistics.getTotalProjectCount());
+
+            repository.removeRepository( repSession, repoId );
+            jcrSession.save( );
+            assertFalse( jcrSession.getRootNode( ).hasNode( "statistics/" + repoId ) );
         }
     }
 
@@ -26,7 +26,7 @@
 import org.apache.archiva.metadata.repository.RepositorySession;
 import org.apache.archiva.metadata.repository.RepositorySessionFactory;
 import org.apache.archiva.metadata.repository.storage.RepositoryStorageMetadataException;
-import org.apache.archiva.metadata.audit.RepositoryListener;
+import org.apache.archiva.metadata.audit.AsyncRepositoryListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -36,26 +36,33 @@
 /**
  * Process repository management events and respond appropriately.
  *
+ * The events are processed asynchronously in batches, see {@link AsyncRepositoryListener}.
  */
 @Service( "repositoryListener#problem-reports" )
 public class RepositoryProblemEventListener
-    implements RepositoryListener
+    extends AsyncRepositoryListener
 {
     private Logger log = LoggerFactory.getLogger( RepositoryProblemEventListener.class );
 
     @Inject
     private RepositorySessionFactory repositorySessionFactory;
 
-    // FIXME: move to session
     @Override
-    public void deleteArtifact( MetadataRepository metadataRepository, String repositoryId, String namespace,
-                                String project, String version, String id )
+    protected RepositorySessionFactory getRepositorySessionFactory( )
+    {
+        return repositorySessionFactory;
+    }
+
+    @Override
+    protected void processDeleteArtifact( RepositorySession session, String repositoryId, String namespace,
+                                          String project, String version, String id )
     {
         String name = RepositoryProblemFacet.createName( namespace, project, version, id );
 
-        try(RepositorySession session = repositorySessionFactory.createSession())
+        try
         {
-            metadataRepository.removeMetadataFacet(session , repositoryId, RepositoryProblemFacet.FACET_ID, name );
+            session.getRepository().removeMetadataFacet(session , repositoryId, RepositoryProblemFacet.FACET_ID, name );
+            session.markDirty();
         }
         catch ( MetadataRepositoryException e )
         {
@@ -64,8 +71,8 @@ public void deleteArtifact( MetadataRepository metadataRepository, String reposi
     }
 
     @Override
-    public void addArtifact( RepositorySession session, String repoId, String namespace, String projectId,
-                             ProjectVersionMetadata metadata )
+    protected void processAddArtifact( RepositorySession session, String repoId, String namespace, String projectId,
+                                       ProjectVersionMetadata metadata )
     {
         // Remove problems associated with this version on successful addition
         // TODO: this removes all problems - do we need something that just remove the problems we know are corrected?
@@ -84,8 +91,9 @@ public void addArtifact( RepositorySession session, String repoId, String namesp
     }
 
     @Override
-    public void addArtifactProblem( RepositorySession session, String repoId, String namespace, String projectId,
-                                    String projectVersion, RepositoryStorageMetadataException exception )
+    protected void processAddArtifactProblem( RepositorySession session, String repoId, String namespace,
+                                              String projectId, String projectVersion,
+                                              RepositoryStorageMetadataException exception )
     {
         RepositoryProblemFacet problem = new RepositoryProblemFacet();
         problem.setMessage( exception.getMessage() );